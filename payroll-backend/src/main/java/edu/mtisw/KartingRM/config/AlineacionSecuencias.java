@@ -0,0 +1,61 @@
+package edu.mtisw.KartingRM.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Las entidades pasaron de columnas IDENTITY a secuencias con pool, para que
+ * Hibernate pueda agrupar los INSERT en lotes. En una base que ya tenía datos
+ * la secuencia nueva parte en 1, así que al arrancar se adelanta hasta el
+ * mayor ID de su tabla. Solo aplica a PostgreSQL; si la secuencia ya va más
+ * adelante (otra réplica arrancó antes) no se toca.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class AlineacionSecuencias {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlineacionSecuencias.class);
+
+    // Tabla -> secuencia declarada en su entidad
+    private static final Map<String, String> SECUENCIAS = new LinkedHashMap<>();
+
+    static {
+        SECUENCIAS.put("clientes", "clientes_seq");
+        SECUENCIAS.put("kart", "kart_seq");
+        SECUENCIAS.put("reservas", "reservas_seq");
+        SECUENCIAS.put("ocupacion_karts_5min", "ocupacion_karts_seq");
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AlineacionSecuencias(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void alinear() {
+        String baseDeDatos = jdbcTemplate.execute(
+                (ConnectionCallback<String>) conexion -> conexion.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(baseDeDatos)) {
+            return;
+        }
+
+        SECUENCIAS.forEach((tabla, secuencia) -> {
+            List<Long> valores = jdbcTemplate.queryForList("SELECT setval('" + secuencia + "', t.maximo) " +
+                    "FROM (SELECT MAX(id) AS maximo FROM " + tabla + ") t " +
+                    "WHERE t.maximo >= (SELECT last_value FROM " + secuencia + ")", Long.class);
+            if (!valores.isEmpty()) {
+                logger.info("Secuencia {} alineada con el mayor ID de {}: {}", secuencia, tabla, valores.get(0));
+            }
+        });
+    }
+}
@@ -0,0 +1,110 @@
+package edu.mtisw.KartingRM.config;
+
+import edu.mtisw.KartingRM.services.ImportacionClientesService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índices de trigramas (pg_trgm) para la búsqueda de clientes por parte del
+ * nombre o del correo: un LIKE '%texto%' no puede usar un índice B-tree y
+ * sin ellos recorre la tabla completa. Hibernate no sabe declararlos, así que
+ * se crean al arrancar si no existen. Solo aplica a PostgreSQL.
+ *
+ * Se crean con CONCURRENTLY para no bloquear las escrituras en clientes
+ * mientras se arman. Si falta el permiso para la extensión, la búsqueda
+ * sigue funcionando sin índice y queda un aviso en el log.
+ *
+ * También va aquí el índice único sobre lower(email), que no necesita la
+ * extensión: la importación de clientes revisa los correos contra una foto
+ * tomada al empezar y este índice ataja lo que se cree mientras tanto. Si ya
+ * hay correos repetidos no se puede crear; queda el aviso para limpiarlos.
+ *
+ * Un CREATE INDEX CONCURRENTLY que falla a medias (réplica detenida, correos
+ * repetidos) deja el índice marcado como inválido, y con IF NOT EXISTS nunca
+ * se volvería a armar; por eso uno inválido se borra y se crea de nuevo. Un
+ * índice que otra réplica está armando también se ve inválido, así que todo
+ * esto lo hace una sola réplica a la vez, la que obtiene el advisory lock.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class IndicesBusquedaClientes {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndicesBusquedaClientes.class);
+
+    private static final long LLAVE_INDICES = 7_301_002L;
+
+    // Nombre -> definición, sin el CREATE INDEX CONCURRENTLY IF NOT EXISTS <nombre>
+    private static final Map<String, String> INDICES_TRIGRAMAS = new LinkedHashMap<>();
+
+    static {
+        INDICES_TRIGRAMAS.put("idx_clientes_nombre_trgm", "ON clientes USING gin (lower(nombre) gin_trgm_ops)");
+        INDICES_TRIGRAMAS.put("idx_clientes_email_trgm", "ON clientes USING gin (lower(email) gin_trgm_ops)");
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IndicesBusquedaClientes(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void crear() {
+        String baseDeDatos = jdbcTemplate.execute(
+                (ConnectionCallback<String>) conexion -> conexion.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(baseDeDatos)) {
+            return;
+        }
+
+        // El advisory lock es de sesión: todo tiene que ir por la misma conexión
+        jdbcTemplate.execute((ConnectionCallback<Void>) conexion -> {
+            JdbcTemplate sesion = new JdbcTemplate(new SingleConnectionDataSource(conexion, true));
+            // Sin esperar: si otra réplica lo tiene, ella crea los índices
+            if (!Boolean.TRUE.equals(sesion.queryForObject("SELECT pg_try_advisory_lock(?)", Boolean.class, LLAVE_INDICES))) {
+                logger.info("Otra réplica está creando los índices de clientes");
+                return null;
+            }
+            try {
+                crearIndices(sesion);
+            } finally {
+                sesion.queryForObject("SELECT pg_advisory_unlock(?)", Boolean.class, LLAVE_INDICES);
+            }
+            return null;
+        });
+    }
+
+    void crearIndices(JdbcTemplate sesion) {
+        try {
+            sesion.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            INDICES_TRIGRAMAS.forEach((nombre, definicion) -> crearIndice(sesion, "INDEX", nombre, definicion));
+        } catch (DataAccessException e) {
+            logger.warn("No se pudieron crear los índices de búsqueda de clientes: {}", e.getMessage());
+        }
+        try {
+            crearIndice(sesion, "UNIQUE INDEX", ImportacionClientesService.INDICE_CORREO_UNICO, "ON clientes (lower(email))");
+        } catch (DataAccessException e) {
+            logger.warn("No se pudo crear el índice único de correos de clientes: {}", e.getMessage());
+        }
+    }
+
+    private void crearIndice(JdbcTemplate sesion, String tipo, String nombre, String definicion) {
+        List<Boolean> valido = sesion.queryForList("SELECT i.indisvalid FROM pg_class c " +
+                "JOIN pg_index i ON i.indexrelid = c.oid " +
+                "WHERE c.relname = ? AND pg_table_is_visible(c.oid)", Boolean.class, nombre);
+        if (!valido.isEmpty() && !valido.get(0)) {
+            logger.warn("El índice {} quedó inválido por una creación interrumpida; se vuelve a crear", nombre);
+            sesion.execute("DROP INDEX CONCURRENTLY IF EXISTS " + nombre);
+        }
+        sesion.execute("CREATE " + tipo + " CONCURRENTLY IF NOT EXISTS " + nombre + " " + definicion);
+    }
+}
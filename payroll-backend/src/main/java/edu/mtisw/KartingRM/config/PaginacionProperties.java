@@ -0,0 +1,28 @@
+package edu.mtisw.KartingRM.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tamaño de página de los listados. Un pedido sin tamaño usa el de por
+ * defecto y uno más grande que el máximo se recorta al máximo.
+ */
+@Component
+@ConfigurationProperties(prefix = "paginacion")
+@Data
+public class PaginacionProperties {
+
+    private int tamanoPorDefecto = 50;
+    private int tamanoMaximo = 200;
+
+    public int tamano(Integer pedido) {
+        if (pedido == null) {
+            return tamanoPorDefecto;
+        }
+        if (pedido < 1) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor que cero");
+        }
+        return Math.min(pedido, tamanoMaximo);
+    }
+}
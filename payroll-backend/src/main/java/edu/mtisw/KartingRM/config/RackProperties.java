@@ -0,0 +1,28 @@
+package edu.mtisw.KartingRM.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bloques horarios del rack semanal. "bloques" aplica a todos los días y
+ * "bloques-por-dia" permite reemplazarlos para un día puntual, por ejemplo
+ * rack.bloques-por-dia.saturday=10:00-11:00,11:00-12:00
+ */
+@Component
+@ConfigurationProperties(prefix = "rack")
+@Data
+public class RackProperties {
+
+    private List<String> bloques = new ArrayList<>(List.of(
+            "09:00-10:00", "10:00-11:00", "11:00-12:00", "12:00-13:00",
+            "14:00-15:00", "15:00-16:00", "16:00-17:00"));
+
+    private Map<DayOfWeek, List<String>> bloquesPorDia = new EnumMap<>(DayOfWeek.class);
+}
@@ -0,0 +1,93 @@
+package edu.mtisw.KartingRM.config;
+
+import edu.mtisw.KartingRM.entities.ReservaEntity;
+import edu.mtisw.KartingRM.repositories.OcupacionKartRepository;
+import edu.mtisw.KartingRM.repositories.ReservaRepository;
+import edu.mtisw.KartingRM.services.OcupacionKartService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * La ocupación solo se registra al crear reservas, así que las reservas
+ * anteriores a su tabla no tenían filas y sus karts se veían libres; lo
+ * mismo con todas las reservas cuando el slot pasó de 15 a 5 minutos y la
+ * ocupación a una tabla nueva. Al arrancar se registran los slots de toda
+ * reserva con karts que no tenga ocupación; las que ya tienen no se tocan,
+ * así que correrlo de nuevo no cambia nada.
+ *
+ * Se guarda por bloques, cada uno en su transacción. Si un bloque choca con
+ * la restricción única (otra réplica rellenó lo mismo al mismo tiempo, o dos
+ * reservas antiguas se solapan en un kart) se revierte y se reintenta de a
+ * una reserva: las que otra réplica ya registró se saltan y las que chocan
+ * con otra reserva quedan en el log para revisarlas a mano.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class RellenoOcupacionKarts {
+
+    private static final Logger logger = LoggerFactory.getLogger(RellenoOcupacionKarts.class);
+
+    static final int TAMANO_BLOQUE = 100;
+
+    private final ReservaRepository reservaRepository;
+    private final OcupacionKartRepository ocupacionKartRepository;
+    private final OcupacionKartService ocupacionKartService;
+    private final TransactionTemplate transactionTemplate;
+
+    public RellenoOcupacionKarts(ReservaRepository reservaRepository,
+                                 OcupacionKartRepository ocupacionKartRepository,
+                                 OcupacionKartService ocupacionKartService,
+                                 TransactionTemplate transactionTemplate) {
+        this.reservaRepository = reservaRepository;
+        this.ocupacionKartRepository = ocupacionKartRepository;
+        this.ocupacionKartService = ocupacionKartService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void rellenar() {
+        List<Long> ids = reservaRepository.findIdsSinOcupacion();
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        int registradas = 0;
+        for (int desde = 0; desde < ids.size(); desde += TAMANO_BLOQUE) {
+            List<Long> bloque = ids.subList(desde, Math.min(desde + TAMANO_BLOQUE, ids.size()));
+            try {
+                registrar(bloque);
+                registradas += bloque.size();
+            } catch (RuntimeException e) {
+                for (Long id : bloque) {
+                    registradas += registrarUna(id) ? 1 : 0;
+                }
+            }
+        }
+        logger.info("Ocupación de karts registrada para {} de {} reservas que no la tenían", registradas, ids.size());
+    }
+
+    private boolean registrarUna(Long id) {
+        try {
+            registrar(List.of(id));
+            return true;
+        } catch (RuntimeException e) {
+            if (!ocupacionKartRepository.existsByReservaId(id)) {
+                logger.warn("No se pudo registrar la ocupación de la reserva {}: {}", id, e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    private void registrar(List<Long> ids) {
+        transactionTemplate.executeWithoutResult(estado -> {
+            List<ReservaEntity> reservas = reservaRepository.findConKartsByIdIn(ids);
+            ocupacionKartService.registrarOcupaciones(reservas);
+        });
+    }
+}
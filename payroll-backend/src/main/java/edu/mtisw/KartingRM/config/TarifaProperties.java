@@ -0,0 +1,53 @@
+package edu.mtisw.KartingRM.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tarifas por número de vueltas y tramos de descuento. Cada tramo aplica
+ * desde su mínimo hasta el mínimo del siguiente, por ejemplo
+ * tarifas.descuentos-por-personas[0].desde=3
+ * tarifas.descuentos-por-personas[0].porcentaje=10
+ */
+@Component
+@ConfigurationProperties(prefix = "tarifas")
+@Data
+public class TarifaProperties {
+
+    private List<Tarifa> vueltas = new ArrayList<>(List.of(
+            new Tarifa(10, 15000, 30),
+            new Tarifa(15, 20000, 35),
+            new Tarifa(20, 25000, 40)));
+
+    private List<Tramo> descuentosPorPersonas = new ArrayList<>(List.of(
+            new Tramo(3, 10), new Tramo(6, 20), new Tramo(11, 30)));
+
+    private List<Tramo> descuentosPorVisitas = new ArrayList<>(List.of(
+            new Tramo(2, 10), new Tramo(5, 20), new Tramo(7, 30)));
+
+    // Descuento para quien está de cumpleaños el día de la reserva
+    private int descuentoCumpleanos = 50;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Tarifa {
+        private int vueltas;
+        private int precio;
+        private int duracionMinutos;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Tramo {
+        private int desde;
+        private int porcentaje;
+    }
+}
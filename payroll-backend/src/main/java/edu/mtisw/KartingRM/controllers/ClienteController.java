@@ -1,9 +1,16 @@
 package edu.mtisw.KartingRM.controllers;
 
+import edu.mtisw.KartingRM.dtos.ClienteListaDTO;
+import edu.mtisw.KartingRM.dtos.PaginaDTO;
+import edu.mtisw.KartingRM.dtos.ResultadoImportacionClientesDTO;
 import edu.mtisw.KartingRM.entities.ClienteEntity;
 import edu.mtisw.KartingRM.services.ClienteService;
+import edu.mtisw.KartingRM.services.ImportacionClientesService;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -12,23 +19,63 @@ import java.util.List;
 public class ClienteController {
 
     private final ClienteService clienteService;
+    private final ImportacionClientesService importacionClientesService;
 
-    public ClienteController(ClienteService clienteService) {
+    public ClienteController(ClienteService clienteService, ImportacionClientesService importacionClientesService) {
         this.clienteService = clienteService;
+        this.importacionClientesService = importacionClientesService;
     }
 
+    // Correo inválido o ya registrado por otro cliente: 400 con el motivo
     @PostMapping
-    public ClienteEntity crearCliente(@RequestBody ClienteEntity cliente) {
-        return clienteService.crearCliente(cliente);
+    public ResponseEntity<?> crearCliente(@RequestBody ClienteEntity cliente) {
+        try {
+            return ResponseEntity.ok(clienteService.crearCliente(cliente));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // CSV con nombre,email,fechaNacimiento,numeroVisitas en el cuerpo, leído a medida que llega;
+    // las líneas válidas se guardan y las con error vuelven en la respuesta
+    @PostMapping(value = "/importar", consumes = {"text/csv", "text/plain"})
+    public ResponseEntity<ResultadoImportacionClientesDTO> importarClientes(InputStream csv) throws IOException {
+        return ResponseEntity.ok(importacionClientesService.importar(csv));
     }
 
     @PutMapping("/{id}")
-    public ClienteEntity actualizarCliente(@PathVariable Long id, @RequestBody ClienteEntity cliente) {
-        return clienteService.actualizarCliente(id, cliente);
+    public ResponseEntity<?> actualizarCliente(@PathVariable Long id, @RequestBody ClienteEntity cliente) {
+        try {
+            return ResponseEntity.ok(clienteService.actualizarCliente(id, cliente));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @GetMapping
     public List<ClienteEntity> listarClientes() {
         return clienteService.listarClientes();
     }
+
+    // Búsqueda mientras se escribe, para no descargar la tabla completa en el formulario de reserva
+    @GetMapping("/buscar")
+    public ResponseEntity<List<ClienteListaDTO>> buscarClientes(@RequestParam String q,
+                                                                @RequestParam(required = false) Integer tamano) {
+        try {
+            return ResponseEntity.ok(clienteService.buscarClientes(q, tamano));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Listado por cursor: se pide la página siguiente con el siguienteCursor de la anterior
+    @GetMapping("/pagina")
+    public ResponseEntity<PaginaDTO<ClienteListaDTO>> listarPagina(@RequestParam(required = false) String cursor,
+                                                                  @RequestParam(required = false) Integer tamano) {
+        try {
+            return ResponseEntity.ok(clienteService.listarPagina(cursor, tamano));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 }
\ No newline at end of file
@@ -1,9 +1,14 @@
 package edu.mtisw.KartingRM.controllers;
 
+import edu.mtisw.KartingRM.dtos.KartListaDTO;
+import edu.mtisw.KartingRM.dtos.PaginaDTO;
 import edu.mtisw.KartingRM.entities.KartEntity;
 import edu.mtisw.KartingRM.services.KartService;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 
 @RestController
@@ -28,6 +33,29 @@ public class KartController {
         return kartService.listarKarts();
     }
 
+    // Listado por cursor: se pide la página siguiente con el siguienteCursor de la anterior
+    @GetMapping("/pagina")
+    public ResponseEntity<PaginaDTO<KartListaDTO>> listarPagina(@RequestParam(required = false) String cursor,
+                                                               @RequestParam(required = false) Integer tamano) {
+        try {
+            return ResponseEntity.ok(kartService.listarPagina(cursor, tamano));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Karts que se pueden asignar a una reserva en esa fecha y hora, sin traer todas las reservas
+    @GetMapping("/disponibles")
+    public ResponseEntity<List<KartListaDTO>> listarDisponibles(@RequestParam LocalDate fecha,
+                                                                @RequestParam LocalTime hora,
+                                                                @RequestParam(required = false) Integer numeroVueltas) {
+        try {
+            return ResponseEntity.ok(kartService.listarDisponibles(fecha, hora, numeroVueltas));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/test")
     public String testEndpoint() {
         return "El endpoint de karts está funcionando correctamente.";
@@ -1,25 +1,50 @@
 package edu.mtisw.KartingRM.controllers;
 
+import edu.mtisw.KartingRM.dtos.AuditoriaIngresosDTO;
+import edu.mtisw.KartingRM.dtos.CotizacionDTO;
+import edu.mtisw.KartingRM.dtos.EstadisticasCacheDTO;
+import edu.mtisw.KartingRM.dtos.EstadoEnvioDTO;
+import edu.mtisw.KartingRM.dtos.HorarioLibreDTO;
+import edu.mtisw.KartingRM.dtos.PaginaDTO;
+import edu.mtisw.KartingRM.dtos.ReservaListaDTO;
+import edu.mtisw.KartingRM.dtos.ReservaRackDTO;
+import edu.mtisw.KartingRM.dtos.ResultadoLoteReservasDTO;
 import edu.mtisw.KartingRM.entities.ReservaEntity;
-import edu.mtisw.KartingRM.entities.ClienteEntity;
-import edu.mtisw.KartingRM.services.ReservaService;
+import edu.mtisw.KartingRM.services.ComprobanteCache;
 import edu.mtisw.KartingRM.services.ComprobanteService;
-import edu.mtisw.KartingRM.services.EmailService;
+import edu.mtisw.KartingRM.services.EnvioComprobantesService;
+import edu.mtisw.KartingRM.services.HorarioLibreService;
+import edu.mtisw.KartingRM.services.LoteComprobantesService;
+import edu.mtisw.KartingRM.services.ReservaService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.io.IOException;
+import java.net.URI;
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/reservas")
 @CrossOrigin(origins = "*") 
 public class ReservaController {
 
+    private static final Logger logger = LoggerFactory.getLogger(ReservaController.class);
+
     @Autowired
     private ReservaService reservaService;
 
@@ -27,42 +52,117 @@ public class ReservaController {
     private ComprobanteService comprobanteService;
 
     @Autowired
-    private EmailService emailService;
+    private EnvioComprobantesService envioComprobantesService;
+
+    @Autowired
+    private LoteComprobantesService loteComprobantesService;
+
+    @Autowired
+    private HorarioLibreService horarioLibreService;
 
    
+    // Con formato=normalizado los clientes y karts van una sola vez, en listas aparte
     @GetMapping
-    public List<ReservaEntity> listarReservas() {
-        List<ReservaEntity> reservas = reservaService.listarReservas();
-        reservas.forEach(reserva -> {
-            reserva.getClientes().size(); 
-            reserva.getKarts().size();    
-        });
-        return reservas;
+    public ResponseEntity<?> listarReservas(@RequestParam(required = false) String formato) {
+        if (formato == null || formato.isBlank()) {
+            return ResponseEntity.ok(reservaService.listarReservas());
+        }
+        if ("normalizado".equalsIgnoreCase(formato)) {
+            return ResponseEntity.ok(reservaService.listarReservasNormalizadas());
+        }
+        return ResponseEntity.badRequest().build();
     }
 
+    // Listado por cursor, de la más reciente a la más antigua, con solo las columnas de la tabla
+    @GetMapping("/pagina")
+    public ResponseEntity<PaginaDTO<ReservaListaDTO>> listarPagina(@RequestParam(required = false) String cursor,
+                                                                  @RequestParam(required = false) Integer tamano) {
+        try {
+            return ResponseEntity.ok(reservaService.listarPagina(cursor, tamano));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 
+    // Con asignarKarts=true basta con los clientes: el servidor elige un kart libre por cada uno
     @PostMapping
-    public ResponseEntity<ReservaEntity> crearReserva(@RequestBody ReservaEntity reserva) {
+    public ResponseEntity<ReservaEntity> crearReserva(@RequestBody ReservaEntity reserva,
+                                                      @RequestParam(defaultValue = "false") boolean asignarKarts) {
         try {
             if (reserva.getHoraReserva() == null) {
                 throw new IllegalArgumentException("La hora de la reserva es obligatoria.");
             }
-            ReservaEntity nuevaReserva = reservaService.crearReserva(reserva);
+            ReservaEntity nuevaReserva = asignarKarts ? reservaService.crearReservaConKartsAsignados(reserva)
+                    : reservaService.crearReserva(reserva);
             return ResponseEntity.ok(nuevaReserva);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(null);
+        } catch (IllegalStateException e) {
+            // Otro usuario reservó alguno de los karts en el mismo horario, o no quedan karts para asignar
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
+        }
+    }
+
+    // Carga masiva, pensada para migrar las reservas del sistema anterior; se guarda todo o nada
+    @PostMapping("/lote")
+    public ResponseEntity<ResultadoLoteReservasDTO> crearReservasEnLote(@RequestBody List<ReservaEntity> reservas) {
+        int recibidas = reservas == null ? 0 : reservas.size();
+        try {
+            ResultadoLoteReservasDTO resultado = reservaService.crearReservasEnLote(reservas);
+            if (!resultado.getErrores().isEmpty()) {
+                return ResponseEntity.badRequest().body(resultado);
+            }
+            return ResponseEntity.ok(resultado);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ResultadoLoteReservasDTO(recibidas, 0, List.of(e.getMessage())));
+        } catch (IllegalStateException e) {
+            // Alguna reserva choca con otra ya guardada o con otra de la misma carga
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ResultadoLoteReservasDTO(recibidas, 0, List.of(e.getMessage())));
+        }
+    }
+
+    // El formulario cotiza en cada cambio; nada de esto se guarda
+    @PostMapping("/cotizar")
+    public ResponseEntity<CotizacionDTO> cotizarReserva(@RequestBody ReservaEntity reserva) {
+        try {
+            return ResponseEntity.ok(reservaService.cotizar(reserva));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    // Para responder "¿cuándo puede correr un grupo de 9 esta semana?" sin revisar el rack a mano
+    @GetMapping("/horarios-libres")
+    public ResponseEntity<List<HorarioLibreDTO>> buscarHorariosLibres(@RequestParam int personas,
+                                                                      @RequestParam int numeroVueltas,
+                                                                      @RequestParam LocalDate inicio,
+                                                                      @RequestParam LocalDate fin,
+                                                                      @RequestParam(defaultValue = "5") int cantidad) {
+        try {
+            return ResponseEntity.ok(horarioLibreService.buscarHorariosLibres(personas, numeroVueltas, inicio, fin, cantidad));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
     }
 
     @GetMapping("/rack-semanal")
-    public ResponseEntity<Map<String, Map<String, List<ReservaEntity>>>> obtenerRackSemanal(
+    public ResponseEntity<Map<String, Map<String, List<ReservaRackDTO>>>> obtenerRackSemanal(
             @RequestParam(required = false) LocalDate fechaInicio,
-            @RequestParam(required = false) LocalDate fechaFin) {
+            @RequestParam(required = false) LocalDate fechaFin,
+            HttpServletRequest request, HttpServletResponse response) {
         
-        Map<String, Map<String, List<ReservaEntity>>> rackSemanal;
+        boolean semanaActual = fechaInicio == null || fechaFin == null;
+        String version = semanaActual ? reservaService.versionRackSemanal()
+                : reservaService.versionReservas(fechaInicio, fechaFin);
+        if (sinCambios("rack", version, request, response)) {
+            return null;
+        }
+
+        Map<String, Map<String, List<ReservaRackDTO>>> rackSemanal;
         
-        // Si no se proporcionan fechas, usar el método existente
-        if (fechaInicio == null || fechaFin == null) {
+        // Si no se proporcionan fechas, se usa la semana actual
+        if (semanaActual) {
             rackSemanal = reservaService.obtenerRackSemanal();
         } else {
             // Llamar al nuevo método con filtrado por fechas
@@ -74,35 +174,94 @@ public class ReservaController {
 
     @PostMapping("/{id}/enviar-comprobante")
     public ResponseEntity<?> enviarComprobante(@PathVariable Long id) {
+        ReservaEntity reserva;
         try {
-            ReservaEntity reserva = reservaService.obtenerReservaPorId(id);
-            if (reserva == null) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Reserva no encontrada");
-            }
+            reserva = reservaService.obtenerReservaPorId(id);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Reserva no encontrada");
+        }
+
+        try {
+            // Los correos se envían en segundo plano; el estado se consulta con el id del trabajo
+            EstadoEnvioDTO envio = envioComprobantesService.encolar(reserva);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/reservas/comprobantes/envios/" + envio.getTrabajoId()))
+                    .body(envio);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Hay demasiados comprobantes en cola, intenta nuevamente en unos minutos");
+        } catch (Exception e) {
+            logger.error("No se pudo encolar el envío del comprobante de la reserva {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al enviar el comprobante: " + e.getMessage());
+        }
+    }
 
-            System.out.println("Reserva encontrada: " + reserva.getId());
+    @GetMapping("/{id}/comprobante")
+    public void descargarComprobante(@PathVariable Long id, HttpServletRequest request,
+                                     HttpServletResponse response) throws IOException {
+        ReservaEntity reserva;
+        try {
+            reserva = reservaService.obtenerReservaPorId(id);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.NOT_FOUND.value(), "Reserva no encontrada");
+            return;
+        }
 
-            byte[] comprobantePdf = comprobanteService.generarComprobante(reserva);
-            System.out.println("Comprobante generado correctamente");
+        // La versión cambia con cualquier dato impreso; si el navegador ya la tiene no se envía de nuevo
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        if (new ServletWebRequest(request, response).checkNotModified("\"" + ComprobanteService.version(reserva) + "\"")) {
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline()
+                .filename("comprobante-" + id + ".pdf").build().toString());
 
-            List<String> correosEnviados = new ArrayList<>();
-            for (ClienteEntity cliente : reserva.getClientes()) {
-                System.out.println("Enviando correo a: " + cliente.getEmail());
-                emailService.enviarComprobante(cliente.getEmail(), comprobantePdf);
-                correosEnviados.add(cliente.getEmail());
+        Optional<ComprobanteCache.Guardado> guardado = comprobanteService.buscarComprobante(reserva);
+        if (guardado.isPresent()) {
+            try (ComprobanteCache.Guardado comprobante = guardado.get()) {
+                response.setContentLengthLong(comprobante.getTamano());
+                comprobante.copiarA(response.getOutputStream());
             }
+        } else {
+            // Sin largo conocido de antemano la respuesta sale por partes mientras se genera
+            comprobanteService.escribirComprobante(reserva, response.getOutputStream());
+        }
+    }
 
-            return ResponseEntity.ok(correosEnviados);
-        } catch (Exception e) {
-            e.printStackTrace(); 
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al enviar el comprobante: " + e.getMessage());
+    @GetMapping("/comprobantes/lote")
+    public void descargarComprobantesDelPeriodo(@RequestParam LocalDate inicio, @RequestParam LocalDate fin,
+                                                HttpServletResponse response) throws IOException {
+        if (inicio.isAfter(fin)) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "La fecha de inicio es posterior a la de fin");
+            return;
         }
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("comprobantes-" + inicio + "-" + fin + ".zip").build().toString());
+        // Cada comprobante sale en cuanto termina; el resumen va al final del ZIP
+        loteComprobantesService.escribirZip(inicio, fin, response.getOutputStream());
+    }
+
+    @GetMapping("/comprobantes/envios/{trabajoId}")
+    public ResponseEntity<EstadoEnvioDTO> obtenerEstadoEnvio(@PathVariable String trabajoId) {
+        return envioComprobantesService.obtenerEstado(trabajoId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/comprobantes/cache")
+    public ResponseEntity<EstadisticasCacheDTO> obtenerEstadisticasCacheComprobantes() {
+        return ResponseEntity.ok(comprobanteService.estadisticasCache());
     }
 
     @GetMapping("/reporte-ingresos-vueltas")
     public ResponseEntity<Map<String, Map<String, Integer>>> obtenerReporteIngresosPorVueltas(
             @RequestParam LocalDate inicio,
-            @RequestParam LocalDate fin) {
+            @RequestParam LocalDate fin,
+            HttpServletRequest request, HttpServletResponse response) {
+        if (sinCambios("vueltas", reservaService.versionReservas(inicio, fin), request, response)) {
+            return null;
+        }
         Map<String, Map<String, Integer>> reporte = reservaService.generarReporteIngresosPorVueltas(inicio, fin);
         return ResponseEntity.ok(reporte);
     }
@@ -110,8 +269,27 @@ public class ReservaController {
     @GetMapping("/reporte-ingresos-personas")
     public ResponseEntity<Map<String, Map<String, Integer>>> obtenerReporteIngresosPorPersonas(
             @RequestParam LocalDate inicio,
-            @RequestParam LocalDate fin) {
+            @RequestParam LocalDate fin,
+            HttpServletRequest request, HttpServletResponse response) {
+        if (sinCambios("personas", reservaService.versionReservas(inicio, fin), request, response)) {
+            return null;
+        }
         Map<String, Map<String, Integer>> reporte = reservaService.generarReporteIngresosPorPersonas(inicio, fin);
         return ResponseEntity.ok(reporte);
     }
+
+    @GetMapping("/auditoria-ingresos")
+    public ResponseEntity<AuditoriaIngresosDTO> auditarIngresos(
+            @RequestParam LocalDate inicio,
+            @RequestParam LocalDate fin) {
+        return ResponseEntity.ok(reservaService.auditarIngresos(inicio, fin));
+    }
+
+    // Recepción y gerencia consultan estas vistas cada pocos segundos: si la versión de las
+    // reservas no cambió se responde 304 sin recalcular. Si Tomcat comprime la respuesta
+    // entrega el ETag como débil (W/), lo que no afecta la comparación de If-None-Match
+    private boolean sinCambios(String vista, String version, HttpServletRequest request, HttpServletResponse response) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        return new ServletWebRequest(request, response).checkNotModified("\"" + vista + "_" + version + "\"");
+    }
 }
@@ -0,0 +1,21 @@
+package edu.mtisw.KartingRM.dtos;
+
+import edu.mtisw.KartingRM.entities.IngresoResumenId;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Resultado de comparar el resumen de ingresos con las reservas de un período.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditoriaIngresosDTO {
+
+    private long reservasRevisadas;
+    private int celdasRevisadas;
+    private List<IngresoResumenId> celdasConDiferencias;
+}
@@ -0,0 +1,24 @@
+package edu.mtisw.KartingRM.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Reservas de un día agrupadas con la misma clave que ingresos_resumen;
+ * se usa para reconstruir el resumen desde la tabla de reservas.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CeldaResumenDTO {
+
+    private LocalDate fecha;
+    private Integer numeroVueltas;
+    private Integer duracionTotal;
+    private String rangoPersonas;
+    private Long cantidadReservas;
+    private Long totalPrecioFinal;
+}
@@ -0,0 +1,22 @@
+package edu.mtisw.KartingRM.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Fila del listado de clientes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClienteListaDTO {
+
+    private Long id;
+    private String nombre;
+    private String email;
+    private int numeroVisitas;
+    private LocalDate fechaNacimiento;
+}
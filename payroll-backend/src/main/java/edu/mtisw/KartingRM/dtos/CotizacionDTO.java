@@ -0,0 +1,28 @@
+package edu.mtisw.KartingRM.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Precio de una reserva calculado sin guardarla. El subtotal es la suma de
+ * los clientes antes del descuento por tamaño del grupo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CotizacionDTO {
+
+    private LocalDate fechaReserva;
+    private int numeroVueltas;
+    private int duracionTotal;
+    private int precioBase;
+    private int numeroPersonas;
+    private int descuentoPorPersonas;
+    private int subtotal;
+    private int precioFinal;
+    private List<DetalleCotizacionDTO> clientes;
+}
@@ -0,0 +1,19 @@
+package edu.mtisw.KartingRM.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado del envío del comprobante a un cliente.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DestinatarioEnvioDTO {
+
+    private String email;
+    private String estado;
+    private int intentos;
+    private String error;
+}
@@ -0,0 +1,20 @@
+package edu.mtisw.KartingRM.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Lo que paga un cliente de la cotización, antes del descuento por grupo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DetalleCotizacionDTO {
+
+    private Long clienteId;
+    private String nombre;
+    private int descuentoPorVisitas;
+    private int descuentoPorCumpleaños;
+    private int precio;
+}
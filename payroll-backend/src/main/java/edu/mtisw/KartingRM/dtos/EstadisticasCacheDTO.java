@@ -0,0 +1,23 @@
+package edu.mtisw.KartingRM.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Uso de la caché de comprobantes desde que arrancó la réplica.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadisticasCacheDTO {
+
+    private int entradas;
+    private long bytes;
+    private long maxBytes;
+    private long aciertosMemoria;
+    private long aciertosDisco;
+    private long fallos;
+    private long desalojos;
+    private double tasaAciertos;
+}
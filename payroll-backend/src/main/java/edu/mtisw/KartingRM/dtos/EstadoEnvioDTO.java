@@ -0,0 +1,22 @@
+package edu.mtisw.KartingRM.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Estado de una solicitud de envío de comprobantes: "en_curso" mientras quede
+ * algún destinatario pendiente, luego "completado" o "con_errores".
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadoEnvioDTO {
+
+    private String trabajoId;
+    private Long reservaId;
+    private String estado;
+    private List<DestinatarioEnvioDTO> destinatarios;
+}
@@ -0,0 +1,17 @@
+package edu.mtisw.KartingRM.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Nombre de un cliente o código de un kart asociado a una reserva.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EtiquetaReservaDTO {
+
+    private Long reservaId;
+    private String etiqueta;
+}
@@ -0,0 +1,21 @@
+package edu.mtisw.KartingRM.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Inicio de bloque con karts libres para todo el grupo durante la reserva.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HorarioLibreDTO {
+
+    private LocalDate fecha;
+    private LocalTime hora;
+    private int kartsLibres;
+}
@@ -0,0 +1,19 @@
+package edu.mtisw.KartingRM.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Una celda de los reportes de ingresos: categoría, año-mes ("2025-04") y
+ * suma de precios finales (sin IVA), calculada por la base de datos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngresoAgregadoDTO {
+
+    private String categoria;
+    private String mes;
+    private Long total;
+}
@@ -0,0 +1,19 @@
+package edu.mtisw.KartingRM.dtos;
+
+import edu.mtisw.KartingRM.entities.EstadoKart;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Fila del listado de karts.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KartListaDTO {
+
+    private Long id;
+    private String codigo;
+    private EstadoKart estado;
+}
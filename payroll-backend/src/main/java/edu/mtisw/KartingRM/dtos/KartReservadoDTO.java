@@ -0,0 +1,24 @@
+package edu.mtisw.KartingRM.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Un kart de una reserva con el intervalo que ocupa, para el índice de la
+ * búsqueda de horarios libres.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KartReservadoDTO {
+
+    private Long reservaId;
+    private LocalDate fechaReserva;
+    private LocalTime horaReserva;
+    private int duracionTotal;
+    private Long kartId;
+}
@@ -0,0 +1,19 @@
+package edu.mtisw.KartingRM.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Marca de agua de las reservas de un rango de fechas: el mayor ID y la
+ * cantidad de reservas. Como las reservas solo se insertan, cualquier
+ * cambio en el rango cambia la marca.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MarcaCambiosDTO {
+
+    private Long maxId;
+    private long cantidad;
+}
@@ -0,0 +1,47 @@
+package edu.mtisw.KartingRM.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Una página de un listado paginado por cursor. Para la página siguiente se
+ * envía siguienteCursor tal cual; es null cuando no quedan más elementos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaDTO<T> {
+
+    private List<T> elementos;
+    private String siguienteCursor;
+
+    /**
+     * Arma la página a partir de una consulta que pidió una fila de más: si
+     * esa fila llegó hay página siguiente y el cursor sale de la última fila
+     * entregada.
+     */
+    public static <T> PaginaDTO<T> desde(List<T> filas, int tamano, Function<T, String> cursor) {
+        if (filas.size() <= tamano) {
+            return new PaginaDTO<>(filas, null);
+        }
+        List<T> elementos = new ArrayList<>(filas.subList(0, tamano));
+        return new PaginaDTO<>(elementos, cursor.apply(elementos.get(tamano - 1)));
+    }
+
+    // Cursor de los listados ordenados por ID; sin cursor se parte desde el principio
+    public static long idDelCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(cursor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor de página inválido: " + cursor);
+        }
+    }
+}
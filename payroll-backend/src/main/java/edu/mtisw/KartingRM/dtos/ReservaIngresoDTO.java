@@ -0,0 +1,22 @@
+package edu.mtisw.KartingRM.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Columnas de una reserva que afectan los ingresos, sin clientes ni karts.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservaIngresoDTO {
+
+    private LocalDate fechaReserva;
+    private int numeroVueltas;
+    private int duracionTotal;
+    private int numeroPersonas;
+    private int precioFinal;
+}
@@ -0,0 +1,46 @@
+package edu.mtisw.KartingRM.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fila del listado de reservas: las columnas de la tabla más los nombres de
+ * los clientes y los códigos de los karts, sin las entidades completas.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservaListaDTO {
+
+    private Long id;
+    private LocalDate fechaReserva;
+    private LocalTime horaReserva;
+    private int numeroVueltas;
+    private int precioBase;
+    private int descuentoPorPersonas;
+    private int descuentoPorVisitas;
+    private int descuentoPorCumpleaños;
+    private int precioFinal;
+    private List<String> clientes = new ArrayList<>();
+    private List<String> karts = new ArrayList<>();
+
+    // Usado por la consulta del repositorio; clientes y karts se completan después
+    public ReservaListaDTO(Long id, LocalDate fechaReserva, LocalTime horaReserva, int numeroVueltas, int precioBase,
+                           int descuentoPorPersonas, int descuentoPorVisitas, int descuentoPorCumpleaños, int precioFinal) {
+        this.id = id;
+        this.fechaReserva = fechaReserva;
+        this.horaReserva = horaReserva;
+        this.numeroVueltas = numeroVueltas;
+        this.precioBase = precioBase;
+        this.descuentoPorPersonas = descuentoPorPersonas;
+        this.descuentoPorVisitas = descuentoPorVisitas;
+        this.descuentoPorCumpleaños = descuentoPorCumpleaños;
+        this.precioFinal = precioFinal;
+    }
+}
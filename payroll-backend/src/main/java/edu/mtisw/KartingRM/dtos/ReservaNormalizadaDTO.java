@@ -0,0 +1,39 @@
+package edu.mtisw.KartingRM.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Reserva con las mismas columnas que ReservaEntity, pero con los clientes y
+ * karts referenciados por ID en vez de embebidos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservaNormalizadaDTO {
+
+    private Long id;
+    private List<Long> clienteIds;
+    private List<Long> kartIds;
+    private int numeroVueltas;
+    private int tiempoMaximo;
+    private int precioBase;
+    private int precioFinal;
+    private int duracionTotal;
+    private int descuentoPorPersonas;
+    private int descuentoPorVisitas;
+    private int descuentoPorCumpleaños;
+    private int descuentoTotal;
+    private int precio;
+    private int numeroPersonas;
+    private int descuento;
+    private boolean esDiaEspecial;
+    private LocalDate fechaReserva;
+    private int precioTotal;
+    private LocalTime horaReserva;
+}
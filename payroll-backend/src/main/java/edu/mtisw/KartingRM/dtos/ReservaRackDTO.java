@@ -0,0 +1,23 @@
+package edu.mtisw.KartingRM.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Vista liviana de una reserva con lo único que necesita el rack semanal.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservaRackDTO {
+
+    private Long id;
+    private LocalDate fechaReserva;
+    private LocalTime horaReserva;
+    private int duracionTotal;
+    private int numeroPersonas;
+}
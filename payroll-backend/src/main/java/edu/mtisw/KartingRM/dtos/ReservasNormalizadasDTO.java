@@ -0,0 +1,21 @@
+package edu.mtisw.KartingRM.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Listado de reservas en formato normalizado: cada cliente y cada kart
+ * aparece una sola vez en su lista, sin importar en cuántas reservas esté.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservasNormalizadasDTO {
+
+    private List<ReservaNormalizadaDTO> reservas;
+    private List<ClienteListaDTO> clientes;
+    private List<KartListaDTO> karts;
+}
@@ -0,0 +1,23 @@
+package edu.mtisw.KartingRM.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Resultado de una importación de clientes desde CSV. Las líneas válidas se
+ * guardan aunque otras tengan errores; errores trae las primeras líneas con
+ * problemas y conError el total.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoImportacionClientesDTO {
+
+    private int procesadas;
+    private int creados;
+    private int conError;
+    private List<String> errores;
+}
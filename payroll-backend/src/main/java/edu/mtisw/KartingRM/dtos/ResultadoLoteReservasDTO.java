@@ -0,0 +1,21 @@
+package edu.mtisw.KartingRM.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Resultado de una carga masiva de reservas. Si hay errores no se guardó
+ * ninguna reserva de la carga.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoLoteReservasDTO {
+
+    private int recibidas;
+    private int creadas;
+    private List<String> errores;
+}
@@ -0,0 +1,25 @@
+package edu.mtisw.KartingRM.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Resultado de generar los comprobantes de un período en un ZIP.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumenLoteComprobantesDTO {
+
+    private LocalDate inicio;
+    private LocalDate fin;
+    private int generados;
+    private List<String> errores;
+    private int hilos;
+    private long milisegundos;
+    private double comprobantesPorSegundo;
+}
@@ -0,0 +1,48 @@
+package edu.mtisw.KartingRM.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Envío del comprobante de una reserva a uno de sus clientes. Los envíos de
+ * una misma solicitud comparten trabajoId; el estado queda en la base de datos
+ * para que cualquier réplica pueda responder por él.
+ */
+@Entity
+@Table(
+    name = "envios_comprobante",
+    indexes = @Index(name = "idx_envios_comprobante_trabajo", columnList = "trabajo_id")
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnvioComprobanteEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "trabajo_id", nullable = false, length = 36)
+    private String trabajoId;
+
+    @Column(name = "reserva_id", nullable = false)
+    private Long reservaId;
+
+    @Column(nullable = false)
+    private String email;
+
+    // pendiente, enviado o fallido
+    @Column(nullable = false, length = 20)
+    private String estado;
+
+    private int intentos;
+
+    @Column(length = 500)
+    private String error;
+
+    private LocalDateTime actualizadoEn;
+}
@@ -0,0 +1,48 @@
+package edu.mtisw.KartingRM.entities;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Estado de un kart. En la base de datos y en el JSON se guarda el mismo
+ * texto que usaba el campo libre ("disponible" / "no disponible").
+ */
+public enum EstadoKart {
+
+    DISPONIBLE("disponible"),
+    NO_DISPONIBLE("no disponible");
+
+    private final String valor;
+
+    EstadoKart(String valor) {
+        this.valor = valor;
+    }
+
+    @JsonValue
+    public String getValor() {
+        return valor;
+    }
+
+    // Desde el JSON de la API: solo los dos valores, sin distinguir mayúsculas ni espacios
+    @JsonCreator
+    public static EstadoKart desde(String texto) {
+        String normalizado = texto.trim().replace('_', ' ');
+        for (EstadoKart estado : values()) {
+            if (estado.valor.equalsIgnoreCase(normalizado)) {
+                return estado;
+            }
+        }
+        throw new IllegalArgumentException("Estado de kart no válido: " + texto);
+    }
+
+    /**
+     * Lectura de filas guardadas cuando el estado era texto libre: igual que la
+     * validación anterior, solo "disponible" cuenta como disponible.
+     */
+    public static EstadoKart desdeTextoLibre(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        return DISPONIBLE.valor.equalsIgnoreCase(texto.trim()) ? DISPONIBLE : NO_DISPONIBLE;
+    }
+}
@@ -0,0 +1,22 @@
+package edu.mtisw.KartingRM.entities;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Mantiene la columna "estado" como texto, así las filas existentes se leen
+ * sin migración y las nuevas quedan con el valor normalizado.
+ */
+@Converter
+public class EstadoKartConverter implements AttributeConverter<EstadoKart, String> {
+
+    @Override
+    public String convertToDatabaseColumn(EstadoKart estado) {
+        return estado == null ? null : estado.getValor();
+    }
+
+    @Override
+    public EstadoKart convertToEntityAttribute(String columna) {
+        return EstadoKart.desdeTextoLibre(columna);
+    }
+}
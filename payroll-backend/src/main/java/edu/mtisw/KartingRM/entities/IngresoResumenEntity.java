@@ -0,0 +1,35 @@
+package edu.mtisw.KartingRM.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ingresos pre-sumados por día, número de vueltas y rango de personas.
+ * Se actualiza en la misma transacción que crea cada reserva, así los
+ * reportes leen unas cientos de filas en vez de recorrer "reservas".
+ */
+@Entity
+@Table(
+    name = "ingresos_resumen",
+    indexes = @Index(name = "idx_ingresos_resumen_anio_mes", columnList = "anio_mes")
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngresoResumenEntity {
+
+    @EmbeddedId
+    private IngresoResumenId id;
+
+    // Año-mes ("2025-04") y día de la semana (1 = lunes) derivados de la fecha, para agrupar sin funciones
+    @Column(name = "anio_mes", nullable = false, length = 7)
+    private String anioMes;
+
+    @Column(name = "dia_semana", nullable = false)
+    private int diaSemana;
+
+    private long cantidadReservas;
+    private long totalPrecioFinal;
+}
@@ -0,0 +1,21 @@
+package edu.mtisw.KartingRM.entities;
+
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngresoResumenId implements Serializable {
+
+    private LocalDate fecha;
+    private int numeroVueltas;
+    private int duracionTotal;
+    private String rangoPersonas;
+}
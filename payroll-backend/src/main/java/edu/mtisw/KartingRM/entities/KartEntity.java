@@ -13,10 +13,13 @@ import lombok.NoArgsConstructor;
 public class KartEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "kart_seq")
+    @SequenceGenerator(name = "kart_seq", sequenceName = "kart_seq", allocationSize = 50)
     @Column(unique = true, nullable = false)
 
     private Long id;
     private String codigo; 
-    private String estado; 
+
+    @Convert(converter = EstadoKartConverter.class)
+    private EstadoKart estado; 
 }
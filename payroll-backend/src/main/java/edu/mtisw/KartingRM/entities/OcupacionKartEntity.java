@@ -0,0 +1,49 @@
+package edu.mtisw.KartingRM.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Un kart ocupado durante un slot de una fecha. La restricción única sobre
+ * (kart, fecha, slot) hace que dos reservas que se solapan no puedan
+ * confirmarse, aunque se creen al mismo tiempo desde réplicas distintas.
+ *
+ * Los slots son de OcupacionKartService.MINUTOS_POR_SLOT minutos. La tabla
+ * anterior, ocupacion_karts, tenía slots de 15 y no se reutiliza: al arrancar
+ * RellenoOcupacionKarts llena esta desde las reservas.
+ */
+@Entity
+@Table(
+    name = "ocupacion_karts_5min",
+    uniqueConstraints = @UniqueConstraint(
+        name = "uk_ocupacion_5min_kart_fecha_slot",
+        columnNames = {"kart_id", "fecha", "slot"}
+    ),
+    indexes = @Index(name = "idx_ocupacion_karts_5min_fecha", columnList = "fecha")
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OcupacionKartEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ocupacion_karts_seq")
+    @SequenceGenerator(name = "ocupacion_karts_seq", sequenceName = "ocupacion_karts_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "kart_id", nullable = false)
+    private Long kartId;
+
+    @Column(nullable = false)
+    private LocalDate fecha;
+
+    @Column(nullable = false)
+    private int slot;
+
+    @Column(name = "reserva_id", nullable = false)
+    private Long reservaId;
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -12,17 +13,28 @@ import java.util.ArrayList;
 import java.util.Map;
 
 @Entity
-@Table(name = "reservas")
+@Table(
+    name = "reservas",
+    indexes = {
+        @Index(name = "idx_reservas_fecha_hora", columnList = "fecha_reserva, hora_reserva"),
+        // Orden del listado paginado por cursor
+        @Index(name = "idx_reservas_fecha_id", columnList = "fecha_reserva, id")
+    }
+)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class ReservaEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservas_seq")
+    @SequenceGenerator(name = "reservas_seq", sequenceName = "reservas_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    // Ambas colecciones son perezosas: el rack y los reportes no las leen. Quien las
+    // necesita las pide con un EntityGraph del repositorio o las inicializa por lotes
+    @ManyToMany(fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
     @JoinTable(
         name = "reserva_karts",
         joinColumns = @JoinColumn(name = "reserva_id"),
@@ -30,7 +42,8 @@ public class ReservaEntity {
     )
     private List<KartEntity> karts;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany(fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
     @JoinTable(
         name = "reserva_clientes",
         joinColumns = @JoinColumn(name = "reserva_id"),
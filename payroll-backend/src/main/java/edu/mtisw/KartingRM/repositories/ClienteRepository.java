@@ -1,7 +1,34 @@
 package edu.mtisw.KartingRM.repositories;
 
+import edu.mtisw.KartingRM.dtos.ClienteListaDTO;
 import edu.mtisw.KartingRM.entities.ClienteEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface ClienteRepository extends JpaRepository<ClienteEntity, Long> {
+
+    // Listado por cursor: la página empieza después del último ID entregado, sin OFFSET
+    @Query("SELECT new edu.mtisw.KartingRM.dtos.ClienteListaDTO(c.id, c.nombre, c.email, c.numeroVisitas, c.fechaNacimiento) " +
+           "FROM ClienteEntity c WHERE c.id > :despuesDe ORDER BY c.id")
+    List<ClienteListaDTO> findPaginaDespuesDe(@Param("despuesDe") long despuesDe, Limit limite);
+
+    // Parte del nombre o del correo, primero los nombres que empiezan con el texto. En PostgreSQL
+    // el LIKE se resuelve con los índices de trigramas de IndicesBusquedaClientes
+    @Query("SELECT new edu.mtisw.KartingRM.dtos.ClienteListaDTO(c.id, c.nombre, c.email, c.numeroVisitas, c.fechaNacimiento) " +
+           "FROM ClienteEntity c WHERE LOWER(c.nombre) LIKE :patron ESCAPE '!' OR LOWER(c.email) LIKE :patron ESCAPE '!' " +
+           "ORDER BY CASE WHEN LOWER(c.nombre) LIKE :prefijo ESCAPE '!' THEN 0 ELSE 1 END, c.nombre, c.id")
+    List<ClienteListaDTO> findCoincidencias(@Param("patron") String patron, @Param("prefijo") String prefijo, Limit limite);
+
+    // Solo la columna, en minúsculas: la importación la carga completa en un HashSet
+    @Query("SELECT LOWER(c.email) FROM ClienteEntity c WHERE c.email IS NOT NULL")
+    List<String> findCorreosRegistrados();
+
+    // Sin distinguir mayúsculas, igual que el índice único sobre lower(email)
+    boolean existsByEmailIgnoreCase(String email);
+
+    boolean existsByEmailIgnoreCaseAndIdNot(String email, Long id);
 }
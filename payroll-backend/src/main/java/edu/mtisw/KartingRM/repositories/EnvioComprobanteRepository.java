@@ -0,0 +1,29 @@
+package edu.mtisw.KartingRM.repositories;
+
+import edu.mtisw.KartingRM.entities.EnvioComprobanteEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EnvioComprobanteRepository extends JpaRepository<EnvioComprobanteEntity, Long> {
+
+    List<EnvioComprobanteEntity> findByTrabajoIdOrderByIdAsc(String trabajoId);
+
+    // Un solo UPDATE condicional: si varias réplicas arrancan a la vez, cada envío se marca una vez
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE EnvioComprobanteEntity e SET e.estado = :fallido, e.error = :error, e.actualizadoEn = :ahora " +
+           "WHERE e.estado = :pendiente AND e.actualizadoEn < :limite")
+    int marcarAbandonados(@Param("pendiente") String pendiente,
+                          @Param("fallido") String fallido,
+                          @Param("error") String error,
+                          @Param("limite") LocalDateTime limite,
+                          @Param("ahora") LocalDateTime ahora);
+}
@@ -0,0 +1,67 @@
+package edu.mtisw.KartingRM.repositories;
+
+import edu.mtisw.KartingRM.dtos.CeldaResumenDTO;
+import edu.mtisw.KartingRM.dtos.IngresoAgregadoDTO;
+import edu.mtisw.KartingRM.entities.IngresoResumenEntity;
+import edu.mtisw.KartingRM.entities.IngresoResumenId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface IngresoResumenRepository extends JpaRepository<IngresoResumenEntity, IngresoResumenId> {
+
+    @Modifying
+    @Query("UPDATE IngresoResumenEntity i SET i.cantidadReservas = i.cantidadReservas + :cantidad, " +
+           "i.totalPrecioFinal = i.totalPrecioFinal + :monto " +
+           "WHERE i.id.fecha = :fecha AND i.id.numeroVueltas = :numeroVueltas " +
+           "AND i.id.duracionTotal = :duracionTotal AND i.id.rangoPersonas = :rangoPersonas")
+    int sumarReservas(@Param("fecha") LocalDate fecha,
+                      @Param("numeroVueltas") int numeroVueltas,
+                      @Param("duracionTotal") int duracionTotal,
+                      @Param("rangoPersonas") String rangoPersonas,
+                      @Param("cantidad") int cantidad,
+                      @Param("monto") long monto);
+
+    default int sumarReserva(LocalDate fecha, int numeroVueltas, int duracionTotal, String rangoPersonas, long monto) {
+        return sumarReservas(fecha, numeroVueltas, duracionTotal, rangoPersonas, 1, monto);
+    }
+
+    List<IngresoResumenEntity> findByIdFechaBetween(LocalDate inicio, LocalDate fin);
+
+    // Reservas contadas en el resumen; si no coincide con las reservas con fecha, el resumen está incompleto
+    @Query("SELECT COALESCE(SUM(i.cantidadReservas), 0) FROM IngresoResumenEntity i")
+    long contarReservasResumidas();
+
+    @Query("SELECT new edu.mtisw.KartingRM.dtos.IngresoAgregadoDTO(" +
+           "CONCAT(CAST(i.id.numeroVueltas AS String), ' vueltas o máx ', CAST(i.id.duracionTotal AS String), ' min'), " +
+           "i.anioMes, SUM(i.totalPrecioFinal)) " +
+           "FROM IngresoResumenEntity i WHERE i.id.fecha BETWEEN :inicio AND :fin " +
+           "GROUP BY i.id.numeroVueltas, i.id.duracionTotal, i.anioMes")
+    List<IngresoAgregadoDTO> sumarPorVueltas(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
+
+    @Query("SELECT new edu.mtisw.KartingRM.dtos.IngresoAgregadoDTO(i.id.rangoPersonas, i.anioMes, SUM(i.totalPrecioFinal)) " +
+           "FROM IngresoResumenEntity i WHERE i.id.fecha BETWEEN :inicio AND :fin " +
+           "GROUP BY i.id.rangoPersonas, i.anioMes")
+    List<IngresoAgregadoDTO> sumarPorPersonas(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
+
+    // Reconstrucción completa a partir de la tabla de reservas
+    @Query("SELECT new edu.mtisw.KartingRM.dtos.CeldaResumenDTO(r.fechaReserva, r.numeroVueltas, r.duracionTotal, " +
+           "CASE WHEN r.numeroPersonas <= 2 THEN '1-2 personas' " +
+           "WHEN r.numeroPersonas <= 5 THEN '3-5 personas' " +
+           "WHEN r.numeroPersonas <= 10 THEN '6-10 personas' " +
+           "ELSE '11-15 personas' END, " +
+           "COUNT(r), SUM(r.precioFinal)) " +
+           "FROM ReservaEntity r WHERE r.fechaReserva IS NOT NULL " +
+           "GROUP BY r.fechaReserva, r.numeroVueltas, r.duracionTotal, " +
+           "CASE WHEN r.numeroPersonas <= 2 THEN '1-2 personas' " +
+           "WHEN r.numeroPersonas <= 5 THEN '3-5 personas' " +
+           "WHEN r.numeroPersonas <= 10 THEN '6-10 personas' " +
+           "ELSE '11-15 personas' END")
+    List<CeldaResumenDTO> resumirReservas();
+}
@@ -1,7 +1,18 @@
 package edu.mtisw.KartingRM.repositories;
 
+import edu.mtisw.KartingRM.dtos.KartListaDTO;
 import edu.mtisw.KartingRM.entities.KartEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface KartRepository extends JpaRepository<KartEntity, Long> {
+
+    // Listado por cursor: la página empieza después del último ID entregado, sin OFFSET
+    @Query("SELECT new edu.mtisw.KartingRM.dtos.KartListaDTO(k.id, k.codigo, k.estado) " +
+           "FROM KartEntity k WHERE k.id > :despuesDe ORDER BY k.id")
+    List<KartListaDTO> findPaginaDespuesDe(@Param("despuesDe") long despuesDe, Limit limite);
 }
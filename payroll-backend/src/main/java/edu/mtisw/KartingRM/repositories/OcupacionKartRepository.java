@@ -0,0 +1,17 @@
+package edu.mtisw.KartingRM.repositories;
+
+import edu.mtisw.KartingRM.entities.OcupacionKartEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface OcupacionKartRepository extends JpaRepository<OcupacionKartEntity, Long> {
+
+    // Todos los slots ocupados del día, para armar los bitsets de disponibilidad
+    List<OcupacionKartEntity> findByFecha(LocalDate fecha);
+
+    boolean existsByReservaId(Long reservaId);
+}
@@ -1,14 +1,91 @@
 package edu.mtisw.KartingRM.repositories;
 
+import edu.mtisw.KartingRM.dtos.EtiquetaReservaDTO;
+import edu.mtisw.KartingRM.dtos.KartReservadoDTO;
+import edu.mtisw.KartingRM.dtos.MarcaCambiosDTO;
+import edu.mtisw.KartingRM.dtos.ReservaIngresoDTO;
+import edu.mtisw.KartingRM.dtos.ReservaListaDTO;
+import edu.mtisw.KartingRM.dtos.ReservaRackDTO;
 import edu.mtisw.KartingRM.entities.ReservaEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ReservaRepository extends JpaRepository<ReservaEntity, Long> {
 
-    List<ReservaEntity> findAllByFechaReservaBetween(LocalDate inicio, LocalDate fin);
+    // Comprobantes y envíos solo leen los clientes: se traen en el mismo SELECT y los karts quedan sin cargar
+    @EntityGraph(attributePaths = "clientes")
+    Optional<ReservaEntity> findConClientesById(Long id);
+
+    @EntityGraph(attributePaths = "clientes")
+    List<ReservaEntity> findConClientesByIdIn(Collection<Long> ids);
+
+    @EntityGraph(attributePaths = "karts")
+    List<ReservaEntity> findConKartsByIdIn(Collection<Long> ids);
+
+    long countByFechaReservaIsNotNull();
+
+    // Reservas con karts que no tienen filas de ocupación (anteriores a esa tabla)
+    @Query("SELECT r.id FROM ReservaEntity r WHERE r.horaReserva IS NOT NULL AND r.karts IS NOT EMPTY " +
+           "AND NOT EXISTS (SELECT 1 FROM OcupacionKartEntity o WHERE o.reservaId = r.id) ORDER BY r.id")
+    List<Long> findIdsSinOcupacion();
+
+    // Solo las columnas del rack, sin cargar clientes ni karts
+    @Query("SELECT new edu.mtisw.KartingRM.dtos.ReservaRackDTO(r.id, r.fechaReserva, r.horaReserva, r.duracionTotal, r.numeroPersonas) " +
+           "FROM ReservaEntity r WHERE r.fechaReserva BETWEEN :inicio AND :fin")
+    List<ReservaRackDTO> findRackByFechaReservaBetween(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
+
+    // Una fila por kart de cada reserva del rango, sin cargar entidades
+    @Query("SELECT new edu.mtisw.KartingRM.dtos.KartReservadoDTO(r.id, r.fechaReserva, r.horaReserva, r.duracionTotal, k.id) " +
+           "FROM ReservaEntity r JOIN r.karts k WHERE r.fechaReserva BETWEEN :inicio AND :fin")
+    List<KartReservadoDTO> findKartsReservadosByFechaReservaBetween(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
+
+    @Query("SELECT new edu.mtisw.KartingRM.dtos.MarcaCambiosDTO(COALESCE(MAX(r.id), 0L), COUNT(r)) " +
+           "FROM ReservaEntity r WHERE r.fechaReserva BETWEEN :inicio AND :fin")
+    MarcaCambiosDTO findMarcaCambiosByFechaReservaBetween(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
+
+    @Query("SELECT r.id FROM ReservaEntity r WHERE r.fechaReserva BETWEEN :inicio AND :fin ORDER BY r.fechaReserva, r.id")
+    List<Long> findIdsByFechaReservaBetween(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
+
+    // Listado de la más reciente a la más antigua; la página siguiente continúa después de (fecha, id)
+    // de la última fila entregada, así que el costo no crece con las páginas ya recorridas
+    @Query("SELECT new edu.mtisw.KartingRM.dtos.ReservaListaDTO(r.id, r.fechaReserva, r.horaReserva, r.numeroVueltas, " +
+           "r.precioBase, r.descuentoPorPersonas, r.descuentoPorVisitas, r.descuentoPorCumpleaños, r.precioFinal) " +
+           "FROM ReservaEntity r ORDER BY r.fechaReserva DESC, r.id DESC")
+    List<ReservaListaDTO> findPrimeraPagina(Limit limite);
+
+    @Query("SELECT new edu.mtisw.KartingRM.dtos.ReservaListaDTO(r.id, r.fechaReserva, r.horaReserva, r.numeroVueltas, " +
+           "r.precioBase, r.descuentoPorPersonas, r.descuentoPorVisitas, r.descuentoPorCumpleaños, r.precioFinal) " +
+           "FROM ReservaEntity r WHERE r.fechaReserva < :fecha OR (r.fechaReserva = :fecha AND r.id < :id) " +
+           "ORDER BY r.fechaReserva DESC, r.id DESC")
+    List<ReservaListaDTO> findPaginaDespuesDe(@Param("fecha") LocalDate fecha, @Param("id") long id, Limit limite);
+
+    @Query("SELECT new edu.mtisw.KartingRM.dtos.EtiquetaReservaDTO(r.id, c.nombre) " +
+           "FROM ReservaEntity r JOIN r.clientes c WHERE r.id IN :ids")
+    List<EtiquetaReservaDTO> findNombresClientesByReservaIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new edu.mtisw.KartingRM.dtos.EtiquetaReservaDTO(r.id, k.codigo) " +
+           "FROM ReservaEntity r JOIN r.karts k WHERE r.id IN :ids")
+    List<EtiquetaReservaDTO> findCodigosKartsByReservaIdIn(@Param("ids") Collection<Long> ids);
+
+    // Se lee con un cursor por bloques y sin entidades administradas, así la memoria no depende del
+    // rango; debe consumirse dentro de una transacción y cerrarse al terminar
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new edu.mtisw.KartingRM.dtos.ReservaIngresoDTO(r.fechaReserva, r.numeroVueltas, r.duracionTotal, " +
+           "r.numeroPersonas, r.precioFinal) " +
+           "FROM ReservaEntity r WHERE r.fechaReserva BETWEEN :inicio AND :fin")
+    Stream<ReservaIngresoDTO> streamIngresosByFechaReservaBetween(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
 }
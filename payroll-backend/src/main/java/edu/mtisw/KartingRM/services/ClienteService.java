@@ -1,49 +1,118 @@
 package edu.mtisw.KartingRM.services;
 
+import edu.mtisw.KartingRM.config.PaginacionProperties;
+import edu.mtisw.KartingRM.dtos.ClienteListaDTO;
+import edu.mtisw.KartingRM.dtos.PaginaDTO;
 import edu.mtisw.KartingRM.entities.ClienteEntity;
 import edu.mtisw.KartingRM.repositories.ClienteRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.regex.Pattern;
 
 @Service
 public class ClienteService {
 
+    // Con menos de tres caracteres no hay trigramas que buscar en el índice
+    public static final int MIN_CARACTERES_BUSQUEDA = 3;
+    public static final int RESULTADOS_BUSQUEDA = 20;
+
+    // Compilado una vez; Pattern.matches lo compilaba en cada validación
+    private static final Pattern CORREO_GMAIL = Pattern.compile("^[a-zA-Z0-9._%+-]+@gmail\\.com$");
+
     private final ClienteRepository clienteRepository;
+    private final PaginacionProperties paginacionProperties;
 
-    public ClienteService(ClienteRepository clienteRepository) {
+    public ClienteService(ClienteRepository clienteRepository, PaginacionProperties paginacionProperties) {
         this.clienteRepository = clienteRepository;
+        this.paginacionProperties = paginacionProperties;
     }
 
     public ClienteEntity crearCliente(ClienteEntity cliente) {
         validarCorreo(cliente.getEmail());
+        if (clienteRepository.existsByEmailIgnoreCase(cliente.getEmail())) {
+            throw correoRepetido(cliente.getEmail());
+        }
         System.out.println("Fecha de nacimiento recibida en el backend: " + cliente.getFechaNacimiento());
-        return clienteRepository.save(cliente);
+        return guardar(cliente);
     }
 
     public ClienteEntity actualizarCliente(Long id, ClienteEntity cliente) {
         ClienteEntity clienteExistente = clienteRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Cliente no encontrado con ID: " + id));
         validarCorreo(cliente.getEmail());
+        if (clienteRepository.existsByEmailIgnoreCaseAndIdNot(cliente.getEmail(), id)) {
+            throw correoRepetido(cliente.getEmail());
+        }
         clienteExistente.setNombre(cliente.getNombre());
         clienteExistente.setNumeroVisitas(cliente.getNumeroVisitas());
         clienteExistente.setFechaNacimiento(cliente.getFechaNacimiento());
         clienteExistente.setEmail(cliente.getEmail());
-        return clienteRepository.save(clienteExistente);
+        return guardar(clienteExistente);
+    }
+
+    // La revisión previa no ve lo que otra petición guarda al mismo tiempo; eso lo ataja el índice único
+    private ClienteEntity guardar(ClienteEntity cliente) {
+        try {
+            return clienteRepository.save(cliente);
+        } catch (DataIntegrityViolationException e) {
+            if (violaCorreoUnico(e)) {
+                throw correoRepetido(cliente.getEmail());
+            }
+            throw e;
+        }
+    }
+
+    private static IllegalArgumentException correoRepetido(String email) {
+        return new IllegalArgumentException("Ya existe un cliente con el correo " + email + ".");
     }
 
     public List<ClienteEntity> listarClientes() {
         return clienteRepository.findAll();
     }
 
-    private void validarCorreo(String email) {
+    /**
+     * Página del listado ordenada por ID. El cursor es el ID de la última fila
+     * entregada; sin cursor se devuelve la primera página.
+     */
+    public PaginaDTO<ClienteListaDTO> listarPagina(String cursor, Integer tamano) {
+        int tamanoPagina = paginacionProperties.tamano(tamano);
+        long despuesDe = PaginaDTO.idDelCursor(cursor);
+        // Una fila de más para saber si hay página siguiente
+        List<ClienteListaDTO> filas = clienteRepository.findPaginaDespuesDe(despuesDe, Limit.of(tamanoPagina + 1));
+        return PaginaDTO.desde(filas, tamanoPagina, fila -> String.valueOf(fila.getId()));
+    }
+
+    /**
+     * Clientes cuyo nombre o correo contiene el texto, sin distinguir mayúsculas;
+     * los nombres que empiezan con el texto van primero. Devuelve solo los
+     * primeros resultados: el formulario de reserva busca mientras se escribe.
+     */
+    public List<ClienteListaDTO> buscarClientes(String texto, Integer tamano) {
+        String buscado = texto == null ? "" : texto.trim().toLowerCase(Locale.ROOT);
+        if (buscado.length() < MIN_CARACTERES_BUSQUEDA) {
+            throw new IllegalArgumentException("La búsqueda necesita al menos " + MIN_CARACTERES_BUSQUEDA + " caracteres");
+        }
+        int limite = paginacionProperties.tamano(tamano == null ? RESULTADOS_BUSQUEDA : tamano);
+        // % y _ del texto se buscan literalmente
+        String escapado = buscado.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+        return clienteRepository.findCoincidencias("%" + escapado + "%", escapado + "%", Limit.of(limite));
+    }
+
+    static void validarCorreo(String email) {
         if (email == null || email.isEmpty()) {
             throw new IllegalArgumentException("El correo electrónico es obligatorio.");
         }
-        String emailRegex = "^[a-zA-Z0-9._%+-]+@gmail\\.com$";
-        if (!Pattern.matches(emailRegex, email)) {
+        if (!CORREO_GMAIL.matcher(email).matches()) {
             throw new IllegalArgumentException("El correo debe ser una dirección válida de Gmail.");
         }
     }
+
+    static boolean violaCorreoUnico(DataIntegrityViolationException e) {
+        String mensaje = e.getMostSpecificCause().getMessage();
+        return mensaje != null && mensaje.toLowerCase(Locale.ROOT).contains(ImportacionClientesService.INDICE_CORREO_UNICO);
+    }
 }
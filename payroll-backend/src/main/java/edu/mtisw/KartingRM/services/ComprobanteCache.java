@@ -0,0 +1,240 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.dtos.EstadisticasCacheDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * PDFs de comprobantes ya generados, por reserva y versión de contenido.
+ *
+ * La memoria se limita por bytes y desaloja el menos usado recientemente. Si
+ * hay un directorio configurado, cada PDF también se escribe a disco y una
+ * falla en memoria se busca ahí antes de volver a generarlo. Los arreglos
+ * devueltos se comparten entre solicitudes y no deben modificarse.
+ */
+@Component
+public class ComprobanteCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ComprobanteCache.class);
+
+    private final long maxBytes;
+    private final Path directorio;
+
+    // En orden de acceso: el primero es el menos usado recientemente
+    private final LinkedHashMap<String, byte[]> memoria = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytesEnMemoria;
+
+    private final LongAdder aciertosMemoria = new LongAdder();
+    private final LongAdder aciertosDisco = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+
+    public ComprobanteCache(@Value("${comprobantes.cache.max-bytes:67108864}") long maxBytes,
+                            @Value("${comprobantes.cache.directorio:}") String directorio) {
+        this.maxBytes = maxBytes;
+        this.directorio = directorio.isBlank() ? null : Path.of(directorio);
+        if (this.directorio != null) {
+            try {
+                Files.createDirectories(this.directorio);
+            } catch (IOException e) {
+                throw new IllegalStateException("No se pudo crear el directorio de comprobantes " + directorio, e);
+            }
+        }
+    }
+
+    /**
+     * Devuelve el PDF guardado para la reserva y versión, o lo genera y lo guarda.
+     * Dos solicitudes simultáneas por el mismo comprobante pueden generarlo ambas;
+     * el resultado es el mismo y queda uno solo.
+     */
+    public byte[] obtener(Long reservaId, String version, Supplier<byte[]> generar) {
+        String clave = reservaId + "-" + version;
+
+        byte[] pdf = leerMemoria(clave);
+        if (pdf != null) {
+            aciertosMemoria.increment();
+            return pdf;
+        }
+
+        pdf = leerDisco(clave);
+        if (pdf != null) {
+            aciertosDisco.increment();
+            guardarMemoria(clave, pdf);
+            return pdf;
+        }
+
+        fallos.increment();
+        pdf = generar.get();
+        guardar(reservaId, version, pdf);
+        return pdf;
+    }
+
+    /**
+     * Busca el comprobante para copiarlo a una respuesta. A diferencia de
+     * obtener, el de disco no se carga en memoria: se deja abierto el archivo
+     * y se copia desde ahí, aunque mientras tanto lo reemplace otra versión.
+     */
+    public Optional<Guardado> buscar(Long reservaId, String version) {
+        String clave = reservaId + "-" + version;
+
+        byte[] pdf = leerMemoria(clave);
+        if (pdf != null) {
+            aciertosMemoria.increment();
+            return Optional.of(new Guardado(pdf));
+        }
+
+        if (directorio != null) {
+            Path archivo = directorio.resolve(clave + ".pdf");
+            try {
+                FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ);
+                aciertosDisco.increment();
+                return Optional.of(new Guardado(canal));
+            } catch (NoSuchFileException e) {
+                // No está en disco
+            } catch (IOException e) {
+                logger.warn("No se pudo leer el comprobante en caché {}: {}", archivo, e.getMessage());
+            }
+        }
+
+        fallos.increment();
+        return Optional.empty();
+    }
+
+    public void guardar(Long reservaId, String version, byte[] pdf) {
+        String clave = reservaId + "-" + version;
+        guardarMemoria(clave, pdf);
+        escribirDisco(reservaId, clave, pdf);
+    }
+
+    public EstadisticasCacheDTO estadisticas() {
+        int entradas;
+        long bytes;
+        synchronized (memoria) {
+            entradas = memoria.size();
+            bytes = bytesEnMemoria;
+        }
+        long aciertos = aciertosMemoria.sum() + aciertosDisco.sum();
+        long consultas = aciertos + fallos.sum();
+        return new EstadisticasCacheDTO(entradas, bytes, maxBytes, aciertosMemoria.sum(), aciertosDisco.sum(),
+                fallos.sum(), desalojos.sum(), consultas == 0 ? 0 : (double) aciertos / consultas);
+    }
+
+    private byte[] leerMemoria(String clave) {
+        synchronized (memoria) {
+            return memoria.get(clave);
+        }
+    }
+
+    private void guardarMemoria(String clave, byte[] pdf) {
+        // Un PDF más grande que todo el límite solo desalojaría al resto
+        if (pdf.length > maxBytes) {
+            return;
+        }
+        synchronized (memoria) {
+            byte[] anterior = memoria.put(clave, pdf);
+            if (anterior != null) {
+                bytesEnMemoria -= anterior.length;
+            }
+            bytesEnMemoria += pdf.length;
+
+            Iterator<Map.Entry<String, byte[]>> entradas = memoria.entrySet().iterator();
+            while (bytesEnMemoria > maxBytes && entradas.hasNext()) {
+                bytesEnMemoria -= entradas.next().getValue().length;
+                entradas.remove();
+                desalojos.increment();
+            }
+        }
+    }
+
+    private byte[] leerDisco(String clave) {
+        if (directorio == null) {
+            return null;
+        }
+        Path archivo = directorio.resolve(clave + ".pdf");
+        try {
+            return Files.exists(archivo) ? Files.readAllBytes(archivo) : null;
+        } catch (IOException e) {
+            logger.warn("No se pudo leer el comprobante en caché {}: {}", archivo, e.getMessage());
+            return null;
+        }
+    }
+
+    private void escribirDisco(Long reservaId, String clave, byte[] pdf) {
+        if (directorio == null) {
+            return;
+        }
+        try {
+            // Las versiones anteriores de la misma reserva ya no se van a pedir
+            try (DirectoryStream<Path> anteriores = Files.newDirectoryStream(directorio, reservaId + "-*.pdf")) {
+                for (Path anterior : anteriores) {
+                    Files.deleteIfExists(anterior);
+                }
+            }
+            // Se escribe aparte y se mueve, así nunca se lee un archivo a medio escribir
+            Path temporal = Files.createTempFile(directorio, clave, ".tmp");
+            Files.write(temporal, pdf);
+            Files.move(temporal, directorio.resolve(clave + ".pdf"),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("No se pudo guardar el comprobante {} en disco: {}", clave, e.getMessage());
+        }
+    }
+
+    /**
+     * Comprobante encontrado en la caché, desde memoria o desde un archivo abierto.
+     */
+    public static final class Guardado implements Closeable {
+
+        private final byte[] pdf;
+        private final FileChannel canal;
+
+        public Guardado(byte[] pdf) {
+            this.pdf = pdf;
+            this.canal = null;
+        }
+
+        Guardado(FileChannel canal) {
+            this.pdf = null;
+            this.canal = canal;
+        }
+
+        public long getTamano() throws IOException {
+            return pdf != null ? pdf.length : canal.size();
+        }
+
+        public void copiarA(OutputStream salida) throws IOException {
+            if (pdf != null) {
+                salida.write(pdf);
+            } else {
+                Channels.newInputStream(canal.position(0)).transferTo(salida);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (canal != null) {
+                canal.close();
+            }
+        }
+    }
+}
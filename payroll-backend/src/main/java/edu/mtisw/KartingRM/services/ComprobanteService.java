@@ -1,75 +1,281 @@
 package edu.mtisw.KartingRM.services;
 
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.font.PdfFontFactory.EmbeddingStrategy;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.CompressionConstants;
 import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
 import com.itextpdf.kernel.pdf.PdfWriter;
-import com.itextpdf.layout.Document;
-import com.itextpdf.layout.element.Paragraph;
-import com.itextpdf.layout.element.Table;
+import com.itextpdf.kernel.pdf.WriterProperties;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import edu.mtisw.KartingRM.dtos.EstadisticasCacheDTO;
 import edu.mtisw.KartingRM.entities.ReservaEntity;
 import edu.mtisw.KartingRM.entities.ClienteEntity;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
 
 @Service
 public class ComprobanteService {
 
+    // Cambiar al modificar el diseño del PDF, así los comprobantes guardados se regeneran
+    static final String FORMATO = "2";
+
+    // Plantilla del comprobante: las fuentes se leen una vez y todas las posiciones
+    // son fijas, así por documento solo se escriben los datos de la reserva
+    private static final FontProgram HELVETICA = cargarFuente(StandardFonts.HELVETICA);
+    private static final FontProgram HELVETICA_BOLD = cargarFuente(StandardFonts.HELVETICA_BOLD);
+    private static final float MARGEN = 36;
+    private static final float TAMANO_TITULO = 16;
+    private static final float TAMANO_TEXTO = 12;
+    private static final float TAMANO_TABLA = 9;
+    private static final float INTERLINEADO = 18;
+    private static final float ALTO_ENCABEZADO = 26;
+    private static final float ALTO_FILA = 16;
+    private static final float RELLENO = 3;
+    private static final String[][] ENCABEZADOS = {
+            {"Cliente"}, {"Tarifa Base"}, {"Descuento", "Grupo"}, {"Descuento", "Promoción"},
+            {"Monto Final"}, {"IVA"}, {"Total con IVA"}
+    };
+    // Comprobantes más grandes que esto se transmiten sin guardar copia en la caché
+    private static final int MAX_BYTES_COPIA = 1024 * 1024;
+    private static final float ANCHO_COLUMNA = (PageSize.A4.getWidth() - 2 * MARGEN) / ENCABEZADOS.length;
+
+    @Autowired
+    private ComprobanteCache comprobanteCache;
+
+    /**
+     * Comprobante de la reserva desde la caché; solo se genera el PDF si no está
+     * guardado o si cambió algo de lo que se imprime en él.
+     */
+    public byte[] obtenerComprobante(ReservaEntity reserva) {
+        return comprobanteCache.obtener(reserva.getId(), version(reserva), () -> generarComprobante(reserva));
+    }
+
+    /**
+     * Comprobante ya guardado, para copiarlo a la respuesta sin generarlo.
+     * Quien lo recibe debe cerrarlo.
+     */
+    public Optional<ComprobanteCache.Guardado> buscarComprobante(ReservaEntity reserva) {
+        return comprobanteCache.buscar(reserva.getId(), version(reserva));
+    }
+
+    /**
+     * Genera el comprobante directo sobre la salida, sin armarlo antes en un
+     * arreglo. Si resulta pequeño se guarda una copia en la caché; la salida
+     * no se cierra.
+     */
+    public void escribirComprobante(ReservaEntity reserva, OutputStream salida) {
+        CopiaAcotada copia = new CopiaAcotada(salida, MAX_BYTES_COPIA);
+        dibujar(reserva, copia);
+        if (copia.completa()) {
+            comprobanteCache.guardar(reserva.getId(), version(reserva), copia.toByteArray());
+        }
+    }
+
+    public EstadisticasCacheDTO estadisticasCache() {
+        return comprobanteCache.estadisticas();
+    }
+
+    // Hash de todos los datos que aparecen en el comprobante; también sirve de ETag
+    public static String version(ReservaEntity reserva) {
+        StringBuilder contenido = new StringBuilder(FORMATO)
+                .append('|').append(reserva.getId())
+                .append('|').append(reserva.getFechaReserva())
+                .append('|').append(reserva.getHoraReserva())
+                .append('|').append(reserva.getNumeroVueltas())
+                .append('|').append(reserva.getPrecioBase())
+                .append('|').append(reserva.getPrecioFinal())
+                .append('|').append(reserva.getDescuentoPorPersonas())
+                .append('|').append(reserva.getDescuentoPorVisitas())
+                .append('|').append(reserva.getDescuentoPorCumpleaños());
+        for (ClienteEntity cliente : reserva.getClientes()) {
+            contenido.append('|').append(cliente.getNombre());
+        }
+
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(contenido.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
     public byte[] generarComprobante(ReservaEntity reserva) {
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-        
-            PdfWriter writer = new PdfWriter(outputStream);
-            PdfDocument pdf = new PdfDocument(writer);
-            Document document = new Document(pdf);
-
-         
-            document.add(new Paragraph("Comprobante de Reserva").setBold().setFontSize(16));
-
-      
-            document.add(new Paragraph("Código de Reserva: " + reserva.getId()));
-            document.add(new Paragraph("Fecha: " + reserva.getFechaReserva()));
-            document.add(new Paragraph("Hora: " + reserva.getHoraReserva()));
-            document.add(new Paragraph("Número de Vueltas: " + reserva.getNumeroVueltas()));
-            document.add(new Paragraph("Precio Base: $" + reserva.getPrecioBase()));
-
-          
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(4096);
+        dibujar(reserva, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private void dibujar(ReservaEntity reserva, OutputStream salida) {
+        PdfWriter writer = new PdfWriter(salida, new WriterProperties()
+                .setCompressionLevel(CompressionConstants.BEST_COMPRESSION)
+                .setFullCompressionMode(true));
+        // La salida puede ser la respuesta HTTP; la cierra quien la abrió
+        writer.setCloseStream(false);
+        try (PdfDocument pdf = new PdfDocument(writer)) {
+
+            // Fuentes estándar: no se incrustan, el PDF solo las nombra
+            PdfFont normal = PdfFontFactory.createFont(HELVETICA, PdfEncodings.WINANSI, EmbeddingStrategy.PREFER_NOT_EMBEDDED);
+            PdfFont negrita = PdfFontFactory.createFont(HELVETICA_BOLD, PdfEncodings.WINANSI, EmbeddingStrategy.PREFER_NOT_EMBEDDED);
+
+            PdfPage pagina = pdf.addNewPage(PageSize.A4);
+            PdfCanvas canvas = new PdfCanvas(pagina);
+            float y = PageSize.A4.getTop() - MARGEN - TAMANO_TITULO;
+            escribir(canvas, negrita, TAMANO_TITULO, MARGEN, y, "Comprobante de Reserva");
+
             double iva = reserva.getPrecioFinal() * 0.19;
             double precioConIva = reserva.getPrecioFinal() + iva;
+            String[] datos = {
+                    "Código de Reserva: " + reserva.getId(),
+                    "Fecha: " + reserva.getFechaReserva(),
+                    "Hora: " + reserva.getHoraReserva(),
+                    "Número de Vueltas: " + reserva.getNumeroVueltas(),
+                    "Precio Base: $" + reserva.getPrecioBase(),
+                    "IVA (19%): $" + Math.round(iva),
+                    "Precio Final con IVA: $" + Math.round(precioConIva)
+            };
+            y -= 10;
+            for (String dato : datos) {
+                y -= INTERLINEADO;
+                escribir(canvas, normal, TAMANO_TEXTO, MARGEN, y, dato);
+            }
 
-            document.add(new Paragraph("IVA (19%): $" + Math.round(iva)));
-            document.add(new Paragraph("Precio Final con IVA: $" + Math.round(precioConIva)));
+            y -= INTERLINEADO;
+            y = encabezadoTabla(canvas, negrita, y);
 
-          
-            Table table = new Table(new float[]{3, 3, 3, 3, 3, 3, 3});
-            table.addHeaderCell("Cliente");
-            table.addHeaderCell("Tarifa Base");
-            table.addHeaderCell("Descuento Grupo");
-            table.addHeaderCell("Descuento Promoción");
-            table.addHeaderCell("Monto Final");
-            table.addHeaderCell("IVA");
-            table.addHeaderCell("Total con IVA");
+            // Todas las filas tienen los mismos montos; se arman una sola vez
+            String[] fila = new String[ENCABEZADOS.length];
+            fila[1] = "$" + reserva.getPrecioBase();
+            fila[2] = reserva.getDescuentoPorPersonas() + "%";
+            fila[3] = (reserva.getDescuentoPorVisitas() + reserva.getDescuentoPorCumpleaños()) + "%";
+            fila[4] = "$" + Math.round(reserva.getPrecioFinal());
+            fila[5] = "$" + Math.round(iva);
+            fila[6] = "$" + Math.round(precioConIva);
 
             for (ClienteEntity cliente : reserva.getClientes()) {
-                double montoFinalCliente = reserva.getPrecioFinal();
-                double ivaCliente = montoFinalCliente * 0.19;
-                double totalConIvaCliente = montoFinalCliente + ivaCliente;
-
-                table.addCell(cliente.getNombre());
-                table.addCell("$" + reserva.getPrecioBase());
-                table.addCell(reserva.getDescuentoPorPersonas() + "%");
-                table.addCell((reserva.getDescuentoPorVisitas() + reserva.getDescuentoPorCumpleaños()) + "%");
-                table.addCell("$" + Math.round(montoFinalCliente));
-                table.addCell("$" + Math.round(ivaCliente));
-                table.addCell("$" + Math.round(totalConIvaCliente));
+                if (y - ALTO_FILA < MARGEN) {
+                    // La página terminada se escribe a la salida y deja de ocupar memoria
+                    canvas.release();
+                    pagina.flush();
+                    pagina = pdf.addNewPage(PageSize.A4);
+                    canvas = new PdfCanvas(pagina);
+                    y = encabezadoTabla(canvas, negrita, PageSize.A4.getTop() - MARGEN);
+                }
+                fila[0] = ajustar(normal, String.valueOf(cliente.getNombre()));
+                y -= ALTO_FILA;
+                for (int columna = 0; columna < fila.length; columna++) {
+                    float x = MARGEN + columna * ANCHO_COLUMNA;
+                    canvas.rectangle(x, y, ANCHO_COLUMNA, ALTO_FILA);
+                    escribir(canvas, normal, TAMANO_TABLA, x + RELLENO, y + 5, fila[columna]);
+                }
+                canvas.stroke();
             }
+        } catch (Exception e) {
+            throw new RuntimeException("Error al generar el comprobante en PDF", e);
+        }
+    }
 
-            document.add(table);
+    // Dibuja el encabezado de la tabla con su borde y devuelve la altura donde empieza la primera fila
+    private static float encabezadoTabla(PdfCanvas canvas, PdfFont negrita, float y) {
+        y -= ALTO_ENCABEZADO;
+        canvas.setLineWidth(0.5f);
+        for (int columna = 0; columna < ENCABEZADOS.length; columna++) {
+            float x = MARGEN + columna * ANCHO_COLUMNA;
+            canvas.rectangle(x, y, ANCHO_COLUMNA, ALTO_ENCABEZADO);
+            String[] lineas = ENCABEZADOS[columna];
+            for (int i = 0; i < lineas.length; i++) {
+                escribir(canvas, negrita, TAMANO_TABLA, x + RELLENO, y + ALTO_ENCABEZADO - 10 - i * 10, lineas[i]);
+            }
+        }
+        canvas.stroke();
+        return y;
+    }
 
-         
-            document.close();
+    private static void escribir(PdfCanvas canvas, PdfFont fuente, float tamano, float x, float y, String texto) {
+        canvas.beginText().setFontAndSize(fuente, tamano).moveText(x, y).showText(texto).endText();
+    }
 
-            return outputStream.toByteArray();
-        } catch (Exception e) {
-            throw new RuntimeException("Error al generar el comprobante en PDF", e);
+    // Recorta nombres que no caben en la columna en vez de pasar a la siguiente
+    private static String ajustar(PdfFont fuente, String texto) {
+        float disponible = ANCHO_COLUMNA - 2 * RELLENO;
+        if (fuente.getWidth(texto, TAMANO_TABLA) <= disponible) {
+            return texto;
+        }
+        float anchoPuntos = fuente.getWidth("...", TAMANO_TABLA);
+        int fin = texto.length();
+        while (fin > 0 && fuente.getWidth(texto.substring(0, fin), TAMANO_TABLA) + anchoPuntos > disponible) {
+            fin--;
+        }
+        return texto.substring(0, fin) + "...";
+    }
+
+    /**
+     * Pasa todo a la salida y guarda una copia mientras no supere el límite;
+     * un comprobante más grande solo se transmite.
+     */
+    private static final class CopiaAcotada extends FilterOutputStream {
+
+        private final int limite;
+        private ByteArrayOutputStream copia = new ByteArrayOutputStream(4096);
+
+        CopiaAcotada(OutputStream salida, int limite) {
+            super(salida);
+            this.limite = limite;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (cabe(1)) {
+                copia.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (cabe(len)) {
+                copia.write(b, off, len);
+            }
+        }
+
+        private boolean cabe(int len) {
+            if (copia != null && copia.size() + len > limite) {
+                copia = null;
+            }
+            return copia != null;
+        }
+
+        boolean completa() {
+            return copia != null;
+        }
+
+        byte[] toByteArray() {
+            return copia.toByteArray();
+        }
+    }
+
+    private static FontProgram cargarFuente(String nombre) {
+        try {
+            return FontProgramFactory.createFont(nombre);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo cargar la fuente " + nombre, e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,351 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.dtos.MarcaCambiosDTO;
+import edu.mtisw.KartingRM.entities.EstadoKart;
+import edu.mtisw.KartingRM.entities.KartEntity;
+import edu.mtisw.KartingRM.entities.OcupacionKartEntity;
+import edu.mtisw.KartingRM.entities.ReservaEntity;
+import edu.mtisw.KartingRM.repositories.KartRepository;
+import edu.mtisw.KartingRM.repositories.OcupacionKartRepository;
+import edu.mtisw.KartingRM.repositories.ReservaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Karts libres por fecha y hora, guardados en memoria como un bitset por slot
+ * de ocupación (5 minutos): el bit i está encendido si el kart i de la flota está
+ * ocupado. Los karts libres para una reserva son los disponibles menos el OR
+ * de los slots que toca, unas pocas operaciones por palabra de 64 karts.
+ *
+ * Igual que el rack, las reservas creadas en esta réplica se marcan al
+ * confirmarse y las de otras réplicas se detectan con la marca de cambios del
+ * día, que se verifica cada cierto tiempo. La flota (karts y su estado) se
+ * vuelve a leer con la misma frecuencia.
+ */
+@Component
+public class DisponibilidadKarts {
+
+    private static final int SLOTS_POR_DIA = 24 * 60 / OcupacionKartService.MINUTOS_POR_SLOT;
+
+    private final KartRepository kartRepository;
+    private final ReservaRepository reservaRepository;
+    private final OcupacionKartRepository ocupacionKartRepository;
+    private final long verificacionNanos;
+    private final int maxDias;
+
+    private volatile Flota flota;
+    private final Map<LocalDate, DiaOcupado> dias = new ConcurrentHashMap<>();
+    private final List<Apartado> apartados = new ArrayList<>();
+
+    public DisponibilidadKarts(KartRepository kartRepository,
+                               ReservaRepository reservaRepository,
+                               OcupacionKartRepository ocupacionKartRepository,
+                               @Value("${karts.disponibilidad.verificacion-ms:1000}") long verificacionMs,
+                               @Value("${karts.disponibilidad.max-dias:60}") int maxDias) {
+        this.kartRepository = kartRepository;
+        this.reservaRepository = reservaRepository;
+        this.ocupacionKartRepository = ocupacionKartRepository;
+        this.verificacionNanos = TimeUnit.MILLISECONDS.toNanos(verificacionMs);
+        this.maxDias = maxDias;
+    }
+
+    /**
+     * Karts en estado disponible que no tienen reserva en ningún slot entre la
+     * hora indicada y el fin de la duración, ordenados por ID.
+     */
+    public List<KartEntity> disponibles(LocalDate fecha, LocalTime hora, int duracionMinutos) {
+        long ahora = System.nanoTime();
+        Flota flotaActual = obtenerFlota(ahora);
+        DiaOcupado dia = obtenerDia(fecha, flotaActual, ahora);
+
+        long[] libres = libres(flotaActual, dia, hora, duracionMinutos);
+        List<KartEntity> karts = new ArrayList<>();
+        for (int indice : indices(libres)) {
+            karts.add(flotaActual.karts.get(indice));
+        }
+        return karts;
+    }
+
+    /**
+     * Elige karts para una asignación, del menos al más ocupado durante el día,
+     * y los aparta hasta que se llame a liberar. Mientras tanto las otras
+     * asignaciones de esta réplica no los ofrecen, así dos grupos que reservan a
+     * la misma hora no eligen los mismos karts y ninguno tiene que revertir su
+     * transacción. Entre karts igual de ocupados el orden es al azar, para que
+     * tampoco coincidan siempre con los de otra réplica. Devuelve null si no
+     * quedan karts suficientes.
+     */
+    public Apartado apartar(LocalDate fecha, LocalTime hora, int duracionMinutos, int cantidad) {
+        long ahora = System.nanoTime();
+        Flota flotaActual = obtenerFlota(ahora);
+        DiaOcupado dia = obtenerDia(fecha, flotaActual, ahora);
+        int primerSlot = OcupacionKartService.primerSlot(hora);
+        int finSlots = OcupacionKartService.finSlots(hora, duracionMinutos);
+
+        synchronized (apartados) {
+            long[] libres = libres(flotaActual, dia, hora, duracionMinutos);
+            for (Apartado apartado : apartados) {
+                if (apartado.fecha.equals(fecha) && apartado.primerSlot < finSlots && primerSlot < apartado.finSlots) {
+                    for (KartEntity kart : apartado.karts) {
+                        Integer indice = flotaActual.indices.get(kart.getId());
+                        if (indice != null) {
+                            libres[indice >>> 6] &= ~(1L << indice);
+                        }
+                    }
+                }
+            }
+            List<Integer> candidatos = porUso(dia, indices(libres));
+            if (candidatos.size() < cantidad) {
+                return null;
+            }
+
+            List<KartEntity> karts = new ArrayList<>(cantidad);
+            for (int i = 0; i < cantidad; i++) {
+                karts.add(flotaActual.karts.get(candidatos.get(i)));
+            }
+            Apartado apartado = new Apartado(fecha, primerSlot, finSlots, karts);
+            apartados.add(apartado);
+            return apartado;
+        }
+    }
+
+    /**
+     * Devuelve los karts apartados. Se llama cuando la transacción de la
+     * asignación terminó: si se confirmó, registrarReserva ya los marcó ocupados.
+     */
+    public void liberar(Apartado apartado) {
+        synchronized (apartados) {
+            apartados.remove(apartado);
+        }
+    }
+
+    /**
+     * Olvida el día para que la próxima consulta lo lea de la base de datos, por
+     * ejemplo después de que una asignación chocó con una reserva de otra réplica.
+     */
+    public void descartarDia(LocalDate fecha) {
+        dias.remove(fecha);
+    }
+
+    /**
+     * Marca los karts de una reserva recién confirmada en su día, si está en memoria.
+     */
+    public void registrarReserva(ReservaEntity reserva) {
+        Flota flotaActual = flota;
+        if (flotaActual == null) {
+            return;
+        }
+        dias.computeIfPresent(reserva.getFechaReserva(), (fecha, dia) -> {
+            if (dia.ids != flotaActual.ids) {
+                // Se armó con otra flota; la próxima consulta lo reconstruye
+                return dia;
+            }
+            int primerSlot = OcupacionKartService.primerSlot(reserva.getHoraReserva());
+            int finSlots = OcupacionKartService.finSlots(reserva.getHoraReserva(), reserva.getDuracionTotal());
+            long[][] ocupados = Arrays.copyOf(dia.ocupados, Math.max(dia.ocupados.length, finSlots));
+            for (int slot = primerSlot; slot < finSlots; slot++) {
+                // Copia por slot: las consultas en curso siguen viendo el arreglo anterior
+                ocupados[slot] = ocupados[slot] == null ? new long[flotaActual.disponibles.length] : ocupados[slot].clone();
+                for (KartEntity kart : reserva.getKarts()) {
+                    marcar(ocupados[slot], flotaActual, kart.getId());
+                }
+            }
+            MarcaCambiosDTO marca = new MarcaCambiosDTO(Math.max(dia.marca.getMaxId(), reserva.getId()),
+                    dia.marca.getCantidad() + 1);
+            return new DiaOcupado(marca, dia.ids, ocupados, dia.verificadoEn);
+        });
+    }
+
+    /**
+     * Se creó o cambió un kart en esta réplica: la flota se lee de nuevo en la próxima consulta.
+     */
+    public void invalidarFlota() {
+        flota = null;
+    }
+
+    private Flota obtenerFlota(long ahora) {
+        Flota actual = flota;
+        if (actual != null && ahora - actual.verificadaEn < verificacionNanos) {
+            return actual;
+        }
+        Flota nueva = new Flota(kartRepository.findAll(Sort.by("id")), actual, ahora);
+        flota = nueva;
+        return nueva;
+    }
+
+    private DiaOcupado obtenerDia(LocalDate fecha, Flota flotaActual, long ahora) {
+        DiaOcupado dia = dias.get(fecha);
+        boolean mismaFlota = dia != null && dia.ids == flotaActual.ids;
+        if (mismaFlota && ahora - dia.verificadoEn < verificacionNanos) {
+            return dia;
+        }
+
+        MarcaCambiosDTO marca = reservaRepository.findMarcaCambiosByFechaReservaBetween(fecha, fecha);
+        if (mismaFlota && dia.marca.equals(marca)) {
+            DiaOcupado verificado = new DiaOcupado(dia.marca, dia.ids, dia.ocupados, ahora);
+            dias.put(fecha, verificado);
+            return verificado;
+        }
+
+        // La marca se lee antes que las ocupaciones, igual que en el rack
+        long[][] ocupados = new long[SLOTS_POR_DIA][];
+        for (OcupacionKartEntity ocupacion : ocupacionKartRepository.findByFecha(fecha)) {
+            int slot = ocupacion.getSlot();
+            if (slot >= ocupados.length) {
+                ocupados = Arrays.copyOf(ocupados, slot + 1);
+            }
+            if (ocupados[slot] == null) {
+                ocupados[slot] = new long[flotaActual.disponibles.length];
+            }
+            marcar(ocupados[slot], flotaActual, ocupacion.getKartId());
+        }
+        DiaOcupado nuevo = new DiaOcupado(marca, flotaActual.ids, ocupados, ahora);
+        dias.put(fecha, nuevo);
+        descartarExcedentes();
+        return nuevo;
+    }
+
+    // Bits de los karts disponibles menos los ocupados en algún slot del rango
+    private long[] libres(Flota flotaActual, DiaOcupado dia, LocalTime hora, int duracionMinutos) {
+        long[] libres = flotaActual.disponibles.clone();
+        int finSlots = Math.min(OcupacionKartService.finSlots(hora, duracionMinutos), dia.ocupados.length);
+        for (int slot = OcupacionKartService.primerSlot(hora); slot < finSlots; slot++) {
+            long[] ocupados = dia.ocupados[slot];
+            if (ocupados == null) {
+                continue;
+            }
+            for (int palabra = 0; palabra < libres.length; palabra++) {
+                libres[palabra] &= ~ocupados[palabra];
+            }
+        }
+        return libres;
+    }
+
+    // Índices revueltos y luego ordenados por cantidad de slots ocupados en el día
+    private static List<Integer> porUso(DiaOcupado dia, List<Integer> candidatos) {
+        Collections.shuffle(candidatos, ThreadLocalRandom.current());
+        Map<Integer, Integer> slotsOcupados = new HashMap<>();
+        for (int indice : candidatos) {
+            int slots = 0;
+            for (long[] ocupados : dia.ocupados) {
+                if (ocupados != null && (ocupados[indice >>> 6] & (1L << indice)) != 0) {
+                    slots++;
+                }
+            }
+            slotsOcupados.put(indice, slots);
+        }
+        candidatos.sort(Comparator.comparingInt(slotsOcupados::get));
+        return candidatos;
+    }
+
+    private static List<Integer> indices(long[] bits) {
+        List<Integer> indices = new ArrayList<>();
+        for (int palabra = 0; palabra < bits.length; palabra++) {
+            long resto = bits[palabra];
+            while (resto != 0) {
+                indices.add(palabra * 64 + Long.numberOfTrailingZeros(resto));
+                resto &= resto - 1;
+            }
+        }
+        return indices;
+    }
+
+    private static void marcar(long[] bits, Flota flota, Long kartId) {
+        Integer indice = flota.indices.get(kartId);
+        // Un kart que ya no está en la flota no tiene bit
+        if (indice != null) {
+            bits[indice >>> 6] |= 1L << indice;
+        }
+    }
+
+    private void descartarExcedentes() {
+        while (dias.size() > maxDias) {
+            dias.entrySet().stream()
+                    .min(Comparator.comparingLong(entrada -> entrada.getValue().verificadoEn))
+                    .ifPresent(entrada -> dias.remove(entrada.getKey(), entrada.getValue()));
+        }
+    }
+
+    /**
+     * Karts ordenados por ID; la posición en la lista es el bit de cada kart.
+     */
+    private static final class Flota {
+
+        private final List<KartEntity> karts;
+        private final Map<Long, Integer> indices;
+        // Se comparte con la flota anterior si los IDs no cambiaron, así los días ya armados siguen sirviendo
+        private final long[] ids;
+        private final long[] disponibles;
+        private final long verificadaEn;
+
+        private Flota(List<KartEntity> karts, Flota anterior, long verificadaEn) {
+            this.karts = karts;
+            this.indices = new HashMap<>();
+            long[] idsLeidos = new long[karts.size()];
+            long[] bitsDisponibles = new long[(karts.size() + 63) >>> 6];
+            for (int i = 0; i < karts.size(); i++) {
+                KartEntity kart = karts.get(i);
+                indices.put(kart.getId(), i);
+                idsLeidos[i] = kart.getId();
+                if (kart.getEstado() == EstadoKart.DISPONIBLE) {
+                    bitsDisponibles[i >>> 6] |= 1L << i;
+                }
+            }
+            this.ids = anterior != null && Arrays.equals(anterior.ids, idsLeidos) ? anterior.ids : idsLeidos;
+            this.disponibles = bitsDisponibles;
+            this.verificadaEn = verificadaEn;
+        }
+    }
+
+    /**
+     * Karts elegidos por una asignación que todavía no termina su transacción.
+     */
+    public static final class Apartado {
+
+        private final LocalDate fecha;
+        private final int primerSlot;
+        private final int finSlots;
+        private final List<KartEntity> karts;
+
+        Apartado(LocalDate fecha, int primerSlot, int finSlots, List<KartEntity> karts) {
+            this.fecha = fecha;
+            this.primerSlot = primerSlot;
+            this.finSlots = finSlots;
+            this.karts = karts;
+        }
+
+        public List<KartEntity> getKarts() {
+            return karts;
+        }
+    }
+
+    private static final class DiaOcupado {
+
+        private final MarcaCambiosDTO marca;
+        private final long[] ids;
+        // Índice = slot del día; null si ningún kart está ocupado en ese slot
+        private final long[][] ocupados;
+        private final long verificadoEn;
+
+        private DiaOcupado(MarcaCambiosDTO marca, long[] ids, long[][] ocupados, long verificadoEn) {
+            this.marca = marca;
+            this.ids = ids;
+            this.ocupados = ocupados;
+            this.verificadoEn = verificadoEn;
+        }
+    }
+}
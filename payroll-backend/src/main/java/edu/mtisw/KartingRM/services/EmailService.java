@@ -1,14 +1,23 @@
 package edu.mtisw.KartingRM.services;
 
+import jakarta.mail.MessagingException;
 import jakarta.mail.util.ByteArrayDataSource;
 import jakarta.mail.internet.MimeMessage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 public class EmailService {
 
@@ -19,15 +28,7 @@ public class EmailService {
 
     public void enviarComprobante(String email, byte[] comprobantePdf) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-
-            helper.setTo(email);
-            helper.setSubject("Comprobante de Pago - Kartódromo");
-            helper.setText("Adjunto encontrarás el comprobante de tu reserva.");
-
-            helper.addAttachment("Comprobante.pdf", new ByteArrayDataSource(comprobantePdf, "application/pdf"));
-
+            MimeMessage message = crearMensaje(email, new ByteArrayDataSource(comprobantePdf, "application/pdf"));
             mailSender.send(message);
 
 
@@ -36,4 +37,61 @@ public class EmailService {
             throw new RuntimeException("Error al enviar el correo", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Envía el mismo comprobante a varios destinatarios en una sola conexión SMTP.
+     * Todos los mensajes comparten el adjunto y el fallo de uno no detiene a los demás.
+     *
+     * @return los destinatarios a los que no se pudo enviar, con su error; vacío si todos salieron
+     */
+    public Map<String, Exception> enviarComprobantes(List<String> emails, byte[] comprobantePdf) {
+        Map<String, Exception> fallidos = new LinkedHashMap<>();
+        ByteArrayDataSource adjunto = new ByteArrayDataSource(comprobantePdf, "application/pdf");
+
+        List<MimeMessage> mensajes = new ArrayList<>(emails.size());
+        Map<MimeMessage, String> emailPorMensaje = new IdentityHashMap<>();
+        for (String email : emails) {
+            try {
+                MimeMessage mensaje = crearMensaje(email, adjunto);
+                mensajes.add(mensaje);
+                emailPorMensaje.put(mensaje, email);
+            } catch (MessagingException e) {
+                // Por ejemplo, una dirección mal escrita
+                fallidos.put(email, e);
+            }
+        }
+        if (mensajes.isEmpty()) {
+            return fallidos;
+        }
+
+        try {
+            // JavaMailSenderImpl abre el transporte una vez para todo el arreglo
+            mailSender.send(mensajes.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                // Falló la conexión misma: ningún mensaje salió
+                emailPorMensaje.values().forEach(email -> fallidos.put(email, e));
+            } else {
+                e.getFailedMessages().forEach((mensaje, error) ->
+                        fallidos.put(emailPorMensaje.get(mensaje), error));
+            }
+        } catch (MailException e) {
+            emailPorMensaje.values().forEach(email -> fallidos.put(email, e));
+        }
+
+        logger.info("Comprobantes enviados: {} de {}", emails.size() - fallidos.size(), emails.size());
+        return fallidos;
+    }
+
+    private MimeMessage crearMensaje(String email, ByteArrayDataSource adjunto) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true);
+
+        helper.setTo(email);
+        helper.setSubject("Comprobante de Pago - Kartódromo");
+        helper.setText("Adjunto encontrarás el comprobante de tu reserva.");
+
+        helper.addAttachment("Comprobante.pdf", adjunto);
+        return message;
+    }
+}
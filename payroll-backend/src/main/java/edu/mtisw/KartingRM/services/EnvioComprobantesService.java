@@ -0,0 +1,243 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.dtos.DestinatarioEnvioDTO;
+import edu.mtisw.KartingRM.dtos.EstadoEnvioDTO;
+import edu.mtisw.KartingRM.entities.ClienteEntity;
+import edu.mtisw.KartingRM.entities.EnvioComprobanteEntity;
+import edu.mtisw.KartingRM.entities.ReservaEntity;
+import edu.mtisw.KartingRM.repositories.EnvioComprobanteRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Envía los comprobantes fuera del hilo de la solicitud HTTP.
+ *
+ * Cada solicitud es una tarea en un pool de tamaño fijo con una cola acotada;
+ * si la cola se llena la solicitud se rechaza en vez de acumular trabajo sin
+ * límite. La tarea envía a todos los clientes en una sola conexión SMTP y
+ * reintenta solo a los que fallaron. El estado de cada destinatario se guarda
+ * en envios_comprobante, así se puede consultar desde cualquier réplica.
+ *
+ * La espera entre intentos no ocupa un hilo del pool: el reintento se programa
+ * en un ScheduledExecutorService y, al cumplirse, vuelve a la cola del pool.
+ * Si una réplica se detiene con envíos en curso, esos quedan "pendiente" para
+ * siempre; al arrancar, los que llevan más de abandonado-minutos sin cambios
+ * se marcan como fallidos para que se puedan volver a solicitar.
+ */
+@Service
+public class EnvioComprobantesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnvioComprobantesService.class);
+
+    static final String PENDIENTE = "pendiente";
+    static final String ENVIADO = "enviado";
+    static final String FALLIDO = "fallido";
+
+    private final EmailService emailService;
+    private final ComprobanteService comprobanteService;
+    private final EnvioComprobanteRepository envioComprobanteRepository;
+    private final int maxIntentos;
+    private final long esperaReintentoMs;
+    private final long abandonadoMinutos;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService programador;
+
+    public EnvioComprobantesService(EmailService emailService,
+                                    ComprobanteService comprobanteService,
+                                    EnvioComprobanteRepository envioComprobanteRepository,
+                                    @Value("${comprobantes.envio.hilos:4}") int hilos,
+                                    @Value("${comprobantes.envio.capacidad-cola:200}") int capacidadCola,
+                                    @Value("${comprobantes.envio.intentos:3}") int maxIntentos,
+                                    @Value("${comprobantes.envio.espera-reintento-ms:2000}") long esperaReintentoMs,
+                                    @Value("${comprobantes.envio.abandonado-minutos:30}") long abandonadoMinutos) {
+        this.emailService = emailService;
+        this.comprobanteService = comprobanteService;
+        this.envioComprobanteRepository = envioComprobanteRepository;
+        this.maxIntentos = maxIntentos;
+        this.esperaReintentoMs = esperaReintentoMs;
+        this.abandonadoMinutos = abandonadoMinutos;
+
+        AtomicInteger numeroHilo = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(capacidadCola),
+                tarea -> new Thread(tarea, "envio-comprobante-" + numeroHilo.incrementAndGet()));
+        this.executor.allowCoreThreadTimeOut(true);
+        this.programador = Executors.newSingleThreadScheduledExecutor(
+                tarea -> new Thread(tarea, "reintento-comprobante"));
+    }
+
+    // Envíos que quedaron en curso en una réplica que se detuvo
+    @EventListener(ApplicationReadyEvent.class)
+    public void recuperarAbandonados() {
+        LocalDateTime ahora = LocalDateTime.now();
+        int marcados = envioComprobanteRepository.marcarAbandonados(PENDIENTE, FALLIDO,
+                "El envío se interrumpió al detenerse el servidor; vuelve a solicitarlo",
+                ahora.minusMinutes(abandonadoMinutos), ahora);
+        if (marcados > 0) {
+            logger.warn("{} envíos de comprobantes sin cambios en {} minutos se marcaron como fallidos",
+                    marcados, abandonadoMinutos);
+        }
+    }
+
+    /**
+     * Obtiene el comprobante y deja en cola su envío a todos los clientes de la reserva.
+     *
+     * @throws RejectedExecutionException si la cola está llena
+     */
+    public EstadoEnvioDTO encolar(ReservaEntity reserva) {
+        byte[] comprobantePdf = comprobanteService.obtenerComprobante(reserva);
+        String trabajoId = UUID.randomUUID().toString();
+
+        List<EnvioComprobanteEntity> envios = new ArrayList<>();
+        for (ClienteEntity cliente : reserva.getClientes()) {
+            envios.add(new EnvioComprobanteEntity(null, trabajoId, reserva.getId(), cliente.getEmail(),
+                    PENDIENTE, 0, null, LocalDateTime.now()));
+        }
+        List<EnvioComprobanteEntity> guardados = envioComprobanteRepository.saveAll(envios);
+
+        List<DestinatarioEnvioDTO> destinatarios = new ArrayList<>();
+        for (EnvioComprobanteEntity envio : guardados) {
+            destinatarios.add(new DestinatarioEnvioDTO(envio.getEmail(), PENDIENTE, 0, null));
+        }
+
+        try {
+            executor.execute(() -> intentar(guardados, comprobantePdf, 1));
+        } catch (RejectedExecutionException e) {
+            envioComprobanteRepository.deleteAll(guardados);
+            throw e;
+        }
+        return new EstadoEnvioDTO(trabajoId, reserva.getId(), estadoGeneral(destinatarios), destinatarios);
+    }
+
+    public Optional<EstadoEnvioDTO> obtenerEstado(String trabajoId) {
+        List<EnvioComprobanteEntity> envios = envioComprobanteRepository.findByTrabajoIdOrderByIdAsc(trabajoId);
+        if (envios.isEmpty()) {
+            return Optional.empty();
+        }
+
+        List<DestinatarioEnvioDTO> destinatarios = new ArrayList<>();
+        for (EnvioComprobanteEntity envio : envios) {
+            destinatarios.add(new DestinatarioEnvioDTO(envio.getEmail(), envio.getEstado(),
+                    envio.getIntentos(), envio.getError()));
+        }
+        return Optional.of(new EstadoEnvioDTO(trabajoId, envios.get(0).getReservaId(),
+                estadoGeneral(destinatarios), destinatarios));
+    }
+
+    private void intentar(List<EnvioComprobanteEntity> pendientes, byte[] comprobantePdf, int intento) {
+        // Todos los pendientes salen juntos por una sola conexión SMTP
+        List<String> emails = new ArrayList<>(pendientes.size());
+        for (EnvioComprobanteEntity envio : pendientes) {
+            emails.add(envio.getEmail());
+        }
+        Map<String, Exception> fallidos = emailService.enviarComprobantes(emails, comprobantePdf);
+
+        List<EnvioComprobanteEntity> reintentar = new ArrayList<>();
+        for (EnvioComprobanteEntity envio : pendientes) {
+            Exception e = fallidos.get(envio.getEmail());
+            if (e == null) {
+                actualizar(envio, ENVIADO, intento, null);
+                continue;
+            }
+            String error = mensajeError(e);
+            logger.warn("Intento {} de {} fallido al enviar comprobante a {}: {}",
+                    intento, maxIntentos, envio.getEmail(), error);
+            if (intento == maxIntentos) {
+                actualizar(envio, FALLIDO, intento, error);
+            } else {
+                actualizar(envio, PENDIENTE, intento, error);
+                reintentar.add(envio);
+            }
+        }
+        if (!reintentar.isEmpty()) {
+            // Espera creciente entre intentos para no insistir contra un servidor SMTP caído
+            programarReintento(reintentar, comprobantePdf, intento + 1, esperaReintentoMs * intento);
+        }
+    }
+
+    private void programarReintento(List<EnvioComprobanteEntity> envios, byte[] comprobantePdf, int intento, long esperaMs) {
+        try {
+            programador.schedule(() -> encolarReintento(envios, comprobantePdf, intento, esperaMs), esperaMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            interrumpir(envios, intento - 1);
+        }
+    }
+
+    private void encolarReintento(List<EnvioComprobanteEntity> envios, byte[] comprobantePdf, int intento, long esperaMs) {
+        try {
+            executor.execute(() -> intentar(envios, comprobantePdf, intento));
+        } catch (RejectedExecutionException e) {
+            if (executor.isShutdown()) {
+                interrumpir(envios, intento - 1);
+            } else {
+                // Cola llena: se vuelve a esperar en vez de descartar el reintento
+                programarReintento(envios, comprobantePdf, intento, esperaMs);
+            }
+        }
+    }
+
+    private void interrumpir(List<EnvioComprobanteEntity> envios, int intentos) {
+        for (EnvioComprobanteEntity envio : envios) {
+            actualizar(envio, FALLIDO, intentos, "Envío interrumpido");
+        }
+    }
+
+    private void actualizar(EnvioComprobanteEntity envio, String estado, int intentos, String error) {
+        envio.setEstado(estado);
+        envio.setIntentos(intentos);
+        envio.setError(error);
+        envio.setActualizadoEn(LocalDateTime.now());
+        envioComprobanteRepository.save(envio);
+    }
+
+    private String mensajeError(Exception e) {
+        // Las excepciones de Spring envuelven la de JavaMail; la causa es la que explica el problema
+        Throwable causa = e.getCause() != null ? e.getCause() : e;
+        String mensaje = String.valueOf(causa.getMessage());
+        return mensaje.length() > 500 ? mensaje.substring(0, 500) : mensaje;
+    }
+
+    private String estadoGeneral(List<DestinatarioEnvioDTO> destinatarios) {
+        boolean conErrores = false;
+        for (DestinatarioEnvioDTO destinatario : destinatarios) {
+            if (PENDIENTE.equals(destinatario.getEstado())) {
+                return "en_curso";
+            }
+            conErrores |= FALLIDO.equals(destinatario.getEstado());
+        }
+        return conErrores ? "con_errores" : "completado";
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            logger.warn("Quedaron {} envíos de comprobantes sin procesar", executor.getQueue().size());
+            executor.shutdownNow();
+        }
+        // Los reintentos que aún esperaban quedan pendientes; los recupera el próximo arranque
+        int reintentos = programador.shutdownNow().size();
+        if (reintentos > 0) {
+            logger.warn("Quedaron {} reintentos de envío de comprobantes sin procesar", reintentos);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.dtos.HorarioLibreDTO;
+import edu.mtisw.KartingRM.entities.EstadoKart;
+import edu.mtisw.KartingRM.entities.KartEntity;
+import edu.mtisw.KartingRM.repositories.KartRepository;
+import edu.mtisw.KartingRM.repositories.ReservaRepository;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class HorarioLibreService {
+
+    public static final int MAX_DIAS = 31;
+    public static final int MAX_RESULTADOS = 50;
+
+    private final ReservaRepository reservaRepository;
+    private final KartRepository kartRepository;
+    private final HorarioRack horarioRack;
+    private final MotorTarifas motorTarifas;
+
+    public HorarioLibreService(ReservaRepository reservaRepository, KartRepository kartRepository,
+                               HorarioRack horarioRack, MotorTarifas motorTarifas) {
+        this.reservaRepository = reservaRepository;
+        this.kartRepository = kartRepository;
+        this.horarioRack = horarioRack;
+        this.motorTarifas = motorTarifas;
+    }
+
+    /**
+     * Los primeros inicios de bloque del rango, en orden cronológico, con karts
+     * libres para todo el grupo durante la duración de la tarifa. Solo se
+     * ofrecen bloques donde la reserva termina antes del fin del bloque y que
+     * todavía no empiezan.
+     *
+     * Las reservas del rango se leen con una consulta y se indexan por
+     * intervalo; cada bloque candidato es una búsqueda en el índice. Tanto las
+     * reservas como el candidato se miden en slots de ocupación, igual que al
+     * confirmar la reserva.
+     */
+    @Transactional(readOnly = true)
+    public List<HorarioLibreDTO> buscarHorariosLibres(int personas, int numeroVueltas,
+                                                      LocalDate inicio, LocalDate fin, int cantidad) {
+        if (personas < 1) {
+            throw new IllegalArgumentException("El grupo debe tener al menos una persona");
+        }
+        if (inicio == null || fin == null || fin.isBefore(inicio)) {
+            throw new IllegalArgumentException("El rango de fechas no es válido");
+        }
+        if (ChronoUnit.DAYS.between(inicio, fin) >= MAX_DIAS) {
+            throw new IllegalArgumentException("El rango no puede superar " + MAX_DIAS + " días");
+        }
+        if (cantidad < 1 || cantidad > MAX_RESULTADOS) {
+            throw new IllegalArgumentException("La cantidad debe estar entre 1 y " + MAX_RESULTADOS);
+        }
+        int duracion = motorTarifas.duracion(numeroVueltas);
+
+        // Posición de cada kart en los bitsets y los que están en estado disponible
+        List<KartEntity> flota = kartRepository.findAll(Sort.by("id"));
+        int palabras = (flota.size() + 63) >>> 6;
+        Map<Long, Integer> indicesKarts = new HashMap<>();
+        long[] disponibles = new long[palabras];
+        for (int i = 0; i < flota.size(); i++) {
+            indicesKarts.put(flota.get(i).getId(), i);
+            if (flota.get(i).getEstado() == EstadoKart.DISPONIBLE) {
+                disponibles[i >>> 6] |= 1L << i;
+            }
+        }
+
+        IndiceReservas indice = new IndiceReservas(inicio,
+                reservaRepository.findKartsReservadosByFechaReservaBetween(inicio, fin), indicesKarts, palabras);
+
+        LocalDateTime ahora = LocalDateTime.now();
+        List<HorarioLibreDTO> horarios = new ArrayList<>();
+        for (LocalDate fecha = inicio; !fecha.isAfter(fin); fecha = fecha.plusDays(1)) {
+            HorarioRack.BloquesDia bloques = horarioRack.dia(fecha.getDayOfWeek());
+            int minutoDia = (int) ChronoUnit.DAYS.between(inicio, fecha) * IndiceReservas.MINUTOS_POR_DIA;
+            for (int b = 0; b < bloques.cantidad(); b++) {
+                if (bloques.inicio(b) + duracion > bloques.fin(b)) {
+                    continue;
+                }
+                LocalTime hora = LocalTime.of(bloques.inicio(b) / 60, bloques.inicio(b) % 60);
+                if (!fecha.atTime(hora).isAfter(ahora)) {
+                    continue;
+                }
+
+                long[] ocupados = indice.ocupados(minutoDia + OcupacionKartService.inicioOcupado(hora),
+                        minutoDia + OcupacionKartService.finOcupado(hora, duracion));
+                int libres = 0;
+                for (int palabra = 0; palabra < palabras; palabra++) {
+                    libres += Long.bitCount(disponibles[palabra] & ~ocupados[palabra]);
+                }
+                if (libres >= personas) {
+                    horarios.add(new HorarioLibreDTO(fecha, hora, libres));
+                    if (horarios.size() == cantidad) {
+                        return horarios;
+                    }
+                }
+            }
+        }
+        return horarios;
+    }
+}
@@ -0,0 +1,200 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.config.RackProperties;
+import edu.mtisw.KartingRM.dtos.ReservaRackDTO;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bloques del rack compilados al arrancar en tablas por minuto del día.
+ * Ubicar una reserva en sus bloques es un acceso a arreglo y un recorrido
+ * corto, sin parsear horas ni crear objetos.
+ */
+@Component
+public class HorarioRack {
+
+    private static final int MINUTOS_POR_DIA = 24 * 60;
+
+    private final Map<DayOfWeek, BloquesDia> bloquesPorDia = new EnumMap<>(DayOfWeek.class);
+
+    public HorarioRack(RackProperties rackProperties) {
+        for (DayOfWeek dia : DayOfWeek.values()) {
+            List<String> bloques = rackProperties.getBloquesPorDia().getOrDefault(dia, rackProperties.getBloques());
+            bloquesPorDia.put(dia, new BloquesDia(dia, bloques));
+        }
+    }
+
+    public BloquesDia dia(DayOfWeek dia) {
+        return bloquesPorDia.get(dia);
+    }
+
+    /**
+     * Arma el rack (día -> bloque -> reservas) ubicando cada reserva en
+     * todos los bloques que se solapan con ella.
+     */
+    public Map<String, Map<String, List<ReservaRackDTO>>> construirRack(List<ReservaRackDTO> reservas) {
+        // Celdas vacías por día, en el orden de los bloques configurados
+        Map<DayOfWeek, List<List<ReservaRackDTO>>> celdasPorDia = new EnumMap<>(DayOfWeek.class);
+        for (DayOfWeek dia : DayOfWeek.values()) {
+            int cantidadBloques = dia(dia).cantidad();
+            List<List<ReservaRackDTO>> celdas = new ArrayList<>(cantidadBloques);
+            for (int b = 0; b < cantidadBloques; b++) {
+                celdas.add(new ArrayList<>());
+            }
+            celdasPorDia.put(dia, celdas);
+        }
+
+        for (ReservaRackDTO reserva : reservas) {
+            if (reserva.getHoraReserva() == null || reserva.getDuracionTotal() == 0) {
+                continue;
+            }
+
+            DayOfWeek dia = reserva.getFechaReserva().getDayOfWeek();
+            BloquesDia bloques = dia(dia);
+            List<List<ReservaRackDTO>> celdas = celdasPorDia.get(dia);
+            int horaInicio = minutoDelDia(reserva.getHoraReserva());
+            int horaFin = horaInicio + reserva.getDuracionTotal();
+
+            for (int b = bloques.primerBloque(horaInicio); b < bloques.cantidad() && bloques.inicio(b) < horaFin; b++) {
+                celdas.get(b).add(reserva);
+            }
+        }
+
+        Map<String, Map<String, List<ReservaRackDTO>>> rackSemanal = new HashMap<>();
+        celdasPorDia.forEach((dia, celdas) -> {
+            BloquesDia bloques = dia(dia);
+            Map<String, List<ReservaRackDTO>> bloquesDia = new HashMap<>();
+            for (int b = 0; b < celdas.size(); b++) {
+                bloquesDia.put(bloques.etiqueta(b), celdas.get(b));
+            }
+            rackSemanal.put(nombreDia(dia), bloquesDia);
+        });
+
+        return rackSemanal;
+    }
+
+    /**
+     * Copia del rack con una reserva más, sin volver a ubicar las demás: solo
+     * se copian el día y las celdas donde entra, el resto se comparte con el
+     * rack recibido, que no se modifica. Devuelve null si la reserva no cae en
+     * ningún bloque o ya estaba en el rack.
+     */
+    public Map<String, Map<String, List<ReservaRackDTO>>> agregarReserva(Map<String, Map<String, List<ReservaRackDTO>>> rack,
+                                                                        ReservaRackDTO reserva) {
+        if (reserva.getHoraReserva() == null || reserva.getDuracionTotal() == 0) {
+            return null;
+        }
+
+        DayOfWeek dia = reserva.getFechaReserva().getDayOfWeek();
+        BloquesDia bloques = dia(dia);
+        int horaInicio = minutoDelDia(reserva.getHoraReserva());
+        int horaFin = horaInicio + reserva.getDuracionTotal();
+        int primero = bloques.primerBloque(horaInicio);
+        if (primero >= bloques.cantidad() || bloques.inicio(primero) >= horaFin) {
+            return null;
+        }
+
+        Map<String, List<ReservaRackDTO>> bloquesDia = rack.get(nombreDia(dia));
+        for (ReservaRackDTO existente : bloquesDia.get(bloques.etiqueta(primero))) {
+            if (existente.getId().equals(reserva.getId())) {
+                return null;
+            }
+        }
+
+        Map<String, List<ReservaRackDTO>> nuevoDia = new HashMap<>(bloquesDia);
+        for (int b = primero; b < bloques.cantidad() && bloques.inicio(b) < horaFin; b++) {
+            List<ReservaRackDTO> celda = new ArrayList<>(bloquesDia.get(bloques.etiqueta(b)).size() + 1);
+            celda.addAll(bloquesDia.get(bloques.etiqueta(b)));
+            celda.add(reserva);
+            nuevoDia.put(bloques.etiqueta(b), celda);
+        }
+        Map<String, Map<String, List<ReservaRackDTO>>> nuevoRack = new HashMap<>(rack);
+        nuevoRack.put(nombreDia(dia), nuevoDia);
+        return nuevoRack;
+    }
+
+    private String nombreDia(DayOfWeek dia) {
+        switch (dia) {
+            case MONDAY: return "Lunes";
+            case TUESDAY: return "Martes";
+            case WEDNESDAY: return "Miércoles";
+            case THURSDAY: return "Jueves";
+            case FRIDAY: return "Viernes";
+            case SATURDAY: return "Sábado";
+            case SUNDAY: return "Domingo";
+            default: throw new IllegalArgumentException("Día no válido");
+        }
+    }
+
+    public static final class BloquesDia {
+
+        private final String[] etiquetas;
+        private final int[] inicios;
+        private final int[] fines;
+        // Para cada minuto del día, el primer bloque que termina después de ese minuto
+        private final int[] primerBloquePorMinuto = new int[MINUTOS_POR_DIA + 1];
+
+        private BloquesDia(DayOfWeek dia, List<String> bloques) {
+            int cantidad = bloques.size();
+            etiquetas = new String[cantidad];
+            inicios = new int[cantidad];
+            fines = new int[cantidad];
+
+            for (int b = 0; b < cantidad; b++) {
+                String[] partes = bloques.get(b).trim().split("-");
+                if (partes.length != 2) {
+                    throw new IllegalStateException("Bloque de rack inválido para " + dia + ": " + bloques.get(b));
+                }
+                etiquetas[b] = bloques.get(b).trim();
+                inicios[b] = minutoDelDia(LocalTime.parse(partes[0].trim()));
+                fines[b] = minutoDelDia(LocalTime.parse(partes[1].trim()));
+                if (fines[b] <= inicios[b] || (b > 0 && inicios[b] < fines[b - 1])) {
+                    throw new IllegalStateException("Los bloques de " + dia + " deben estar ordenados y sin solaparse: " + bloques);
+                }
+            }
+
+            int bloque = 0;
+            for (int minuto = 0; minuto <= MINUTOS_POR_DIA; minuto++) {
+                while (bloque < cantidad && fines[bloque] <= minuto) {
+                    bloque++;
+                }
+                primerBloquePorMinuto[minuto] = bloque;
+            }
+        }
+
+        public int cantidad() {
+            return etiquetas.length;
+        }
+
+        public String etiqueta(int bloque) {
+            return etiquetas[bloque];
+        }
+
+        public int inicio(int bloque) {
+            return inicios[bloque];
+        }
+
+        public int fin(int bloque) {
+            return fines[bloque];
+        }
+
+        /**
+         * Primer bloque que se solapa con una reserva que empieza en minutoInicio.
+         * Los siguientes bloques se solapan mientras inicio(bloque) sea menor al fin de la reserva.
+         */
+        public int primerBloque(int minutoInicio) {
+            return primerBloquePorMinuto[Math.min(minutoInicio, MINUTOS_POR_DIA)];
+        }
+    }
+
+    public static int minutoDelDia(LocalTime hora) {
+        return hora.getHour() * 60 + hora.getMinute();
+    }
+}
@@ -0,0 +1,242 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.dtos.ResultadoImportacionClientesDTO;
+import edu.mtisw.KartingRM.entities.ClienteEntity;
+import edu.mtisw.KartingRM.repositories.ClienteRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Importa clientes desde un CSV con las columnas
+ * nombre,email,fechaNacimiento,numeroVisitas (las dos últimas opcionales y
+ * la fila de encabezado también).
+ *
+ * El archivo se lee línea a línea y se guarda por bloques, cada uno en su
+ * transacción y con los INSERT en lotes JDBC; después de cada bloque se
+ * limpia el contexto de persistencia, así la memoria no crece con el largo
+ * del archivo. Lo único que se acumula son los correos: los registrados, que
+ * se cargan al empezar con una sola consulta, y los ya vistos en el archivo,
+ * para rechazar los repetidos sin consultar la base por cada línea. Una línea
+ * con error se informa y no detiene el resto.
+ *
+ * Esos correos son una foto del inicio: un cliente creado por otra petición
+ * mientras se lee el archivo no está en ella. Lo ataja el índice único sobre
+ * lower(email) (ver IndicesBusquedaClientes); si un bloque falla por eso, o
+ * por cualquier otra cosa, se revierte y se reintenta de a una línea, y las
+ * que vuelven a fallar quedan como errores de su línea.
+ */
+@Service
+public class ImportacionClientesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportacionClientesService.class);
+
+    static final int MAX_ERRORES_INFORMADOS = 1000;
+    public static final String INDICE_CORREO_UNICO = "idx_clientes_email_unico";
+
+    private final ClienteRepository clienteRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanoBloque;
+
+    public ImportacionClientesService(ClienteRepository clienteRepository,
+                                      EntityManager entityManager,
+                                      TransactionTemplate transactionTemplate,
+                                      @Value("${clientes.importacion.tamano-bloque:1000}") int tamanoBloque) {
+        this.clienteRepository = clienteRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.tamanoBloque = tamanoBloque;
+    }
+
+    public ResultadoImportacionClientesDTO importar(InputStream csv) throws IOException {
+        Progreso progreso = new Progreso();
+        Set<String> correosRegistrados = new HashSet<>(clienteRepository.findCorreosRegistrados());
+        Set<String> correosVistos = new HashSet<>();
+        List<ClienteEntity> bloque = new ArrayList<>(tamanoBloque);
+        List<Integer> lineasBloque = new ArrayList<>(tamanoBloque);
+
+        try (BufferedReader lector = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            String linea;
+            int numeroLinea = 0;
+            while ((linea = lector.readLine()) != null) {
+                numeroLinea++;
+                if (numeroLinea == 1) {
+                    // Excel guarda el CSV en UTF-8 con BOM
+                    if (linea.startsWith("\uFEFF")) {
+                        linea = linea.substring(1);
+                    }
+                    if (linea.trim().toLowerCase(Locale.ROOT).startsWith("nombre")) {
+                        continue;
+                    }
+                }
+                if (linea.isBlank()) {
+                    continue;
+                }
+
+                progreso.procesadas++;
+                try {
+                    ClienteEntity cliente = leerCliente(linea);
+                    String correo = cliente.getEmail().toLowerCase(Locale.ROOT);
+                    if (correosRegistrados.contains(correo)) {
+                        throw new IllegalArgumentException("Ya existe un cliente con el correo " + cliente.getEmail() + ".");
+                    }
+                    if (!correosVistos.add(correo)) {
+                        throw new IllegalArgumentException("El correo " + cliente.getEmail() + " ya aparece antes en el archivo.");
+                    }
+                    bloque.add(cliente);
+                    lineasBloque.add(numeroLinea);
+                } catch (IllegalArgumentException e) {
+                    progreso.error(numeroLinea, e.getMessage());
+                }
+
+                if (bloque.size() == tamanoBloque) {
+                    guardarBloque(bloque, lineasBloque, progreso);
+                }
+            }
+        }
+        guardarBloque(bloque, lineasBloque, progreso);
+
+        return new ResultadoImportacionClientesDTO(progreso.procesadas, progreso.creados, progreso.conError, progreso.errores);
+    }
+
+    private void guardarBloque(List<ClienteEntity> bloque, List<Integer> lineasBloque, Progreso progreso) {
+        if (bloque.isEmpty()) {
+            return;
+        }
+        try {
+            guardar(bloque);
+            progreso.creados += bloque.size();
+        } catch (RuntimeException e) {
+            logger.warn("Falló el bloque de las líneas {} a {}, se reintenta de a una: {}",
+                    lineasBloque.get(0), lineasBloque.get(lineasBloque.size() - 1), e.getMessage());
+            for (int i = 0; i < bloque.size(); i++) {
+                guardarUno(bloque.get(i), lineasBloque.get(i), progreso);
+            }
+        }
+        bloque.clear();
+        lineasBloque.clear();
+    }
+
+    private void guardarUno(ClienteEntity cliente, int linea, Progreso progreso) {
+        // El bloque revertido ya le había asignado un id de la secuencia
+        cliente.setId(null);
+        try {
+            guardar(List.of(cliente));
+            progreso.creados++;
+        } catch (DataIntegrityViolationException e) {
+            if (ClienteService.violaCorreoUnico(e)) {
+                progreso.error(linea, "Ya existe un cliente con el correo " + cliente.getEmail() + ".");
+            } else {
+                progreso.error(linea, "No se pudo guardar el cliente: " + e.getMostSpecificCause().getMessage());
+            }
+        } catch (RuntimeException e) {
+            progreso.error(linea, "No se pudo guardar el cliente: " + e.getMessage());
+        }
+    }
+
+    private void guardar(List<ClienteEntity> clientes) {
+        transactionTemplate.executeWithoutResult(estado -> {
+            clienteRepository.saveAllAndFlush(clientes);
+            entityManager.clear();
+        });
+    }
+
+    private ClienteEntity leerCliente(String linea) {
+        List<String> campos = separarCampos(linea);
+        if (campos.size() < 2 || campos.size() > 4) {
+            throw new IllegalArgumentException("Se esperaban de 2 a 4 columnas y hay " + campos.size() + ".");
+        }
+
+        ClienteEntity cliente = new ClienteEntity();
+        cliente.setNombre(campos.get(0));
+        if (cliente.getNombre().isEmpty()) {
+            throw new IllegalArgumentException("El nombre es obligatorio.");
+        }
+        cliente.setEmail(campos.get(1));
+        ClienteService.validarCorreo(cliente.getEmail());
+
+        if (campos.size() > 2 && !campos.get(2).isEmpty()) {
+            try {
+                cliente.setFechaNacimiento(LocalDate.parse(campos.get(2)));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("La fecha de nacimiento " + campos.get(2) + " no tiene el formato AAAA-MM-DD.");
+            }
+        }
+        if (campos.size() > 3 && !campos.get(3).isEmpty()) {
+            try {
+                cliente.setNumeroVisitas(Integer.parseInt(campos.get(3)));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("El número de visitas " + campos.get(3) + " no es un entero.");
+            }
+            if (cliente.getNumeroVisitas() < 0) {
+                throw new IllegalArgumentException("El número de visitas no puede ser negativo.");
+            }
+        }
+        return cliente;
+    }
+
+    // Campos separados por coma; entre comillas pueden llevar comas y "" es una comilla
+    static List<String> separarCampos(String linea) {
+        List<String> campos = new ArrayList<>(4);
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char caracter = linea.charAt(i);
+            if (entreComillas) {
+                if (caracter != '"') {
+                    campo.append(caracter);
+                } else if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    campo.append('"');
+                    i++;
+                } else {
+                    entreComillas = false;
+                }
+            } else if (caracter == '"') {
+                entreComillas = true;
+            } else if (caracter == ',') {
+                campos.add(campo.toString().trim());
+                campo.setLength(0);
+            } else {
+                campo.append(caracter);
+            }
+        }
+        if (entreComillas) {
+            throw new IllegalArgumentException("Falta cerrar una comilla.");
+        }
+        campos.add(campo.toString().trim());
+        return campos;
+    }
+
+    private static final class Progreso {
+
+        private int procesadas;
+        private int creados;
+        private int conError;
+        private final List<String> errores = new ArrayList<>();
+
+        private void error(int linea, String mensaje) {
+            conError++;
+            if (errores.size() < MAX_ERRORES_INFORMADOS) {
+                errores.add("Línea " + linea + ": " + mensaje);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.dtos.KartReservadoDTO;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice de intervalos de las reservas de un rango de fechas. Cada reserva es
+ * un intervalo [inicio, fin) en minutos desde el primer día del rango, con el
+ * bitset de sus karts. El intervalo es el que toma en la ocupación de karts
+ * (OcupacionKartService.inicioOcupado/finOcupado), así la búsqueda no ofrece
+ * un horario que la reserva rechazaría por choque de slots. Los intervalos se
+ * ordenan por inicio y, como ninguno dura más que el más largo, los que se
+ * solapan con una consulta se ubican con dos búsquedas binarias en vez de
+ * recorrer todas las reservas del rango.
+ */
+final class IndiceReservas {
+
+    static final int MINUTOS_POR_DIA = 24 * 60;
+
+    private final int[] inicios;
+    private final int[] fines;
+    private final long[][] karts;
+    private final int duracionMaxima;
+    private final int palabras;
+
+    /**
+     * indicesKarts es la posición de cada kart en los bitsets; los karts que no
+     * están ahí (ya no existen) no se marcan.
+     */
+    IndiceReservas(LocalDate primerDia, List<KartReservadoDTO> filas, Map<Long, Integer> indicesKarts, int palabras) {
+        this.palabras = palabras;
+
+        // Las filas vienen una por kart: se juntan por reserva
+        Map<Long, Intervalo> porReserva = new LinkedHashMap<>();
+        for (KartReservadoDTO fila : filas) {
+            if (fila.getHoraReserva() == null || fila.getDuracionTotal() <= 0) {
+                continue;
+            }
+            Intervalo intervalo = porReserva.computeIfAbsent(fila.getReservaId(), id -> {
+                int dia = (int) ChronoUnit.DAYS.between(primerDia, fila.getFechaReserva()) * MINUTOS_POR_DIA;
+                return new Intervalo(dia + OcupacionKartService.inicioOcupado(fila.getHoraReserva()),
+                        dia + OcupacionKartService.finOcupado(fila.getHoraReserva(), fila.getDuracionTotal()),
+                        new long[palabras]);
+            });
+            Integer indice = indicesKarts.get(fila.getKartId());
+            if (indice != null) {
+                intervalo.karts[indice >>> 6] |= 1L << indice;
+            }
+        }
+
+        List<Intervalo> ordenados = new ArrayList<>(porReserva.values());
+        ordenados.sort(Comparator.comparingInt(intervalo -> intervalo.inicio));
+        inicios = new int[ordenados.size()];
+        fines = new int[ordenados.size()];
+        karts = new long[ordenados.size()][];
+        int maxima = 0;
+        for (int i = 0; i < ordenados.size(); i++) {
+            Intervalo intervalo = ordenados.get(i);
+            inicios[i] = intervalo.inicio;
+            fines[i] = intervalo.fin;
+            karts[i] = intervalo.karts;
+            maxima = Math.max(maxima, intervalo.fin - intervalo.inicio);
+        }
+        duracionMaxima = maxima;
+    }
+
+    /**
+     * Karts de todas las reservas que se solapan con [desde, hasta), en minutos
+     * desde el primer día del rango.
+     */
+    long[] ocupados(int desde, int hasta) {
+        long[] ocupados = new long[palabras];
+        // Una reserva que empieza en desde - duracionMaxima o antes ya terminó en desde
+        int primero = primerInicioDesde(desde - duracionMaxima + 1);
+        int limite = primerInicioDesde(hasta);
+        for (int i = primero; i < limite; i++) {
+            if (fines[i] > desde) {
+                for (int palabra = 0; palabra < palabras; palabra++) {
+                    ocupados[palabra] |= karts[i][palabra];
+                }
+            }
+        }
+        return ocupados;
+    }
+
+    // Primera posición con inicio >= minuto
+    private int primerInicioDesde(int minuto) {
+        int posicion = Arrays.binarySearch(inicios, minuto);
+        if (posicion < 0) {
+            return -posicion - 1;
+        }
+        // Con inicios repetidos binarySearch devuelve cualquiera de ellos
+        while (posicion > 0 && inicios[posicion - 1] == minuto) {
+            posicion--;
+        }
+        return posicion;
+    }
+
+    private static final class Intervalo {
+
+        private final int inicio;
+        private final int fin;
+        private final long[] karts;
+
+        private Intervalo(int inicio, int fin, long[] karts) {
+            this.inicio = inicio;
+            this.fin = fin;
+            this.karts = karts;
+        }
+    }
+}
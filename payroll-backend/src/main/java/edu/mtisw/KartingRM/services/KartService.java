@@ -1,26 +1,72 @@
 package edu.mtisw.KartingRM.services;
 
+import edu.mtisw.KartingRM.config.PaginacionProperties;
+import edu.mtisw.KartingRM.dtos.KartListaDTO;
+import edu.mtisw.KartingRM.dtos.PaginaDTO;
 import edu.mtisw.KartingRM.entities.KartEntity;
 import edu.mtisw.KartingRM.repositories.KartRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
 public class KartService {
 
     private final KartRepository kartRepository;
+    private final PaginacionProperties paginacionProperties;
+    private final DisponibilidadKarts disponibilidadKarts;
+    private final MotorTarifas motorTarifas;
 
-    public KartService(KartRepository kartRepository) {
+    public KartService(KartRepository kartRepository, PaginacionProperties paginacionProperties,
+                       DisponibilidadKarts disponibilidadKarts, MotorTarifas motorTarifas) {
         this.kartRepository = kartRepository;
+        this.paginacionProperties = paginacionProperties;
+        this.disponibilidadKarts = disponibilidadKarts;
+        this.motorTarifas = motorTarifas;
     }
 
     public KartEntity crearKart(KartEntity kart) {
-        return kartRepository.save(kart);
+        KartEntity guardado = kartRepository.save(kart);
+        disponibilidadKarts.invalidarFlota();
+        return guardado;
     }
 
 
     public List<KartEntity> listarKarts() {
         return kartRepository.findAll();
     }
+
+    /**
+     * Página del listado ordenada por ID. El cursor es el ID de la última fila
+     * entregada; sin cursor se devuelve la primera página.
+     */
+    public PaginaDTO<KartListaDTO> listarPagina(String cursor, Integer tamano) {
+        int tamanoPagina = paginacionProperties.tamano(tamano);
+        long despuesDe = PaginaDTO.idDelCursor(cursor);
+        // Una fila de más para saber si hay página siguiente
+        List<KartListaDTO> filas = kartRepository.findPaginaDespuesDe(despuesDe, Limit.of(tamanoPagina + 1));
+        return PaginaDTO.desde(filas, tamanoPagina, fila -> String.valueOf(fila.getId()));
+    }
+
+    /**
+     * Karts libres para una reserva a esa fecha y hora. Con número de vueltas se
+     * revisa toda la duración de la tarifa; sin él, solo el slot de inicio.
+     */
+    public List<KartListaDTO> listarDisponibles(LocalDate fecha, LocalTime hora, Integer numeroVueltas) {
+        if (fecha == null || hora == null) {
+            throw new IllegalArgumentException("La fecha y la hora son obligatorias");
+        }
+        int duracion = numeroVueltas == null ? 1 : motorTarifas.duracion(numeroVueltas);
+
+        List<KartEntity> karts = disponibilidadKarts.disponibles(fecha, hora, duracion);
+        List<KartListaDTO> disponibles = new ArrayList<>(karts.size());
+        for (KartEntity kart : karts) {
+            disponibles.add(new KartListaDTO(kart.getId(), kart.getCodigo(), kart.getEstado()));
+        }
+        return disponibles;
+    }
 }
@@ -0,0 +1,200 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.dtos.ResumenLoteComprobantesDTO;
+import edu.mtisw.KartingRM.entities.ReservaEntity;
+import edu.mtisw.KartingRM.repositories.ReservaRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Genera todos los comprobantes de un período en paralelo y los escribe en un
+ * ZIP a medida que terminan.
+ *
+ * Las reservas se cargan por bloques y nunca hay más de dos comprobantes por
+ * hilo generados o en curso sin escribir, así la memoria no depende del
+ * largo del período. Cada bloque se saca del contexto de persistencia apenas
+ * se envía a los hilos: con open-in-view el contexto dura toda la descarga y,
+ * si no, guardaría todas las reservas y clientes del período. Los PDFs ya
+ * vienen comprimidos y se guardan en el ZIP sin volver a comprimir; el hilo
+ * que escribe solo copia bytes y no limita cuánto escala la generación.
+ */
+@Service
+public class LoteComprobantesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoteComprobantesService.class);
+
+    static final int BLOQUE_RESERVAS = 100;
+
+    private final ComprobanteService comprobanteService;
+    private final ReservaRepository reservaRepository;
+    private final EntityManager entityManager;
+    private final int hilos;
+    private final ThreadPoolExecutor executor;
+
+    public LoteComprobantesService(ComprobanteService comprobanteService,
+                                   ReservaRepository reservaRepository,
+                                   EntityManager entityManager,
+                                   @Value("${comprobantes.lote.hilos:0}") int hilos) {
+        this.comprobanteService = comprobanteService;
+        this.reservaRepository = reservaRepository;
+        this.entityManager = entityManager;
+        this.hilos = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+
+        AtomicInteger numeroHilo = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.hilos, this.hilos, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                tarea -> new Thread(tarea, "lote-comprobantes-" + numeroHilo.incrementAndGet()));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Escribe en la salida un ZIP con el comprobante de cada reserva del período
+     * y un resumen.txt al final. Una reserva cuyo comprobante falla queda
+     * anotada en el resumen y no detiene el resto. La salida no se cierra.
+     */
+    public ResumenLoteComprobantesDTO escribirZip(LocalDate inicio, LocalDate fin, OutputStream salida) throws IOException {
+        if (inicio == null || fin == null || inicio.isAfter(fin)) {
+            throw new IllegalArgumentException("El período de comprobantes no es válido.");
+        }
+
+        long comienzo = System.nanoTime();
+        List<Long> ids = reservaRepository.findIdsByFechaReservaBetween(inicio, fin);
+        CompletionService<Resultado> completados = new ExecutorCompletionService<>(executor);
+        int ventana = 2 * hilos;
+        int enCurso = 0;
+        int generados = 0;
+        List<String> errores = new ArrayList<>();
+
+        ZipOutputStream zip = new ZipOutputStream(salida);
+        for (int desde = 0; desde < ids.size(); desde += BLOQUE_RESERVAS) {
+            List<Long> bloque = ids.subList(desde, Math.min(desde + BLOQUE_RESERVAS, ids.size()));
+            // Los hilos leen los clientes fuera de la sesión: tienen que llegar ya cargados
+            for (ReservaEntity reserva : reservaRepository.findConClientesByIdIn(bloque)) {
+                if (enCurso == ventana) {
+                    generados += escribir(zip, esperar(completados), errores);
+                    enCurso--;
+                }
+                completados.submit(() -> generar(reserva));
+                enCurso++;
+            }
+            entityManager.clear();
+        }
+        while (enCurso > 0) {
+            generados += escribir(zip, esperar(completados), errores);
+            enCurso--;
+        }
+
+        long milisegundos = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - comienzo);
+        double porSegundo = milisegundos == 0 ? generados : generados * 1000.0 / milisegundos;
+        ResumenLoteComprobantesDTO resumen = new ResumenLoteComprobantesDTO(inicio, fin, generados, errores,
+                hilos, milisegundos, porSegundo);
+        escribirResumen(zip, resumen);
+        zip.finish();
+        zip.flush();
+
+        logger.info("Lote de comprobantes {} a {}: {} generados, {} con error, {} ms ({} por segundo, {} hilos)",
+                inicio, fin, generados, errores.size(), milisegundos, String.format("%.1f", porSegundo), hilos);
+        return resumen;
+    }
+
+    private Resultado generar(ReservaEntity reserva) {
+        try {
+            byte[] pdf = comprobanteService.generarComprobante(reserva);
+            // El CRC se calcula aquí para que el hilo que escribe el ZIP solo copie bytes
+            CRC32 crc = new CRC32();
+            crc.update(pdf);
+            return new Resultado(reserva, pdf, crc.getValue(), null);
+        } catch (RuntimeException e) {
+            return new Resultado(reserva, null, 0, e);
+        }
+    }
+
+    private Resultado esperar(CompletionService<Resultado> completados) throws IOException {
+        try {
+            return completados.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Generación de comprobantes interrumpida", e);
+        } catch (ExecutionException e) {
+            // generar no lanza excepciones; solo llega aquí un Error
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private int escribir(ZipOutputStream zip, Resultado resultado, List<String> errores) throws IOException {
+        ReservaEntity reserva = resultado.reserva;
+        if (resultado.error != null) {
+            logger.warn("No se pudo generar el comprobante de la reserva {}: {}", reserva.getId(), resultado.error.getMessage());
+            errores.add("Reserva " + reserva.getId() + ": " + resultado.error.getMessage());
+            return 0;
+        }
+
+        ZipEntry entrada = new ZipEntry("comprobante-" + reserva.getFechaReserva() + "-" + reserva.getId() + ".pdf");
+        entrada.setMethod(ZipEntry.STORED);
+        entrada.setSize(resultado.pdf.length);
+        entrada.setCompressedSize(resultado.pdf.length);
+        entrada.setCrc(resultado.crc);
+        zip.putNextEntry(entrada);
+        zip.write(resultado.pdf);
+        zip.closeEntry();
+        return 1;
+    }
+
+    private void escribirResumen(ZipOutputStream zip, ResumenLoteComprobantesDTO resumen) throws IOException {
+        StringBuilder texto = new StringBuilder()
+                .append("Período: ").append(resumen.getInicio()).append(" a ").append(resumen.getFin()).append('\n')
+                .append("Comprobantes generados: ").append(resumen.getGenerados()).append('\n')
+                .append("Con error: ").append(resumen.getErrores().size()).append('\n')
+                .append("Hilos: ").append(resumen.getHilos()).append('\n')
+                .append("Tiempo: ").append(resumen.getMilisegundos()).append(" ms\n")
+                .append("Comprobantes por segundo: ").append(String.format("%.1f", resumen.getComprobantesPorSegundo())).append('\n');
+        for (String error : resumen.getErrores()) {
+            texto.append(error).append('\n');
+        }
+
+        zip.putNextEntry(new ZipEntry("resumen.txt"));
+        zip.write(texto.toString().getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdownNow();
+    }
+
+    private static final class Resultado {
+
+        private final ReservaEntity reserva;
+        private final byte[] pdf;
+        private final long crc;
+        private final RuntimeException error;
+
+        private Resultado(ReservaEntity reserva, byte[] pdf, long crc, RuntimeException error) {
+            this.reserva = reserva;
+            this.pdf = pdf;
+            this.crc = crc;
+            this.error = error;
+        }
+    }
+}
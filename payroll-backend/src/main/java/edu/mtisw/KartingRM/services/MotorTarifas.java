@@ -0,0 +1,187 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.config.TarifaProperties;
+import edu.mtisw.KartingRM.dtos.CotizacionDTO;
+import edu.mtisw.KartingRM.dtos.DetalleCotizacionDTO;
+import edu.mtisw.KartingRM.entities.ClienteEntity;
+import edu.mtisw.KartingRM.entities.ReservaEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tarifas y descuentos compilados al arrancar en arreglos indexados por
+ * número de vueltas, personas y visitas. Calcular una reserva son accesos
+ * a arreglo y aritmética entera, sin recorrer tramos ni crear objetos.
+ */
+@Component
+public class MotorTarifas {
+
+    // Índice = número de vueltas; 0 si no hay tarifa para esa cantidad
+    private final int[] precioPorVueltas;
+    private final int[] duracionPorVueltas;
+    // Índice = personas o visitas; de la última posición en adelante aplica el último tramo
+    private final int[] descuentoPorPersonas;
+    private final int[] descuentoPorVisitas;
+    private final int descuentoCumpleanos;
+
+    public MotorTarifas(TarifaProperties tarifaProperties) {
+        int maxVueltas = 0;
+        for (TarifaProperties.Tarifa tarifa : tarifaProperties.getVueltas()) {
+            if (tarifa.getVueltas() <= 0 || tarifa.getPrecio() <= 0 || tarifa.getDuracionMinutos() <= 0) {
+                throw new IllegalStateException("Tarifa inválida: " + tarifa);
+            }
+            // La ocupación de karts se guarda en slots de ese largo; una duración que no calza bloquearía minutos de más
+            if (tarifa.getDuracionMinutos() % OcupacionKartService.MINUTOS_POR_SLOT != 0) {
+                throw new IllegalStateException("La duración de la tarifa de " + tarifa.getVueltas() +
+                        " vueltas debe ser múltiplo de " + OcupacionKartService.MINUTOS_POR_SLOT + " minutos");
+            }
+            maxVueltas = Math.max(maxVueltas, tarifa.getVueltas());
+        }
+        precioPorVueltas = new int[maxVueltas + 1];
+        duracionPorVueltas = new int[maxVueltas + 1];
+        for (TarifaProperties.Tarifa tarifa : tarifaProperties.getVueltas()) {
+            if (precioPorVueltas[tarifa.getVueltas()] != 0) {
+                throw new IllegalStateException("Hay dos tarifas para " + tarifa.getVueltas() + " vueltas");
+            }
+            precioPorVueltas[tarifa.getVueltas()] = tarifa.getPrecio();
+            duracionPorVueltas[tarifa.getVueltas()] = tarifa.getDuracionMinutos();
+        }
+
+        descuentoPorPersonas = compilarTramos("personas", tarifaProperties.getDescuentosPorPersonas());
+        descuentoPorVisitas = compilarTramos("visitas", tarifaProperties.getDescuentosPorVisitas());
+        descuentoCumpleanos = validarPorcentaje("cumpleaños", tarifaProperties.getDescuentoCumpleanos());
+    }
+
+    public int precioBase(int numeroVueltas) {
+        if (numeroVueltas <= 0 || numeroVueltas >= precioPorVueltas.length || precioPorVueltas[numeroVueltas] == 0) {
+            throw new IllegalArgumentException("Número de vueltas no válido");
+        }
+        return precioPorVueltas[numeroVueltas];
+    }
+
+    public int duracion(int numeroVueltas) {
+        precioBase(numeroVueltas);
+        return duracionPorVueltas[numeroVueltas];
+    }
+
+    public int descuentoPorPersonas(int numeroPersonas) {
+        return buscar(descuentoPorPersonas, numeroPersonas);
+    }
+
+    public int descuentoPorVisitas(int numeroVisitas) {
+        return buscar(descuentoPorVisitas, numeroVisitas);
+    }
+
+    public int descuentoPorCumpleanos(LocalDate fechaNacimiento, LocalDate fechaReserva) {
+        if (fechaNacimiento != null &&
+            fechaNacimiento.getDayOfMonth() == fechaReserva.getDayOfMonth() &&
+            fechaNacimiento.getMonth() == fechaReserva.getMonth()) {
+            return descuentoCumpleanos;
+        }
+        return 0;
+    }
+
+    /**
+     * Calcula precio, descuentos y duración de la reserva y los deja en ella.
+     * Cada cliente paga la tarifa base menos sus descuentos por visitas y
+     * cumpleaños; al total se le aplica el descuento por tamaño del grupo.
+     */
+    public void aplicar(ReservaEntity reserva) {
+        int precioBase = precioBase(reserva.getNumeroVueltas());
+        List<ClienteEntity> clientes = reserva.getClientes();
+        int numeroPersonas = clientes.size();
+
+        reserva.setPrecioBase(precioBase);
+        reserva.setNumeroPersonas(numeroPersonas);
+        reserva.setDescuentoPorPersonas(descuentoPorPersonas(numeroPersonas));
+        reserva.setDuracionTotal(duracionPorVueltas[reserva.getNumeroVueltas()]);
+
+        if (numeroPersonas == 0) {
+            reserva.setPrecioFinal(precioBase);
+            return;
+        }
+
+        int subtotal = 0;
+        int totalDescuentoPorVisitas = 0;
+        int totalDescuentoPorCumpleanos = 0;
+        // Recorrido por índice: sin iterador ni objetos intermedios por cliente
+        for (int i = 0; i < numeroPersonas; i++) {
+            ClienteEntity cliente = clientes.get(i);
+            int porVisitas = descuentoPorVisitas(cliente.getNumeroVisitas());
+            int porCumpleanos = descuentoPorCumpleanos(cliente.getFechaNacimiento(), reserva.getFechaReserva());
+            totalDescuentoPorVisitas += porVisitas;
+            totalDescuentoPorCumpleanos += porCumpleanos;
+            subtotal += precioCliente(precioBase, porVisitas + porCumpleanos);
+        }
+
+        // En la reserva queda el promedio por visitas y el de cumpleaños sin pasar de un cumpleaños
+        reserva.setDescuentoPorVisitas(totalDescuentoPorVisitas / numeroPersonas);
+        reserva.setDescuentoPorCumpleaños(Math.min(totalDescuentoPorCumpleanos, descuentoCumpleanos));
+        reserva.setPrecioFinal(subtotal - (subtotal * reserva.getDescuentoPorPersonas() / 100));
+    }
+
+    /**
+     * Igual que aplicar, más el desglose por cliente para mostrar en el formulario.
+     */
+    public CotizacionDTO cotizar(ReservaEntity reserva) {
+        aplicar(reserva);
+
+        List<DetalleCotizacionDTO> detalle = new ArrayList<>(reserva.getClientes().size());
+        int subtotal = 0;
+        for (ClienteEntity cliente : reserva.getClientes()) {
+            int porVisitas = descuentoPorVisitas(cliente.getNumeroVisitas());
+            int porCumpleanos = descuentoPorCumpleanos(cliente.getFechaNacimiento(), reserva.getFechaReserva());
+            int precio = precioCliente(reserva.getPrecioBase(), porVisitas + porCumpleanos);
+            subtotal += precio;
+            detalle.add(new DetalleCotizacionDTO(cliente.getId(), cliente.getNombre(), porVisitas, porCumpleanos, precio));
+        }
+
+        return new CotizacionDTO(reserva.getFechaReserva(), reserva.getNumeroVueltas(), reserva.getDuracionTotal(),
+                reserva.getPrecioBase(), reserva.getNumeroPersonas(), reserva.getDescuentoPorPersonas(),
+                subtotal, reserva.getPrecioFinal(), detalle);
+    }
+
+    private int precioCliente(int precioBase, int descuento) {
+        return precioBase - (precioBase * descuento / 100);
+    }
+
+    private int buscar(int[] tabla, int cantidad) {
+        if (cantidad <= 0) {
+            return tabla[0];
+        }
+        return tabla[Math.min(cantidad, tabla.length - 1)];
+    }
+
+    private int[] compilarTramos(String nombre, List<TarifaProperties.Tramo> tramos) {
+        int ultimoDesde = -1;
+        for (TarifaProperties.Tramo tramo : tramos) {
+            if (tramo.getDesde() <= ultimoDesde) {
+                throw new IllegalStateException("Los tramos de descuento por " + nombre + " deben estar ordenados: " + tramos);
+            }
+            validarPorcentaje(nombre, tramo.getPorcentaje());
+            ultimoDesde = tramo.getDesde();
+        }
+
+        int[] tabla = new int[Math.max(ultimoDesde, 0) + 1];
+        int siguiente = 0;
+        int porcentaje = 0;
+        for (int cantidad = 0; cantidad < tabla.length; cantidad++) {
+            while (siguiente < tramos.size() && tramos.get(siguiente).getDesde() <= cantidad) {
+                porcentaje = tramos.get(siguiente).getPorcentaje();
+                siguiente++;
+            }
+            tabla[cantidad] = porcentaje;
+        }
+        return tabla;
+    }
+
+    private int validarPorcentaje(String nombre, int porcentaje) {
+        if (porcentaje < 0 || porcentaje > 100) {
+            throw new IllegalStateException("Descuento por " + nombre + " fuera de rango: " + porcentaje);
+        }
+        return porcentaje;
+    }
+}
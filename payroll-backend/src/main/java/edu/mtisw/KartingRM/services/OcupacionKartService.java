@@ -0,0 +1,96 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.entities.KartEntity;
+import edu.mtisw.KartingRM.entities.OcupacionKartEntity;
+import edu.mtisw.KartingRM.entities.ReservaEntity;
+import edu.mtisw.KartingRM.repositories.OcupacionKartRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class OcupacionKartService {
+
+    // Granularidad de la ocupación: una reserva ocupa todos los slots que toca.
+    // Las duraciones de las tarifas son múltiplos de este valor (lo valida
+    // MotorTarifas), así que una reserva a una hora de la grilla ocupa
+    // exactamente sus minutos y otra puede empezar justo cuando termina.
+    public static final int MINUTOS_POR_SLOT = 5;
+
+    private final OcupacionKartRepository ocupacionKartRepository;
+
+    public OcupacionKartService(OcupacionKartRepository ocupacionKartRepository) {
+        this.ocupacionKartRepository = ocupacionKartRepository;
+    }
+
+    /**
+     * Registra los karts de la reserva como ocupados. Si otra reserva ya tomó
+     * alguno de esos karts en un slot solapado, la base de datos rechaza el
+     * insert y se lanza IllegalStateException para revertir la transacción.
+     */
+    public void registrarOcupacion(ReservaEntity reserva) {
+        List<OcupacionKartEntity> ocupaciones = new ArrayList<>();
+        agregarOcupaciones(reserva, ocupaciones);
+        guardar(ocupaciones, "Uno o más karts ya están reservados el " + reserva.getFechaReserva() +
+                " a las " + reserva.getHoraReserva());
+    }
+
+    /**
+     * Registra de una vez la ocupación de una carga de reservas ya guardadas.
+     * Las filas se insertan en lotes; un choque con otra reserva, o entre dos
+     * reservas de la misma carga, revierte la carga completa.
+     */
+    public void registrarOcupaciones(List<ReservaEntity> reservas) {
+        List<OcupacionKartEntity> ocupaciones = new ArrayList<>();
+        for (ReservaEntity reserva : reservas) {
+            agregarOcupaciones(reserva, ocupaciones);
+        }
+        guardar(ocupaciones, "Uno o más karts de la carga ya están reservados en un horario que se solapa");
+    }
+
+    private void agregarOcupaciones(ReservaEntity reserva, List<OcupacionKartEntity> ocupaciones) {
+        if (reserva.getHoraReserva() == null) {
+            throw new IllegalArgumentException("La hora de la reserva es obligatoria.");
+        }
+
+        int primerSlot = primerSlot(reserva.getHoraReserva());
+        int finSlots = finSlots(reserva.getHoraReserva(), reserva.getDuracionTotal());
+
+        for (KartEntity kart : reserva.getKarts()) {
+            for (int slot = primerSlot; slot < finSlots; slot++) {
+                ocupaciones.add(new OcupacionKartEntity(null, kart.getId(), reserva.getFechaReserva(), slot, reserva.getId()));
+            }
+        }
+    }
+
+    private void guardar(List<OcupacionKartEntity> ocupaciones, String mensajeChoque) {
+        try {
+            ocupacionKartRepository.saveAllAndFlush(ocupaciones);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException(mensajeChoque, e);
+        }
+    }
+
+    public static int primerSlot(LocalTime hora) {
+        return (hora.getHour() * 60 + hora.getMinute()) / MINUTOS_POR_SLOT;
+    }
+
+    // Primer slot que queda libre después de la reserva (exclusivo)
+    public static int finSlots(LocalTime hora, int duracionMinutos) {
+        int finMinutos = hora.getHour() * 60 + hora.getMinute() + Math.max(duracionMinutos, 1);
+        return (finMinutos + MINUTOS_POR_SLOT - 1) / MINUTOS_POR_SLOT;
+    }
+
+    // Minutos del día que la ocupación da por tomados, [inicioOcupado, finOcupado):
+    // el intervalo de la reserva llevado a los bordes de sus slots
+    public static int inicioOcupado(LocalTime hora) {
+        return primerSlot(hora) * MINUTOS_POR_SLOT;
+    }
+
+    public static int finOcupado(LocalTime hora, int duracionMinutos) {
+        return finSlots(hora, duracionMinutos) * MINUTOS_POR_SLOT;
+    }
+}
@@ -0,0 +1,115 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.dtos.MarcaCambiosDTO;
+import edu.mtisw.KartingRM.dtos.ReservaRackDTO;
+import edu.mtisw.KartingRM.repositories.ReservaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rack armado por semana (clave: el lunes) y guardado en memoria.
+ *
+ * Las reservas creadas en esta réplica se agregan a su semana al confirmarse,
+ * copiando solo el día y los bloques donde entran.
+ * Para enterarse de las creadas en otras réplicas, cada cierto tiempo se lee
+ * la marca de cambios de la semana (MAX(id) y COUNT, sobre el índice de
+ * fecha); si no coincide con la guardada se reconstruye solo esa semana.
+ */
+@Component
+public class RackSemanalCache {
+
+    private final ReservaRepository reservaRepository;
+    private final HorarioRack horarioRack;
+    private final long verificacionNanos;
+    private final int maxSemanas;
+
+    private final Map<LocalDate, SemanaRack> semanas = new ConcurrentHashMap<>();
+
+    public RackSemanalCache(ReservaRepository reservaRepository,
+                            HorarioRack horarioRack,
+                            @Value("${rack.cache.verificacion-ms:1000}") long verificacionMs,
+                            @Value("${rack.cache.max-semanas:26}") int maxSemanas) {
+        this.reservaRepository = reservaRepository;
+        this.horarioRack = horarioRack;
+        this.verificacionNanos = TimeUnit.MILLISECONDS.toNanos(verificacionMs);
+        this.maxSemanas = maxSemanas;
+    }
+
+    /**
+     * Rack de la semana que empieza en el lunes indicado. El mapa devuelto es
+     * compartido entre solicitudes y no debe modificarse.
+     */
+    public Map<String, Map<String, List<ReservaRackDTO>>> obtenerSemana(LocalDate lunes) {
+        long ahora = System.nanoTime();
+        SemanaRack semana = semanas.get(lunes);
+        if (semana != null && ahora - semana.verificadaEn < verificacionNanos) {
+            return semana.rack;
+        }
+
+        LocalDate domingo = lunes.plusDays(6);
+        MarcaCambiosDTO marca = reservaRepository.findMarcaCambiosByFechaReservaBetween(lunes, domingo);
+        if (semana != null && semana.marca.equals(marca)) {
+            semanas.put(lunes, new SemanaRack(semana.marca, semana.rack, ahora));
+            return semana.rack;
+        }
+
+        // La marca se lee antes que las reservas: si entra una escritura entre ambas
+        // lecturas, la próxima verificación vuelve a reconstruir la semana
+        List<ReservaRackDTO> reservas = reservaRepository.findRackByFechaReservaBetween(lunes, domingo);
+        SemanaRack nueva = new SemanaRack(marca, horarioRack.construirRack(reservas), ahora);
+        semanas.put(lunes, nueva);
+        descartarExcedentes();
+        return nueva.rack;
+    }
+
+    /**
+     * Agrega una reserva recién confirmada a su semana, si está en memoria.
+     *
+     * Si la semana se leyó con la reserva ya confirmada pero con la marca de
+     * antes, la reserva ya está en el rack: no se repite ni se adelanta la
+     * marca, y la próxima verificación reconstruye la semana. Tampoco se
+     * adelanta si la reserva no cae en ningún bloque.
+     */
+    public void registrarReserva(ReservaRackDTO reserva) {
+        LocalDate lunes = reserva.getFechaReserva().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        semanas.computeIfPresent(lunes, (clave, semana) -> {
+            Map<String, Map<String, List<ReservaRackDTO>>> rack = horarioRack.agregarReserva(semana.rack, reserva);
+            if (rack == null) {
+                return semana;
+            }
+            MarcaCambiosDTO marca = new MarcaCambiosDTO(Math.max(semana.marca.getMaxId(), reserva.getId()),
+                    semana.marca.getCantidad() + 1);
+            return new SemanaRack(marca, rack, semana.verificadaEn);
+        });
+    }
+
+    private void descartarExcedentes() {
+        while (semanas.size() > maxSemanas) {
+            semanas.entrySet().stream()
+                    .min(Comparator.comparingLong(entrada -> entrada.getValue().verificadaEn))
+                    .ifPresent(entrada -> semanas.remove(entrada.getKey(), entrada.getValue()));
+        }
+    }
+
+    private static final class SemanaRack {
+
+        private final MarcaCambiosDTO marca;
+        private final Map<String, Map<String, List<ReservaRackDTO>>> rack;
+        private final long verificadaEn;
+
+        private SemanaRack(MarcaCambiosDTO marca, Map<String, Map<String, List<ReservaRackDTO>>> rack, long verificadaEn) {
+            this.marca = marca;
+            this.rack = rack;
+            this.verificadaEn = verificadaEn;
+        }
+    }
+}
@@ -1,25 +1,58 @@
 package edu.mtisw.KartingRM.services;
 
+import edu.mtisw.KartingRM.dtos.AuditoriaIngresosDTO;
+import edu.mtisw.KartingRM.config.PaginacionProperties;
+import edu.mtisw.KartingRM.dtos.CotizacionDTO;
+import edu.mtisw.KartingRM.dtos.EtiquetaReservaDTO;
+import edu.mtisw.KartingRM.dtos.PaginaDTO;
+import edu.mtisw.KartingRM.dtos.ClienteListaDTO;
+import edu.mtisw.KartingRM.dtos.KartListaDTO;
+import edu.mtisw.KartingRM.dtos.MarcaCambiosDTO;
+import edu.mtisw.KartingRM.dtos.ReservaListaDTO;
+import edu.mtisw.KartingRM.dtos.ReservaNormalizadaDTO;
+import edu.mtisw.KartingRM.dtos.ReservasNormalizadasDTO;
+import edu.mtisw.KartingRM.dtos.ReservaRackDTO;
+import edu.mtisw.KartingRM.dtos.ResultadoLoteReservasDTO;
 import edu.mtisw.KartingRM.entities.ClienteEntity;
+import edu.mtisw.KartingRM.entities.EstadoKart;
 import edu.mtisw.KartingRM.entities.KartEntity;
 import edu.mtisw.KartingRM.entities.ReservaEntity;
 import edu.mtisw.KartingRM.repositories.ClienteRepository;
 import edu.mtisw.KartingRM.repositories.KartRepository;
 import edu.mtisw.KartingRM.repositories.ReservaRepository;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 @Service
 public class ReservaService {
 
+    // Tope de reservas por carga, para acotar la memoria y la duración de la transacción
+    public static final int MAX_RESERVAS_POR_LOTE = 5000;
+
+    // Intentos de una reserva con karts asignados antes de responder que hay conflicto
+    public static final int INTENTOS_ASIGNACION = 3;
+
     @Autowired
     private ReservaRepository reservaRepository;
 
@@ -29,395 +62,444 @@ public class ReservaService {
     @Autowired
     private KartRepository kartRepository;
 
-    public List<ReservaEntity> listarReservas() {
-        return reservaRepository.findAll();
-    }
+    @Autowired
+    private OcupacionKartService ocupacionKartService;
 
-    public ReservaEntity crearReserva(ReservaEntity reserva) {
-        // Validar la fecha de la reserva
-        validarFechaReserva(reserva);
+    @Autowired
+    private HorarioRack horarioRack;
 
-        // Validar clientes y karts
-        validarClientes(reserva.getClientes());
-        validarKarts(reserva.getKarts());
+    @Autowired
+    private RackSemanalCache rackSemanalCache;
 
-        // Calcular descuentos y tarifas
-        calcularTarifasYDescuentos(reserva);
+    @Autowired
+    private DisponibilidadKarts disponibilidadKarts;
+
+    @Autowired
+    private ResumenIngresosService resumenIngresosService;
+
+    @Autowired
+    private MotorTarifas motorTarifas;
+
+    @Autowired
+    private PaginacionProperties paginacionProperties;
 
-        // Guardar la reserva
-        return reservaRepository.save(reserva);
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Todas las reservas con sus clientes y karts ya cargados. Las colecciones
+     * se inicializan por lotes de 100 reservas, así que son tres consultas por
+     * cada 100 reservas y no dos por reserva.
+     */
+    @Transactional(readOnly = true)
+    public List<ReservaEntity> listarReservas() {
+        List<ReservaEntity> reservas = reservaRepository.findAll();
+        for (ReservaEntity reserva : reservas) {
+            Hibernate.initialize(reserva.getClientes());
+            Hibernate.initialize(reserva.getKarts());
+        }
+        return reservas;
     }
 
-    public ReservaEntity obtenerReservaPorId(Long id) {
-        return reservaRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Reserva no encontrada con ID: " + id));
+    /**
+     * Las mismas reservas que listarReservas en formato normalizado: un cliente
+     * frecuente se serializa una vez y no una vez por cada reserva suya.
+     */
+    @Transactional(readOnly = true)
+    public ReservasNormalizadasDTO listarReservasNormalizadas() {
+        return normalizar(listarReservas());
     }
 
-    private void validarFechaReserva(ReservaEntity reserva) {
-        if (reserva.getFechaReserva() == null) {
-            throw new IllegalArgumentException("La fecha de la reserva no puede ser nula.");
+    public static ReservasNormalizadasDTO normalizar(List<ReservaEntity> reservas) {
+        Map<Long, ClienteListaDTO> clientes = new LinkedHashMap<>();
+        Map<Long, KartListaDTO> karts = new LinkedHashMap<>();
+        List<ReservaNormalizadaDTO> normalizadas = new ArrayList<>(reservas.size());
+
+        for (ReservaEntity reserva : reservas) {
+            List<Long> clienteIds = new ArrayList<>(reserva.getClientes().size());
+            for (ClienteEntity cliente : reserva.getClientes()) {
+                clienteIds.add(cliente.getId());
+                clientes.computeIfAbsent(cliente.getId(), id -> new ClienteListaDTO(id, cliente.getNombre(),
+                        cliente.getEmail(), cliente.getNumeroVisitas(), cliente.getFechaNacimiento()));
+            }
+            List<Long> kartIds = new ArrayList<>(reserva.getKarts().size());
+            for (KartEntity kart : reserva.getKarts()) {
+                kartIds.add(kart.getId());
+                karts.computeIfAbsent(kart.getId(), id -> new KartListaDTO(id, kart.getCodigo(), kart.getEstado()));
+            }
+
+            normalizadas.add(new ReservaNormalizadaDTO(reserva.getId(), clienteIds, kartIds,
+                    reserva.getNumeroVueltas(), reserva.getTiempoMaximo(), reserva.getPrecioBase(),
+                    reserva.getPrecioFinal(), reserva.getDuracionTotal(), reserva.getDescuentoPorPersonas(),
+                    reserva.getDescuentoPorVisitas(), reserva.getDescuentoPorCumpleaños(), reserva.getDescuentoTotal(),
+                    reserva.getPrecio(), reserva.getNumeroPersonas(), reserva.getDescuento(), reserva.isEsDiaEspecial(),
+                    reserva.getFechaReserva(), reserva.getPrecioTotal(), reserva.getHoraReserva()));
         }
+        return new ReservasNormalizadasDTO(normalizadas, new ArrayList<>(clientes.values()), new ArrayList<>(karts.values()));
     }
 
-    private void validarClientes(List<ClienteEntity> clientes) {
-        if (clientes == null || clientes.isEmpty()) {
-            throw new IllegalArgumentException("Debe haber al menos un cliente en la reserva");
+    /**
+     * Página del listado, de la reserva más reciente a la más antigua. El cursor
+     * es "fecha_id" de la última reserva entregada. Son tres consultas por página
+     * sin importar su tamaño: las filas, los nombres de los clientes y los
+     * códigos de los karts.
+     */
+    @Transactional(readOnly = true)
+    public PaginaDTO<ReservaListaDTO> listarPagina(String cursor, Integer tamano) {
+        int tamanoPagina = paginacionProperties.tamano(tamano);
+        // Una fila de más para saber si hay página siguiente
+        Limit limite = Limit.of(tamanoPagina + 1);
+        List<ReservaListaDTO> filas;
+        if (cursor == null || cursor.isBlank()) {
+            filas = reservaRepository.findPrimeraPagina(limite);
+        } else {
+            String[] partes = cursor.trim().split("_");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Cursor de página inválido: " + cursor);
+            }
+            LocalDate fecha;
+            long id;
+            try {
+                fecha = LocalDate.parse(partes[0]);
+                id = Long.parseLong(partes[1]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Cursor de página inválido: " + cursor);
+            }
+            filas = reservaRepository.findPaginaDespuesDe(fecha, id, limite);
         }
 
-        List<ClienteEntity> clientesCompletos = new ArrayList<>();
-        for (ClienteEntity cliente : clientes) {
-            ClienteEntity clienteCompleto = clienteRepository.findById(cliente.getId())
-                    .orElseThrow(() -> new IllegalArgumentException("Cliente no encontrado con ID: " + cliente.getId()));
-            clientesCompletos.add(clienteCompleto);
+        PaginaDTO<ReservaListaDTO> pagina = PaginaDTO.desde(filas, tamanoPagina,
+                fila -> fila.getFechaReserva() + "_" + fila.getId());
+        if (pagina.getElementos().isEmpty()) {
+            return pagina;
         }
 
-        // Reemplaza la lista original con la lista completa
-        clientes.clear();
-        clientes.addAll(clientesCompletos);
+        Map<Long, ReservaListaDTO> filasPorId = new HashMap<>();
+        for (ReservaListaDTO fila : pagina.getElementos()) {
+            filasPorId.put(fila.getId(), fila);
+        }
+        for (EtiquetaReservaDTO cliente : reservaRepository.findNombresClientesByReservaIdIn(filasPorId.keySet())) {
+            filasPorId.get(cliente.getReservaId()).getClientes().add(cliente.getEtiqueta());
+        }
+        for (EtiquetaReservaDTO kart : reservaRepository.findCodigosKartsByReservaIdIn(filasPorId.keySet())) {
+            filasPorId.get(kart.getReservaId()).getKarts().add(kart.getEtiqueta());
+        }
+        return pagina;
     }
 
-    private void validarKarts(List<KartEntity> karts) {
-        if (karts == null || karts.isEmpty()) {
-            throw new IllegalArgumentException("Debe haber al menos un kart en la reserva");
+    @Transactional
+    public ReservaEntity crearReserva(ReservaEntity reserva) {
+        // Validar la fecha de la reserva
+        validarFechaReserva(reserva);
+
+        // Validar clientes y karts
+        validarClientes(reserva.getClientes());
+        validarKarts(reserva.getKarts());
+
+        // Calcular descuentos y tarifas
+        motorTarifas.aplicar(reserva);
+
+        // Guardar la reserva y ocupar sus karts; un choque con otra reserva revierte ambas cosas
+        ReservaEntity reservaGuardada = reservaRepository.save(reserva);
+        ocupacionKartService.registrarOcupacion(reservaGuardada);
+        resumenIngresosService.registrarReserva(reservaGuardada);
+
+        // El rack en memoria solo se actualiza si la transacción se confirma
+        ReservaRackDTO reservaRack = new ReservaRackDTO(reservaGuardada.getId(), reservaGuardada.getFechaReserva(),
+                reservaGuardada.getHoraReserva(), reservaGuardada.getDuracionTotal(), reservaGuardada.getNumeroPersonas());
+        despuesDelCommit(() -> {
+            rackSemanalCache.registrarReserva(reservaRack);
+            disponibilidadKarts.registrarReserva(reservaGuardada);
+        });
+        return reservaGuardada;
+    }
+
+    /**
+     * Crea la reserva con un kart por cliente elegido en el servidor, del menos
+     * al más usado en el día; los karts que traiga la solicitud se ignoran. Los
+     * karts quedan apartados mientras dura la transacción, así las asignaciones
+     * simultáneas de esta réplica no chocan entre ellas. Si aun así otra reserva
+     * tomó alguno (de otra réplica, o con karts elegidos por el cliente), el día
+     * se vuelve a leer y se asignan otros en una nueva transacción.
+     */
+    public ReservaEntity crearReservaConKartsAsignados(ReservaEntity reserva) {
+        validarFechaReserva(reserva);
+        if (reserva.getHoraReserva() == null) {
+            throw new IllegalArgumentException("La hora de la reserva es obligatoria.");
         }
+        if (reserva.getClientes() == null || reserva.getClientes().isEmpty()) {
+            throw new IllegalArgumentException("Debe haber al menos un cliente en la reserva");
+        }
+        List<Long> idsClientes = new ArrayList<>(reserva.getClientes().size());
+        for (ClienteEntity cliente : reserva.getClientes()) {
+            idsClientes.add(cliente.getId());
+        }
+        int duracion = motorTarifas.duracion(reserva.getNumeroVueltas());
+
+        IllegalStateException choque = null;
+        for (int intento = 0; intento < INTENTOS_ASIGNACION; intento++) {
+            DisponibilidadKarts.Apartado apartado = disponibilidadKarts.apartar(reserva.getFechaReserva(),
+                    reserva.getHoraReserva(), duracion, idsClientes.size());
+            if (apartado == null) {
+                throw new IllegalStateException("No quedan karts libres para " + idsClientes.size() + " personas el " +
+                        reserva.getFechaReserva() + " a las " + reserva.getHoraReserva());
+            }
 
-        for (KartEntity kart : karts) {
-            KartEntity kartValidado = kartRepository.findById(kart.getId())
-                    .orElseThrow(() -> new IllegalArgumentException("Kart no encontrado con ID: " + kart.getId()));
-            if (!"disponible".equalsIgnoreCase(kartValidado.getEstado().trim())) {
-                throw new IllegalArgumentException("El kart con ID " + kart.getId() + " no está disponible");
+            // Cada intento parte de la solicitud original: uno revertido deja el ID y las colecciones de su transacción
+            reserva.setId(null);
+            reserva.setClientes(new ArrayList<>(idsClientes.size()));
+            reserva.setKarts(new ArrayList<>(idsClientes.size()));
+            for (int i = 0; i < idsClientes.size(); i++) {
+                ClienteEntity cliente = new ClienteEntity();
+                cliente.setId(idsClientes.get(i));
+                reserva.getClientes().add(cliente);
+                KartEntity kart = new KartEntity();
+                kart.setId(apartado.getKarts().get(i).getId());
+                reserva.getKarts().add(kart);
+            }
+            // Las ocupaciones se insertan en orden de kart: dos asignaciones que se cruzan esperan en vez de bloquearse mutuamente
+            reserva.getKarts().sort(Comparator.comparing(KartEntity::getId));
+
+            try {
+                return transactionTemplate.execute(estado -> crearReserva(reserva));
+            } catch (IllegalStateException e) {
+                choque = e;
+                disponibilidadKarts.descartarDia(reserva.getFechaReserva());
+            } finally {
+                disponibilidadKarts.liberar(apartado);
             }
         }
+        throw choque;
     }
 
-    private void calcularTarifasYDescuentos(ReservaEntity reserva) {
-        int precioBase = calcularPrecioBase(reserva.getNumeroVueltas());
-        reserva.setPrecioBase(precioBase);
-
-        int precioFinal = 0;
-        int descuentoPorPersonas = calcularDescuentoPorPersonas(reserva.getClientes().size());
-        reserva.setDescuentoPorPersonas(descuentoPorPersonas);
-        reserva.setNumeroPersonas(reserva.getClientes().size());
-
-        int totalDescuentoPorVisitas = 0;
-        int totalDescuentoPorCumpleaños = 0;
+    /**
+     * Crea una carga de reservas, por ejemplo las históricas del sistema anterior,
+     * en una sola transacción. Los clientes y karts de toda la carga se leen con
+     * una consulta cada uno y las filas se insertan en lotes. Si alguna reserva no
+     * pasa la validación no se guarda ninguna y el resultado trae los errores.
+     */
+    @Transactional
+    public ResultadoLoteReservasDTO crearReservasEnLote(List<ReservaEntity> reservas) {
+        if (reservas == null || reservas.isEmpty()) {
+            throw new IllegalArgumentException("La carga debe traer al menos una reserva");
+        }
+        if (reservas.size() > MAX_RESERVAS_POR_LOTE) {
+            throw new IllegalArgumentException("Una carga admite hasta " + MAX_RESERVAS_POR_LOTE + " reservas");
+        }
 
-        // Si no hay clientes, evitar división por cero
-        if (reserva.getClientes().isEmpty()) {
-            reserva.setPrecioFinal(precioBase);
-            reserva.setDuracionTotal(calcularDuracionTotal(reserva.getNumeroVueltas()));
-            return;
+        Set<Long> idsClientes = new HashSet<>();
+        Set<Long> idsKarts = new HashSet<>();
+        for (ReservaEntity reserva : reservas) {
+            if (reserva.getClientes() != null) {
+                reserva.getClientes().forEach(cliente -> idsClientes.add(cliente.getId()));
+            }
+            if (reserva.getKarts() != null) {
+                reserva.getKarts().forEach(kart -> idsKarts.add(kart.getId()));
+            }
         }
-        
-        for (ClienteEntity cliente : reserva.getClientes()) {
-            // Calcular descuentos para este cliente
-            int descuentoPorVisitas = calcularDescuentoPorVisitas(cliente.getNumeroVisitas());
-            int descuentoPorCumpleaños = calcularDescuentoPorCumpleaños(cliente, reserva.getFechaReserva());
-
-            // Acumular descuentos totales para mostrar en la reserva
-            totalDescuentoPorVisitas += descuentoPorVisitas;
-            totalDescuentoPorCumpleaños += descuentoPorCumpleaños;
-
-            // Calcular precio para este cliente con sus descuentos individuales
-            int descuentoTotalCliente = descuentoPorVisitas + descuentoPorCumpleaños;
-            int precioCliente = precioBase - (precioBase * descuentoTotalCliente / 100);
-            
-            // Agregar al precio final
-            precioFinal += precioCliente;
-            
-            // Logs para depuración
-            System.out.println("Cliente: " + cliente.getNombre() + 
-                             " - Visitas: " + cliente.getNumeroVisitas() + 
-                             " - Descuento visitas: " + descuentoPorVisitas + "%" +
-                             " - Cumpleaños: " + (descuentoPorCumpleaños > 0 ? "Sí" : "No") +
-                             " - Descuento cumpleaños: " + descuentoPorCumpleaños + "%" +
-                             " - Precio cliente: " + precioCliente);
+        idsClientes.remove(null);
+        idsKarts.remove(null);
+        Map<Long, ClienteEntity> clientesPorId = porId(clienteRepository.findAllById(idsClientes), ClienteEntity::getId);
+        Map<Long, KartEntity> kartsPorId = porId(kartRepository.findAllById(idsKarts), KartEntity::getId);
+
+        // Se revisa la carga completa para informar todos los errores de una vez
+        List<String> errores = new ArrayList<>();
+        for (int i = 0; i < reservas.size(); i++) {
+            ReservaEntity reserva = reservas.get(i);
+            try {
+                validarFechaReserva(reserva);
+                if (reserva.getHoraReserva() == null) {
+                    throw new IllegalArgumentException("La hora de la reserva es obligatoria.");
+                }
+                completarClientes(reserva.getClientes(), clientesPorId);
+                completarKarts(reserva.getKarts(), kartsPorId);
+                motorTarifas.aplicar(reserva);
+            } catch (IllegalArgumentException e) {
+                errores.add("Reserva " + (i + 1) + ": " + e.getMessage());
+            }
         }
-        
-        // Aplicar descuento por número de personas al total
-        if (descuentoPorPersonas > 0) {
-            precioFinal = precioFinal - (precioFinal * descuentoPorPersonas / 100);
-            System.out.println("Aplicando descuento por número de personas: " + descuentoPorPersonas + 
-                            "% al precio total: " + precioFinal);
+        if (!errores.isEmpty()) {
+            return new ResultadoLoteReservasDTO(reservas.size(), 0, errores);
         }
 
-        // Guardar los descuentos totales en la reserva (para referencia)
-        reserva.setDescuentoPorVisitas(totalDescuentoPorVisitas / reserva.getClientes().size()); // Promedio
-        reserva.setDescuentoPorCumpleaños(Math.min(totalDescuentoPorCumpleaños, 50)); // Limitar a 50%
-        reserva.setPrecioFinal(precioFinal);
-        
-        // Calcular la duración total en minutos
-        reserva.setDuracionTotal(calcularDuracionTotal(reserva.getNumeroVueltas()));
-        
-        System.out.println("Reserva - Precio Base: $" + precioBase + 
-                         " - Precio Final: $" + precioFinal);
-    }
+        // Los IDs salen del pool de la secuencia, así que los INSERT quedan pendientes hasta el flush
+        List<ReservaEntity> reservasGuardadas = reservaRepository.saveAll(reservas);
+        ocupacionKartService.registrarOcupaciones(reservasGuardadas);
+        resumenIngresosService.registrarReservas(reservasGuardadas);
 
-    private int calcularDuracionTotal(int numeroVueltas) {
-        switch (numeroVueltas) {
-            case 10:
-                return 30;
-            case 15:
-                return 35;
-            case 20:
-                return 40;
-            default:
-                throw new IllegalArgumentException("Número de vueltas no válido");
+        List<ReservaRackDTO> reservasRack = new ArrayList<>(reservasGuardadas.size());
+        for (ReservaEntity reserva : reservasGuardadas) {
+            reservasRack.add(new ReservaRackDTO(reserva.getId(), reserva.getFechaReserva(), reserva.getHoraReserva(),
+                    reserva.getDuracionTotal(), reserva.getNumeroPersonas()));
         }
+        despuesDelCommit(() -> {
+            reservasRack.forEach(rackSemanalCache::registrarReserva);
+            reservasGuardadas.forEach(disponibilidadKarts::registrarReserva);
+        });
+        return new ResultadoLoteReservasDTO(reservas.size(), reservasGuardadas.size(), List.of());
     }
 
-    private int calcularPrecioBase(int numeroVueltas) {
-        switch (numeroVueltas) {
-            case 10:
-                return 15000;
-            case 15:
-                return 20000;
-            case 20:
-                return 25000;
-            default:
-                throw new IllegalArgumentException("Número de vueltas no válido");
-        }
+    /**
+     * Precio de la reserva con el desglose por cliente, sin guardar nada. Los
+     * karts no se validan: su disponibilidad se confirma al crear la reserva.
+     */
+    @Transactional(readOnly = true)
+    public CotizacionDTO cotizar(ReservaEntity reserva) {
+        validarFechaReserva(reserva);
+        validarClientes(reserva.getClientes());
+        return motorTarifas.cotizar(reserva);
     }
 
-    private int calcularDescuentoPorPersonas(int numeroPersonas) {
-        if (numeroPersonas >= 11) return 30;
-        if (numeroPersonas >= 6) return 20;
-        if (numeroPersonas >= 3) return 10;
-        return 0;
+    // Con sus clientes cargados, que es lo que leen el comprobante y su envío
+    public ReservaEntity obtenerReservaPorId(Long id) {
+        return reservaRepository.findConClientesById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Reserva no encontrada con ID: " + id));
     }
 
-    private int calcularDescuentoPorVisitas(int numeroVisitas) {
-        if (numeroVisitas >= 7) return 30;
-        if (numeroVisitas >= 5) return 20;
-        if (numeroVisitas >= 2) return 10;
-        return 0;
+    private void despuesDelCommit(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
     }
 
-    private int calcularDescuentoPorCumpleaños(ClienteEntity cliente, LocalDate fechaReserva) {
-        if (cliente.getFechaNacimiento() != null &&
-            cliente.getFechaNacimiento().getDayOfMonth() == fechaReserva.getDayOfMonth() &&
-            cliente.getFechaNacimiento().getMonth() == fechaReserva.getMonth()) {
-            return 50; // 50% de descuento por cumpleaños
+    private void validarFechaReserva(ReservaEntity reserva) {
+        if (reserva.getFechaReserva() == null) {
+            throw new IllegalArgumentException("La fecha de la reserva no puede ser nula.");
         }
-        return 0;
     }
 
-    public Map<String, Map<String, List<ReservaEntity>>> obtenerRackSemanal() {
-        List<ReservaEntity> reservas = reservaRepository.findAll();
-        Map<String, Map<String, List<ReservaEntity>>> rackSemanal = new HashMap<>();
+    private void validarClientes(List<ClienteEntity> clientes) {
+        if (clientes == null || clientes.isEmpty()) {
+            throw new IllegalArgumentException("Debe haber al menos un cliente en la reserva");
+        }
 
-        // Inicializa el rack semanal con días y bloques vacíos
-        String[] diasSemana = {"Lunes", "Martes", "Miércoles", "Jueves", "Viernes", "Sábado", "Domingo"};
-        String[] bloquesHorario = {"09:00-10:00", "10:00-11:00", "11:00-12:00", "12:00-13:00", "14:00-15:00", "15:00-16:00", "16:00-17:00"};
+        // Una sola consulta para todo el grupo; los IDs faltantes se detectan en memoria
+        Set<Long> idsClientes = obtenerIds(clientes, ClienteEntity::getId);
+        completarClientes(clientes, porId(clienteRepository.findAllById(idsClientes), ClienteEntity::getId));
+    }
 
-        for (String dia : diasSemana) {
-            rackSemanal.put(dia, new HashMap<>());
-            for (String bloque : bloquesHorario) {
-                rackSemanal.get(dia).put(bloque, new ArrayList<>());
-            }
+    private void completarClientes(List<ClienteEntity> clientes, Map<Long, ClienteEntity> clientesPorId) {
+        if (clientes == null || clientes.isEmpty()) {
+            throw new IllegalArgumentException("Debe haber al menos un cliente en la reserva");
         }
 
-        // Organiza las reservas en el rack semanal
-        for (ReservaEntity reserva : reservas) {
-            if (reserva.getHoraReserva() == null || reserva.getDuracionTotal() == 0) {
-                System.err.println("La reserva con ID " + reserva.getId() + " no tiene una hora o duración asignada.");
-                continue; // Ignora esta reserva
+        List<ClienteEntity> clientesCompletos = new ArrayList<>(clientes.size());
+        for (ClienteEntity cliente : clientes) {
+            if (cliente.getId() == null) {
+                throw new IllegalArgumentException("Todos los clientes y karts de la reserva deben tener ID");
             }
-
-            String dia = obtenerDiaSemana(reserva.getFechaReserva());
-            LocalTime horaInicio = reserva.getHoraReserva();
-            LocalTime horaFin = horaInicio.plusMinutes(reserva.getDuracionTotal());
-
-            // Asigna la reserva a todos los bloques que ocupa
-            for (String bloque : bloquesHorario) {
-                LocalTime inicioBloque = obtenerHoraInicioBloque(bloque);
-                LocalTime finBloque = inicioBloque.plusHours(1);
-
-                // Verifica si el bloque se solapa con la reserva
-                if ((horaInicio.isBefore(finBloque) && horaFin.isAfter(inicioBloque))) {
-                    rackSemanal.get(dia).get(bloque).add(reserva);
-                }
+            ClienteEntity clienteCompleto = clientesPorId.get(cliente.getId());
+            if (clienteCompleto == null) {
+                throw new IllegalArgumentException("Cliente no encontrado con ID: " + cliente.getId());
             }
+            clientesCompletos.add(clienteCompleto);
         }
 
-        return rackSemanal;
+        // Reemplaza la lista original con la lista completa
+        clientes.clear();
+        clientes.addAll(clientesCompletos);
     }
 
-    public Map<String, Map<String, List<ReservaEntity>>> obtenerRackSemanalPorFechas(LocalDate inicio, LocalDate fin) {
-        // Similar al método obtenerRackSemanal pero filtrando por fechas
-        List<ReservaEntity> reservas = reservaRepository.findAllByFechaReservaBetween(inicio, fin);
-        Map<String, Map<String, List<ReservaEntity>>> rackSemanal = new HashMap<>();
-
-        // Inicializa el rack semanal con días y bloques vacíos
-        String[] diasSemana = {"Lunes", "Martes", "Miércoles", "Jueves", "Viernes", "Sábado", "Domingo"};
-        String[] bloquesHorario = {"09:00-10:00", "10:00-11:00", "11:00-12:00", "12:00-13:00", "14:00-15:00", "15:00-16:00", "16:00-17:00"};
-
-        for (String dia : diasSemana) {
-            rackSemanal.put(dia, new HashMap<>());
-            for (String bloque : bloquesHorario) {
-                rackSemanal.get(dia).put(bloque, new ArrayList<>());
-            }
+    private void validarKarts(List<KartEntity> karts) {
+        if (karts == null || karts.isEmpty()) {
+            throw new IllegalArgumentException("Debe haber al menos un kart en la reserva");
         }
 
-        // Organiza las reservas en el rack semanal
-        for (ReservaEntity reserva : reservas) {
-            if (reserva.getHoraReserva() == null || reserva.getDuracionTotal() == 0) {
-                continue;
-            }
+        Set<Long> idsKarts = obtenerIds(karts, KartEntity::getId);
+        completarKarts(karts, porId(kartRepository.findAllById(idsKarts), KartEntity::getId));
+    }
 
-            String dia = obtenerDiaSemana(reserva.getFechaReserva());
-            LocalTime horaInicio = reserva.getHoraReserva();
-            LocalTime horaFin = horaInicio.plusMinutes(reserva.getDuracionTotal());
+    private void completarKarts(List<KartEntity> karts, Map<Long, KartEntity> kartsPorId) {
+        if (karts == null || karts.isEmpty()) {
+            throw new IllegalArgumentException("Debe haber al menos un kart en la reserva");
+        }
 
-            // Asigna la reserva a todos los bloques que ocupa
-            for (String bloque : bloquesHorario) {
-                LocalTime inicioBloque = obtenerHoraInicioBloque(bloque);
-                LocalTime finBloque = inicioBloque.plusHours(1);
+        Set<Long> idsKarts = obtenerIds(karts, KartEntity::getId);
+        if (idsKarts.size() < karts.size()) {
+            throw new IllegalArgumentException("Un kart no puede asignarse dos veces en la misma reserva");
+        }
 
-                // Verifica si el bloque se solapa con la reserva
-                if ((horaInicio.isBefore(finBloque) && horaFin.isAfter(inicioBloque))) {
-                    rackSemanal.get(dia).get(bloque).add(reserva);
-                }
+        for (KartEntity kart : karts) {
+            KartEntity kartValidado = kartsPorId.get(kart.getId());
+            if (kartValidado == null) {
+                throw new IllegalArgumentException("Kart no encontrado con ID: " + kart.getId());
+            }
+            if (kartValidado.getEstado() != EstadoKart.DISPONIBLE) {
+                throw new IllegalArgumentException("El kart con ID " + kart.getId() + " no está disponible");
             }
         }
-
-        return rackSemanal;
     }
 
-    private LocalTime obtenerHoraInicioBloque(String bloque) {
-        String[] partes = bloque.split("-");
-        return LocalTime.parse(partes[0]); // Convierte "09:00" en LocalTime
+    private <T> Map<Long, T> porId(Iterable<T> entidades, Function<T, Long> obtenerId) {
+        Map<Long, T> entidadesPorId = new HashMap<>();
+        for (T entidad : entidades) {
+            entidadesPorId.put(obtenerId.apply(entidad), entidad);
+        }
+        return entidadesPorId;
     }
 
-    private String obtenerDiaSemana(LocalDate fecha) {
-        switch (fecha.getDayOfWeek()) {
-            case MONDAY: return "Lunes";
-            case TUESDAY: return "Martes";
-            case WEDNESDAY: return "Miércoles";
-            case THURSDAY: return "Jueves";
-            case FRIDAY: return "Viernes";
-            case SATURDAY: return "Sábado";
-            case SUNDAY: return "Domingo";
-            default: throw new IllegalArgumentException("Día no válido");
+    private <T> Set<Long> obtenerIds(List<T> entidades, Function<T, Long> obtenerId) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (T entidad : entidades) {
+            Long id = obtenerId.apply(entidad);
+            if (id == null) {
+                throw new IllegalArgumentException("Todos los clientes y karts de la reserva deben tener ID");
+            }
+            ids.add(id);
         }
+        return ids;
     }
 
-    private String calcularBloqueHorario(LocalTime horaReserva) {
-        if (horaReserva == null) {
-            throw new IllegalArgumentException("La hora de la reserva no puede ser nula.");
-        }
+    public Map<String, Map<String, List<ReservaRackDTO>>> obtenerRackSemanal() {
+        // Sin fechas se muestra la semana actual, de lunes a domingo
+        LocalDate lunes = lunesActual();
+        return obtenerRackSemanalPorFechas(lunes, lunes.plusDays(6));
+    }
 
-        if (horaReserva.isBefore(LocalTime.of(10, 0))) return "09:00-10:00";
-        if (horaReserva.isBefore(LocalTime.of(11, 0))) return "10:00-11:00";
-        if (horaReserva.isBefore(LocalTime.of(12, 0))) return "11:00-12:00";
-        if (horaReserva.isBefore(LocalTime.of(13, 0))) return "12:00-13:00";
-        if (horaReserva.isBefore(LocalTime.of(15, 0))) return "14:00-15:00";
-        if (horaReserva.isBefore(LocalTime.of(16, 0))) return "15:00-16:00";
-        return "16:00-17:00";
+    /**
+     * Versión de las reservas entre dos fechas, para usar de ETag en el rack y
+     * los reportes. Sale de la marca de cambios (MAX(id) y COUNT sobre el
+     * índice de fecha) sin armar la respuesta, y es la misma en todas las
+     * réplicas porque solo depende de la base de datos.
+     */
+    public String versionReservas(LocalDate inicio, LocalDate fin) {
+        MarcaCambiosDTO marca = reservaRepository.findMarcaCambiosByFechaReservaBetween(inicio, fin);
+        return inicio + "_" + fin + "_" + marca.getMaxId() + "_" + marca.getCantidad();
     }
 
-    public Map<String, Map<String, Integer>> generarReporteIngresosPorVueltas(LocalDate inicio, LocalDate fin) {
-        List<ReservaEntity> reservas = reservaRepository.findAllByFechaReservaBetween(inicio, fin);
-        Map<String, Map<String, Integer>> reporte = new HashMap<>();
+    public String versionRackSemanal() {
+        LocalDate lunes = lunesActual();
+        return versionReservas(lunes, lunes.plusDays(6));
+    }
 
-        System.out.println("Generando reporte de vueltas entre " + inicio + " y " + fin);
-        System.out.println("Número de reservas encontradas: " + reservas.size());
+    private LocalDate lunesActual() {
+        return LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
 
-        for (ReservaEntity reserva : reservas) {
-            if (reserva.getFechaReserva() == null) {
-                System.out.println("Reserva ID " + reserva.getId() + " no tiene fecha asignada");
-                continue;
-            }
-            
-            // Clave basada en el número de vueltas o tiempo máximo
-            String key = reserva.getNumeroVueltas() + " vueltas o máx " + reserva.getDuracionTotal() + " min";
-            // Obtiene el mes en formato string
-            String mes = reserva.getFechaReserva().getMonth().toString();
-
-            // Inicializa la categoría si no existe
-            reporte.putIfAbsent(key, new HashMap<>());
-            Map<String, Integer> ingresosPorMes = reporte.get(key);
-            
-            // Precio con IVA (19%)
-            int precioConIVA = (int) Math.round(reserva.getPrecioFinal() * 1.19);
-            
-            // Suma los ingresos del mes usando el precio con IVA
-            ingresosPorMes.put(mes, ingresosPorMes.getOrDefault(mes, 0) + precioConIVA);
-            
-            System.out.println("Agregado a reporte - Categoría: " + key + 
-                               ", Mes: " + mes + 
-                               ", Precio base: " + reserva.getPrecioBase() + 
-                               ", Precio final: " + reserva.getPrecioFinal() + 
-                               ", Con IVA: " + precioConIVA);
+    public Map<String, Map<String, List<ReservaRackDTO>>> obtenerRackSemanalPorFechas(LocalDate inicio, LocalDate fin) {
+        // Las semanas completas (lunes a domingo) se responden desde memoria
+        if (inicio.getDayOfWeek() == DayOfWeek.MONDAY && fin.equals(inicio.plusDays(6))) {
+            return rackSemanalCache.obtenerSemana(inicio);
         }
+        return horarioRack.construirRack(reservaRepository.findRackByFechaReservaBetween(inicio, fin));
+    }
 
-        // Agregar totales por categoría
-        reporte.forEach((key, ingresosPorMes) -> {
-            // Solo sumar valores numéricos, no la cadena "TOTAL" si ya existe
-            int total = ingresosPorMes.entrySet().stream()
-                    .filter(entry -> !entry.getKey().equals("TOTAL"))
-                    .mapToInt(Map.Entry::getValue)
-                    .sum();
-            ingresosPorMes.put("TOTAL", total);
-        });
-
-        return reporte;
+    public Map<String, Map<String, Integer>> generarReporteIngresosPorVueltas(LocalDate inicio, LocalDate fin) {
+        return resumenIngresosService.generarReportePorVueltas(inicio, fin);
     }
 
     public Map<String, Map<String, Integer>> generarReporteIngresosPorPersonas(LocalDate inicio, LocalDate fin) {
-        List<ReservaEntity> reservas = reservaRepository.findAllByFechaReservaBetween(inicio, fin);
-        Map<String, Map<String, Integer>> reporte = new HashMap<>();
-        
-        System.out.println("Generando reporte de personas entre " + inicio + " y " + fin);
-        System.out.println("Número de reservas encontradas: " + reservas.size());
-
-        for (ReservaEntity reserva : reservas) {
-            if (reserva.getFechaReserva() == null) {
-                System.out.println("Reserva ID " + reserva.getId() + " no tiene fecha asignada");
-                continue;
-            }
-            
-            String key;
-            int numeroPersonas = reserva.getNumeroPersonas();
-
-            if (numeroPersonas <= 2) {
-                key = "1-2 personas";
-            } else if (numeroPersonas <= 5) {
-                key = "3-5 personas";
-            } else if (numeroPersonas <= 10) {
-                key = "6-10 personas";
-            } else {
-                key = "11-15 personas";
-            }
-
-            String mes = reserva.getFechaReserva().getMonth().toString();
-
-            reporte.putIfAbsent(key, new HashMap<>());
-            Map<String, Integer> ingresosPorMes = reporte.get(key);
-            
-            // Precio con IVA (19%)
-            int precioConIVA = (int) Math.round(reserva.getPrecioFinal() * 1.19);
-            
-            // Suma los ingresos del mes usando el precio con IVA
-            ingresosPorMes.put(mes, ingresosPorMes.getOrDefault(mes, 0) + precioConIVA);
-            
-            System.out.println("Agregado a reporte - Categoría: " + key + 
-                               ", Mes: " + mes + 
-                               ", Personas: " + numeroPersonas +
-                               ", Precio final: " + reserva.getPrecioFinal() + 
-                               ", Con IVA: " + precioConIVA);
-        }
-
-        // Agregar totales por categoría
-        reporte.forEach((key, ingresosPorMes) -> {
-            // Solo sumar valores numéricos, no la cadena "TOTAL" si ya existe
-            int total = ingresosPorMes.entrySet().stream()
-                    .filter(entry -> !entry.getKey().equals("TOTAL"))
-                    .mapToInt(Map.Entry::getValue)
-                    .sum();
-            ingresosPorMes.put("TOTAL", total);
-        });
+        return resumenIngresosService.generarReportePorPersonas(inicio, fin);
+    }
 
-        return reporte;
+    public AuditoriaIngresosDTO auditarIngresos(LocalDate inicio, LocalDate fin) {
+        return resumenIngresosService.auditar(inicio, fin);
     }
 }
@@ -0,0 +1,310 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.dtos.AuditoriaIngresosDTO;
+import edu.mtisw.KartingRM.dtos.CeldaResumenDTO;
+import edu.mtisw.KartingRM.dtos.IngresoAgregadoDTO;
+import edu.mtisw.KartingRM.dtos.ReservaIngresoDTO;
+import edu.mtisw.KartingRM.entities.IngresoResumenEntity;
+import edu.mtisw.KartingRM.entities.IngresoResumenId;
+import edu.mtisw.KartingRM.entities.ReservaEntity;
+import edu.mtisw.KartingRM.repositories.IngresoResumenRepository;
+import edu.mtisw.KartingRM.repositories.ReservaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@Service
+public class ResumenIngresosService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumenIngresosService.class);
+
+    private static final String INSERTAR_CELDA = "INSERT INTO ingresos_resumen (fecha, numero_vueltas, " +
+            "duracion_total, rango_personas, anio_mes, dia_semana, cantidad_reservas, total_precio_final) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Llave del pg_advisory_xact_lock que comparten las réplicas al reconstruir
+    private static final long LLAVE_RECONSTRUCCION = 7_301_001L;
+
+    private final IngresoResumenRepository ingresoResumenRepository;
+    private final ReservaRepository reservaRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public ResumenIngresosService(IngresoResumenRepository ingresoResumenRepository,
+                                  ReservaRepository reservaRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate) {
+        this.ingresoResumenRepository = ingresoResumenRepository;
+        this.reservaRepository = reservaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Suma la reserva a su celda del resumen, dentro de la transacción que la crea.
+     * Primero intenta un UPDATE atómico; si la celda no existe la inserta bajo un
+     * savepoint, y si otra réplica la insertó en paralelo vuelve al UPDATE.
+     */
+    @Transactional
+    public void registrarReserva(ReservaEntity reserva) {
+        IngresoResumenId celda = celda(reserva);
+        long monto = reserva.getPrecioFinal();
+
+        if (sumar(celda, monto) > 0) {
+            return;
+        }
+        if (!insertarCelda(celda, 1, monto)) {
+            sumar(celda, monto);
+        }
+    }
+
+    /**
+     * Igual que registrarReserva para una carga completa: las reservas se agrupan
+     * primero por celda, así que hay un UPDATE por celda tocada y no uno por reserva.
+     */
+    @Transactional
+    public void registrarReservas(List<ReservaEntity> reservas) {
+        Map<IngresoResumenId, long[]> celdas = new LinkedHashMap<>();
+        for (ReservaEntity reserva : reservas) {
+            long[] acumulado = celdas.computeIfAbsent(celda(reserva), clave -> new long[2]);
+            acumulado[0]++;
+            acumulado[1] += reserva.getPrecioFinal();
+        }
+
+        celdas.forEach((celda, acumulado) -> {
+            int cantidad = (int) acumulado[0];
+            if (sumar(celda, cantidad, acumulado[1]) > 0) {
+                return;
+            }
+            if (!insertarCelda(celda, cantidad, acumulado[1])) {
+                sumar(celda, cantidad, acumulado[1]);
+            }
+        });
+    }
+
+    /*
+     * JpaTransactionManager no ofrece transacciones anidadas, así que el INSERT va por
+     * JDBC bajo un savepoint tomado sobre la conexión de la transacción en curso. Pasar
+     * por Hibernate o por el repositorio marcaría toda la transacción como rollback-only
+     * al fallar; así solo se deshace el INSERT y la reserva sigue adelante.
+     */
+    private boolean insertarCelda(IngresoResumenId celda, int cantidad, long monto) {
+        LocalDate fecha = celda.getFecha();
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        Connection conexion = DataSourceUtils.getConnection(dataSource);
+        try {
+            Savepoint savepoint = conexion.setSavepoint();
+            try {
+                jdbcTemplate.update(INSERTAR_CELDA, fecha, celda.getNumeroVueltas(), celda.getDuracionTotal(),
+                        celda.getRangoPersonas(), YearMonth.from(fecha).toString(), fecha.getDayOfWeek().getValue(),
+                        cantidad, monto);
+                conexion.releaseSavepoint(savepoint);
+                return true;
+            } catch (DataIntegrityViolationException e) {
+                // Otra réplica creó la celda entre el UPDATE y el INSERT
+                conexion.rollback(savepoint);
+                return false;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("No se pudo usar un savepoint para el resumen de ingresos", e);
+        } finally {
+            DataSourceUtils.releaseConnection(conexion, dataSource);
+        }
+    }
+
+    private int sumar(IngresoResumenId celda, long monto) {
+        return ingresoResumenRepository.sumarReserva(celda.getFecha(), celda.getNumeroVueltas(),
+                celda.getDuracionTotal(), celda.getRangoPersonas(), monto);
+    }
+
+    private int sumar(IngresoResumenId celda, int cantidad, long monto) {
+        return ingresoResumenRepository.sumarReservas(celda.getFecha(), celda.getNumeroVueltas(),
+                celda.getDuracionTotal(), celda.getRangoPersonas(), cantidad, monto);
+    }
+
+    private static IngresoResumenId celda(ReservaEntity reserva) {
+        return new IngresoResumenId(reserva.getFechaReserva(), reserva.getNumeroVueltas(),
+                reserva.getDuracionTotal(), rangoPersonas(reserva.getNumeroPersonas()));
+    }
+
+    public Map<String, Map<String, Integer>> generarReportePorVueltas(LocalDate inicio, LocalDate fin) {
+        return armarReporte(ingresoResumenRepository.sumarPorVueltas(inicio, fin));
+    }
+
+    public Map<String, Map<String, Integer>> generarReportePorPersonas(LocalDate inicio, LocalDate fin) {
+        return armarReporte(ingresoResumenRepository.sumarPorPersonas(inicio, fin));
+    }
+
+    private Map<String, Map<String, Integer>> armarReporte(List<IngresoAgregadoDTO> celdas) {
+        Map<String, Map<String, Integer>> reporte = new HashMap<>();
+
+        for (IngresoAgregadoDTO celda : celdas) {
+            // Precio con IVA (19%), aplicado una vez sobre la suma de la celda
+            int ingresosConIVA = (int) Math.round(celda.getTotal() * 1.19);
+            reporte.computeIfAbsent(celda.getCategoria(), categoria -> new HashMap<>())
+                    .merge(celda.getMes(), ingresosConIVA, Integer::sum);
+        }
+
+        // Agregar totales por categoría
+        reporte.forEach((categoria, ingresosPorMes) -> {
+            int total = ingresosPorMes.values().stream().mapToInt(Integer::intValue).sum();
+            ingresosPorMes.put("TOTAL", total);
+        });
+
+        return reporte;
+    }
+
+    /**
+     * Recalcula las celdas del período recorriendo las reservas una por una y las compara
+     * con el resumen. Las reservas se leen como stream, así que la memoria solo crece con
+     * la cantidad de celdas y no con la cantidad de reservas del rango.
+     */
+    @Transactional(readOnly = true)
+    public AuditoriaIngresosDTO auditar(LocalDate inicio, LocalDate fin) {
+        Map<IngresoResumenId, long[]> esperado = new HashMap<>();
+        long reservasRevisadas = 0;
+        try (Stream<ReservaIngresoDTO> reservas = reservaRepository.streamIngresosByFechaReservaBetween(inicio, fin)) {
+            Iterator<ReservaIngresoDTO> iterador = reservas.iterator();
+            while (iterador.hasNext()) {
+                ReservaIngresoDTO reserva = iterador.next();
+                IngresoResumenId id = new IngresoResumenId(reserva.getFechaReserva(), reserva.getNumeroVueltas(),
+                        reserva.getDuracionTotal(), rangoPersonas(reserva.getNumeroPersonas()));
+                long[] celda = esperado.computeIfAbsent(id, clave -> new long[2]);
+                celda[0]++;
+                celda[1] += reserva.getPrecioFinal();
+                reservasRevisadas++;
+            }
+        }
+
+        int celdasRevisadas = esperado.size();
+        List<IngresoResumenId> diferencias = new ArrayList<>();
+        for (IngresoResumenEntity fila : ingresoResumenRepository.findByIdFechaBetween(inicio, fin)) {
+            long[] celda = esperado.remove(fila.getId());
+            if (celda == null) {
+                // Celda del resumen sin ninguna reserva detrás
+                celdasRevisadas++;
+                diferencias.add(fila.getId());
+            } else if (celda[0] != fila.getCantidadReservas() || celda[1] != fila.getTotalPrecioFinal()) {
+                diferencias.add(fila.getId());
+            }
+        }
+        // Lo que queda son celdas con reservas que nunca llegaron al resumen
+        diferencias.addAll(esperado.keySet());
+
+        if (!diferencias.isEmpty()) {
+            logger.warn("Auditoría de ingresos entre {} y {}: {} celdas con diferencias", inicio, fin, diferencias.size());
+        }
+        return new AuditoriaIngresosDTO(reservasRevisadas, celdasRevisadas, diferencias);
+    }
+
+    /**
+     * Vuelve a calcular el resumen completo desde la tabla de reservas.
+     *
+     * Las celdas se actualizan en su lugar: se insertan las que faltan, se
+     * corrigen las que difieren y se borran las que no tienen reservas. En
+     * PostgreSQL se toma primero un advisory lock, para que dos réplicas no
+     * reconstruyan a la vez, y un lock SHARE sobre reservas, que espera a las
+     * reservas en curso y detiene las nuevas hasta terminar; así ninguna suma
+     * de registrarReserva cae entre la lectura de reservas y la escritura.
+     */
+    @Transactional
+    public void reconstruir() {
+        bloquearReservas();
+        reconstruirCeldas();
+    }
+
+    // Las reservas anteriores a la tabla de resumen se cargan la primera vez que arranca la aplicación
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        if (resumenCompleto()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(estado -> {
+                bloquearReservas();
+                // Otra réplica pudo reconstruirlo mientras se esperaba el lock
+                if (!resumenCompleto()) {
+                    reconstruirCeldas();
+                }
+            });
+        } catch (RuntimeException e) {
+            if (resumenCompleto()) {
+                logger.info("Otra réplica ya reconstruyó el resumen de ingresos");
+            } else {
+                logger.error("No se pudo reconstruir el resumen de ingresos; los reportes quedan incompletos", e);
+            }
+        }
+    }
+
+    private boolean resumenCompleto() {
+        return ingresoResumenRepository.contarReservasResumidas() == reservaRepository.countByFechaReservaIsNotNull();
+    }
+
+    private void bloquearReservas() {
+        String baseDeDatos = jdbcTemplate.execute(
+                (ConnectionCallback<String>) conexion -> conexion.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(baseDeDatos)) {
+            return;
+        }
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + LLAVE_RECONSTRUCCION + ")");
+        jdbcTemplate.execute("LOCK TABLE reservas IN SHARE MODE");
+    }
+
+    private void reconstruirCeldas() {
+        Map<IngresoResumenId, IngresoResumenEntity> sobrantes = new HashMap<>();
+        for (IngresoResumenEntity fila : ingresoResumenRepository.findAll()) {
+            sobrantes.put(fila.getId(), fila);
+        }
+
+        List<IngresoResumenEntity> nuevas = new ArrayList<>();
+        int corregidas = 0;
+        for (CeldaResumenDTO celda : ingresoResumenRepository.resumirReservas()) {
+            IngresoResumenId id = new IngresoResumenId(celda.getFecha(), celda.getNumeroVueltas(),
+                    celda.getDuracionTotal(), celda.getRangoPersonas());
+            IngresoResumenEntity fila = sobrantes.remove(id);
+            if (fila == null) {
+                nuevas.add(new IngresoResumenEntity(id, YearMonth.from(celda.getFecha()).toString(),
+                        celda.getFecha().getDayOfWeek().getValue(), celda.getCantidadReservas(), celda.getTotalPrecioFinal()));
+            } else if (fila.getCantidadReservas() != celda.getCantidadReservas()
+                    || fila.getTotalPrecioFinal() != celda.getTotalPrecioFinal()) {
+                fila.setCantidadReservas(celda.getCantidadReservas());
+                fila.setTotalPrecioFinal(celda.getTotalPrecioFinal());
+                corregidas++;
+            }
+        }
+        ingresoResumenRepository.saveAll(nuevas);
+        ingresoResumenRepository.deleteAll(sobrantes.values());
+        logger.info("Resumen de ingresos reconstruido: {} celdas nuevas, {} corregidas, {} eliminadas",
+                nuevas.size(), corregidas, sobrantes.size());
+    }
+
+    // Debe coincidir con el CASE de IngresoResumenRepository.resumirReservas
+    static String rangoPersonas(int numeroPersonas) {
+        if (numeroPersonas <= 2) return "1-2 personas";
+        if (numeroPersonas <= 5) return "3-5 personas";
+        if (numeroPersonas <= 10) return "6-10 personas";
+        return "11-15 personas";
+    }
+}
@@ -0,0 +1,194 @@
+package edu.mtisw.KartingRM.benchmarks;
+
+import edu.mtisw.KartingRM.KartingRMApplication;
+import edu.mtisw.KartingRM.dtos.KartListaDTO;
+import edu.mtisw.KartingRM.entities.ClienteEntity;
+import edu.mtisw.KartingRM.entities.EstadoKart;
+import edu.mtisw.KartingRM.entities.KartEntity;
+import edu.mtisw.KartingRM.entities.ReservaEntity;
+import edu.mtisw.KartingRM.repositories.ClienteRepository;
+import edu.mtisw.KartingRM.repositories.KartRepository;
+import edu.mtisw.KartingRM.services.KartService;
+import edu.mtisw.KartingRM.services.ReservaService;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reservas simultáneas de grupos de 3 en una flota de 15 karts, contra H2 con
+ * el contexto completo. Todos los hilos llenan el mismo horario antes de pasar
+ * al siguiente, como en una hora punta.
+ *
+ * - elegidos: el cliente pide la lista de karts libres, elige 3 al azar y, si
+ *   la reserva choca con otra (409), vuelve a pedir la lista y reintenta.
+ * - asignados: el cliente manda solo los clientes y el servidor elige los karts.
+ *
+ * Además de reservas por segundo se cuentan las solicitudes del cliente y las
+ * transacciones (INSERT en reservas, incluidos los que se revierten) por reserva.
+ *
+ * Ejecutar con: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=edu.mtisw.KartingRM.benchmarks.AsignacionKartsBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class AsignacionKartsBenchmark {
+
+    private static final int KARTS = 15;
+    private static final int PERSONAS = 3;
+    private static final int INTENTOS_CLIENTE = 5;
+
+    @Param({"elegidos", "asignados"})
+    private String modo;
+
+    private ConfigurableApplicationContext contexto;
+    private ReservaService reservaService;
+    private KartService kartService;
+    private Long clienteId;
+    private final AtomicInteger siguiente = new AtomicInteger();
+
+    private final AtomicLong reservas = new AtomicLong();
+    private final AtomicLong solicitudes = new AtomicLong();
+    private final AtomicLong sinKarts = new AtomicLong();
+
+    @Setup
+    public void preparar() {
+        contexto = new SpringApplicationBuilder(KartingRMApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                // Como argumentos, para que ganen sobre application-test.properties. Con 4 hilos
+                // en pocos núcleos el bloqueo por defecto de H2 (1 s) vence antes que el choque.
+                .run("--spring.datasource.url=jdbc:h2:mem:asignacion;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                                + ContadorTransacciones.class.getName(),
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF",
+                        "--logging.level.org.hibernate.orm.jdbc.batch=OFF");
+        reservaService = contexto.getBean(ReservaService.class);
+        kartService = contexto.getBean(KartService.class);
+
+        ClienteEntity cliente = new ClienteEntity();
+        cliente.setNombre("Cliente Benchmark");
+        cliente.setFechaNacimiento(LocalDate.of(1990, 5, 15));
+        clienteId = contexto.getBean(ClienteRepository.class).save(cliente).getId();
+        KartRepository kartRepository = contexto.getBean(KartRepository.class);
+        for (int i = 0; i < KARTS; i++) {
+            KartEntity kart = new KartEntity();
+            kart.setCodigo(String.format("K%03d", i + 1));
+            kart.setEstado(EstadoKart.DISPONIBLE);
+            kartService.crearKart(kart);
+        }
+        ContadorTransacciones.reservas.set(0);
+    }
+
+    @TearDown
+    public void cerrar() {
+        System.out.printf("%n%s: reservas=%d, solicitudes por reserva=%.3f, transacciones por reserva=%.3f, sin karts=%d%n",
+                modo, reservas.get(), (double) solicitudes.get() / reservas.get(),
+                (double) ContadorTransacciones.reservas.get() / reservas.get(), sinKarts.get());
+        contexto.close();
+    }
+
+    @Benchmark
+    public void reservar() {
+        // Cada horario recibe justo los grupos que caben en la flota
+        int horario = siguiente.getAndIncrement() / (KARTS / PERSONAS);
+        LocalDate fecha = LocalDate.of(2030, 1, 1).plusDays(horario / 8);
+        LocalTime hora = LocalTime.of(10, 0).plusHours(horario % 8);
+
+        if (modo.equals("asignados")) {
+            solicitudes.incrementAndGet();
+            try {
+                reservaService.crearReservaConKartsAsignados(nuevaReserva(fecha, hora, List.of()));
+                reservas.incrementAndGet();
+            } catch (IllegalStateException e) {
+                sinKarts.incrementAndGet();
+            }
+            return;
+        }
+
+        for (int intento = 0; intento < INTENTOS_CLIENTE; intento++) {
+            solicitudes.incrementAndGet();
+            List<KartListaDTO> libres = new ArrayList<>(kartService.listarDisponibles(fecha, hora, 10));
+            if (libres.size() < PERSONAS) {
+                sinKarts.incrementAndGet();
+                return;
+            }
+            Collections.shuffle(libres, ThreadLocalRandom.current());
+            List<Long> elegidos = new ArrayList<>();
+            for (int i = 0; i < PERSONAS; i++) {
+                elegidos.add(libres.get(i).getId());
+            }
+            solicitudes.incrementAndGet();
+            try {
+                reservaService.crearReserva(nuevaReserva(fecha, hora, elegidos));
+                reservas.incrementAndGet();
+                return;
+            } catch (IllegalStateException e) {
+                // Otro grupo tomó alguno de los karts elegidos
+            }
+        }
+        sinKarts.incrementAndGet();
+    }
+
+    private ReservaEntity nuevaReserva(LocalDate fecha, LocalTime hora, List<Long> kartIds) {
+        ReservaEntity reserva = new ReservaEntity();
+        reserva.setFechaReserva(fecha);
+        reserva.setHoraReserva(hora);
+        reserva.setNumeroVueltas(10);
+        reserva.setClientes(new ArrayList<>());
+        for (int i = 0; i < PERSONAS; i++) {
+            ClienteEntity cliente = new ClienteEntity();
+            cliente.setId(clienteId);
+            reserva.getClientes().add(cliente);
+        }
+        reserva.setKarts(new ArrayList<>());
+        for (Long kartId : kartIds) {
+            KartEntity kart = new KartEntity();
+            kart.setId(kartId);
+            reserva.getKarts().add(kart);
+        }
+        return reserva;
+    }
+
+    // Cada intento de reserva, confirmado o revertido, ejecuta un INSERT en reservas
+    public static class ContadorTransacciones implements StatementInspector {
+
+        private static final AtomicLong reservas = new AtomicLong();
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.startsWith("insert into reservas ")) {
+                reservas.incrementAndGet();
+            }
+            return sql;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opciones = new OptionsBuilder()
+                .include(AsignacionKartsBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opciones).run();
+    }
+}
@@ -0,0 +1,129 @@
+package edu.mtisw.KartingRM.benchmarks;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import edu.mtisw.KartingRM.entities.ClienteEntity;
+import edu.mtisw.KartingRM.entities.ReservaEntity;
+import edu.mtisw.KartingRM.services.ComprobanteService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara la generación de comprobantes: el armado original con Document y
+ * Table de iText contra la plantilla de ComprobanteService (fuentes cargadas
+ * una vez, posiciones fijas y compresión completa). El resultado está en
+ * documentos por segundo; gc.alloc.rate.norm da los bytes asignados por
+ * documento.
+ *
+ * Ejecutar con: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=edu.mtisw.KartingRM.benchmarks.ComprobanteBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ComprobanteBenchmark {
+
+    @Param({"1", "15"})
+    private int cantidadClientes;
+
+    private ReservaEntity reserva;
+    private ComprobanteService comprobanteService;
+
+    @Setup
+    public void preparar() {
+        reserva = new ReservaEntity();
+        reserva.setId(1234L);
+        reserva.setFechaReserva(LocalDate.of(2025, 4, 12));
+        reserva.setHoraReserva(LocalTime.of(15, 30));
+        reserva.setNumeroVueltas(15);
+        reserva.setPrecioBase(20000);
+        reserva.setPrecioFinal(17000);
+        reserva.setDescuentoPorPersonas(10);
+        reserva.setDescuentoPorVisitas(5);
+        reserva.setDescuentoPorCumpleaños(0);
+        reserva.setClientes(new ArrayList<>());
+        for (int i = 0; i < cantidadClientes; i++) {
+            ClienteEntity cliente = new ClienteEntity();
+            cliente.setNombre("Cliente Número " + i);
+            reserva.getClientes().add(cliente);
+        }
+        comprobanteService = new ComprobanteService();
+    }
+
+    @Benchmark
+    public byte[] documentoOriginal() throws Exception {
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            PdfWriter writer = new PdfWriter(outputStream);
+            PdfDocument pdf = new PdfDocument(writer);
+            Document document = new Document(pdf);
+
+            document.add(new Paragraph("Comprobante de Reserva").setBold().setFontSize(16));
+            document.add(new Paragraph("Código de Reserva: " + reserva.getId()));
+            document.add(new Paragraph("Fecha: " + reserva.getFechaReserva()));
+            document.add(new Paragraph("Hora: " + reserva.getHoraReserva()));
+            document.add(new Paragraph("Número de Vueltas: " + reserva.getNumeroVueltas()));
+            document.add(new Paragraph("Precio Base: $" + reserva.getPrecioBase()));
+
+            double iva = reserva.getPrecioFinal() * 0.19;
+            double precioConIva = reserva.getPrecioFinal() + iva;
+
+            document.add(new Paragraph("IVA (19%): $" + Math.round(iva)));
+            document.add(new Paragraph("Precio Final con IVA: $" + Math.round(precioConIva)));
+
+            Table table = new Table(new float[]{3, 3, 3, 3, 3, 3, 3});
+            table.addHeaderCell("Cliente");
+            table.addHeaderCell("Tarifa Base");
+            table.addHeaderCell("Descuento Grupo");
+            table.addHeaderCell("Descuento Promoción");
+            table.addHeaderCell("Monto Final");
+            table.addHeaderCell("IVA");
+            table.addHeaderCell("Total con IVA");
+
+            for (ClienteEntity cliente : reserva.getClientes()) {
+                double montoFinalCliente = reserva.getPrecioFinal();
+                double ivaCliente = montoFinalCliente * 0.19;
+                double totalConIvaCliente = montoFinalCliente + ivaCliente;
+
+                table.addCell(cliente.getNombre());
+                table.addCell("$" + reserva.getPrecioBase());
+                table.addCell(reserva.getDescuentoPorPersonas() + "%");
+                table.addCell((reserva.getDescuentoPorVisitas() + reserva.getDescuentoPorCumpleaños()) + "%");
+                table.addCell("$" + Math.round(montoFinalCliente));
+                table.addCell("$" + Math.round(ivaCliente));
+                table.addCell("$" + Math.round(totalConIvaCliente));
+            }
+
+            document.add(table);
+            document.close();
+            return outputStream.toByteArray();
+        }
+    }
+
+    @Benchmark
+    public byte[] plantilla() {
+        return comprobanteService.generarComprobante(reserva);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opciones = new OptionsBuilder()
+                .include(ComprobanteBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(opciones).run();
+    }
+}
@@ -0,0 +1,95 @@
+package edu.mtisw.KartingRM.benchmarks;
+
+import edu.mtisw.KartingRM.services.EmailService;
+import edu.mtisw.KartingRM.services.ServidorSmtpPrueba;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el envío de un comprobante a todo un grupo: una conexión SMTP por
+ * destinatario (enviarComprobante en un ciclo) contra una sola sesión para
+ * todos (enviarComprobantes). El servidor es local; el retardo por conexión
+ * representa el saludo, STARTTLS y la autenticación de un servidor real.
+ * El costo por destinatario es el tiempo de cada operación dividido por
+ * cantidadDestinatarios.
+ *
+ * Ejecutar con: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=edu.mtisw.KartingRM.benchmarks.EnvioComprobantesBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnvioComprobantesBenchmark {
+
+    @Param({"1", "15"})
+    private int cantidadDestinatarios;
+
+    @Param({"0", "20"})
+    private long retardoConexionMs;
+
+    private ServidorSmtpPrueba servidorSmtp;
+    private EmailService emailService;
+    private List<String> emails;
+    private byte[] comprobantePdf;
+
+    @Setup
+    public void preparar() throws IOException {
+        servidorSmtp = new ServidorSmtpPrueba(retardoConexionMs);
+
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(servidorSmtp.getPuerto());
+        mailSender.getJavaMailProperties().put("mail.smtp.from", "kartodromo@localhost");
+        // Sin esto JavaMail resuelve el nombre del equipo en cada EHLO y Message-ID
+        mailSender.getJavaMailProperties().put("mail.from", "kartodromo@localhost");
+        mailSender.getJavaMailProperties().put("mail.smtp.localhost", "localhost");
+
+        emailService = new EmailService();
+        ReflectionTestUtils.setField(emailService, "mailSender", mailSender);
+
+        emails = new ArrayList<>(cantidadDestinatarios);
+        for (int i = 0; i < cantidadDestinatarios; i++) {
+            emails.add("cliente" + i + "@gmail.com");
+        }
+        // Tamaño parecido al de un comprobante generado por ComprobanteService
+        comprobantePdf = new byte[2 * 1024];
+    }
+
+    @TearDown
+    public void cerrar() throws IOException {
+        servidorSmtp.close();
+    }
+
+    @Benchmark
+    public void unaConexionPorDestinatario() {
+        for (String email : emails) {
+            emailService.enviarComprobante(email, comprobantePdf);
+        }
+    }
+
+    @Benchmark
+    public void unaSesionParaTodos(Blackhole blackhole) {
+        blackhole.consume(emailService.enviarComprobantes(emails, comprobantePdf));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opciones = new OptionsBuilder()
+                .include(EnvioComprobantesBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opciones).run();
+    }
+}
@@ -0,0 +1,105 @@
+package edu.mtisw.KartingRM.benchmarks;
+
+import edu.mtisw.KartingRM.KartingRMApplication;
+import edu.mtisw.KartingRM.entities.ClienteEntity;
+import edu.mtisw.KartingRM.repositories.ClienteRepository;
+import edu.mtisw.KartingRM.services.ClienteService;
+import edu.mtisw.KartingRM.services.ImportacionClientesService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clientes por segundo al cargar un archivo de 2000 filas, contra H2 con el
+ * contexto completo. La tabla se vacía en cada iteración, para que la carga
+ * de los correos registrados al empezar la importación no crezca con lo que
+ * insertaron las iteraciones anteriores.
+ *
+ * - uno-a-uno: una llamada a crearCliente por fila, como hacía el script de carga.
+ * - importacion: el archivo completo por ImportacionClientesService.
+ *
+ * Ejecutar con: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=edu.mtisw.KartingRM.benchmarks.ImportacionClientesBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImportacionClientesBenchmark {
+
+    private static final int FILAS = 2000;
+
+    @Param({"uno-a-uno", "importacion"})
+    private String modo;
+
+    private ConfigurableApplicationContext contexto;
+    private ClienteService clienteService;
+    private ImportacionClientesService importacionClientesService;
+    private ClienteRepository clienteRepository;
+    private int archivo;
+
+    @Setup
+    public void preparar() {
+        contexto = new SpringApplicationBuilder(KartingRMApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--logging.level.root=WARN");
+        clienteService = contexto.getBean(ClienteService.class);
+        importacionClientesService = contexto.getBean(ImportacionClientesService.class);
+        clienteRepository = contexto.getBean(ClienteRepository.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void vaciar() {
+        clienteRepository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILAS)
+    public void cargarArchivo() throws IOException {
+        // Correos distintos en cada invocación, para que ninguna fila quede como repetida
+        archivo++;
+        if (modo.equals("uno-a-uno")) {
+            for (int i = 0; i < FILAS; i++) {
+                ClienteEntity cliente = new ClienteEntity();
+                cliente.setNombre("Cliente " + i);
+                cliente.setEmail("cliente" + archivo + "x" + i + "@gmail.com");
+                cliente.setFechaNacimiento(LocalDate.of(1990, 5, 15));
+                clienteService.crearCliente(cliente);
+            }
+            return;
+        }
+
+        StringBuilder csv = new StringBuilder("nombre,email,fechaNacimiento,numeroVisitas\n");
+        for (int i = 0; i < FILAS; i++) {
+            csv.append("Cliente ").append(i).append(",cliente").append(archivo).append('x').append(i)
+                    .append("@gmail.com,1990-05-15,0\n");
+        }
+        importacionClientesService.importar(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opciones = new OptionsBuilder()
+                .include(ImportacionClientesBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opciones).run();
+    }
+}
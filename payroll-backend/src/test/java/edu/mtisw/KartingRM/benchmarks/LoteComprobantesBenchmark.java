@@ -0,0 +1,108 @@
+package edu.mtisw.KartingRM.benchmarks;
+
+import edu.mtisw.KartingRM.entities.ClienteEntity;
+import edu.mtisw.KartingRM.entities.ReservaEntity;
+import edu.mtisw.KartingRM.repositories.ReservaRepository;
+import edu.mtisw.KartingRM.services.ComprobanteService;
+import edu.mtisw.KartingRM.services.LoteComprobantesService;
+import jakarta.persistence.EntityManager;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+/**
+ * Mide cuántos comprobantes por segundo genera el ZIP de un período según la
+ * cantidad de hilos. Con generación dominada por CPU el resultado debería
+ * crecer casi en proporción a los hilos hasta la cantidad de núcleos del
+ * equipo. Las reservas vienen de un repositorio simulado; solo se mide la
+ * generación y la escritura del ZIP.
+ *
+ * Ejecutar con: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=edu.mtisw.KartingRM.benchmarks.LoteComprobantesBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoteComprobantesBenchmark {
+
+    private static final int RESERVAS = 200;
+
+    @Param({"1", "2", "4"})
+    private int hilos;
+
+    private LoteComprobantesService loteComprobantesService;
+
+    @Setup
+    public void preparar() {
+        Map<Long, ReservaEntity> reservas = new HashMap<>();
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= RESERVAS; id++) {
+            ReservaEntity reserva = new ReservaEntity();
+            reserva.setId(id);
+            reserva.setFechaReserva(LocalDate.of(2025, 4, 1).plusDays(id % 30));
+            reserva.setHoraReserva(LocalTime.of(15, 0));
+            reserva.setNumeroVueltas(15);
+            reserva.setPrecioBase(20000);
+            reserva.setPrecioFinal(17000);
+            reserva.setClientes(new ArrayList<>());
+            for (int i = 0; i < 1 + id % 15; i++) {
+                ClienteEntity cliente = new ClienteEntity();
+                cliente.setNombre("Cliente " + i);
+                reserva.getClientes().add(cliente);
+            }
+            reservas.put(id, reserva);
+            ids.add(id);
+        }
+
+        ReservaRepository reservaRepository = Mockito.mock(ReservaRepository.class);
+        when(reservaRepository.findIdsByFechaReservaBetween(any(), any())).thenReturn(ids);
+        when(reservaRepository.findConClientesByIdIn(anyCollection())).thenAnswer(invocation -> {
+            List<ReservaEntity> bloque = new ArrayList<>();
+            for (Long id : (Iterable<Long>) invocation.getArgument(0)) {
+                bloque.add(reservas.get(id));
+            }
+            return bloque;
+        });
+        loteComprobantesService = new LoteComprobantesService(new ComprobanteService(), reservaRepository,
+                Mockito.mock(EntityManager.class), hilos);
+    }
+
+    @TearDown
+    public void cerrar() {
+        loteComprobantesService.detener();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RESERVAS)
+    public void zipDelPeriodo() throws IOException {
+        loteComprobantesService.escribirZip(LocalDate.of(2025, 4, 1), LocalDate.of(2025, 4, 30),
+                OutputStream.nullOutputStream());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opciones = new OptionsBuilder()
+                .include(LoteComprobantesBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opciones).run();
+    }
+}
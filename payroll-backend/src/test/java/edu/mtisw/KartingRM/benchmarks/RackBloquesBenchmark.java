@@ -0,0 +1,94 @@
+package edu.mtisw.KartingRM.benchmarks;
+
+import edu.mtisw.KartingRM.config.RackProperties;
+import edu.mtisw.KartingRM.dtos.ReservaRackDTO;
+import edu.mtisw.KartingRM.services.HorarioRack;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara la ubicación de reservas en bloques del rack: el recorrido original
+ * (split + LocalTime.parse por bloque) contra las tablas compiladas de HorarioRack.
+ *
+ * Ejecutar con: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=edu.mtisw.KartingRM.benchmarks.RackBloquesBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RackBloquesBenchmark {
+
+    private static final String[] BLOQUES_HORARIO = {"09:00-10:00", "10:00-11:00", "11:00-12:00", "12:00-13:00", "14:00-15:00", "15:00-16:00", "16:00-17:00"};
+
+    @Param({"100000"})
+    private int cantidadReservas;
+
+    private List<ReservaRackDTO> reservas;
+    private HorarioRack horarioRack;
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(42);
+        int[] duraciones = {30, 35, 40};
+        LocalDate lunes = LocalDate.of(2025, 4, 7);
+
+        reservas = new ArrayList<>(cantidadReservas);
+        for (int i = 0; i < cantidadReservas; i++) {
+            LocalTime hora = LocalTime.of(9, 0).plusMinutes(15L * random.nextInt(32));
+            reservas.add(new ReservaRackDTO((long) i, lunes.plusDays(random.nextInt(7)), hora,
+                    duraciones[random.nextInt(duraciones.length)], 1 + random.nextInt(15)));
+        }
+        horarioRack = new HorarioRack(new RackProperties());
+    }
+
+    @Benchmark
+    public void ubicacionOriginal(Blackhole blackhole) {
+        for (ReservaRackDTO reserva : reservas) {
+            LocalTime horaInicio = reserva.getHoraReserva();
+            LocalTime horaFin = horaInicio.plusMinutes(reserva.getDuracionTotal());
+
+            for (int b = 0; b < BLOQUES_HORARIO.length; b++) {
+                LocalTime inicioBloque = LocalTime.parse(BLOQUES_HORARIO[b].split("-")[0]);
+                LocalTime finBloque = inicioBloque.plusHours(1);
+                if (horaInicio.isBefore(finBloque) && horaFin.isAfter(inicioBloque)) {
+                    blackhole.consume(b);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void ubicacionCompilada(Blackhole blackhole) {
+        for (ReservaRackDTO reserva : reservas) {
+            HorarioRack.BloquesDia bloques = horarioRack.dia(reserva.getFechaReserva().getDayOfWeek());
+            int horaInicio = HorarioRack.minutoDelDia(reserva.getHoraReserva());
+            int horaFin = horaInicio + reserva.getDuracionTotal();
+
+            for (int b = bloques.primerBloque(horaInicio); b < bloques.cantidad() && bloques.inicio(b) < horaFin; b++) {
+                blackhole.consume(b);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opciones = new OptionsBuilder()
+                .include(RackBloquesBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(opciones).run();
+    }
+}
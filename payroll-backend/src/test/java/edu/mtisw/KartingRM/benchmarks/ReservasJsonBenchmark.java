@@ -0,0 +1,133 @@
+package edu.mtisw.KartingRM.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.mtisw.KartingRM.entities.ClienteEntity;
+import edu.mtisw.KartingRM.entities.EstadoKart;
+import edu.mtisw.KartingRM.entities.KartEntity;
+import edu.mtisw.KartingRM.entities.ReservaEntity;
+import edu.mtisw.KartingRM.services.ReservaService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compara el JSON de GET /api/reservas con las entidades completas (cada
+ * reserva repite sus clientes y karts) contra el formato normalizado, donde
+ * cada cliente y kart va una sola vez. Los datos simulan un mes con clientes
+ * frecuentes: 1000 reservas entre 200 clientes y 15 karts.
+ *
+ * main() además imprime el tamaño de cada respuesta, sin comprimir y con gzip.
+ *
+ * Ejecutar con: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=edu.mtisw.KartingRM.benchmarks.ReservasJsonBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservasJsonBenchmark {
+
+    private static final int RESERVAS = 1000;
+    private static final int CLIENTES = 200;
+    private static final int KARTS = 15;
+
+    private ObjectMapper objectMapper;
+    private List<ReservaEntity> reservas;
+
+    @Setup
+    public void preparar() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        reservas = generarReservas();
+    }
+
+    // Antes: la lista de entidades tal cual la devolvía el controlador
+    @Benchmark
+    public byte[] entidades() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(reservas);
+    }
+
+    @Benchmark
+    public byte[] normalizado() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(ReservaService.normalizar(reservas));
+    }
+
+    static List<ReservaEntity> generarReservas() {
+        List<ClienteEntity> clientes = new ArrayList<>();
+        for (long id = 1; id <= CLIENTES; id++) {
+            ClienteEntity cliente = new ClienteEntity();
+            cliente.setId(id);
+            cliente.setNombre("Cliente " + id);
+            cliente.setEmail("cliente" + id + "@correo.cl");
+            cliente.setNumeroVisitas((int) (id % 8));
+            cliente.setFechaNacimiento(LocalDate.of(1990, 1, 1).plusDays(id * 37));
+            clientes.add(cliente);
+        }
+        List<KartEntity> karts = new ArrayList<>();
+        for (long id = 1; id <= KARTS; id++) {
+            KartEntity kart = new KartEntity();
+            kart.setId(id);
+            kart.setCodigo(String.format("K%03d", id));
+            kart.setEstado(EstadoKart.DISPONIBLE);
+            karts.add(kart);
+        }
+
+        List<ReservaEntity> reservas = new ArrayList<>();
+        for (long id = 1; id <= RESERVAS; id++) {
+            ReservaEntity reserva = new ReservaEntity();
+            reserva.setId(id);
+            reserva.setFechaReserva(LocalDate.of(2025, 4, 1).plusDays(id % 30));
+            reserva.setHoraReserva(LocalTime.of(14, 0).plusMinutes(30 * (id % 16)));
+            reserva.setNumeroVueltas(15);
+            reserva.setPrecioBase(20000);
+            reserva.setDuracionTotal(35);
+            int personas = 1 + (int) (id % 6);
+            reserva.setNumeroPersonas(personas);
+            reserva.setPrecioFinal(20000 * personas);
+            reserva.setClientes(new ArrayList<>());
+            reserva.setKarts(new ArrayList<>());
+            for (int i = 0; i < personas; i++) {
+                reserva.getClientes().add(clientes.get((int) ((id * 7 + i) % CLIENTES)));
+                reserva.getKarts().add(karts.get((int) ((id + i) % KARTS)));
+            }
+            reservas.add(reserva);
+        }
+        return reservas;
+    }
+
+    private static int gzip(byte[] datos) throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+            gzip.write(datos);
+        }
+        return salida.size();
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<ReservaEntity> reservas = generarReservas();
+        byte[] entidades = objectMapper.writeValueAsBytes(reservas);
+        byte[] normalizado = objectMapper.writeValueAsBytes(ReservaService.normalizar(reservas));
+        System.out.printf("entidades:   %,d bytes (gzip %,d)%n", entidades.length, gzip(entidades));
+        System.out.printf("normalizado: %,d bytes (gzip %,d)%n", normalizado.length, gzip(normalizado));
+
+        Options opciones = new OptionsBuilder()
+                .include(ReservasJsonBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opciones).run();
+    }
+}
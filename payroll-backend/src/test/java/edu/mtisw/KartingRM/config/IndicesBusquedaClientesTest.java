@@ -0,0 +1,37 @@
+package edu.mtisw.KartingRM.config;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Sin PostgreSQL en las pruebas: se revisan las sentencias que se mandan
+ * según lo que responda pg_index para cada índice.
+ */
+public class IndicesBusquedaClientesTest {
+
+    @Test
+    public void indiceInvalidoSeBorraYSeCreaTest() {
+        JdbcTemplate sesion = mock(JdbcTemplate.class);
+        // El de nombre no existe, el de correo quedó inválido y el único está bien
+        when(sesion.queryForList(anyString(), eq(Boolean.class), eq("idx_clientes_nombre_trgm"))).thenReturn(List.of());
+        when(sesion.queryForList(anyString(), eq(Boolean.class), eq("idx_clientes_email_trgm"))).thenReturn(List.of(false));
+        when(sesion.queryForList(anyString(), eq(Boolean.class), eq("idx_clientes_email_unico"))).thenReturn(List.of(true));
+
+        new IndicesBusquedaClientes(mock(JdbcTemplate.class)).crearIndices(sesion);
+
+        InOrder orden = inOrder(sesion);
+        orden.verify(sesion).execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+        orden.verify(sesion).execute(startsWith("CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_clientes_nombre_trgm "));
+        orden.verify(sesion).execute("DROP INDEX CONCURRENTLY IF EXISTS idx_clientes_email_trgm");
+        orden.verify(sesion).execute(startsWith("CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_clientes_email_trgm "));
+        orden.verify(sesion).execute("CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS idx_clientes_email_unico ON clientes (lower(email))");
+        verify(sesion, never()).execute(startsWith("DROP INDEX CONCURRENTLY IF EXISTS idx_clientes_nombre_trgm"));
+        verify(sesion, never()).execute(startsWith("DROP INDEX CONCURRENTLY IF EXISTS idx_clientes_email_unico"));
+    }
+}
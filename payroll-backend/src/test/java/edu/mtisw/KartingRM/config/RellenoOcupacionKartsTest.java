@@ -0,0 +1,136 @@
+package edu.mtisw.KartingRM.config;
+
+import edu.mtisw.KartingRM.entities.EstadoKart;
+import edu.mtisw.KartingRM.entities.KartEntity;
+import edu.mtisw.KartingRM.entities.OcupacionKartEntity;
+import edu.mtisw.KartingRM.entities.ReservaEntity;
+import edu.mtisw.KartingRM.repositories.KartRepository;
+import edu.mtisw.KartingRM.repositories.OcupacionKartRepository;
+import edu.mtisw.KartingRM.repositories.ReservaRepository;
+import edu.mtisw.KartingRM.services.DisponibilidadKarts;
+import edu.mtisw.KartingRM.services.OcupacionKartService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reservas guardadas sin ocupación, como las anteriores a ocupacion_karts, y
+ * varias réplicas rellenando al mismo tiempo contra H2.
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+public class RellenoOcupacionKartsTest {
+
+    private static final LocalDate FECHA = LocalDate.of(2031, 3, 10);
+    private static final int KARTS = 5;
+    private static final int HORARIOS = 20;
+    private static final int REPLICAS = 4;
+    private static final int SLOTS_POR_RESERVA = 30 / OcupacionKartService.MINUTOS_POR_SLOT;
+
+    @Autowired
+    private RellenoOcupacionKarts rellenoOcupacionKarts;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private KartRepository kartRepository;
+
+    @Autowired
+    private OcupacionKartRepository ocupacionKartRepository;
+
+    @Autowired
+    private DisponibilidadKarts disponibilidadKarts;
+
+    private final List<ReservaEntity> reservas = new ArrayList<>();
+    private final List<KartEntity> karts = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        ocupacionKartRepository.deleteAll(ocupacionKartRepository.findByFecha(FECHA));
+        reservaRepository.deleteAll(reservas);
+        kartRepository.deleteAll(karts);
+        disponibilidadKarts.invalidarFlota();
+        disponibilidadKarts.descartarDia(FECHA);
+    }
+
+    @Test
+    public void rellenarDesdeVariasReplicasTest() throws InterruptedException {
+        for (int i = 0; i < KARTS; i++) {
+            KartEntity kart = new KartEntity();
+            kart.setCodigo("KR" + i);
+            kart.setEstado(EstadoKart.DISPONIBLE);
+            karts.add(kartRepository.save(kart));
+        }
+        // Reservas antiguas de 30 minutos, un kart cada una, guardadas sin pasar por ReservaService
+        for (KartEntity kart : karts) {
+            for (int h = 0; h < HORARIOS; h++) {
+                reservas.add(reservaAntigua(kart, LocalTime.of(8, 0).plusMinutes(30L * h)));
+            }
+        }
+        // Y una que se solapa con otra en el mismo kart: no puede registrarse
+        ReservaEntity solapada = reservaAntigua(karts.get(0), LocalTime.of(8, 15));
+        reservas.add(solapada);
+        reservaRepository.saveAll(reservas);
+
+        ExecutorService executor = Executors.newFixedThreadPool(REPLICAS);
+        CountDownLatch inicio = new CountDownLatch(1);
+        AtomicInteger errores = new AtomicInteger();
+        for (int r = 0; r < REPLICAS; r++) {
+            executor.submit(() -> {
+                inicio.await();
+                try {
+                    rellenoOcupacionKarts.rellenar();
+                } catch (RuntimeException e) {
+                    errores.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        inicio.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+
+        assertEquals(0, errores.get());
+        List<OcupacionKartEntity> ocupaciones = ocupacionKartRepository.findByFecha(FECHA);
+        // Los slots de cada reserva de 30 minutos, ninguno repetido y nada de la solapada
+        assertEquals(KARTS * HORARIOS * SLOTS_POR_RESERVA, ocupaciones.size());
+        assertFalse(ocupacionKartRepository.existsByReservaId(solapada.getId()));
+
+        // Los karts de las reservas antiguas ya no se ofrecen como libres
+        disponibilidadKarts.invalidarFlota();
+        disponibilidadKarts.descartarDia(FECHA);
+        List<Long> libres = disponibilidadKarts.disponibles(FECHA, LocalTime.of(9, 0), 30).stream()
+                .map(KartEntity::getId).toList();
+        karts.forEach(kart -> assertFalse(libres.contains(kart.getId())));
+
+        // Correrlo otra vez no agrega filas
+        rellenoOcupacionKarts.rellenar();
+        assertEquals(KARTS * HORARIOS * SLOTS_POR_RESERVA, ocupacionKartRepository.findByFecha(FECHA).size());
+    }
+
+    private ReservaEntity reservaAntigua(KartEntity kart, LocalTime hora) {
+        ReservaEntity reserva = new ReservaEntity();
+        reserva.setFechaReserva(FECHA);
+        reserva.setHoraReserva(hora);
+        reserva.setNumeroVueltas(10);
+        reserva.setDuracionTotal(30);
+        reserva.setKarts(new ArrayList<>(List.of(kart)));
+        reserva.setClientes(new ArrayList<>());
+        return reserva;
+    }
+}
@@ -1,14 +1,24 @@
 package edu.mtisw.KartingRM.controllers;
 
+import edu.mtisw.KartingRM.dtos.ClienteListaDTO;
+import edu.mtisw.KartingRM.dtos.PaginaDTO;
+import edu.mtisw.KartingRM.dtos.ResultadoImportacionClientesDTO;
 import edu.mtisw.KartingRM.entities.ClienteEntity;
 import edu.mtisw.KartingRM.services.ClienteService;
+import edu.mtisw.KartingRM.services.ImportacionClientesService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -24,6 +34,9 @@ public class ClienteControllerTest {
     @Mock
     private ClienteService clienteService;
 
+    @Mock
+    private ImportacionClientesService importacionClientesService;
+
     @InjectMocks
     private ClienteController clienteController;
 
@@ -62,6 +75,45 @@ public class ClienteControllerTest {
         verify(clienteService, times(1)).listarClientes();
     }
 
+    @Test
+    public void listarPaginaTest() {
+        PaginaDTO<ClienteListaDTO> pagina = new PaginaDTO<>(
+                List.of(new ClienteListaDTO(1L, "Cliente Test", "test@gmail.com", 3, LocalDate.of(1990, 5, 15))), "1");
+        when(clienteService.listarPagina(null, 1)).thenReturn(pagina);
+        when(clienteService.listarPagina("x", null)).thenThrow(new IllegalArgumentException("Cursor de página inválido: x"));
+
+        ResponseEntity<PaginaDTO<ClienteListaDTO>> respuesta = clienteController.listarPagina(null, 1);
+
+        assertEquals(HttpStatus.OK, respuesta.getStatusCode());
+        assertEquals("1", respuesta.getBody().getSiguienteCursor());
+        assertEquals(HttpStatus.BAD_REQUEST, clienteController.listarPagina("x", null).getStatusCode());
+    }
+
+    @Test
+    public void buscarClientesTest() {
+        List<ClienteListaDTO> coincidencias = List.of(new ClienteListaDTO(1L, "Cliente Test", "test@gmail.com", 3, null));
+        when(clienteService.buscarClientes("cli", null)).thenReturn(coincidencias);
+        when(clienteService.buscarClientes("c", null)).thenThrow(new IllegalArgumentException("La búsqueda necesita al menos 3 caracteres"));
+
+        ResponseEntity<List<ClienteListaDTO>> respuesta = clienteController.buscarClientes("cli", null);
+
+        assertEquals(HttpStatus.OK, respuesta.getStatusCode());
+        assertEquals(coincidencias, respuesta.getBody());
+        assertEquals(HttpStatus.BAD_REQUEST, clienteController.buscarClientes("c", null).getStatusCode());
+    }
+
+    @Test
+    public void importarClientesTest() throws IOException {
+        InputStream csv = new ByteArrayInputStream("Ana Pérez,ana@gmail.com\n".getBytes(StandardCharsets.UTF_8));
+        ResultadoImportacionClientesDTO resultado = new ResultadoImportacionClientesDTO(1, 1, 0, List.of());
+        when(importacionClientesService.importar(csv)).thenReturn(resultado);
+
+        ResponseEntity<ResultadoImportacionClientesDTO> respuesta = clienteController.importarClientes(csv);
+
+        assertEquals(HttpStatus.OK, respuesta.getStatusCode());
+        assertEquals(resultado, respuesta.getBody());
+    }
+
     @Test
     public void crearClienteTest() {
         ClienteEntity nuevoCliente = new ClienteEntity();
@@ -71,8 +123,10 @@ public class ClienteControllerTest {
         
         when(clienteService.crearCliente(any(ClienteEntity.class))).thenReturn(nuevoCliente);
         
-        ClienteEntity result = clienteController.crearCliente(nuevoCliente);
+        ResponseEntity<?> response = clienteController.crearCliente(nuevoCliente);
+        ClienteEntity result = (ClienteEntity) response.getBody();
         
+        assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(result);
         assertEquals("Nuevo Cliente", result.getNombre());
         assertEquals("nuevo@gmail.com", result.getEmail());
@@ -90,8 +144,10 @@ public class ClienteControllerTest {
         
         when(clienteService.actualizarCliente(eq(1L), any(ClienteEntity.class))).thenReturn(clienteActualizado);
         
-        ClienteEntity result = clienteController.actualizarCliente(1L, clienteActualizado);
+        ResponseEntity<?> response = clienteController.actualizarCliente(1L, clienteActualizado);
+        ClienteEntity result = (ClienteEntity) response.getBody();
         
+        assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(result);
         assertEquals("Cliente Actualizado", result.getNombre());
         assertEquals("actualizado@gmail.com", result.getEmail());
@@ -108,11 +164,20 @@ public class ClienteControllerTest {
         when(clienteService.actualizarCliente(eq(99L), any(ClienteEntity.class)))
             .thenThrow(new IllegalArgumentException("Cliente no encontrado"));
         
-        // Verifica que la excepción se propague
-        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
-            clienteController.actualizarCliente(99L, clienteActualizado);
-        });
+        ResponseEntity<?> response = clienteController.actualizarCliente(99L, clienteActualizado);
+        
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Cliente no encontrado", response.getBody());
+    }
+
+    @Test
+    public void crearClienteCorreoRepetidoTest() {
+        when(clienteService.crearCliente(any(ClienteEntity.class)))
+            .thenThrow(new IllegalArgumentException("Ya existe un cliente con el correo test@gmail.com."));
+        
+        ResponseEntity<?> response = clienteController.crearCliente(cliente);
         
-        assertTrue(exception.getMessage().contains("Cliente no encontrado"));
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Ya existe un cliente con el correo test@gmail.com.", response.getBody());
     }
 }
\ No newline at end of file
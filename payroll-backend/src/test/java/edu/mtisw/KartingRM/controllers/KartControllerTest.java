@@ -1,5 +1,7 @@
 package edu.mtisw.KartingRM.controllers;
 
+import edu.mtisw.KartingRM.dtos.KartListaDTO;
+import edu.mtisw.KartingRM.entities.EstadoKart;
 import edu.mtisw.KartingRM.entities.KartEntity;
 import edu.mtisw.KartingRM.services.KartService;
 import org.junit.jupiter.api.BeforeEach;
@@ -7,8 +9,12 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -36,7 +42,7 @@ public class KartControllerTest {
         kart = new KartEntity();
         kart.setId(1L);
         kart.setCodigo("K001");
-        kart.setEstado("disponible");
+        kart.setEstado(EstadoKart.DISPONIBLE);
 
         // Lista de karts
         kartsList = new ArrayList<>();
@@ -54,7 +60,7 @@ public class KartControllerTest {
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals("K001", result.get(0).getCodigo());
-        assertEquals("disponible", result.get(0).getEstado());
+        assertEquals(EstadoKart.DISPONIBLE, result.get(0).getEstado());
         verify(kartService, times(1)).listarKarts();
     }
 
@@ -62,7 +68,7 @@ public class KartControllerTest {
     public void crearKartTest() {
         KartEntity nuevoKart = new KartEntity();
         nuevoKart.setCodigo("K002");
-        nuevoKart.setEstado("disponible");
+        nuevoKart.setEstado(EstadoKart.DISPONIBLE);
         
         when(kartService.crearKart(any(KartEntity.class))).thenReturn(nuevoKart);
         
@@ -70,7 +76,7 @@ public class KartControllerTest {
         
         assertNotNull(result);
         assertEquals("K002", result.getCodigo());
-        assertEquals("disponible", result.getEstado());
+        assertEquals(EstadoKart.DISPONIBLE, result.getEstado());
         verify(kartService, times(1)).crearKart(any(KartEntity.class));
     }
 
@@ -98,12 +104,12 @@ public class KartControllerTest {
         KartEntity kart1 = new KartEntity();
         kart1.setId(1L);
         kart1.setCodigo("K001");
-        kart1.setEstado("disponible");
+        kart1.setEstado(EstadoKart.DISPONIBLE);
         
         KartEntity kart2 = new KartEntity();
         kart2.setId(2L);
         kart2.setCodigo("K002");
-        kart2.setEstado("disponible");
+        kart2.setEstado(EstadoKart.DISPONIBLE);
         
         // Configuración más simple usando answer
         when(kartService.crearKart(any(KartEntity.class)))
@@ -127,4 +133,27 @@ public class KartControllerTest {
         // Verificar que el servicio fue llamado dos veces
         verify(kartService, times(2)).crearKart(any(KartEntity.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void listarDisponiblesTest() {
+        LocalDate fecha = LocalDate.of(2025, 4, 12);
+        when(kartService.listarDisponibles(fecha, LocalTime.of(15, 0), 10))
+                .thenReturn(List.of(new KartListaDTO(1L, "K001", EstadoKart.DISPONIBLE)));
+
+        ResponseEntity<List<KartListaDTO>> respuesta = kartController.listarDisponibles(fecha, LocalTime.of(15, 0), 10);
+
+        assertEquals(HttpStatus.OK, respuesta.getStatusCode());
+        assertEquals("K001", respuesta.getBody().get(0).getCodigo());
+    }
+
+    @Test
+    public void listarDisponiblesVueltasInvalidasTest() {
+        LocalDate fecha = LocalDate.of(2025, 4, 12);
+        when(kartService.listarDisponibles(fecha, LocalTime.of(15, 0), 12))
+                .thenThrow(new IllegalArgumentException("Número de vueltas no válido"));
+
+        ResponseEntity<List<KartListaDTO>> respuesta = kartController.listarDisponibles(fecha, LocalTime.of(15, 0), 12);
+
+        assertEquals(HttpStatus.BAD_REQUEST, respuesta.getStatusCode());
+    }
+}
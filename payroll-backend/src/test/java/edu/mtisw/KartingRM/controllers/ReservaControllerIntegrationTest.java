@@ -2,11 +2,29 @@ package edu.mtisw.KartingRM.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.mtisw.KartingRM.controllers.ReservaController;
+import edu.mtisw.KartingRM.dtos.CotizacionDTO;
+import edu.mtisw.KartingRM.dtos.DestinatarioEnvioDTO;
+import edu.mtisw.KartingRM.dtos.DetalleCotizacionDTO;
+import edu.mtisw.KartingRM.dtos.EstadisticasCacheDTO;
+import edu.mtisw.KartingRM.dtos.EstadoEnvioDTO;
+import edu.mtisw.KartingRM.dtos.HorarioLibreDTO;
+import edu.mtisw.KartingRM.dtos.PaginaDTO;
+import edu.mtisw.KartingRM.dtos.ClienteListaDTO;
+import edu.mtisw.KartingRM.dtos.KartListaDTO;
+import edu.mtisw.KartingRM.dtos.ReservaListaDTO;
+import edu.mtisw.KartingRM.dtos.ReservaNormalizadaDTO;
+import edu.mtisw.KartingRM.dtos.ReservasNormalizadasDTO;
+import edu.mtisw.KartingRM.dtos.ReservaRackDTO;
+import edu.mtisw.KartingRM.dtos.ResultadoLoteReservasDTO;
 import edu.mtisw.KartingRM.entities.ClienteEntity;
+import edu.mtisw.KartingRM.entities.EstadoKart;
 import edu.mtisw.KartingRM.entities.KartEntity;
 import edu.mtisw.KartingRM.entities.ReservaEntity;
+import edu.mtisw.KartingRM.services.ComprobanteCache;
 import edu.mtisw.KartingRM.services.ComprobanteService;
-import edu.mtisw.KartingRM.services.EmailService;
+import edu.mtisw.KartingRM.services.EnvioComprobantesService;
+import edu.mtisw.KartingRM.services.HorarioLibreService;
+import edu.mtisw.KartingRM.services.LoteComprobantesService;
 import edu.mtisw.KartingRM.services.ReservaService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,16 +33,22 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -44,7 +68,13 @@ public class ReservaControllerIntegrationTest {
     private ComprobanteService comprobanteService;
 
     @MockBean
-    private EmailService emailService;
+    private EnvioComprobantesService envioComprobantesService;
+
+    @MockBean
+    private LoteComprobantesService loteComprobantesService;
+
+    @MockBean
+    private HorarioLibreService horarioLibreService;
 
     @Test
     public void listarReservasTest() throws Exception {
@@ -82,6 +112,33 @@ public class ReservaControllerIntegrationTest {
                 .andExpect(jsonPath("$[0].karts[0].codigo").value("K001"));
     }
 
+    @Test
+    public void listarReservasNormalizadasTest() throws Exception {
+        ReservaNormalizadaDTO reserva = new ReservaNormalizadaDTO();
+        reserva.setId(1L);
+        reserva.setClienteIds(List.of(3L));
+        reserva.setKartIds(List.of(5L));
+        ReservasNormalizadasDTO normalizadas = new ReservasNormalizadasDTO(List.of(reserva),
+                List.of(new ClienteListaDTO(3L, "Cliente Test", "test@gmail.com", 2, null)),
+                List.of(new KartListaDTO(5L, "K001", EstadoKart.DISPONIBLE)));
+        when(reservaService.listarReservasNormalizadas()).thenReturn(normalizadas);
+
+        mockMvc.perform(get("/api/reservas").param("formato", "normalizado"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reservas[0].clienteIds[0]").value(3))
+                .andExpect(jsonPath("$.reservas[0].kartIds[0]").value(5))
+                .andExpect(jsonPath("$.clientes[0].nombre").value("Cliente Test"))
+                .andExpect(jsonPath("$.karts[0].codigo").value("K001"));
+        verify(reservaService, never()).listarReservas();
+    }
+
+    @Test
+    public void listarReservasFormatoInvalidoTest() throws Exception {
+        mockMvc.perform(get("/api/reservas").param("formato", "xml"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(reservaService);
+    }
+
     @Test
     public void crearReservaTest() throws Exception {
         // Preparar datos de prueba
@@ -117,11 +174,40 @@ public class ReservaControllerIntegrationTest {
                 .andExpect(jsonPath("$.karts[0].codigo").value("K001"));
     }
 
+    @Test
+    public void crearReservaConKartsAsignadosTest() throws Exception {
+        ReservaEntity creada = new ReservaEntity();
+        creada.setId(3L);
+        KartEntity kart = new KartEntity();
+        kart.setId(7L);
+        kart.setCodigo("K007");
+        creada.setKarts(List.of(kart));
+        when(reservaService.crearReservaConKartsAsignados(any(ReservaEntity.class))).thenReturn(creada);
+
+        mockMvc.perform(post("/api/reservas").param("asignarKarts", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"numeroVueltas\":10,\"fechaReserva\":\"2025-04-12\",\"horaReserva\":\"15:00:00\",\"clientes\":[{\"id\":1}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.karts[0].codigo").value("K007"));
+        verify(reservaService, never()).crearReserva(any());
+    }
+
+    @Test
+    public void crearReservaSinKartsParaAsignarTest() throws Exception {
+        when(reservaService.crearReservaConKartsAsignados(any(ReservaEntity.class)))
+                .thenThrow(new IllegalStateException("No quedan karts libres"));
+
+        mockMvc.perform(post("/api/reservas").param("asignarKarts", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"numeroVueltas\":10,\"fechaReserva\":\"2025-04-12\",\"horaReserva\":\"15:00:00\",\"clientes\":[{\"id\":1}]}"))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     public void obtenerRackSemanalTest() throws Exception {
         // Preparar datos de prueba
-        Map<String, Map<String, List<ReservaEntity>>> rackSemanal = new HashMap<>();
-        Map<String, List<ReservaEntity>> bloquesLunes = new HashMap<>();
+        Map<String, Map<String, List<ReservaRackDTO>>> rackSemanal = new HashMap<>();
+        Map<String, List<ReservaRackDTO>> bloquesLunes = new HashMap<>();
         bloquesLunes.put("09:00-10:00", new ArrayList<>());
         rackSemanal.put("Lunes", bloquesLunes);
 
@@ -134,12 +220,49 @@ public class ReservaControllerIntegrationTest {
                 .andExpect(jsonPath("$.Lunes['09:00-10:00']").isArray());
     }
 
+    @Test
+    public void obtenerRackSemanalSinCambiosTest() throws Exception {
+        when(reservaService.versionRackSemanal()).thenReturn("2025-04-07_2025-04-13_40_12");
+
+        mockMvc.perform(get("/api/reservas/rack-semanal"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"rack_2025-04-07_2025-04-13_40_12\""));
+
+        // Con la misma versión no se vuelve a armar el rack
+        mockMvc.perform(get("/api/reservas/rack-semanal")
+                        .header("If-None-Match", "\"rack_2025-04-07_2025-04-13_40_12\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(reservaService, times(1)).obtenerRackSemanal();
+    }
+
+    @Test
+    public void obtenerReportesIngresosSinCambiosTest() throws Exception {
+        LocalDate inicio = LocalDate.of(2025, 4, 1);
+        LocalDate fin = LocalDate.of(2025, 4, 30);
+        when(reservaService.versionReservas(inicio, fin)).thenReturn("2025-04-01_2025-04-30_40_12");
+
+        mockMvc.perform(get("/api/reservas/reporte-ingresos-personas")
+                        .param("inicio", inicio.toString()).param("fin", fin.toString())
+                        .header("If-None-Match", "\"personas_2025-04-01_2025-04-30_40_12\""))
+                .andExpect(status().isNotModified());
+        verify(reservaService, never()).generarReporteIngresosPorPersonas(any(), any());
+
+        // El ETag de un reporte no sirve para el otro
+        mockMvc.perform(get("/api/reservas/reporte-ingresos-vueltas")
+                        .param("inicio", inicio.toString()).param("fin", fin.toString())
+                        .header("If-None-Match", "\"personas_2025-04-01_2025-04-30_40_12\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"vueltas_2025-04-01_2025-04-30_40_12\""));
+        verify(reservaService, times(1)).generarReporteIngresosPorVueltas(inicio, fin);
+    }
+
     @Test
     public void obtenerReporteIngresosPorVueltasTest() throws Exception {
         // Preparar datos de prueba
         Map<String, Map<String, Integer>> reporte = new HashMap<>();
         Map<String, Integer> ingresosPorMes = new HashMap<>();
-        ingresosPorMes.put("APRIL", 50000);
+        ingresosPorMes.put("2025-04", 50000);
         ingresosPorMes.put("TOTAL", 50000);
         reporte.put("10 vueltas o máx 30 min", ingresosPorMes);
 
@@ -151,7 +274,7 @@ public class ReservaControllerIntegrationTest {
                 .param("inicio", LocalDate.now().minusMonths(1).toString())
                 .param("fin", LocalDate.now().toString()))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$['10 vueltas o máx 30 min'].APRIL").value(50000))
+                .andExpect(jsonPath("$['10 vueltas o máx 30 min']['2025-04']").value(50000))
                 .andExpect(jsonPath("$['10 vueltas o máx 30 min'].TOTAL").value(50000));
     }
 
@@ -178,14 +301,262 @@ public class ReservaControllerIntegrationTest {
         reserva.setFechaReserva(LocalDate.now());
         reserva.setHoraReserva(LocalTime.of(10, 0));
 
-        byte[] comprobantePdf = new byte[100];
+        EstadoEnvioDTO envio = new EstadoEnvioDTO("trabajo-1", 1L, "en_curso",
+                List.of(new DestinatarioEnvioDTO("test@gmail.com", "pendiente", 0, null)));
 
         when(reservaService.obtenerReservaPorId(anyLong())).thenReturn(reserva);
-        when(comprobanteService.generarComprobante(any(ReservaEntity.class))).thenReturn(comprobantePdf);
+        when(envioComprobantesService.encolar(any(ReservaEntity.class))).thenReturn(envio);
 
-        // Ejecutar y verificar
+        // Ejecutar y verificar: el envío queda en cola y se responde de inmediato
         mockMvc.perform(post("/api/reservas/1/enviar-comprobante"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/reservas/comprobantes/envios/trabajo-1"))
+                .andExpect(jsonPath("$.trabajoId").value("trabajo-1"))
+                .andExpect(jsonPath("$.destinatarios[0].email").value("test@gmail.com"));
+    }
+
+    @Test
+    public void enviarComprobanteColaLlenaTest() throws Exception {
+        when(reservaService.obtenerReservaPorId(anyLong())).thenReturn(new ReservaEntity());
+        when(envioComprobantesService.encolar(any(ReservaEntity.class))).thenThrow(new RejectedExecutionException());
+
+        mockMvc.perform(post("/api/reservas/1/enviar-comprobante"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    public void obtenerEstadoEnvioTest() throws Exception {
+        EstadoEnvioDTO envio = new EstadoEnvioDTO("trabajo-1", 1L, "con_errores", List.of(
+                new DestinatarioEnvioDTO("a@gmail.com", "enviado", 1, null),
+                new DestinatarioEnvioDTO("b@gmail.com", "fallido", 3, "Connection refused")));
+        when(envioComprobantesService.obtenerEstado("trabajo-1")).thenReturn(Optional.of(envio));
+        when(envioComprobantesService.obtenerEstado("otro")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/reservas/comprobantes/envios/trabajo-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.estado").value("con_errores"))
+                .andExpect(jsonPath("$.destinatarios[1].intentos").value(3))
+                .andExpect(jsonPath("$.destinatarios[1].error").value("Connection refused"));
+
+        mockMvc.perform(get("/api/reservas/comprobantes/envios/otro"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void obtenerEstadisticasCacheComprobantesTest() throws Exception {
+        when(comprobanteService.estadisticasCache())
+                .thenReturn(new EstadisticasCacheDTO(2, 4096, 67108864, 8, 1, 3, 0, 0.75));
+
+        mockMvc.perform(get("/api/reservas/comprobantes/cache"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.entradas").value(2))
+                .andExpect(jsonPath("$.aciertosMemoria").value(8))
+                .andExpect(jsonPath("$.tasaAciertos").value(0.75));
+    }
+
+    @Test
+    public void descargarComprobanteDesdeCacheTest() throws Exception {
+        ReservaEntity reserva = reservaParaComprobante();
+        when(reservaService.obtenerReservaPorId(1L)).thenReturn(reserva);
+        byte[] pdf = "%PDF-1.7 guardado".getBytes();
+        when(comprobanteService.buscarComprobante(reserva))
+                .thenReturn(Optional.of(new ComprobanteCache.Guardado(pdf)));
+
+        mockMvc.perform(get("/api/reservas/1/comprobante"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_PDF))
+                .andExpect(content().bytes(pdf))
+                .andExpect(header().longValue("Content-Length", pdf.length))
+                .andExpect(header().string("ETag", "\"" + ComprobanteService.version(reserva) + "\""))
+                .andExpect(header().string("Cache-Control", "no-cache, private"))
+                .andExpect(header().string("Content-Disposition", "inline; filename=\"comprobante-1.pdf\""));
+        verify(comprobanteService, never()).escribirComprobante(any(), any());
+    }
+
+    @Test
+    public void descargarComprobanteGeneraSobreLaRespuestaTest() throws Exception {
+        ReservaEntity reserva = reservaParaComprobante();
+        when(reservaService.obtenerReservaPorId(1L)).thenReturn(reserva);
+        when(comprobanteService.buscarComprobante(reserva)).thenReturn(Optional.empty());
+        doAnswer(invocation -> {
+            OutputStream salida = invocation.getArgument(1);
+            salida.write("%PDF-1.7 generado".getBytes());
+            return null;
+        }).when(comprobanteService).escribirComprobante(eq(reserva), any(OutputStream.class));
+
+        mockMvc.perform(get("/api/reservas/1/comprobante"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("%PDF-1.7 generado"));
+    }
+
+    @Test
+    public void descargarComprobanteSinCambiosTest() throws Exception {
+        ReservaEntity reserva = reservaParaComprobante();
+        when(reservaService.obtenerReservaPorId(1L)).thenReturn(reserva);
+
+        // El navegador ya tiene esta versión: no se busca ni se genera el PDF
+        mockMvc.perform(get("/api/reservas/1/comprobante")
+                        .header("If-None-Match", "\"" + ComprobanteService.version(reserva) + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+        verify(comprobanteService, never()).buscarComprobante(any());
+    }
+
+    @Test
+    public void descargarComprobanteReservaInexistenteTest() throws Exception {
+        when(reservaService.obtenerReservaPorId(99L)).thenThrow(new IllegalArgumentException("Reserva no encontrada"));
+
+        mockMvc.perform(get("/api/reservas/99/comprobante"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void descargarComprobantesDelPeriodoTest() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream salida = invocation.getArgument(2);
+            salida.write("PK zip".getBytes());
+            return null;
+        }).when(loteComprobantesService).escribirZip(any(LocalDate.class), any(LocalDate.class), any(OutputStream.class));
+
+        mockMvc.perform(get("/api/reservas/comprobantes/lote")
+                        .param("inicio", "2025-04-01")
+                        .param("fin", "2025-04-30"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/zip"))
+                .andExpect(header().string("Content-Disposition",
+                        "attachment; filename=\"comprobantes-2025-04-01-2025-04-30.zip\""))
+                .andExpect(content().string("PK zip"));
+        verify(loteComprobantesService).escribirZip(eq(LocalDate.of(2025, 4, 1)), eq(LocalDate.of(2025, 4, 30)), any());
+    }
+
+    @Test
+    public void descargarComprobantesPeriodoInvalidoTest() throws Exception {
+        mockMvc.perform(get("/api/reservas/comprobantes/lote")
+                        .param("inicio", "2025-04-30")
+                        .param("fin", "2025-04-01"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(loteComprobantesService);
+    }
+
+    @Test
+    public void cotizarReservaTest() throws Exception {
+        CotizacionDTO cotizacion = new CotizacionDTO(LocalDate.of(2025, 4, 12), 10, 30, 15000, 1, 0, 13500, 13500,
+                List.of(new DetalleCotizacionDTO(1L, "Cliente Test", 10, 0, 13500)));
+        when(reservaService.cotizar(any(ReservaEntity.class))).thenReturn(cotizacion);
+
+        mockMvc.perform(post("/api/reservas/cotizar")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"numeroVueltas\":10,\"fechaReserva\":\"2025-04-12\",\"clientes\":[{\"id\":1}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.precioFinal").value(13500))
+                .andExpect(jsonPath("$.clientes[0].nombre").value("Cliente Test"))
+                .andExpect(jsonPath("$.clientes[0].descuentoPorVisitas").value(10));
+        verify(reservaService, never()).crearReserva(any());
+    }
+
+    @Test
+    public void cotizarReservaInvalidaTest() throws Exception {
+        when(reservaService.cotizar(any(ReservaEntity.class)))
+                .thenThrow(new IllegalArgumentException("Número de vueltas no válido"));
+
+        mockMvc.perform(post("/api/reservas/cotizar")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"numeroVueltas\":12,\"fechaReserva\":\"2025-04-12\",\"clientes\":[{\"id\":1}]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void listarPaginaReservasTest() throws Exception {
+        ReservaListaDTO fila = new ReservaListaDTO(7L, LocalDate.of(2025, 4, 12), LocalTime.of(15, 0), 10, 15000,
+                0, 10, 0, 13500, List.of("Cliente Test"), List.of("K001"));
+        when(reservaService.listarPagina("2025-04-13_9", 1)).thenReturn(new PaginaDTO<>(List.of(fila), "2025-04-12_7"));
+
+        mockMvc.perform(get("/api/reservas/pagina").param("cursor", "2025-04-13_9").param("tamano", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elementos[0].clientes[0]").value("Cliente Test"))
+                .andExpect(jsonPath("$.elementos[0].karts[0]").value("K001"))
+                .andExpect(jsonPath("$.siguienteCursor").value("2025-04-12_7"));
+    }
+
+    @Test
+    public void listarPaginaReservasCursorInvalidoTest() throws Exception {
+        when(reservaService.listarPagina(eq("abc"), any())).thenThrow(new IllegalArgumentException("Cursor de página inválido: abc"));
+
+        mockMvc.perform(get("/api/reservas/pagina").param("cursor", "abc"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void crearReservasEnLoteTest() throws Exception {
+        when(reservaService.crearReservasEnLote(anyList())).thenReturn(new ResultadoLoteReservasDTO(2, 2, List.of()));
+
+        mockMvc.perform(post("/api/reservas/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"numeroVueltas\":10,\"fechaReserva\":\"2024-03-01\",\"horaReserva\":\"11:00:00\"," +
+                                "\"clientes\":[{\"id\":1}],\"karts\":[{\"id\":1}]}," +
+                                "{\"numeroVueltas\":15,\"fechaReserva\":\"2024-03-02\",\"horaReserva\":\"11:00:00\"," +
+                                "\"clientes\":[{\"id\":2}],\"karts\":[{\"id\":1}]}]"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0]").value("test@gmail.com"));
+                .andExpect(jsonPath("$.creadas").value(2));
+    }
+
+    @Test
+    public void crearReservasEnLoteConErroresTest() throws Exception {
+        when(reservaService.crearReservasEnLote(anyList()))
+                .thenReturn(new ResultadoLoteReservasDTO(1, 0, List.of("Reserva 1: Cliente no encontrado con ID: 9")));
+
+        mockMvc.perform(post("/api/reservas/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"numeroVueltas\":10,\"fechaReserva\":\"2024-03-01\",\"clientes\":[{\"id\":9}]}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errores[0]").value("Reserva 1: Cliente no encontrado con ID: 9"));
+    }
+
+    @Test
+    public void crearReservasEnLoteConChoqueTest() throws Exception {
+        when(reservaService.crearReservasEnLote(anyList()))
+                .thenThrow(new IllegalStateException("Uno o más karts de la carga ya están reservados en un horario que se solapa"));
+
+        mockMvc.perform(post("/api/reservas/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"numeroVueltas\":10,\"fechaReserva\":\"2024-03-01\"}]"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.creadas").value(0));
+    }
+
+    @Test
+    public void buscarHorariosLibresTest() throws Exception {
+        LocalDate lunes = LocalDate.of(2030, 1, 7);
+        when(horarioLibreService.buscarHorariosLibres(9, 10, lunes, lunes.plusDays(6), 5))
+                .thenReturn(List.of(new HorarioLibreDTO(lunes, LocalTime.of(11, 0), 12)));
+
+        mockMvc.perform(get("/api/reservas/horarios-libres")
+                        .param("personas", "9").param("numeroVueltas", "10")
+                        .param("inicio", "2030-01-07").param("fin", "2030-01-13"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].fecha").value("2030-01-07"))
+                .andExpect(jsonPath("$[0].hora").value("11:00:00"))
+                .andExpect(jsonPath("$[0].kartsLibres").value(12));
+    }
+
+    @Test
+    public void buscarHorariosLibresRangoInvalidoTest() throws Exception {
+        when(horarioLibreService.buscarHorariosLibres(anyInt(), anyInt(), any(), any(), anyInt()))
+                .thenThrow(new IllegalArgumentException("El rango no puede superar 31 días"));
+
+        mockMvc.perform(get("/api/reservas/horarios-libres")
+                        .param("personas", "9").param("numeroVueltas", "10")
+                        .param("inicio", "2030-01-01").param("fin", "2030-03-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private ReservaEntity reservaParaComprobante() {
+        ReservaEntity reserva = new ReservaEntity();
+        reserva.setId(1L);
+        reserva.setFechaReserva(LocalDate.of(2025, 4, 12));
+        reserva.setHoraReserva(LocalTime.of(15, 0));
+        reserva.setPrecioFinal(15000);
+        reserva.setClientes(new ArrayList<>());
+        return reserva;
     }
-}
\ No newline at end of file
+}
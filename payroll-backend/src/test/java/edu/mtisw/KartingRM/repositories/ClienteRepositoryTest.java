@@ -0,0 +1,59 @@
+package edu.mtisw.KartingRM.repositories;
+
+import edu.mtisw.KartingRM.dtos.ClienteListaDTO;
+import edu.mtisw.KartingRM.entities.ClienteEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@DataJpaTest
+public class ClienteRepositoryTest {
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @BeforeEach
+    public void setUp() {
+        guardar("Juliana Rojas", "jrojas@gmail.com");
+        guardar("Ana Pérez", "aperez@gmail.com");
+        guardar("Pedro Soto", "ana.soto@gmail.com");
+        guardar("Mario 100% Veloz", "mario@gmail.com");
+        guardar("Mario 1000 Veloz", "mario1000@gmail.com");
+    }
+
+    @Test
+    public void coincidenciasEnNombreOCorreoTest() {
+        List<String> nombres = nombres(clienteRepository.findCoincidencias("%ana%", "ana%", Limit.of(10)));
+
+        // Primero el nombre que empieza con el texto; luego el resto por nombre
+        assertEquals(List.of("Ana Pérez", "Juliana Rojas", "Pedro Soto"), nombres);
+        assertEquals(List.of("Ana Pérez", "Juliana Rojas"),
+                nombres(clienteRepository.findCoincidencias("%ana%", "ana%", Limit.of(2))));
+    }
+
+    @Test
+    public void comodinesEscapadosTest() {
+        assertEquals(List.of("Mario 100% Veloz"),
+                nombres(clienteRepository.findCoincidencias("%100!%%", "100!%%", Limit.of(10))));
+        assertEquals(2, clienteRepository.findCoincidencias("%100%", "100%", Limit.of(10)).size());
+    }
+
+    private void guardar(String nombre, String email) {
+        ClienteEntity cliente = new ClienteEntity();
+        cliente.setNombre(nombre);
+        cliente.setEmail(email);
+        clienteRepository.save(cliente);
+    }
+
+    private List<String> nombres(List<ClienteListaDTO> clientes) {
+        return clientes.stream().map(ClienteListaDTO::getNombre).toList();
+    }
+}
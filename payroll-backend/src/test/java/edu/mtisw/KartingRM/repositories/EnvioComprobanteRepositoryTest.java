@@ -0,0 +1,41 @@
+package edu.mtisw.KartingRM.repositories;
+
+import edu.mtisw.KartingRM.entities.EnvioComprobanteEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@DataJpaTest
+public class EnvioComprobanteRepositoryTest {
+
+    @Autowired
+    private EnvioComprobanteRepository envioComprobanteRepository;
+
+    @Test
+    public void marcarAbandonadosTest() {
+        LocalDateTime ahora = LocalDateTime.now();
+        EnvioComprobanteEntity abandonado = guardar("pendiente", ahora.minusHours(2));
+        EnvioComprobanteEntity reciente = guardar("pendiente", ahora.minusMinutes(5));
+        EnvioComprobanteEntity enviado = guardar("enviado", ahora.minusHours(2));
+
+        int marcados = envioComprobanteRepository.marcarAbandonados("pendiente", "fallido", "Interrumpido",
+                ahora.minusMinutes(30), ahora);
+
+        assertEquals(1, marcados);
+        assertEquals("fallido", envioComprobanteRepository.findById(abandonado.getId()).orElseThrow().getEstado());
+        assertEquals("Interrumpido", envioComprobanteRepository.findById(abandonado.getId()).orElseThrow().getError());
+        assertEquals("pendiente", envioComprobanteRepository.findById(reciente.getId()).orElseThrow().getEstado());
+        assertEquals("enviado", envioComprobanteRepository.findById(enviado.getId()).orElseThrow().getEstado());
+    }
+
+    private EnvioComprobanteEntity guardar(String estado, LocalDateTime actualizadoEn) {
+        return envioComprobanteRepository.saveAndFlush(new EnvioComprobanteEntity(null, "t1", 1L, "a@gmail.com",
+                estado, 1, null, actualizadoEn));
+    }
+}
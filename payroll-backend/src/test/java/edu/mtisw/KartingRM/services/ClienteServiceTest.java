@@ -1,5 +1,8 @@
 package edu.mtisw.KartingRM.services;
 
+import edu.mtisw.KartingRM.config.PaginacionProperties;
+import edu.mtisw.KartingRM.dtos.ClienteListaDTO;
+import edu.mtisw.KartingRM.dtos.PaginaDTO;
 import edu.mtisw.KartingRM.entities.ClienteEntity;
 import edu.mtisw.KartingRM.repositories.ClienteRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -7,6 +10,9 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDate;
@@ -25,6 +31,9 @@ public class ClienteServiceTest {
     @Mock
     private ClienteRepository clienteRepository;
 
+    @Spy
+    private PaginacionProperties paginacionProperties = new PaginacionProperties();
+
     @InjectMocks
     private ClienteService clienteService;
 
@@ -53,6 +62,58 @@ public class ClienteServiceTest {
         when(clienteRepository.findAll()).thenReturn(clientesList);
     }
 
+    @Test
+    public void listarPaginaConSiguienteCursorTest() {
+        List<ClienteListaDTO> filas = new ArrayList<>();
+        for (long id = 11; id <= 13; id++) {
+            filas.add(new ClienteListaDTO(id, "Cliente " + id, "c" + id + "@gmail.com", 0, null));
+        }
+        when(clienteRepository.findPaginaDespuesDe(10L, Limit.of(3))).thenReturn(filas);
+
+        PaginaDTO<ClienteListaDTO> pagina = clienteService.listarPagina("10", 2);
+
+        // Se pidió una fila de más: hay página siguiente y empieza después del ID 12
+        assertEquals(2, pagina.getElementos().size());
+        assertEquals("12", pagina.getSiguienteCursor());
+    }
+
+    @Test
+    public void listarPaginaUltimaYTamanoMaximoTest() {
+        when(clienteRepository.findPaginaDespuesDe(0L, Limit.of(201))).thenReturn(
+                List.of(new ClienteListaDTO(1L, "Cliente Test", "test@gmail.com", 3, null)));
+
+        PaginaDTO<ClienteListaDTO> pagina = clienteService.listarPagina(null, 5000);
+
+        assertEquals(1, pagina.getElementos().size());
+        assertNull(pagina.getSiguienteCursor());
+        assertThrows(IllegalArgumentException.class, () -> clienteService.listarPagina("abc", null));
+        assertThrows(IllegalArgumentException.class, () -> clienteService.listarPagina(null, 0));
+    }
+
+    @Test
+    public void buscarClientesTest() {
+        List<ClienteListaDTO> coincidencias = List.of(new ClienteListaDTO(1L, "Cliente Test", "test@gmail.com", 3, null));
+        when(clienteRepository.findCoincidencias("%cli%", "cli%", Limit.of(ClienteService.RESULTADOS_BUSQUEDA)))
+                .thenReturn(coincidencias);
+
+        assertEquals(coincidencias, clienteService.buscarClientes("  CLI ", null));
+    }
+
+    @Test
+    public void buscarClientesEscapaComodinesTest() {
+        clienteService.buscarClientes("50%_!", 5);
+
+        verify(clienteRepository).findCoincidencias("%50!%!_!!%", "50!%!_!!%", Limit.of(5));
+    }
+
+    @Test
+    public void buscarClientesTextoCortoTest() {
+        assertThrows(IllegalArgumentException.class, () -> clienteService.buscarClientes(" ab ", null));
+        assertThrows(IllegalArgumentException.class, () -> clienteService.buscarClientes(null, null));
+        assertThrows(IllegalArgumentException.class, () -> clienteService.buscarClientes("ana", 0));
+        verifyNoInteractions(clienteRepository);
+    }
+
     @Test
     public void listarClientesTest() {
         List<ClienteEntity> result = clienteService.listarClientes();
@@ -144,4 +205,62 @@ public class ClienteServiceTest {
         assertNotNull(result);
         assertEquals("valido@gmail.com", result.getEmail());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void crearClienteCorreoRepetidoTest() {
+        cliente.setEmail("Test@gmail.com");
+        when(clienteRepository.existsByEmailIgnoreCase("Test@gmail.com")).thenReturn(true);
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            clienteService.crearCliente(cliente);
+        });
+
+        assertEquals("Ya existe un cliente con el correo Test@gmail.com.", exception.getMessage());
+        verify(clienteRepository, never()).save(any(ClienteEntity.class));
+    }
+
+    @Test
+    public void actualizarClienteCorreoDeOtroClienteTest() {
+        ClienteEntity cambios = new ClienteEntity();
+        cambios.setNombre("Cliente Test");
+        cambios.setEmail("otro@gmail.com");
+        when(clienteRepository.existsByEmailIgnoreCaseAndIdNot("otro@gmail.com", 1L)).thenReturn(true);
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            clienteService.actualizarCliente(1L, cambios);
+        });
+
+        assertTrue(exception.getMessage().contains("Ya existe un cliente con el correo otro@gmail.com"));
+        verify(clienteRepository, never()).save(any(ClienteEntity.class));
+    }
+
+    @Test
+    public void actualizarClienteMismoCorreoTest() {
+        // Conservar el propio correo no cuenta como repetido
+        ClienteEntity result = clienteService.actualizarCliente(1L, cliente);
+
+        assertEquals("test@gmail.com", result.getEmail());
+        verify(clienteRepository).existsByEmailIgnoreCaseAndIdNot("test@gmail.com", 1L);
+        verify(clienteRepository, times(1)).save(any(ClienteEntity.class));
+    }
+
+    @Test
+    public void crearClienteCorreoGuardadoAlMismoTiempoTest() {
+        // Otra petición guardó el mismo correo entre la revisión y el INSERT
+        when(clienteRepository.save(any(ClienteEntity.class))).thenThrow(new DataIntegrityViolationException(
+                "duplicate key value violates unique constraint \"" + ImportacionClientesService.INDICE_CORREO_UNICO + "\""));
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            clienteService.crearCliente(cliente);
+        });
+
+        assertEquals("Ya existe un cliente con el correo test@gmail.com.", exception.getMessage());
+    }
+
+    @Test
+    public void crearClienteOtraViolacionTest() {
+        when(clienteRepository.save(any(ClienteEntity.class))).thenThrow(new DataIntegrityViolationException("valor nulo en nombre"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> clienteService.crearCliente(cliente));
+    }
+}
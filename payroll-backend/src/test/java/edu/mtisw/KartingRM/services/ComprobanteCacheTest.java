@@ -0,0 +1,149 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.dtos.EstadisticasCacheDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+public class ComprobanteCacheTest {
+
+    @TempDir
+    Path directorio;
+
+    private final AtomicInteger generados = new AtomicInteger();
+
+    @Test
+    public void segundaSolicitudNoGeneraTest() {
+        ComprobanteCache cache = new ComprobanteCache(1024, "");
+
+        byte[] primero = cache.obtener(1L, "v1", pdf(100));
+        byte[] segundo = cache.obtener(1L, "v1", pdf(100));
+
+        assertSame(primero, segundo);
+        assertEquals(1, generados.get());
+        EstadisticasCacheDTO estadisticas = cache.estadisticas();
+        assertEquals(1, estadisticas.getAciertosMemoria());
+        assertEquals(1, estadisticas.getFallos());
+        assertEquals(0.5, estadisticas.getTasaAciertos());
+    }
+
+    @Test
+    public void otraVersionVuelveAGenerarTest() {
+        ComprobanteCache cache = new ComprobanteCache(1024, "");
+
+        cache.obtener(1L, "v1", pdf(100));
+        cache.obtener(1L, "v2", pdf(100));
+
+        assertEquals(2, generados.get());
+    }
+
+    @Test
+    public void desalojaElMenosUsadoPorBytesTest() {
+        ComprobanteCache cache = new ComprobanteCache(300, "");
+        cache.obtener(1L, "v", pdf(100));
+        cache.obtener(2L, "v", pdf(100));
+        cache.obtener(3L, "v", pdf(100));
+
+        // Usar la 1 la deja como la más reciente; al pasar el límite sale la 2
+        cache.obtener(1L, "v", pdf(100));
+        cache.obtener(4L, "v", pdf(100));
+
+        EstadisticasCacheDTO estadisticas = cache.estadisticas();
+        assertEquals(3, estadisticas.getEntradas());
+        assertEquals(300, estadisticas.getBytes());
+        assertEquals(1, estadisticas.getDesalojos());
+
+        generados.set(0);
+        cache.obtener(1L, "v", pdf(100));
+        assertEquals(0, generados.get());
+        cache.obtener(2L, "v", pdf(100));
+        assertEquals(1, generados.get());
+    }
+
+    @Test
+    public void pdfMayorQueElLimiteNoSeGuardaTest() {
+        ComprobanteCache cache = new ComprobanteCache(300, "");
+        cache.obtener(1L, "v", pdf(100));
+
+        cache.obtener(2L, "v", pdf(500));
+
+        EstadisticasCacheDTO estadisticas = cache.estadisticas();
+        assertEquals(1, estadisticas.getEntradas());
+        assertEquals(0, estadisticas.getDesalojos());
+    }
+
+    @Test
+    public void nivelEnDiscoSobreviveAlReinicioTest() {
+        ComprobanteCache antes = new ComprobanteCache(1024, directorio.toString());
+        byte[] generado = antes.obtener(7L, "v1", pdf(100));
+
+        // Una caché nueva sobre el mismo directorio, como tras reiniciar la réplica
+        ComprobanteCache despues = new ComprobanteCache(1024, directorio.toString());
+        byte[] leido = despues.obtener(7L, "v1", pdf(100));
+
+        assertArrayEquals(generado, leido);
+        assertEquals(1, generados.get());
+        assertEquals(1, despues.estadisticas().getAciertosDisco());
+    }
+
+    @Test
+    public void nuevaVersionReemplazaLaDelDiscoTest() throws Exception {
+        ComprobanteCache cache = new ComprobanteCache(1024, directorio.toString());
+        cache.obtener(7L, "v1", pdf(100));
+        cache.obtener(7L, "v2", pdf(100));
+
+        assertFalse(Files.exists(directorio.resolve("7-v1.pdf")));
+        assertTrue(Files.exists(directorio.resolve("7-v2.pdf")));
+    }
+
+    @Test
+    public void buscarDesdeMemoriaTest() throws Exception {
+        ComprobanteCache cache = new ComprobanteCache(1024, "");
+        assertTrue(cache.buscar(1L, "v1").isEmpty());
+
+        cache.guardar(1L, "v1", new byte[]{1, 2, 3});
+
+        try (ComprobanteCache.Guardado guardado = cache.buscar(1L, "v1").orElseThrow()) {
+            ByteArrayOutputStream salida = new ByteArrayOutputStream();
+            guardado.copiarA(salida);
+            assertEquals(3, guardado.getTamano());
+            assertArrayEquals(new byte[]{1, 2, 3}, salida.toByteArray());
+        }
+        assertEquals(1, cache.estadisticas().getAciertosMemoria());
+        assertEquals(1, cache.estadisticas().getFallos());
+    }
+
+    @Test
+    public void buscarEnDiscoNoLoCargaEnMemoriaTest() throws Exception {
+        new ComprobanteCache(1024, directorio.toString()).guardar(7L, "v1", new byte[]{4, 5, 6, 7});
+
+        ComprobanteCache despues = new ComprobanteCache(1024, directorio.toString());
+        try (ComprobanteCache.Guardado guardado = despues.buscar(7L, "v1").orElseThrow()) {
+            // Otra versión reemplaza el archivo mientras se está copiando el anterior
+            despues.guardar(7L, "v2", new byte[]{9});
+
+            ByteArrayOutputStream salida = new ByteArrayOutputStream();
+            guardado.copiarA(salida);
+            assertEquals(4, guardado.getTamano());
+            assertArrayEquals(new byte[]{4, 5, 6, 7}, salida.toByteArray());
+        }
+        assertEquals(1, despues.estadisticas().getAciertosDisco());
+        assertEquals(1, despues.estadisticas().getEntradas());
+    }
+
+    private Supplier<byte[]> pdf(int bytes) {
+        return () -> {
+            generados.incrementAndGet();
+            return new byte[bytes];
+        };
+    }
+}
@@ -1,24 +1,36 @@
 package edu.mtisw.KartingRM.services;
 
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
 import edu.mtisw.KartingRM.entities.ClienteEntity;
+import edu.mtisw.KartingRM.entities.EstadoKart;
 import edu.mtisw.KartingRM.entities.KartEntity;
 import edu.mtisw.KartingRM.entities.ReservaEntity;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @ActiveProfiles("test")
 public class ComprobanteServiceTest {
 
+    @Spy
+    private ComprobanteCache comprobanteCache = new ComprobanteCache(1024 * 1024, "");
+
     @InjectMocks
     private ComprobanteService comprobanteService;
 
@@ -40,7 +52,7 @@ public class ComprobanteServiceTest {
         KartEntity kart = new KartEntity();
         kart.setId(1L);
         kart.setCodigo("K001");
-        kart.setEstado("disponible");
+        kart.setEstado(EstadoKart.DISPONIBLE);
 
         // Configurar reserva
         reserva = new ReservaEntity();
@@ -87,7 +99,7 @@ public class ComprobanteServiceTest {
         KartEntity kart2 = new KartEntity();
         kart2.setId(2L);
         kart2.setCodigo("K002");
-        kart2.setEstado("disponible");
+        kart2.setEstado(EstadoKart.DISPONIBLE);
         
         reserva.getKarts().add(kart2);
         
@@ -101,4 +113,100 @@ public class ComprobanteServiceTest {
         assertNotNull(pdfBytes);
         assertTrue(pdfBytes.length > 0);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void generarComprobanteContenidoTest() throws IOException {
+        byte[] pdfBytes = comprobanteService.generarComprobante(reserva);
+
+        String texto = extraerTexto(pdfBytes);
+        assertTrue(texto.contains("Comprobante de Reserva"));
+        assertTrue(texto.contains("Código de Reserva: 1"));
+        assertTrue(texto.contains("Hora: 10:00"));
+        assertTrue(texto.contains("Número de Vueltas: 10"));
+        assertTrue(texto.contains("IVA (19%): $2565"));
+        assertTrue(texto.contains("Precio Final con IVA: $16065"));
+        assertTrue(texto.contains("Promoción"));
+        assertTrue(texto.contains("Cliente Test"));
+        assertTrue(texto.contains("$13500"));
+    }
+
+    @Test
+    public void generarComprobanteMuchosClientesTest() throws IOException {
+        // Más filas de las que caben en una página
+        for (int i = 2; i <= 60; i++) {
+            ClienteEntity cliente = new ClienteEntity();
+            cliente.setId((long) i);
+            cliente.setNombre("Cliente " + i);
+            reserva.getClientes().add(cliente);
+        }
+        reserva.getClientes().get(1).setNombre("Nombre demasiado largo para la columna de clientes");
+
+        byte[] pdfBytes = comprobanteService.generarComprobante(reserva);
+
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdfBytes)))) {
+            assertEquals(2, pdf.getNumberOfPages());
+        }
+        String texto = extraerTexto(pdfBytes);
+        assertTrue(texto.contains("Cliente 60"));
+        // El nombre largo se recorta para no invadir la columna de al lado
+        assertTrue(texto.contains("Nombre de"));
+        assertTrue(texto.contains("..."));
+        assertFalse(texto.contains("Nombre demasiado largo para la columna"));
+    }
+
+    @Test
+    public void obtenerComprobanteDesdeCacheTest() {
+        byte[] primero = comprobanteService.obtenerComprobante(reserva);
+        byte[] segundo = comprobanteService.obtenerComprobante(reserva);
+
+        // El reenvío devuelve el mismo PDF sin volver a armarlo
+        assertSame(primero, segundo);
+        assertEquals(1, comprobanteService.estadisticasCache().getFallos());
+        assertEquals(1, comprobanteService.estadisticasCache().getAciertosMemoria());
+    }
+
+    @Test
+    public void escribirComprobanteGuardaCopiaEnCacheTest() throws IOException {
+        AtomicBoolean cerrada = new AtomicBoolean();
+        ByteArrayOutputStream salida = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                cerrada.set(true);
+            }
+        };
+
+        comprobanteService.escribirComprobante(reserva, salida);
+
+        // La salida es de quien la abrió (la respuesta HTTP) y queda abierta
+        assertFalse(cerrada.get());
+        assertTrue(extraerTexto(salida.toByteArray()).contains("Cliente Test"));
+        try (ComprobanteCache.Guardado guardado = comprobanteService.buscarComprobante(reserva).orElseThrow()) {
+            assertEquals(salida.size(), guardado.getTamano());
+        }
+        assertSame(comprobanteService.obtenerComprobante(reserva), comprobanteService.obtenerComprobante(reserva));
+        assertEquals(0, comprobanteService.estadisticasCache().getFallos());
+    }
+
+    @Test
+    public void versionCambiaConLosDatosImpresosTest() {
+        String version = ComprobanteService.version(reserva);
+        assertEquals(version, ComprobanteService.version(reserva));
+
+        reserva.setPrecioFinal(12000);
+        assertNotEquals(version, ComprobanteService.version(reserva));
+
+        String conPrecioNuevo = ComprobanteService.version(reserva);
+        reserva.getClientes().get(0).setNombre("Otro Nombre");
+        assertNotEquals(conPrecioNuevo, ComprobanteService.version(reserva));
+    }
+
+    private String extraerTexto(byte[] pdfBytes) throws IOException {
+        StringBuilder texto = new StringBuilder();
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdfBytes)))) {
+            for (int pagina = 1; pagina <= pdf.getNumberOfPages(); pagina++) {
+                texto.append(PdfTextExtractor.getTextFromPage(pdf.getPage(pagina))).append('\n');
+            }
+        }
+        return texto.toString();
+    }
+}
@@ -0,0 +1,207 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.dtos.MarcaCambiosDTO;
+import edu.mtisw.KartingRM.entities.EstadoKart;
+import edu.mtisw.KartingRM.entities.KartEntity;
+import edu.mtisw.KartingRM.entities.OcupacionKartEntity;
+import edu.mtisw.KartingRM.entities.ReservaEntity;
+import edu.mtisw.KartingRM.repositories.KartRepository;
+import edu.mtisw.KartingRM.repositories.OcupacionKartRepository;
+import edu.mtisw.KartingRM.repositories.ReservaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ActiveProfiles("test")
+public class DisponibilidadKartsTest {
+
+    private static final LocalDate FECHA = LocalDate.of(2025, 4, 12);
+
+    @Mock
+    private KartRepository kartRepository;
+
+    @Mock
+    private ReservaRepository reservaRepository;
+
+    @Mock
+    private OcupacionKartRepository ocupacionKartRepository;
+
+    private List<KartEntity> flota;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        // 70 karts para cruzar el límite de una palabra de 64 bits; el 3 está en mantención
+        flota = new ArrayList<>();
+        for (long id = 1; id <= 70; id++) {
+            KartEntity kart = new KartEntity();
+            kart.setId(id);
+            kart.setCodigo(String.format("K%03d", id));
+            kart.setEstado(id == 3 ? EstadoKart.NO_DISPONIBLE : EstadoKart.DISPONIBLE);
+            flota.add(kart);
+        }
+        when(kartRepository.findAll(any(Sort.class))).thenReturn(flota);
+
+        // Reserva 1: karts 1 y 66 de 15:00 a 15:30
+        List<OcupacionKartEntity> ocupaciones = new ArrayList<>();
+        ocupaciones.addAll(ocupacion(1L, LocalTime.of(15, 0), 30, 1L));
+        ocupaciones.addAll(ocupacion(66L, LocalTime.of(15, 0), 30, 1L));
+        when(ocupacionKartRepository.findByFecha(FECHA)).thenReturn(ocupaciones);
+        when(reservaRepository.findMarcaCambiosByFechaReservaBetween(FECHA, FECHA)).thenReturn(new MarcaCambiosDTO(1L, 1));
+    }
+
+    @Test
+    public void disponiblesExcluyeOcupadosYEnMantencionTest() {
+        DisponibilidadKarts disponibilidad = new DisponibilidadKarts(kartRepository, reservaRepository, ocupacionKartRepository, 60_000, 60);
+
+        List<Long> aLasTres = ids(disponibilidad.disponibles(FECHA, LocalTime.of(15, 0), 30));
+        assertEquals(67, aLasTres.size());
+        assertFalse(aLasTres.contains(1L));
+        assertFalse(aLasTres.contains(3L));
+        assertFalse(aLasTres.contains(66L));
+        assertEquals(70L, aLasTres.get(aLasTres.size() - 1));
+
+        // 14:30 con 35 minutos toca el slot de las 15:00
+        assertFalse(ids(disponibilidad.disponibles(FECHA, LocalTime.of(14, 30), 35)).contains(66L));
+        // A las 15:30 la reserva ya terminó
+        assertTrue(ids(disponibilidad.disponibles(FECHA, LocalTime.of(15, 30), 30)).contains(66L));
+        // Con la verificación reciente, el día y la flota se leyeron una sola vez
+        verify(ocupacionKartRepository, times(1)).findByFecha(FECHA);
+        verify(kartRepository, times(1)).findAll(any(Sort.class));
+    }
+
+    @Test
+    public void apartarPrimeroLosMenosUsadosTest() {
+        // Además de la reserva 1: el kart 4 tiene 40 minutos ocupados en la mañana y el 2 solo 30
+        List<OcupacionKartEntity> ocupaciones = new ArrayList<>(ocupacionKartRepository.findByFecha(FECHA));
+        ocupaciones.addAll(ocupacion(4L, LocalTime.of(10, 0), 40, 2L));
+        ocupaciones.addAll(ocupacion(2L, LocalTime.of(11, 0), 30, 3L));
+        when(ocupacionKartRepository.findByFecha(FECHA)).thenReturn(ocupaciones);
+        DisponibilidadKarts disponibilidad = new DisponibilidadKarts(kartRepository, reservaRepository, ocupacionKartRepository, 60_000, 60);
+
+        List<Long> porUso = ids(disponibilidad.apartar(FECHA, LocalTime.of(15, 0), 30, 67).getKarts());
+
+        assertEquals(67, porUso.size());
+        assertEquals(4L, porUso.get(porUso.size() - 1));
+        assertEquals(2L, porUso.get(porUso.size() - 2));
+        assertFalse(porUso.contains(1L));
+        assertFalse(porUso.contains(3L));
+    }
+
+    @Test
+    public void apartadosNoSeOfrecenHastaLiberarTest() {
+        DisponibilidadKarts disponibilidad = new DisponibilidadKarts(kartRepository, reservaRepository, ocupacionKartRepository, 60_000, 60);
+
+        DisponibilidadKarts.Apartado primero = disponibilidad.apartar(FECHA, LocalTime.of(15, 0), 30, 60);
+        // Quedan 7 libres a las 15:15 sin contar los apartados; no alcanzan para 8
+        assertNull(disponibilidad.apartar(FECHA, LocalTime.of(15, 15), 30, 8));
+        DisponibilidadKarts.Apartado segundo = disponibilidad.apartar(FECHA, LocalTime.of(15, 15), 30, 7);
+        assertTrue(ids(segundo.getKarts()).stream().noneMatch(ids(primero.getKarts())::contains));
+        // Un horario que no se solapa no se ve afectado
+        assertEquals(69, disponibilidad.apartar(FECHA, LocalTime.of(16, 0), 30, 69).getKarts().size());
+
+        // Liberado el primero, a las 15:00 solo faltan los 7 del segundo
+        disponibilidad.liberar(primero);
+        assertEquals(60, disponibilidad.apartar(FECHA, LocalTime.of(15, 0), 30, 60).getKarts().size());
+        assertNull(disponibilidad.apartar(FECHA, LocalTime.of(15, 0), 30, 1));
+        // La consulta de karts libres no descuenta los apartados
+        assertEquals(67, disponibilidad.disponibles(FECHA, LocalTime.of(15, 0), 30).size());
+    }
+
+    @Test
+    public void registrarReservaMarcaKartsSinReconstruirTest() {
+        DisponibilidadKarts disponibilidad = new DisponibilidadKarts(kartRepository, reservaRepository, ocupacionKartRepository, 0, 60);
+        disponibilidad.disponibles(FECHA, LocalTime.of(15, 0), 30);
+
+        ReservaEntity reserva = new ReservaEntity();
+        reserva.setId(2L);
+        reserva.setFechaReserva(FECHA);
+        reserva.setHoraReserva(LocalTime.of(16, 0));
+        reserva.setDuracionTotal(30);
+        reserva.setKarts(List.of(flota.get(4), flota.get(68)));
+        disponibilidad.registrarReserva(reserva);
+        when(reservaRepository.findMarcaCambiosByFechaReservaBetween(FECHA, FECHA)).thenReturn(new MarcaCambiosDTO(2L, 2));
+
+        List<Long> aLasCuatro = ids(disponibilidad.disponibles(FECHA, LocalTime.of(16, 15), 30));
+
+        assertFalse(aLasCuatro.contains(5L));
+        assertFalse(aLasCuatro.contains(69L));
+        assertTrue(aLasCuatro.contains(1L));
+        verify(ocupacionKartRepository, times(1)).findByFecha(FECHA);
+    }
+
+    @Test
+    public void reservaDeOtraReplicaReconstruyeDiaTest() {
+        DisponibilidadKarts disponibilidad = new DisponibilidadKarts(kartRepository, reservaRepository, ocupacionKartRepository, 0, 60);
+        assertTrue(ids(disponibilidad.disponibles(FECHA, LocalTime.of(10, 0), 30)).contains(7L));
+
+        // Otra réplica reservó el kart 7 a las 10:00
+        when(reservaRepository.findMarcaCambiosByFechaReservaBetween(FECHA, FECHA)).thenReturn(new MarcaCambiosDTO(2L, 2));
+        when(ocupacionKartRepository.findByFecha(FECHA)).thenReturn(ocupacion(7L, LocalTime.of(10, 0), 30, 2L));
+
+        assertFalse(ids(disponibilidad.disponibles(FECHA, LocalTime.of(10, 0), 30)).contains(7L));
+        verify(ocupacionKartRepository, times(2)).findByFecha(FECHA);
+    }
+
+    @Test
+    public void cambioDeFlotaSeVeTrasInvalidarTest() {
+        DisponibilidadKarts disponibilidad = new DisponibilidadKarts(kartRepository, reservaRepository, ocupacionKartRepository, 60_000, 60);
+        disponibilidad.disponibles(FECHA, LocalTime.of(10, 0), 30);
+
+        KartEntity nuevo = new KartEntity();
+        nuevo.setId(71L);
+        nuevo.setCodigo("K071");
+        nuevo.setEstado(EstadoKart.DISPONIBLE);
+        flota.add(nuevo);
+        flota.get(9).setEstado(EstadoKart.NO_DISPONIBLE);
+        disponibilidad.invalidarFlota();
+
+        List<Long> disponibles = ids(disponibilidad.disponibles(FECHA, LocalTime.of(15, 0), 30));
+
+        assertTrue(disponibles.contains(71L));
+        assertFalse(disponibles.contains(10L));
+        assertFalse(disponibles.contains(66L));
+        // Con otros karts cambian los bits, así que el día se arma de nuevo
+        verify(ocupacionKartRepository, times(2)).findByFecha(FECHA);
+    }
+
+    @Test
+    public void reservaQueEmpiezaAlTerminarOtraTest() {
+        // El kart 4 está reservado de 10:00 a 10:40 (20 vueltas)
+        List<OcupacionKartEntity> ocupaciones = new ArrayList<>(ocupacionKartRepository.findByFecha(FECHA));
+        ocupaciones.addAll(ocupacion(4L, LocalTime.of(10, 0), 40, 2L));
+        when(ocupacionKartRepository.findByFecha(FECHA)).thenReturn(ocupaciones);
+        DisponibilidadKarts disponibilidad = new DisponibilidadKarts(kartRepository, reservaRepository, ocupacionKartRepository, 60_000, 60);
+
+        assertTrue(ids(disponibilidad.disponibles(FECHA, LocalTime.of(10, 40), 30)).contains(4L));
+        assertTrue(ids(disponibilidad.disponibles(FECHA, LocalTime.of(9, 30), 30)).contains(4L));
+        assertFalse(ids(disponibilidad.disponibles(FECHA, LocalTime.of(10, 35), 30)).contains(4L));
+        assertFalse(ids(disponibilidad.disponibles(FECHA, LocalTime.of(9, 35), 30)).contains(4L));
+    }
+
+    // Filas de ocupación como las registra OcupacionKartService
+    private List<OcupacionKartEntity> ocupacion(long kartId, LocalTime hora, int minutos, long reservaId) {
+        List<OcupacionKartEntity> filas = new ArrayList<>();
+        for (int slot = OcupacionKartService.primerSlot(hora); slot < OcupacionKartService.finSlots(hora, minutos); slot++) {
+            filas.add(new OcupacionKartEntity(null, kartId, FECHA, slot, reservaId));
+        }
+        return filas;
+    }
+
+    private List<Long> ids(List<KartEntity> karts) {
+        return karts.stream().map(KartEntity::getId).toList();
+    }
+}
@@ -0,0 +1,90 @@
+package edu.mtisw.KartingRM.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Envíos reales por SMTP contra un servidor en memoria.
+ */
+@ActiveProfiles("test")
+public class EmailServiceSmtpTest {
+
+    private ServidorSmtpPrueba servidorSmtp;
+
+    private EmailService emailService;
+
+    private final byte[] comprobantePdf = new byte[2048];
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        servidorSmtp = new ServidorSmtpPrueba(0);
+        emailService = crearEmailService(servidorSmtp.getPuerto());
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        servidorSmtp.close();
+    }
+
+    @Test
+    public void enviarComprobantesEnUnaConexionTest() {
+        List<String> emails = List.of("a@gmail.com", "b@gmail.com", "c@gmail.com", "d@gmail.com", "e@gmail.com");
+
+        Map<String, Exception> fallidos = emailService.enviarComprobantes(emails, comprobantePdf);
+
+        assertTrue(fallidos.isEmpty());
+        assertEquals(1, servidorSmtp.getConexiones());
+        assertEquals(5, servidorSmtp.getMensajes());
+    }
+
+    @Test
+    public void enviarComprobantesInformaFallosPorDestinatarioTest() {
+        servidorSmtp.rechazar("malo@gmail.com");
+
+        Map<String, Exception> fallidos = emailService.enviarComprobantes(
+                List.of("a@gmail.com", "malo@gmail.com", "c@gmail.com"), comprobantePdf);
+
+        // El rechazo de un destinatario no corta la sesión para los demás
+        assertEquals(1, fallidos.size());
+        assertTrue(fallidos.containsKey("malo@gmail.com"));
+        assertEquals(1, servidorSmtp.getConexiones());
+        assertEquals(2, servidorSmtp.getMensajes());
+    }
+
+    @Test
+    public void enviarComprobantesSinServidorTest() throws IOException {
+        int puerto = servidorSmtp.getPuerto();
+        servidorSmtp.close();
+        EmailService sinServidor = crearEmailService(puerto);
+
+        Map<String, Exception> fallidos = sinServidor.enviarComprobantes(List.of("a@gmail.com", "b@gmail.com"), comprobantePdf);
+
+        assertEquals(2, fallidos.size());
+    }
+
+    private EmailService crearEmailService(int puerto) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(puerto);
+        mailSender.getJavaMailProperties().put("mail.smtp.from", "kartodromo@localhost");
+        // Sin esto JavaMail resuelve el nombre del equipo en cada EHLO y Message-ID
+        mailSender.getJavaMailProperties().put("mail.from", "kartodromo@localhost");
+        mailSender.getJavaMailProperties().put("mail.smtp.localhost", "localhost");
+        mailSender.getJavaMailProperties().put("mail.smtp.connectiontimeout", "2000");
+        mailSender.getJavaMailProperties().put("mail.smtp.timeout", "2000");
+
+        EmailService servicio = new EmailService();
+        ReflectionTestUtils.setField(servicio, "mailSender", mailSender);
+        return servicio;
+    }
+}
@@ -6,9 +6,13 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -62,4 +66,32 @@ public class EmailServiceTest {
         
         assertTrue(exception.getMessage().contains("Error al enviar el correo"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void enviarComprobantesEnUnSoloEnvioTest() {
+        MimeMessage mensaje1 = mock(MimeMessage.class);
+        MimeMessage mensaje2 = mock(MimeMessage.class);
+        MimeMessage mensaje3 = mock(MimeMessage.class);
+        when(mailSender.createMimeMessage()).thenReturn(mensaje1, mensaje2, mensaje3);
+
+        Map<String, Exception> fallidos = emailService.enviarComprobantes(
+                List.of("a@gmail.com", "b@gmail.com", "c@gmail.com"), comprobantePdf);
+
+        assertTrue(fallidos.isEmpty());
+        verify(mailSender, times(1)).send(mensaje1, mensaje2, mensaje3);
+    }
+
+    @Test
+    public void enviarComprobantesFalloParcialTest() {
+        MimeMessage mensaje1 = mock(MimeMessage.class);
+        MimeMessage mensaje2 = mock(MimeMessage.class);
+        when(mailSender.createMimeMessage()).thenReturn(mensaje1, mensaje2);
+        Exception rechazo = new RuntimeException("550 Destinatario inexistente");
+        doThrow(new MailSendException(Map.of(mensaje2, rechazo))).when(mailSender).send(mensaje1, mensaje2);
+
+        Map<String, Exception> fallidos = emailService.enviarComprobantes(
+                List.of("a@gmail.com", "malo@gmail.com"), comprobantePdf);
+
+        assertEquals(Map.of("malo@gmail.com", rechazo), fallidos);
+    }
+}
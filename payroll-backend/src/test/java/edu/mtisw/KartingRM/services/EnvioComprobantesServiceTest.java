@@ -0,0 +1,237 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.dtos.EstadoEnvioDTO;
+import edu.mtisw.KartingRM.entities.ClienteEntity;
+import edu.mtisw.KartingRM.entities.EnvioComprobanteEntity;
+import edu.mtisw.KartingRM.entities.ReservaEntity;
+import edu.mtisw.KartingRM.repositories.EnvioComprobanteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ActiveProfiles("test")
+public class EnvioComprobantesServiceTest {
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private ComprobanteService comprobanteService;
+
+    @Mock
+    private EnvioComprobanteRepository envioComprobanteRepository;
+
+    private EnvioComprobantesService envioComprobantesService;
+
+    // Envíos guardados por el servicio; las tareas los van actualizando
+    private final List<EnvioComprobanteEntity> envios = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(comprobanteService.obtenerComprobante(any(ReservaEntity.class))).thenReturn(new byte[100]);
+        when(envioComprobanteRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<EnvioComprobanteEntity> guardados = invocation.getArgument(0);
+            envios.addAll(guardados);
+            return guardados;
+        });
+        envioComprobantesService = crearServicio(4, 100);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        envioComprobantesService.detener();
+    }
+
+    @Test
+    public void encolarEnviaATodosLosClientesTest() throws InterruptedException {
+        EstadoEnvioDTO estado = envioComprobantesService.encolar(crearReserva("a@gmail.com", "b@gmail.com", "c@gmail.com"));
+
+        // La respuesta llega antes de que terminen los envíos
+        assertNotNull(estado.getTrabajoId());
+        assertEquals("en_curso", estado.getEstado());
+        assertEquals(3, estado.getDestinatarios().size());
+        verify(comprobanteService, times(1)).obtenerComprobante(any(ReservaEntity.class));
+
+        esperarEnvios();
+        for (EnvioComprobanteEntity envio : envios) {
+            assertEquals(EnvioComprobantesService.ENVIADO, envio.getEstado());
+            assertEquals(1, envio.getIntentos());
+            assertEquals(estado.getTrabajoId(), envio.getTrabajoId());
+        }
+        // Los tres destinatarios salen juntos, en una sola sesión SMTP
+        verify(emailService, times(1)).enviarComprobantes(eq(List.of("a@gmail.com", "b@gmail.com", "c@gmail.com")), any());
+    }
+
+    @Test
+    public void reintentosPorDestinatarioTest() throws InterruptedException {
+        AtomicInteger llamadasB = new AtomicInteger();
+        when(emailService.enviarComprobantes(anyList(), any())).thenAnswer(invocation -> {
+            List<String> emails = invocation.getArgument(0);
+            Map<String, Exception> fallidos = new HashMap<>();
+            Exception rechazo = new RuntimeException("Error al enviar el correo", new RuntimeException("Connection refused"));
+            if (emails.contains("malo@gmail.com")) {
+                fallidos.put("malo@gmail.com", rechazo);
+            }
+            if (emails.contains("b@gmail.com") && llamadasB.incrementAndGet() == 1) {
+                fallidos.put("b@gmail.com", rechazo);
+            }
+            return fallidos;
+        });
+
+        envioComprobantesService.encolar(crearReserva("a@gmail.com", "b@gmail.com", "malo@gmail.com"));
+        esperarEnvios();
+
+        EnvioComprobanteEntity a = buscarEnvio("a@gmail.com");
+        EnvioComprobanteEntity b = buscarEnvio("b@gmail.com");
+        EnvioComprobanteEntity malo = buscarEnvio("malo@gmail.com");
+
+        assertEquals(EnvioComprobantesService.ENVIADO, a.getEstado());
+        assertEquals(1, a.getIntentos());
+        // El segundo intento funcionó y el error anterior se limpia
+        assertEquals(EnvioComprobantesService.ENVIADO, b.getEstado());
+        assertEquals(2, b.getIntentos());
+        assertNull(b.getError());
+        assertEquals(EnvioComprobantesService.FALLIDO, malo.getEstado());
+        assertEquals(3, malo.getIntentos());
+        assertEquals("Connection refused", malo.getError());
+        // Los reintentos solo incluyen a los destinatarios que fallaron
+        verify(emailService).enviarComprobantes(eq(List.of("b@gmail.com", "malo@gmail.com")), any());
+        verify(emailService).enviarComprobantes(eq(List.of("malo@gmail.com")), any());
+    }
+
+    @Test
+    public void colaLlenaRechazaNuevasSolicitudesTest() throws InterruptedException {
+        envioComprobantesService.detener();
+        envioComprobantesService = crearServicio(1, 1);
+
+        CountDownLatch smtpBloqueado = new CountDownLatch(1);
+        when(emailService.enviarComprobantes(anyList(), any())).thenAnswer(invocation -> {
+            smtpBloqueado.await(5, TimeUnit.SECONDS);
+            return Map.of();
+        });
+
+        // Un envío ocupa el único hilo, otro ocupa el único lugar de la cola
+        envioComprobantesService.encolar(crearReserva("a@gmail.com"));
+        envioComprobantesService.encolar(crearReserva("b@gmail.com"));
+
+        assertThrows(RejectedExecutionException.class,
+                () -> envioComprobantesService.encolar(crearReserva("c@gmail.com")));
+        verify(envioComprobanteRepository, times(1)).deleteAll(anyList());
+
+        smtpBloqueado.countDown();
+    }
+
+    @Test
+    public void esperaDeReintentoNoOcupaElHiloTest() throws InterruptedException {
+        envioComprobantesService.detener();
+        envioComprobantesService = crearServicio(1, 10, 60_000);
+        when(emailService.enviarComprobantes(anyList(), any())).thenAnswer(invocation -> {
+            List<String> emails = invocation.getArgument(0);
+            return emails.contains("malo@gmail.com")
+                    ? Map.of("malo@gmail.com", new RuntimeException("Connection refused"))
+                    : Map.of();
+        });
+
+        envioComprobantesService.encolar(crearReserva("malo@gmail.com"));
+        long limite = System.currentTimeMillis() + 5000;
+        while (buscarEnvio("malo@gmail.com").getIntentos() == 0) {
+            assertTrue(System.currentTimeMillis() < limite, "El primer intento no terminó a tiempo");
+            Thread.sleep(10);
+        }
+        // El único hilo queda libre durante el minuto de espera del reintento
+        envioComprobantesService.encolar(crearReserva("a@gmail.com"));
+        while (!EnvioComprobantesService.ENVIADO.equals(buscarEnvio("a@gmail.com").getEstado())) {
+            assertTrue(System.currentTimeMillis() < limite, "El segundo envío esperó al reintento del primero");
+            Thread.sleep(10);
+        }
+
+        EnvioComprobanteEntity malo = buscarEnvio("malo@gmail.com");
+        assertEquals(EnvioComprobantesService.PENDIENTE, malo.getEstado());
+        assertEquals(1, malo.getIntentos());
+        verify(emailService, times(1)).enviarComprobantes(eq(List.of("malo@gmail.com")), any());
+    }
+
+    @Test
+    public void recuperarAbandonadosTest() {
+        when(envioComprobanteRepository.marcarAbandonados(anyString(), anyString(), anyString(), any(), any())).thenReturn(2);
+        LocalDateTime antes = LocalDateTime.now();
+
+        envioComprobantesService.recuperarAbandonados();
+
+        // Solo los pendientes sin cambios en los últimos 30 minutos
+        verify(envioComprobanteRepository).marcarAbandonados(eq(EnvioComprobantesService.PENDIENTE),
+                eq(EnvioComprobantesService.FALLIDO), anyString(),
+                argThat(limite -> !limite.isBefore(antes.minusMinutes(30)) && limite.isBefore(antes.minusMinutes(29))),
+                any());
+    }
+
+    @Test
+    public void obtenerEstadoTest() {
+        List<EnvioComprobanteEntity> guardados = new ArrayList<>();
+        guardados.add(new EnvioComprobanteEntity(1L, "t1", 7L, "a@gmail.com", "enviado", 1, null, LocalDateTime.now()));
+        guardados.add(new EnvioComprobanteEntity(2L, "t1", 7L, "b@gmail.com", "fallido", 3, "Connection refused", LocalDateTime.now()));
+        when(envioComprobanteRepository.findByTrabajoIdOrderByIdAsc("t1")).thenReturn(guardados);
+        when(envioComprobanteRepository.findByTrabajoIdOrderByIdAsc("otro")).thenReturn(List.of());
+
+        Optional<EstadoEnvioDTO> estado = envioComprobantesService.obtenerEstado("t1");
+
+        assertTrue(estado.isPresent());
+        assertEquals(7L, estado.get().getReservaId());
+        assertEquals("con_errores", estado.get().getEstado());
+        assertEquals("fallido", estado.get().getDestinatarios().get(1).getEstado());
+        assertFalse(envioComprobantesService.obtenerEstado("otro").isPresent());
+    }
+
+    private EnvioComprobantesService crearServicio(int hilos, int capacidadCola) {
+        return crearServicio(hilos, capacidadCola, 1);
+    }
+
+    private EnvioComprobantesService crearServicio(int hilos, int capacidadCola, long esperaReintentoMs) {
+        return new EnvioComprobantesService(emailService, comprobanteService, envioComprobanteRepository,
+                hilos, capacidadCola, 3, esperaReintentoMs, 30);
+    }
+
+    private ReservaEntity crearReserva(String... emails) {
+        ReservaEntity reserva = new ReservaEntity();
+        reserva.setId(1L);
+        reserva.setClientes(new ArrayList<>());
+        for (String email : emails) {
+            ClienteEntity cliente = new ClienteEntity();
+            cliente.setEmail(email);
+            reserva.getClientes().add(cliente);
+        }
+        return reserva;
+    }
+
+    private EnvioComprobanteEntity buscarEnvio(String email) {
+        return envios.stream().filter(envio -> envio.getEmail().equals(email)).findFirst().orElseThrow();
+    }
+
+    private void esperarEnvios() throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5000;
+        while (envios.stream().anyMatch(envio -> EnvioComprobantesService.PENDIENTE.equals(envio.getEstado()))) {
+            assertTrue(System.currentTimeMillis() < limite, "Los envíos no terminaron a tiempo");
+            Thread.sleep(10);
+        }
+    }
+}
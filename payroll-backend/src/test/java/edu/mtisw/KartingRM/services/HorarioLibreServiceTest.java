@@ -0,0 +1,173 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.config.RackProperties;
+import edu.mtisw.KartingRM.config.TarifaProperties;
+import edu.mtisw.KartingRM.dtos.HorarioLibreDTO;
+import edu.mtisw.KartingRM.dtos.KartReservadoDTO;
+import edu.mtisw.KartingRM.entities.EstadoKart;
+import edu.mtisw.KartingRM.entities.KartEntity;
+import edu.mtisw.KartingRM.entities.OcupacionKartEntity;
+import edu.mtisw.KartingRM.entities.ReservaEntity;
+import edu.mtisw.KartingRM.repositories.KartRepository;
+import edu.mtisw.KartingRM.repositories.OcupacionKartRepository;
+import edu.mtisw.KartingRM.repositories.ReservaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ActiveProfiles("test")
+public class HorarioLibreServiceTest {
+
+    private static final LocalDate LUNES = LocalDate.of(2030, 1, 7);
+
+    @Mock
+    private ReservaRepository reservaRepository;
+
+    @Mock
+    private KartRepository kartRepository;
+
+    private HorarioLibreService horarioLibreService;
+    private List<KartReservadoDTO> kartsReservados;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        horarioLibreService = new HorarioLibreService(reservaRepository, kartRepository,
+                new HorarioRack(new RackProperties()), new MotorTarifas(new TarifaProperties()));
+
+        // 10 karts; el 10 está en mantención
+        List<KartEntity> flota = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            KartEntity kart = new KartEntity();
+            kart.setId(id);
+            kart.setEstado(id == 10 ? EstadoKart.NO_DISPONIBLE : EstadoKart.DISPONIBLE);
+            flota.add(kart);
+        }
+        when(kartRepository.findAll(any(Sort.class))).thenReturn(flota);
+
+        kartsReservados = new ArrayList<>();
+        // Reserva 1: lunes 9:00 por 30 minutos con los karts 1 a 6
+        reservar(1L, LUNES, LocalTime.of(9, 0), 30, 1L, 2L, 3L, 4L, 5L, 6L);
+        // Reserva 2: lunes 10:20 por 30 minutos con los karts 1 a 5
+        reservar(2L, LUNES, LocalTime.of(10, 20), 30, 1L, 2L, 3L, 4L, 5L);
+        // Reserva 3: lunes 10:50 por 40 minutos con los karts 6 a 9, toca el bloque de las 11:00
+        reservar(3L, LUNES, LocalTime.of(10, 50), 40, 6L, 7L, 8L, 9L);
+        when(reservaRepository.findKartsReservadosByFechaReservaBetween(any(), any())).thenReturn(kartsReservados);
+    }
+
+    @Test
+    public void primerosHorariosConKartsSuficientesTest() {
+        List<HorarioLibreDTO> horarios = horarioLibreService.buscarHorariosLibres(6, 10, LUNES, LUNES.plusDays(6), 3);
+
+        // 9:00 deja 3 libres, 10:00 deja 4 y 11:00 deja 5; el primero con 6 es el de las 12:00
+        assertEquals(List.of(
+                new HorarioLibreDTO(LUNES, LocalTime.of(12, 0), 9),
+                new HorarioLibreDTO(LUNES, LocalTime.of(14, 0), 9),
+                new HorarioLibreDTO(LUNES, LocalTime.of(15, 0), 9)), horarios);
+        // Una sola lectura para todo el rango
+        verify(reservaRepository, times(1)).findKartsReservadosByFechaReservaBetween(LUNES, LUNES.plusDays(6));
+    }
+
+    @Test
+    public void grupoChicoTomaElPrimerBloqueTest() {
+        List<HorarioLibreDTO> horarios = horarioLibreService.buscarHorariosLibres(3, 10, LUNES, LUNES, 2);
+
+        assertEquals(List.of(
+                new HorarioLibreDTO(LUNES, LocalTime.of(9, 0), 3),
+                new HorarioLibreDTO(LUNES, LocalTime.of(10, 0), 4)), horarios);
+    }
+
+    @Test
+    public void sinHorariosSuficientesTest() {
+        List<HorarioLibreDTO> horarios = horarioLibreService.buscarHorariosLibres(10, 10, LUNES, LUNES.plusDays(6), 5);
+
+        // Hay 9 karts en estado disponible: ningún bloque alcanza para 10
+        assertTrue(horarios.isEmpty());
+    }
+
+    @Test
+    public void mismoModeloDeSolapeQueAlReservarTest() {
+        // Un bloque que empieza fuera de la grilla de slots, para ver el redondeo
+        RackProperties rack = new RackProperties();
+        rack.setBloques(List.of("10:00-11:00", "12:33-13:30"));
+        horarioLibreService = new HorarioLibreService(reservaRepository, kartRepository,
+                new HorarioRack(rack), new MotorTarifas(new TarifaProperties()));
+        KartEntity kart = new KartEntity();
+        kart.setId(1L);
+        kart.setEstado(EstadoKart.DISPONIBLE);
+        when(kartRepository.findAll(any(Sort.class))).thenReturn(List.of(kart));
+        kartsReservados.clear();
+        // El kart está reservado de 10:40 a 11:20 y, con una hora antigua fuera de la grilla, de 12:01 a 12:31
+        reservar(1L, LUNES, LocalTime.of(10, 40), 40, 1L);
+        reservar(2L, LUNES, LocalTime.of(12, 1), 30, 1L);
+
+        // 15 vueltas son 35 minutos
+        List<HorarioLibreDTO> horarios = horarioLibreService.buscarHorariosLibres(1, 15, LUNES, LUNES, 5);
+
+        // 10:00 termina justo antes de la primera reserva; 12:33 cae en el slot de las 12:30, ya tomado
+        assertEquals(List.of(new HorarioLibreDTO(LUNES, LocalTime.of(10, 0), 1)), horarios);
+        // Al confirmar se llega a lo mismo
+        assertFalse(chocanAlReservar(LocalTime.of(10, 40), 40, LocalTime.of(10, 0), 35));
+        assertTrue(chocanAlReservar(LocalTime.of(12, 1), 30, LocalTime.of(12, 33), 35));
+    }
+
+    @Test
+    public void parametrosInvalidosTest() {
+        assertThrows(IllegalArgumentException.class,
+                () -> horarioLibreService.buscarHorariosLibres(0, 10, LUNES, LUNES, 5));
+        assertThrows(IllegalArgumentException.class,
+                () -> horarioLibreService.buscarHorariosLibres(4, 12, LUNES, LUNES, 5));
+        assertThrows(IllegalArgumentException.class,
+                () -> horarioLibreService.buscarHorariosLibres(4, 10, LUNES, LUNES.minusDays(1), 5));
+        assertThrows(IllegalArgumentException.class,
+                () -> horarioLibreService.buscarHorariosLibres(4, 10, LUNES, LUNES.plusDays(HorarioLibreService.MAX_DIAS), 5));
+        assertThrows(IllegalArgumentException.class,
+                () -> horarioLibreService.buscarHorariosLibres(4, 10, LUNES, LUNES, HorarioLibreService.MAX_RESULTADOS + 1));
+        verifyNoInteractions(reservaRepository);
+    }
+
+    // Si dos reservas del mismo kart comparten algún slot en la ocupación de karts
+    private boolean chocanAlReservar(LocalTime horaA, int duracionA, LocalTime horaB, int duracionB) {
+        return !Collections.disjoint(slotsAlReservar(horaA, duracionA), slotsAlReservar(horaB, duracionB));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<Integer> slotsAlReservar(LocalTime hora, int duracion) {
+        OcupacionKartRepository ocupacionKartRepository = mock(OcupacionKartRepository.class);
+        KartEntity kart = new KartEntity();
+        kart.setId(1L);
+        ReservaEntity reserva = new ReservaEntity();
+        reserva.setFechaReserva(LUNES);
+        reserva.setHoraReserva(hora);
+        reserva.setDuracionTotal(duracion);
+        reserva.setKarts(List.of(kart));
+
+        new OcupacionKartService(ocupacionKartRepository).registrarOcupacion(reserva);
+
+        ArgumentCaptor<List<OcupacionKartEntity>> filas = ArgumentCaptor.forClass(List.class);
+        verify(ocupacionKartRepository).saveAllAndFlush(filas.capture());
+        return filas.getValue().stream().map(OcupacionKartEntity::getSlot).collect(Collectors.toSet());
+    }
+
+    private void reservar(Long reservaId, LocalDate fecha, LocalTime hora, int duracion, Long... kartIds) {
+        for (Long kartId : kartIds) {
+            kartsReservados.add(new KartReservadoDTO(reservaId, fecha, hora, duracion, kartId));
+        }
+    }
+}
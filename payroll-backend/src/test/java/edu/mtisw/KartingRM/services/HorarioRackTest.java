@@ -0,0 +1,67 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.config.RackProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.time.DayOfWeek;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HorarioRackTest {
+
+    @Test
+    public void primerBloqueRespetaPausaDeAlmuerzoTest() {
+        HorarioRack.BloquesDia lunes = new HorarioRack(new RackProperties()).dia(DayOfWeek.MONDAY);
+
+        assertEquals(7, lunes.cantidad());
+        assertEquals("09:00-10:00", lunes.etiqueta(lunes.primerBloque(9 * 60 + 30)));
+        // A las 13:30 no hay bloque abierto: el siguiente es el de las 14:00
+        assertEquals("14:00-15:00", lunes.etiqueta(lunes.primerBloque(13 * 60 + 30)));
+        // Después del último bloque no queda ninguno
+        assertEquals(lunes.cantidad(), lunes.primerBloque(17 * 60));
+    }
+
+    @Test
+    public void bloquesPorDiaReemplazanLosGeneralesTest() {
+        RackProperties properties = new RackProperties();
+        properties.getBloquesPorDia().put(DayOfWeek.SATURDAY, List.of("10:00-12:00", "12:00-14:00"));
+
+        HorarioRack horarioRack = new HorarioRack(properties);
+
+        assertEquals(2, horarioRack.dia(DayOfWeek.SATURDAY).cantidad());
+        assertEquals("12:00-14:00", horarioRack.dia(DayOfWeek.SATURDAY).etiqueta(1));
+        assertEquals(7, horarioRack.dia(DayOfWeek.FRIDAY).cantidad());
+    }
+
+    @Test
+    public void bloquesPorDiaDesdePropiedadesTest() {
+        // Las mismas claves que en application.properties, con el día en minúsculas
+        Map<String, String> propiedades = Map.of(
+                "rack.bloques", "09:00-10:00,10:00-11:00,11:00-12:00",
+                "rack.bloques-por-dia.saturday", "10:00-12:00,12:00-14:00,15:00-17:00");
+        RackProperties properties = new Binder(new MapConfigurationPropertySource(propiedades))
+                .bind("rack", RackProperties.class).get();
+
+        HorarioRack horarioRack = new HorarioRack(properties);
+
+        HorarioRack.BloquesDia sabado = horarioRack.dia(DayOfWeek.SATURDAY);
+        assertEquals(3, sabado.cantidad());
+        assertEquals("15:00-17:00", sabado.etiqueta(2));
+        assertEquals(2, sabado.primerBloque(14 * 60 + 30));
+        HorarioRack.BloquesDia viernes = horarioRack.dia(DayOfWeek.FRIDAY);
+        assertEquals(3, viernes.cantidad());
+        assertEquals("09:00-10:00", viernes.etiqueta(0));
+    }
+
+    @Test
+    public void bloquesSolapadosSonRechazadosTest() {
+        RackProperties properties = new RackProperties();
+        properties.setBloques(List.of("09:00-10:30", "10:00-11:00"));
+
+        assertThrows(IllegalStateException.class, () -> new HorarioRack(properties));
+    }
+}
@@ -0,0 +1,137 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.dtos.ResultadoImportacionClientesDTO;
+import edu.mtisw.KartingRM.entities.ClienteEntity;
+import edu.mtisw.KartingRM.repositories.ClienteRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Contra H2 y con bloques de 3 líneas, para cruzar varios bloques con pocas filas.
+ */
+@ActiveProfiles("test")
+@DataJpaTest(properties = "clientes.importacion.tamano-bloque=3")
+@Import(ImportacionClientesService.class)
+public class ImportacionClientesServiceTest {
+
+    @Autowired
+    private ImportacionClientesService importacionClientesService;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void importarConErroresPorLineaTest() throws IOException {
+        ClienteEntity existente = new ClienteEntity();
+        existente.setNombre("Cliente Registrado");
+        existente.setEmail("registrado@gmail.com");
+        clienteRepository.save(existente);
+
+        String csv = "﻿nombre,email,fechaNacimiento,numeroVisitas\n" +
+                "Ana Pérez,ana@gmail.com,1990-05-15,2\n" +
+                "\"Soto, Pedro\",pedro@gmail.com,,\n" +
+                "Sin Correo Gmail,sin@hotmail.com\n" +
+                "Otra Ana,ANA@gmail.com\n" +
+                "\n" +
+                "Registrado Otra Vez,Registrado@gmail.com\n" +
+                "Fecha Mala,fecha@gmail.com,15-05-1990\n" +
+                ",sinnombre@gmail.com\n" +
+                "Luis Rojas,luis@gmail.com,2001-01-31,0\n" +
+                "Solo Nombre\n";
+
+        ResultadoImportacionClientesDTO resultado = importacionClientesService.importar(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(9, resultado.getProcesadas());
+        assertEquals(3, resultado.getCreados());
+        assertEquals(6, resultado.getConError());
+        assertEquals(List.of(
+                "Línea 4: El correo debe ser una dirección válida de Gmail.",
+                "Línea 5: El correo ANA@gmail.com ya aparece antes en el archivo.",
+                "Línea 7: Ya existe un cliente con el correo Registrado@gmail.com.",
+                "Línea 8: La fecha de nacimiento 15-05-1990 no tiene el formato AAAA-MM-DD.",
+                "Línea 9: El nombre es obligatorio.",
+                "Línea 11: Se esperaban de 2 a 4 columnas y hay 1."), resultado.getErrores());
+
+        List<ClienteEntity> clientes = clienteRepository.findAll();
+        clientes.sort(Comparator.comparing(ClienteEntity::getNombre));
+        assertEquals(List.of("Ana Pérez", "Cliente Registrado", "Luis Rojas", "Soto, Pedro"),
+                clientes.stream().map(ClienteEntity::getNombre).toList());
+        assertEquals(LocalDate.of(1990, 5, 15), clientes.get(0).getFechaNacimiento());
+        assertEquals(2, clientes.get(0).getNumeroVisitas());
+        assertNull(clientes.get(3).getFechaNacimiento());
+    }
+
+    // Sin la transacción de la prueba, para que cada bloque tenga la suya como en producción
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void importarConBloqueFallidoTest() throws IOException {
+        // H2 no indexa expresiones: con correos en minúscula basta el índice sobre email
+        jdbcTemplate.execute("CREATE UNIQUE INDEX " + ImportacionClientesService.INDICE_CORREO_UNICO + " ON clientes (email)");
+        try {
+            String csv = "nombre,email\n" +
+                    "Marta Díaz,marta@gmail.com\n" +
+                    "Cliente Concurrente,concurrente@gmail.com\n" +
+                    "Jorge Vera,jorge@gmail.com\n" +
+                    "Nombre Muy Largo " + "x".repeat(300) + ",largo@gmail.com\n" +
+                    "Rosa Lagos,rosa@gmail.com\n" +
+                    "Tomás Pinto,tomas@gmail.com\n";
+            // Otra petición crea el cliente después de la foto de correos registrados
+            InputStream cuerpo = new FilterInputStream(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))) {
+                private boolean creado;
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    if (!creado) {
+                        creado = true;
+                        jdbcTemplate.update("INSERT INTO clientes (id, nombre, numero_visitas, email) " +
+                                "VALUES (900000, 'Creado en paralelo', 0, 'concurrente@gmail.com')");
+                    }
+                    return super.read(b, off, len);
+                }
+            };
+
+            ResultadoImportacionClientesDTO resultado = importacionClientesService.importar(cuerpo);
+
+            assertEquals(6, resultado.getProcesadas());
+            assertEquals(4, resultado.getCreados());
+            assertEquals(2, resultado.getConError());
+            assertEquals("Línea 3: Ya existe un cliente con el correo concurrente@gmail.com.", resultado.getErrores().get(0));
+            assertTrue(resultado.getErrores().get(1).startsWith("Línea 5: No se pudo guardar el cliente: "));
+            // El de la otra petición queda; el de la línea 3 no se duplica y el resto del bloque sí se guarda
+            assertEquals(List.of("Creado en paralelo", "Jorge Vera", "Marta Díaz", "Rosa Lagos", "Tomás Pinto"),
+                    clienteRepository.findAll().stream().map(ClienteEntity::getNombre).sorted().toList());
+        } finally {
+            jdbcTemplate.execute("DROP INDEX " + ImportacionClientesService.INDICE_CORREO_UNICO);
+            jdbcTemplate.update("DELETE FROM clientes");
+        }
+    }
+
+    @Test
+    public void separarCamposConComillasTest() {
+        assertEquals(List.of("Ana", "ana@gmail.com"), ImportacionClientesService.separarCampos(" Ana , ana@gmail.com "));
+        assertEquals(List.of("Pedro \"el rápido\", Soto", "p@gmail.com", ""),
+                ImportacionClientesService.separarCampos("\"Pedro \"\"el rápido\"\", Soto\",p@gmail.com,"));
+        assertThrows(IllegalArgumentException.class, () -> ImportacionClientesService.separarCampos("\"Ana,ana@gmail.com"));
+    }
+}
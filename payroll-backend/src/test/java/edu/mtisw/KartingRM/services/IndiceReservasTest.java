@@ -0,0 +1,52 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.dtos.KartReservadoDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+public class IndiceReservasTest {
+
+    private static final LocalDate DIA = LocalDate.of(2030, 1, 7);
+
+    @Test
+    public void ocupadosSoloDeLasReservasQueSeSolapanTest() {
+        List<KartReservadoDTO> filas = new ArrayList<>();
+        // Kart 0 de 10:00 a 10:30, kart 1 de 10:00 a 11:00 (mismo inicio), kart 65 de 10:30 a 10:45
+        filas.add(new KartReservadoDTO(1L, DIA, LocalTime.of(10, 0), 30, 100L));
+        filas.add(new KartReservadoDTO(2L, DIA, LocalTime.of(10, 0), 60, 101L));
+        filas.add(new KartReservadoDTO(3L, DIA, LocalTime.of(10, 30), 15, 165L));
+        // Kart 2 al día siguiente a la misma hora; kart 3 ya no está en la flota
+        filas.add(new KartReservadoDTO(4L, DIA.plusDays(1), LocalTime.of(10, 0), 30, 102L));
+        filas.add(new KartReservadoDTO(4L, DIA.plusDays(1), LocalTime.of(10, 0), 30, 999L));
+        // Sin hora no ocupa nada
+        filas.add(new KartReservadoDTO(5L, DIA, null, 30, 102L));
+        Map<Long, Integer> indices = new HashMap<>();
+        for (int i = 0; i < 70; i++) {
+            indices.put(100L + i, i);
+        }
+
+        IndiceReservas indice = new IndiceReservas(DIA, filas, indices, 2);
+
+        assertArrayEquals(new long[]{0b11, 0}, indice.ocupados(minuto(0, 10, 0), minuto(0, 10, 30)));
+        // Los intervalos son semiabiertos: lo que termina a las 10:30 no choca con lo que empieza a esa hora
+        assertArrayEquals(new long[]{0b10, 0b10}, indice.ocupados(minuto(0, 10, 30), minuto(0, 11, 0)));
+        assertArrayEquals(new long[]{0b10, 0}, indice.ocupados(minuto(0, 10, 45), minuto(0, 11, 15)));
+        assertArrayEquals(new long[]{0, 0}, indice.ocupados(minuto(0, 11, 0), minuto(0, 12, 0)));
+        assertArrayEquals(new long[]{0, 0}, indice.ocupados(minuto(0, 9, 0), minuto(0, 10, 0)));
+        assertArrayEquals(new long[]{0b100, 0}, indice.ocupados(minuto(1, 10, 15), minuto(1, 10, 20)));
+    }
+
+    private int minuto(int dia, int hora, int minuto) {
+        return dia * IndiceReservas.MINUTOS_POR_DIA + hora * 60 + minuto;
+    }
+}
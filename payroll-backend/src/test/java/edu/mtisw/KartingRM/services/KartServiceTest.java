@@ -1,5 +1,10 @@
 package edu.mtisw.KartingRM.services;
 
+import edu.mtisw.KartingRM.config.PaginacionProperties;
+import edu.mtisw.KartingRM.config.TarifaProperties;
+import edu.mtisw.KartingRM.dtos.KartListaDTO;
+import edu.mtisw.KartingRM.dtos.PaginaDTO;
+import edu.mtisw.KartingRM.entities.EstadoKart;
 import edu.mtisw.KartingRM.entities.KartEntity;
 import edu.mtisw.KartingRM.repositories.KartRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -7,8 +12,12 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -22,6 +31,15 @@ public class KartServiceTest {
     @Mock
     private KartRepository kartRepository;
 
+    @Spy
+    private PaginacionProperties paginacionProperties = new PaginacionProperties();
+
+    @Mock
+    private DisponibilidadKarts disponibilidadKarts;
+
+    @Spy
+    private MotorTarifas motorTarifas = new MotorTarifas(new TarifaProperties());
+
     @InjectMocks
     private KartService kartService;
 
@@ -36,7 +54,7 @@ public class KartServiceTest {
         kart = new KartEntity();
         kart.setId(1L);
         kart.setCodigo("K001");
-        kart.setEstado("disponible");
+        kart.setEstado(EstadoKart.DISPONIBLE);
 
         // Lista de karts
         kartsList = new ArrayList<>();
@@ -63,8 +81,9 @@ public class KartServiceTest {
         assertNotNull(result);
         assertEquals(1L, result.getId());
         assertEquals("K001", result.getCodigo());
-        assertEquals("disponible", result.getEstado());
+        assertEquals(EstadoKart.DISPONIBLE, result.getEstado());
         verify(kartRepository, times(1)).save(any(KartEntity.class));
+        verify(disponibilidadKarts, times(1)).invalidarFlota();
     }
     
     @Test
@@ -72,7 +91,7 @@ public class KartServiceTest {
         KartEntity kart2 = new KartEntity();
         kart2.setId(2L);
         kart2.setCodigo("K002");
-        kart2.setEstado("disponible");
+        kart2.setEstado(EstadoKart.DISPONIBLE);
         
         when(kartRepository.save(kart2)).thenReturn(kart2);
         
@@ -85,4 +104,37 @@ public class KartServiceTest {
         assertEquals("K002", result2.getCodigo());
         verify(kartRepository, times(2)).save(any(KartEntity.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void listarPaginaTest() {
+        when(kartRepository.findPaginaDespuesDe(0L, Limit.of(51))).thenReturn(
+                List.of(new KartListaDTO(1L, "K001", EstadoKart.DISPONIBLE), new KartListaDTO(2L, "K002", EstadoKart.NO_DISPONIBLE)));
+
+        PaginaDTO<KartListaDTO> pagina = kartService.listarPagina(null, null);
+
+        assertEquals(2, pagina.getElementos().size());
+        assertEquals("K002", pagina.getElementos().get(1).getCodigo());
+        assertNull(pagina.getSiguienteCursor());
+    }
+
+    @Test
+    public void listarDisponiblesUsaLaDuracionDeLaTarifaTest() {
+        LocalDate fecha = LocalDate.of(2025, 4, 12);
+        when(disponibilidadKarts.disponibles(fecha, LocalTime.of(15, 0), 35)).thenReturn(kartsList);
+
+        List<KartListaDTO> disponibles = kartService.listarDisponibles(fecha, LocalTime.of(15, 0), 15);
+
+        assertEquals(1, disponibles.size());
+        assertEquals("K001", disponibles.get(0).getCodigo());
+        assertEquals(EstadoKart.DISPONIBLE, disponibles.get(0).getEstado());
+        verify(disponibilidadKarts, times(1)).disponibles(fecha, LocalTime.of(15, 0), 35);
+    }
+
+    @Test
+    public void listarDisponiblesDatosInvalidosTest() {
+        LocalDate fecha = LocalDate.of(2025, 4, 12);
+        assertThrows(IllegalArgumentException.class, () -> kartService.listarDisponibles(fecha, null, 10));
+        assertThrows(IllegalArgumentException.class, () -> kartService.listarDisponibles(fecha, LocalTime.of(15, 0), 12));
+        verifyNoInteractions(disponibilidadKarts);
+    }
+}
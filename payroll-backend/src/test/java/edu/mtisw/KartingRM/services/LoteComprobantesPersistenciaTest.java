@@ -0,0 +1,105 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.dtos.ResumenLoteComprobantesDTO;
+import edu.mtisw.KartingRM.entities.ClienteEntity;
+import edu.mtisw.KartingRM.entities.ReservaEntity;
+import edu.mtisw.KartingRM.repositories.ClienteRepository;
+import edu.mtisw.KartingRM.repositories.ReservaRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * La transacción de la prueba mantiene abierto el contexto de persistencia,
+ * igual que open-in-view durante la descarga del ZIP. Al pedir cada bloque
+ * el contexto no debe tener nada de los bloques anteriores.
+ */
+@ActiveProfiles("test")
+@DataJpaTest
+public class LoteComprobantesPersistenciaTest {
+
+    private static final LocalDate INICIO = LocalDate.of(2025, 4, 1);
+    private static final int RESERVAS = 250;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private LoteComprobantesService loteComprobantesService;
+
+    @AfterEach
+    public void tearDown() {
+        if (loteComprobantesService != null) {
+            loteComprobantesService.detener();
+        }
+    }
+
+    @Test
+    public void contextoNoCreceEntreBloquesTest() throws IOException {
+        List<ClienteEntity> clientes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ClienteEntity cliente = new ClienteEntity();
+            cliente.setNombre("Cliente " + i);
+            clientes.add(cliente);
+        }
+        clienteRepository.saveAll(clientes);
+        List<ReservaEntity> reservas = new ArrayList<>();
+        for (int i = 0; i < RESERVAS; i++) {
+            ReservaEntity reserva = new ReservaEntity();
+            reserva.setFechaReserva(INICIO.plusDays(i % 30));
+            reserva.setHoraReserva(LocalTime.of(15, 0));
+            reserva.setClientes(new ArrayList<>(clientes));
+            reserva.setKarts(new ArrayList<>());
+            reservas.add(reserva);
+        }
+        reservaRepository.saveAll(reservas);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Entidades administradas justo antes de cargar cada bloque
+        List<Integer> administradas = new ArrayList<>();
+        ReservaRepository repositorio = mock(ReservaRepository.class, delegatesTo(reservaRepository));
+        doAnswer(invocation -> {
+            administradas.add(entidadesAdministradas());
+            return reservaRepository.findConClientesByIdIn(invocation.<Collection<Long>>getArgument(0));
+        }).when(repositorio).findConClientesByIdIn(any());
+        ComprobanteService comprobanteService = mock(ComprobanteService.class);
+        when(comprobanteService.generarComprobante(any(ReservaEntity.class)))
+                .thenReturn("pdf".getBytes(StandardCharsets.UTF_8));
+        loteComprobantesService = new LoteComprobantesService(comprobanteService, repositorio, entityManager, 2);
+
+        ResumenLoteComprobantesDTO resumen = loteComprobantesService.escribirZip(INICIO, INICIO.plusDays(29),
+                OutputStream.nullOutputStream());
+
+        assertEquals(RESERVAS, resumen.getGenerados());
+        assertEquals(List.of(0, 0, 0), administradas);
+        assertEquals(0, entidadesAdministradas());
+    }
+
+    private int entidadesAdministradas() {
+        return entityManager.unwrap(SessionImplementor.class).getPersistenceContextInternal().getNumberOfManagedEntities();
+    }
+}
@@ -0,0 +1,136 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.dtos.ResumenLoteComprobantesDTO;
+import edu.mtisw.KartingRM.entities.ReservaEntity;
+import edu.mtisw.KartingRM.repositories.ReservaRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ActiveProfiles("test")
+public class LoteComprobantesServiceTest {
+
+    private static final LocalDate INICIO = LocalDate.of(2025, 4, 1);
+    private static final LocalDate FIN = LocalDate.of(2025, 4, 30);
+
+    @Mock
+    private ComprobanteService comprobanteService;
+
+    @Mock
+    private ReservaRepository reservaRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private LoteComprobantesService loteComprobantesService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        loteComprobantesService = new LoteComprobantesService(comprobanteService, reservaRepository, entityManager, 4);
+
+        List<Long> idsDelPeriodo = new ArrayList<>();
+        for (long id = 1; id <= 250; id++) {
+            idsDelPeriodo.add(id);
+        }
+        when(reservaRepository.findIdsByFechaReservaBetween(INICIO, FIN)).thenReturn(idsDelPeriodo);
+        when(reservaRepository.findConClientesByIdIn(anyCollection())).thenAnswer(invocation -> {
+            List<ReservaEntity> reservas = new ArrayList<>();
+            Collection<Long> ids = invocation.getArgument(0);
+            for (Long id : ids) {
+                ReservaEntity reserva = new ReservaEntity();
+                reserva.setId(id);
+                reserva.setFechaReserva(INICIO.plusDays(id % 30));
+                reservas.add(reserva);
+            }
+            return reservas;
+        });
+        when(comprobanteService.generarComprobante(any(ReservaEntity.class))).thenAnswer(invocation -> {
+            ReservaEntity reserva = invocation.getArgument(0);
+            if (reserva.getId() == 42L) {
+                throw new RuntimeException("Error al generar el comprobante en PDF");
+            }
+            return ("pdf-" + reserva.getId()).getBytes(StandardCharsets.UTF_8);
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        loteComprobantesService.detener();
+    }
+
+    @Test
+    public void escribirZipConTodosLosComprobantesTest() throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        ResumenLoteComprobantesDTO resumen = loteComprobantesService.escribirZip(INICIO, FIN, salida);
+
+        Map<String, String> entradas = leerZip(salida.toByteArray());
+        assertEquals(250, entradas.size());
+        assertEquals("pdf-7", entradas.get("comprobante-" + INICIO.plusDays(7) + "-7.pdf"));
+        assertFalse(entradas.containsKey("comprobante-" + INICIO.plusDays(12) + "-42.pdf"));
+
+        // La reserva que falló queda en el resumen y no detiene al resto
+        assertEquals(249, resumen.getGenerados());
+        assertEquals(List.of("Reserva 42: Error al generar el comprobante en PDF"), resumen.getErrores());
+        assertEquals(4, resumen.getHilos());
+        String textoResumen = entradas.get("resumen.txt");
+        assertTrue(textoResumen.contains("Comprobantes generados: 249"));
+        assertTrue(textoResumen.contains("Con error: 1"));
+        assertTrue(textoResumen.contains("Reserva 42"));
+
+        // Las reservas se cargan por bloques, no todo el período de una vez
+        verify(reservaRepository, times(3)).findConClientesByIdIn(anyCollection());
+        verify(entityManager, times(3)).clear();
+    }
+
+    @Test
+    public void escribirZipPeriodoVacioTest() throws IOException {
+        when(reservaRepository.findIdsByFechaReservaBetween(INICIO, INICIO)).thenReturn(List.of());
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        ResumenLoteComprobantesDTO resumen = loteComprobantesService.escribirZip(INICIO, INICIO, salida);
+
+        assertEquals(0, resumen.getGenerados());
+        assertEquals(List.of("resumen.txt"), new ArrayList<>(leerZip(salida.toByteArray()).keySet()));
+    }
+
+    @Test
+    public void escribirZipPeriodoInvalidoTest() {
+        assertThrows(IllegalArgumentException.class,
+                () -> loteComprobantesService.escribirZip(FIN, INICIO, new ByteArrayOutputStream()));
+        verifyNoInteractions(reservaRepository);
+    }
+
+    private Map<String, String> leerZip(byte[] zip) throws IOException {
+        Map<String, String> entradas = new HashMap<>();
+        try (ZipInputStream entrada = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            ZipEntry zipEntry;
+            while ((zipEntry = entrada.getNextEntry()) != null) {
+                entradas.put(zipEntry.getName(), new String(entrada.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entradas;
+    }
+}
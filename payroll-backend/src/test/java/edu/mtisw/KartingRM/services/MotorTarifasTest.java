@@ -0,0 +1,105 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.config.TarifaProperties;
+import edu.mtisw.KartingRM.entities.ClienteEntity;
+import edu.mtisw.KartingRM.entities.ReservaEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+public class MotorTarifasTest {
+
+    private final MotorTarifas motorTarifas = new MotorTarifas(new TarifaProperties());
+
+    @Test
+    public void tarifasPorVueltasTest() {
+        assertEquals(15000, motorTarifas.precioBase(10));
+        assertEquals(20000, motorTarifas.precioBase(15));
+        assertEquals(25000, motorTarifas.precioBase(20));
+        assertEquals(40, motorTarifas.duracion(20));
+        assertThrows(IllegalArgumentException.class, () -> motorTarifas.precioBase(12));
+        assertThrows(IllegalArgumentException.class, () -> motorTarifas.precioBase(0));
+        assertThrows(IllegalArgumentException.class, () -> motorTarifas.duracion(25));
+    }
+
+    @Test
+    public void tramosDeDescuentoTest() {
+        int[] esperadoPorPersonas = {0, 0, 0, 10, 10, 10, 20, 20, 20, 20, 20, 30, 30};
+        for (int personas = 0; personas < esperadoPorPersonas.length; personas++) {
+            assertEquals(esperadoPorPersonas[personas], motorTarifas.descuentoPorPersonas(personas), "personas=" + personas);
+        }
+        assertEquals(30, motorTarifas.descuentoPorPersonas(1000));
+
+        int[] esperadoPorVisitas = {0, 0, 10, 10, 10, 20, 20, 30};
+        for (int visitas = 0; visitas < esperadoPorVisitas.length; visitas++) {
+            assertEquals(esperadoPorVisitas[visitas], motorTarifas.descuentoPorVisitas(visitas), "visitas=" + visitas);
+        }
+        assertEquals(0, motorTarifas.descuentoPorVisitas(-1));
+    }
+
+    @Test
+    public void aplicarCalculaLaReservaTest() {
+        ReservaEntity reserva = new ReservaEntity();
+        reserva.setNumeroVueltas(10);
+        reserva.setFechaReserva(LocalDate.of(2025, 4, 12));
+        reserva.setClientes(new ArrayList<>());
+        for (int i = 0; i < 6; i++) {
+            ClienteEntity cliente = new ClienteEntity();
+            cliente.setNumeroVisitas(i);
+            reserva.getClientes().add(cliente);
+        }
+        reserva.getClientes().get(0).setFechaNacimiento(LocalDate.of(2000, 4, 12));
+        reserva.getClientes().get(1).setFechaNacimiento(LocalDate.of(2000, 4, 12));
+
+        motorTarifas.aplicar(reserva);
+
+        // Por cliente: 50%, 50%, 10%, 10%, 10%, 20% sobre 15000; luego 20% por grupo de 6
+        assertEquals(15000, reserva.getPrecioBase());
+        assertEquals(30, reserva.getDuracionTotal());
+        assertEquals(6, reserva.getNumeroPersonas());
+        assertEquals(20, reserva.getDescuentoPorPersonas());
+        assertEquals(8, reserva.getDescuentoPorVisitas());
+        assertEquals(50, reserva.getDescuentoPorCumpleaños());
+        assertEquals(54000, reserva.getPrecioFinal());
+    }
+
+    @Test
+    public void tablasDesdeConfiguracionTest() {
+        TarifaProperties properties = new TarifaProperties();
+        properties.getVueltas().add(new TarifaProperties.Tarifa(30, 32000, 50));
+        properties.setDescuentosPorPersonas(List.of(new TarifaProperties.Tramo(4, 15)));
+        properties.setDescuentoCumpleanos(25);
+        MotorTarifas configurado = new MotorTarifas(properties);
+
+        assertEquals(32000, configurado.precioBase(30));
+        assertEquals(0, configurado.descuentoPorPersonas(3));
+        assertEquals(15, configurado.descuentoPorPersonas(20));
+        assertEquals(25, configurado.descuentoPorCumpleanos(LocalDate.of(1990, 1, 5), LocalDate.of(2025, 1, 5)));
+    }
+
+    @Test
+    public void configuracionInvalidaTest() {
+        TarifaProperties desordenados = new TarifaProperties();
+        desordenados.setDescuentosPorVisitas(List.of(new TarifaProperties.Tramo(5, 20), new TarifaProperties.Tramo(2, 10)));
+        assertThrows(IllegalStateException.class, () -> new MotorTarifas(desordenados));
+
+        TarifaProperties repetida = new TarifaProperties();
+        repetida.getVueltas().add(new TarifaProperties.Tarifa(10, 1000, 10));
+        assertThrows(IllegalStateException.class, () -> new MotorTarifas(repetida));
+
+        // La ocupación de karts va en slots de 5 minutos
+        TarifaProperties fueraDeGrilla = new TarifaProperties();
+        fueraDeGrilla.getVueltas().add(new TarifaProperties.Tarifa(25, 28000, 42));
+        assertThrows(IllegalStateException.class, () -> new MotorTarifas(fueraDeGrilla));
+
+        TarifaProperties fueraDeRango = new TarifaProperties();
+        fueraDeRango.setDescuentoCumpleanos(150);
+        assertThrows(IllegalStateException.class, () -> new MotorTarifas(fueraDeRango));
+    }
+}
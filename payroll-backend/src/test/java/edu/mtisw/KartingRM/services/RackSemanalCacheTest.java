@@ -0,0 +1,123 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.config.RackProperties;
+import edu.mtisw.KartingRM.dtos.MarcaCambiosDTO;
+import edu.mtisw.KartingRM.dtos.ReservaRackDTO;
+import edu.mtisw.KartingRM.repositories.ReservaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ActiveProfiles("test")
+public class RackSemanalCacheTest {
+
+    private static final LocalDate LUNES = LocalDate.of(2025, 4, 7);
+    private static final LocalDate DOMINGO = LUNES.plusDays(6);
+
+    @Mock
+    private ReservaRepository reservaRepository;
+
+    private HorarioRack horarioRack;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        horarioRack = new HorarioRack(new RackProperties());
+
+        List<ReservaRackDTO> reservas = new ArrayList<>();
+        reservas.add(new ReservaRackDTO(1L, LUNES, LocalTime.of(10, 0), 30, 2));
+        when(reservaRepository.findRackByFechaReservaBetween(LUNES, DOMINGO)).thenReturn(reservas);
+        when(reservaRepository.findMarcaCambiosByFechaReservaBetween(LUNES, DOMINGO)).thenReturn(new MarcaCambiosDTO(1L, 1));
+    }
+
+    @Test
+    public void semanaVerificadaRecienteNoConsultaBaseDeDatosTest() {
+        RackSemanalCache cache = new RackSemanalCache(reservaRepository, horarioRack, 60_000, 26);
+
+        Map<String, Map<String, List<ReservaRackDTO>>> primera = cache.obtenerSemana(LUNES);
+        Map<String, Map<String, List<ReservaRackDTO>>> segunda = cache.obtenerSemana(LUNES);
+
+        assertSame(primera, segunda);
+        verify(reservaRepository, times(1)).findMarcaCambiosByFechaReservaBetween(LUNES, DOMINGO);
+        verify(reservaRepository, times(1)).findRackByFechaReservaBetween(LUNES, DOMINGO);
+    }
+
+    @Test
+    public void marcaSinCambiosNoReconstruyeTest() {
+        RackSemanalCache cache = new RackSemanalCache(reservaRepository, horarioRack, 0, 26);
+
+        cache.obtenerSemana(LUNES);
+        cache.obtenerSemana(LUNES);
+
+        verify(reservaRepository, times(2)).findMarcaCambiosByFechaReservaBetween(LUNES, DOMINGO);
+        verify(reservaRepository, times(1)).findRackByFechaReservaBetween(LUNES, DOMINGO);
+    }
+
+    @Test
+    public void escrituraDeOtraReplicaReconstruyeSemanaTest() {
+        RackSemanalCache cache = new RackSemanalCache(reservaRepository, horarioRack, 0, 26);
+        cache.obtenerSemana(LUNES);
+
+        // Otra réplica creó la reserva 2 y esta réplica no se enteró
+        when(reservaRepository.findMarcaCambiosByFechaReservaBetween(LUNES, DOMINGO)).thenReturn(new MarcaCambiosDTO(2L, 2));
+        cache.obtenerSemana(LUNES);
+
+        verify(reservaRepository, times(2)).findRackByFechaReservaBetween(LUNES, DOMINGO);
+    }
+
+    @Test
+    public void registrarReservaActualizaSemanaSinReconstruirTest() {
+        RackSemanalCache cache = new RackSemanalCache(reservaRepository, horarioRack, 0, 26);
+        cache.obtenerSemana(LUNES);
+
+        cache.registrarReserva(new ReservaRackDTO(2L, LUNES.plusDays(1), LocalTime.of(15, 0), 30, 4));
+        when(reservaRepository.findMarcaCambiosByFechaReservaBetween(LUNES, DOMINGO)).thenReturn(new MarcaCambiosDTO(2L, 2));
+        Map<String, Map<String, List<ReservaRackDTO>>> rack = cache.obtenerSemana(LUNES);
+
+        assertEquals(2L, rack.get("Martes").get("15:00-16:00").get(0).getId());
+        verify(reservaRepository, times(1)).findRackByFechaReservaBetween(LUNES, DOMINGO);
+    }
+
+    @Test
+    public void registrarReservaCopiaSoloElDiaAfectadoTest() {
+        RackSemanalCache cache = new RackSemanalCache(reservaRepository, horarioRack, 60_000, 26);
+        Map<String, Map<String, List<ReservaRackDTO>>> antes = cache.obtenerSemana(LUNES);
+
+        // 15:30 a 16:30 toca dos bloques del martes
+        cache.registrarReserva(new ReservaRackDTO(2L, LUNES.plusDays(1), LocalTime.of(15, 30), 60, 4));
+        Map<String, Map<String, List<ReservaRackDTO>>> despues = cache.obtenerSemana(LUNES);
+
+        assertEquals(1, despues.get("Martes").get("15:00-16:00").size());
+        assertEquals(1, despues.get("Martes").get("16:00-17:00").size());
+        assertTrue(antes.get("Martes").get("15:00-16:00").isEmpty());
+        assertSame(antes.get("Lunes"), despues.get("Lunes"));
+        assertSame(antes.get("Martes").get("09:00-10:00"), despues.get("Martes").get("09:00-10:00"));
+    }
+
+    @Test
+    public void registrarReservaYaLeidaNoDuplicaTest() {
+        // La semana se leyó con la marca de antes de confirmar la reserva 1, pero las filas ya la traían
+        when(reservaRepository.findMarcaCambiosByFechaReservaBetween(LUNES, DOMINGO)).thenReturn(new MarcaCambiosDTO(0L, 0));
+        RackSemanalCache cache = new RackSemanalCache(reservaRepository, horarioRack, 0, 26);
+        cache.obtenerSemana(LUNES);
+
+        cache.registrarReserva(new ReservaRackDTO(1L, LUNES, LocalTime.of(10, 0), 30, 2));
+        when(reservaRepository.findMarcaCambiosByFechaReservaBetween(LUNES, DOMINGO)).thenReturn(new MarcaCambiosDTO(1L, 1));
+        Map<String, Map<String, List<ReservaRackDTO>>> rack = cache.obtenerSemana(LUNES);
+
+        assertEquals(1, rack.get("Lunes").get("10:00-11:00").size());
+        // La marca no se adelantó: la verificación reconstruye la semana
+        verify(reservaRepository, times(2)).findRackByFechaReservaBetween(LUNES, DOMINGO);
+    }
+}
@@ -0,0 +1,232 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.dtos.ReservaRackDTO;
+import edu.mtisw.KartingRM.entities.ClienteEntity;
+import edu.mtisw.KartingRM.entities.EstadoKart;
+import edu.mtisw.KartingRM.entities.KartEntity;
+import edu.mtisw.KartingRM.entities.ReservaEntity;
+import edu.mtisw.KartingRM.repositories.ClienteRepository;
+import edu.mtisw.KartingRM.repositories.KartRepository;
+import edu.mtisw.KartingRM.repositories.OcupacionKartRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lanza cientos de reservas simultáneas contra H2: las que no chocan deben
+ * confirmarse todas y las que piden el mismo kart en el mismo horario deben
+ * rechazarse sin dejar ocupaciones duplicadas.
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+public class ReservaConcurrenciaTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservaConcurrenciaTest.class);
+
+    private static final int KARTS = 10;
+    private static final int HORARIOS = 10;
+    private static final int INTENTOS_POR_COMBINACION = 3;
+    private static final int SLOTS_POR_RESERVA = 30 / OcupacionKartService.MINUTOS_POR_SLOT;
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private KartRepository kartRepository;
+
+    @Autowired
+    private OcupacionKartRepository ocupacionKartRepository;
+
+    @Test
+    public void reservasSimultaneasSinDobleReservaTest() throws InterruptedException {
+        LocalDate fecha = LocalDate.of(2030, 1, 7);
+
+        ClienteEntity cliente = new ClienteEntity();
+        cliente.setNombre("Cliente Concurrencia");
+        cliente.setEmail("concurrencia@gmail.com");
+        cliente.setFechaNacimiento(LocalDate.of(1990, 5, 15));
+        Long clienteId = clienteRepository.save(cliente).getId();
+
+        List<Long> kartIds = new ArrayList<>();
+        for (int i = 0; i < KARTS; i++) {
+            KartEntity kart = new KartEntity();
+            kart.setCodigo("KC" + i);
+            kart.setEstado(EstadoKart.DISPONIBLE);
+            kartIds.add(kartRepository.save(kart).getId());
+        }
+
+        // Cada combinación kart × horario se pide varias veces; horarios de 30 min sin solaparse
+        List<Runnable> reservas = new ArrayList<>();
+        AtomicInteger confirmadas = new AtomicInteger();
+        AtomicInteger conflictos = new AtomicInteger();
+        AtomicInteger errores = new AtomicInteger();
+        for (Long kartId : kartIds) {
+            for (int h = 0; h < HORARIOS; h++) {
+                LocalTime hora = LocalTime.of(9, 0).plusMinutes(30L * h);
+                for (int intento = 0; intento < INTENTOS_POR_COMBINACION; intento++) {
+                    reservas.add(() -> {
+                        try {
+                            reservaService.crearReserva(nuevaReserva(clienteId, kartId, fecha, hora));
+                            confirmadas.incrementAndGet();
+                        } catch (IllegalStateException e) {
+                            conflictos.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            errores.incrementAndGet();
+                        }
+                    });
+                }
+            }
+        }
+        Collections.shuffle(reservas);
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch inicio = new CountDownLatch(1);
+        for (Runnable reserva : reservas) {
+            executor.submit(() -> {
+                inicio.await();
+                reserva.run();
+                return null;
+            });
+        }
+
+        long t0 = System.nanoTime();
+        inicio.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+        double segundos = (System.nanoTime() - t0) / 1e9;
+
+        logger.info("Reservas simultáneas: {} en {} s ({} reservas/s), confirmadas={}, conflictos={}",
+                reservas.size(), String.format("%.2f", segundos), String.format("%.0f", reservas.size() / segundos),
+                confirmadas.get(), conflictos.get());
+
+        assertEquals(0, errores.get());
+        assertEquals(KARTS * HORARIOS, confirmadas.get());
+        assertEquals(KARTS * HORARIOS * (INTENTOS_POR_COMBINACION - 1), conflictos.get());
+        // Cada reserva de 30 minutos ocupa sus slots, sin chocar con la que empieza cuando termina
+        assertEquals(KARTS * HORARIOS * SLOTS_POR_RESERVA, ocupacionKartRepository.findByFecha(fecha).size());
+
+        // El rack de la semana (2030-01-07 es lunes) ve todas las reservas confirmadas:
+        // las de 09:00 y 09:30 de cada kart caen en el bloque 09:00-10:00
+        Map<String, Map<String, List<ReservaRackDTO>>> rack = reservaService.obtenerRackSemanalPorFechas(fecha, fecha.plusDays(6));
+        assertEquals(KARTS * 2, rack.get("Lunes").get("09:00-10:00").size());
+    }
+
+    @Test
+    public void asignacionSimultaneaSinDobleReservaTest() throws InterruptedException {
+        LocalDate fecha = LocalDate.of(2030, 2, 4);
+        LocalTime hora = LocalTime.of(15, 0);
+
+        ClienteEntity cliente = new ClienteEntity();
+        cliente.setNombre("Cliente Asignación");
+        cliente.setEmail("asignacion@gmail.com");
+        cliente.setFechaNacimiento(LocalDate.of(1990, 5, 15));
+        Long clienteId = clienteRepository.save(cliente).getId();
+
+        for (int i = 0; i < KARTS; i++) {
+            KartEntity kart = new KartEntity();
+            kart.setCodigo("KA" + i);
+            kart.setEstado(EstadoKart.DISPONIBLE);
+            kartRepository.save(kart);
+        }
+        // La flota incluye los karts que hayan creado otras pruebas del contexto
+        int flota = (int) kartRepository.count();
+
+        // Grupos de 2 para el mismo horario, el doble de los que caben
+        int grupos = flota;
+        AtomicInteger confirmadas = new AtomicInteger();
+        AtomicInteger sinKarts = new AtomicInteger();
+        AtomicInteger errores = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch inicio = new CountDownLatch(1);
+        for (int g = 0; g < grupos; g++) {
+            executor.submit(() -> {
+                inicio.await();
+                try {
+                    ReservaEntity reserva = nuevaReserva(clienteId, null, fecha, hora);
+                    reserva.getClientes().add(reserva.getClientes().get(0));
+                    reserva.setKarts(new ArrayList<>());
+                    reservaService.crearReservaConKartsAsignados(reserva);
+                    confirmadas.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    sinKarts.incrementAndGet();
+                } catch (RuntimeException e) {
+                    errores.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        inicio.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+
+        assertEquals(0, errores.get());
+        assertEquals(flota / 2, confirmadas.get());
+        assertEquals(grupos - flota / 2, sinKarts.get());
+        // Cada kart queda ocupado una sola vez en los slots de la reserva
+        assertEquals(flota / 2 * 2L * SLOTS_POR_RESERVA, ocupacionKartRepository.findByFecha(fecha).size());
+    }
+
+    @Test
+    public void reservaQueEmpiezaAlTerminarOtraTest() {
+        LocalDate fecha = LocalDate.of(2030, 3, 4);
+
+        ClienteEntity cliente = new ClienteEntity();
+        cliente.setNombre("Cliente Contigua");
+        cliente.setEmail("contigua@gmail.com");
+        cliente.setFechaNacimiento(LocalDate.of(1990, 5, 15));
+        Long clienteId = clienteRepository.save(cliente).getId();
+        KartEntity kart = new KartEntity();
+        kart.setCodigo("KX");
+        kart.setEstado(EstadoKart.DISPONIBLE);
+        Long kartId = kartRepository.save(kart).getId();
+
+        // 20 vueltas: de 10:00 a 10:40
+        ReservaEntity larga = nuevaReserva(clienteId, kartId, fecha, LocalTime.of(10, 0));
+        larga.setNumeroVueltas(20);
+        reservaService.crearReserva(larga);
+
+        // La que empieza justo al terminar, y la que termina justo al empezar, no se solapan
+        reservaService.crearReserva(nuevaReserva(clienteId, kartId, fecha, LocalTime.of(10, 40)));
+        reservaService.crearReserva(nuevaReserva(clienteId, kartId, fecha, LocalTime.of(9, 30)));
+        // Cinco minutos antes sí
+        assertThrows(IllegalStateException.class,
+                () -> reservaService.crearReserva(nuevaReserva(clienteId, kartId, fecha, LocalTime.of(10, 35))));
+        // 40 + 30 + 30 minutos ocupados, sin huecos ni minutos de más
+        assertEquals(100 / OcupacionKartService.MINUTOS_POR_SLOT, ocupacionKartRepository.findByFecha(fecha).size());
+    }
+
+    private ReservaEntity nuevaReserva(Long clienteId, Long kartId, LocalDate fecha, LocalTime hora) {
+        ClienteEntity cliente = new ClienteEntity();
+        cliente.setId(clienteId);
+        KartEntity kart = new KartEntity();
+        kart.setId(kartId);
+
+        ReservaEntity reserva = new ReservaEntity();
+        reserva.setFechaReserva(fecha);
+        reserva.setHoraReserva(hora);
+        reserva.setNumeroVueltas(10);
+        reserva.setClientes(new ArrayList<>(List.of(cliente)));
+        reserva.setKarts(new ArrayList<>(List.of(kart)));
+        return reserva;
+    }
+}
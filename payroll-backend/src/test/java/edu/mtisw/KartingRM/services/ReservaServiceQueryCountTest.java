@@ -0,0 +1,459 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.config.PaginacionProperties;
+import edu.mtisw.KartingRM.config.RackProperties;
+import edu.mtisw.KartingRM.config.TarifaProperties;
+import edu.mtisw.KartingRM.dtos.AuditoriaIngresosDTO;
+import edu.mtisw.KartingRM.dtos.HorarioLibreDTO;
+import edu.mtisw.KartingRM.dtos.PaginaDTO;
+import edu.mtisw.KartingRM.dtos.ReservaListaDTO;
+import edu.mtisw.KartingRM.dtos.ResultadoLoteReservasDTO;
+import edu.mtisw.KartingRM.entities.ClienteEntity;
+import edu.mtisw.KartingRM.entities.EstadoKart;
+import edu.mtisw.KartingRM.entities.IngresoResumenEntity;
+import edu.mtisw.KartingRM.entities.IngresoResumenId;
+import edu.mtisw.KartingRM.entities.KartEntity;
+import edu.mtisw.KartingRM.entities.OcupacionKartEntity;
+import edu.mtisw.KartingRM.entities.ReservaEntity;
+import edu.mtisw.KartingRM.repositories.ClienteRepository;
+import edu.mtisw.KartingRM.repositories.IngresoResumenRepository;
+import edu.mtisw.KartingRM.repositories.KartRepository;
+import edu.mtisw.KartingRM.repositories.OcupacionKartRepository;
+import edu.mtisw.KartingRM.repositories.ReservaRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica contra H2 que la cantidad de sentencias SQL de crearReserva
+ * no depende del tamaño del grupo, que la carga masiva inserta en lotes y
+ * que clientes y karts solo se cargan, por lotes, donde se usan.
+ */
+@ActiveProfiles("test")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "edu.mtisw.KartingRM.services.ReservaServiceQueryCountTest$ContadorSentencias")
+@Import({ReservaService.class, PaginacionProperties.class, OcupacionKartService.class, HorarioRack.class, RackProperties.class,
+        RackSemanalCache.class, ResumenIngresosService.class, MotorTarifas.class, TarifaProperties.class,
+        DisponibilidadKarts.class, HorarioLibreService.class})
+public class ReservaServiceQueryCountTest {
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private KartRepository kartRepository;
+
+    @Autowired
+    private ResumenIngresosService resumenIngresosService;
+
+    @Autowired
+    private IngresoResumenRepository ingresoResumenRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private OcupacionKartRepository ocupacionKartRepository;
+
+    @Autowired
+    private DisponibilidadKarts disponibilidadKarts;
+
+    @Autowired
+    private HorarioLibreService horarioLibreService;
+
+    @Test
+    public void crearReservaConsultasConstantesTest() {
+        int consultasGrupoPequeno = contarConsultasAlCrearReserva(2);
+        int consultasGrupoGrande = contarConsultasAlCrearReserva(15);
+
+        // Una consulta para clientes y otra para karts, sin importar el tamaño del grupo
+        assertEquals(2, consultasGrupoPequeno);
+        assertEquals(consultasGrupoPequeno, consultasGrupoGrande);
+    }
+
+    @Test
+    public void crearReservasEnLoteInsertaPorLotesTest() {
+        List<ClienteEntity> clientes = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            ClienteEntity cliente = new ClienteEntity();
+            cliente.setNombre("Cliente " + i);
+            cliente.setFechaNacimiento(LocalDate.of(1990, 5, 15));
+            clientes.add(clienteRepository.save(cliente));
+        }
+        KartEntity kart = new KartEntity();
+        kart.setCodigo("K1");
+        kart.setEstado(EstadoKart.DISPONIBLE);
+        kart = kartRepository.save(kart);
+        entityManager.flush();
+        entityManager.clear();
+
+        // 120 reservas de 2 clientes: sin lotes serían 120 + 240 + 120 + 240 INSERT
+        List<ReservaEntity> reservas = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            ReservaEntity reserva = new ReservaEntity();
+            reserva.setFechaReserva(LocalDate.of(2024, 1, 1).plusDays(i));
+            reserva.setHoraReserva(LocalTime.of(10, 0));
+            reserva.setNumeroVueltas(10);
+            reserva.setClientes(new ArrayList<>());
+            for (ClienteEntity cliente : clientes) {
+                ClienteEntity referencia = new ClienteEntity();
+                referencia.setId(cliente.getId());
+                reserva.getClientes().add(referencia);
+            }
+            KartEntity referenciaKart = new KartEntity();
+            referenciaKart.setId(kart.getId());
+            reserva.setKarts(new ArrayList<>(List.of(referenciaKart)));
+            reservas.add(reserva);
+        }
+
+        ContadorSentencias.reiniciar();
+        ResultadoLoteReservasDTO resultado = reservaService.crearReservasEnLote(reservas);
+        entityManager.flush();
+
+        assertEquals(120, resultado.getCreadas());
+        assertTrue(resultado.getErrores().isEmpty());
+        // Una consulta para clientes y otra para karts para toda la carga
+        assertEquals(2, ContadorSentencias.consultas());
+        assertTrue(ContadorSentencias.inserciones() <= 20, "inserciones=" + ContadorSentencias.inserciones());
+
+        entityManager.clear();
+        assertEquals(120, reservaRepository.count());
+        // Un kart de 30 minutos por reserva
+        assertEquals(120 * 30 / OcupacionKartService.MINUTOS_POR_SLOT, ocupacionKartRepository.count());
+        // Las 120 reservas caen en días distintos: una celda del resumen por día
+        List<IngresoResumenEntity> celdas = ingresoResumenRepository.findAll();
+        assertEquals(120, celdas.size());
+        assertEquals(1, celdas.get(0).getCantidadReservas());
+    }
+
+    @Test
+    public void listarPaginaRecorreReservasPorCursorTest() {
+        // Dos grupos con la misma fecha para que el cursor tenga que desempatar por ID
+        contarConsultasAlCrearReserva(2, LocalDate.of(2025, 4, 10), LocalTime.of(10, 0));
+        contarConsultasAlCrearReserva(1, LocalDate.of(2025, 4, 12), LocalTime.of(10, 0));
+        contarConsultasAlCrearReserva(3, LocalDate.of(2025, 4, 12), LocalTime.of(11, 0));
+        contarConsultasAlCrearReserva(1, LocalDate.of(2025, 4, 11), LocalTime.of(10, 0));
+        contarConsultasAlCrearReserva(2, LocalDate.of(2025, 4, 10), LocalTime.of(11, 0));
+        entityManager.clear();
+
+        List<ReservaListaDTO> recorridas = new ArrayList<>();
+        String cursor = null;
+        int paginas = 0;
+        do {
+            ContadorSentencias.reiniciar();
+            PaginaDTO<ReservaListaDTO> pagina = reservaService.listarPagina(cursor, 2);
+            // Filas, nombres de clientes y códigos de karts, sin importar el tamaño de la página
+            assertEquals(3, ContadorSentencias.consultas());
+            recorridas.addAll(pagina.getElementos());
+            cursor = pagina.getSiguienteCursor();
+            paginas++;
+        } while (cursor != null);
+
+        assertEquals(3, paginas);
+        assertEquals(5, recorridas.size());
+        assertEquals(List.of(LocalDate.of(2025, 4, 12), LocalDate.of(2025, 4, 12), LocalDate.of(2025, 4, 11),
+                        LocalDate.of(2025, 4, 10), LocalDate.of(2025, 4, 10)),
+                recorridas.stream().map(ReservaListaDTO::getFechaReserva).toList());
+        assertTrue(recorridas.get(0).getId() > recorridas.get(1).getId());
+        assertEquals(3, recorridas.get(0).getClientes().size());
+        assertEquals(3, recorridas.get(0).getKarts().size());
+        assertTrue(recorridas.get(2).getClientes().contains("Cliente 0"));
+    }
+
+    @Test
+    public void listarMilReservasConsultasPorLotesTest() {
+        List<ClienteEntity> clientes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ClienteEntity cliente = new ClienteEntity();
+            cliente.setNombre("Cliente " + i);
+            clientes.add(clienteRepository.save(cliente));
+        }
+        KartEntity kart = new KartEntity();
+        kart.setCodigo("K1");
+        kart.setEstado(EstadoKart.DISPONIBLE);
+        kart = kartRepository.save(kart);
+        Long primeraId = null;
+        for (int i = 0; i < 1000; i++) {
+            ReservaEntity reserva = new ReservaEntity();
+            reserva.setFechaReserva(LocalDate.of(2024, 1, 1).plusDays(i));
+            reserva.setHoraReserva(LocalTime.of(10, 0));
+            reserva.setClientes(new ArrayList<>(clientes.subList(0, 1 + i % 3)));
+            reserva.setKarts(new ArrayList<>(List.of(kart)));
+            entityManager.persist(reserva);
+            if (primeraId == null) {
+                primeraId = reserva.getId();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // Cargar una reserva ya no toca las tablas de unión
+        ContadorSentencias.reiniciar();
+        ReservaEntity sola = reservaRepository.findById(primeraId).orElseThrow();
+        assertEquals(1, ContadorSentencias.consultas());
+        assertFalse(Hibernate.isInitialized(sola.getClientes()));
+        assertFalse(Hibernate.isInitialized(sola.getKarts()));
+        entityManager.clear();
+
+        // El comprobante pide sus clientes en el mismo SELECT
+        ContadorSentencias.reiniciar();
+        ReservaEntity conClientes = reservaRepository.findConClientesById(primeraId).orElseThrow();
+        assertEquals(1, ContadorSentencias.consultas());
+        assertTrue(Hibernate.isInitialized(conClientes.getClientes()));
+        assertFalse(Hibernate.isInitialized(conClientes.getKarts()));
+        entityManager.clear();
+
+        // El listado completo: las reservas y luego clientes y karts de 100 reservas por consulta
+        ContadorSentencias.reiniciar();
+        List<ReservaEntity> reservas = reservaService.listarReservas();
+        assertEquals(1 + 10 + 10, ContadorSentencias.consultas());
+        assertEquals(1000, reservas.size());
+        long filasClientes = reservas.stream().mapToLong(reserva -> reserva.getClientes().size()).sum();
+        assertEquals(334 + 333 * 2 + 333 * 3, filasClientes);
+        assertEquals(1000, reservas.stream().mapToLong(reserva -> reserva.getKarts().size()).sum());
+        assertEquals(1 + 10 + 10, ContadorSentencias.consultas());
+    }
+
+    @Test
+    public void reportesIngresosAgregadosEnBaseDeDatosTest() {
+        guardarReserva(LocalDate.of(2025, 4, 7), 10, 30, 2, 15000);
+        guardarReserva(LocalDate.of(2025, 4, 8), 10, 30, 4, 40500);
+        guardarReserva(LocalDate.of(2025, 5, 2), 20, 40, 12, 200000);
+        guardarReserva(LocalDate.of(2024, 4, 10), 10, 30, 2, 99000);
+        entityManager.flush();
+        entityManager.clear();
+        resumenIngresosService.reconstruir();
+
+        ContadorSentencias.reiniciar();
+        Map<String, Map<String, Integer>> porVueltas = reservaService.generarReporteIngresosPorVueltas(
+                LocalDate.of(2025, 4, 1), LocalDate.of(2025, 5, 31));
+        assertEquals(1, ContadorSentencias.consultas());
+
+        ContadorSentencias.reiniciar();
+        Map<String, Map<String, Integer>> porPersonas = reservaService.generarReporteIngresosPorPersonas(
+                LocalDate.of(2025, 4, 1), LocalDate.of(2025, 5, 31));
+        assertEquals(1, ContadorSentencias.consultas());
+
+        // Las claves son año-mes, así abril de 2024 (fuera del rango) no se mezcla con abril de 2025
+        assertEquals((int) Math.round(55500 * 1.19), porVueltas.get("10 vueltas o máx 30 min").get("2025-04"));
+        assertEquals((int) Math.round(200000 * 1.19), porVueltas.get("20 vueltas o máx 40 min").get("2025-05"));
+        assertEquals((int) Math.round(15000 * 1.19), porPersonas.get("1-2 personas").get("2025-04"));
+        assertEquals((int) Math.round(40500 * 1.19), porPersonas.get("3-5 personas").get("TOTAL"));
+        assertEquals((int) Math.round(200000 * 1.19), porPersonas.get("11-15 personas").get("2025-05"));
+    }
+
+    @Test
+    public void inicializarCompletaResumenParcialTest() {
+        guardarReserva(LocalDate.of(2025, 4, 7), 10, 30, 2, 15000);
+        guardarReserva(LocalDate.of(2025, 4, 7), 10, 30, 2, 15000);
+        guardarReserva(LocalDate.of(2025, 5, 2), 20, 40, 12, 200000);
+        entityManager.flush();
+        // Una de las reservas ya sumó su celda, como una creada mientras otra réplica reconstruía
+        ingresoResumenRepository.save(new IngresoResumenEntity(
+                new IngresoResumenId(LocalDate.of(2025, 4, 7), 10, 30, "1-2 personas"), "2025-04", 1, 1, 15000));
+        entityManager.flush();
+        entityManager.clear();
+
+        resumenIngresosService.inicializar();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(3, ingresoResumenRepository.contarReservasResumidas());
+        AuditoriaIngresosDTO auditoria = reservaService.auditarIngresos(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31));
+        assertTrue(auditoria.getCeldasConDiferencias().isEmpty());
+    }
+
+    @Test
+    public void crearReservaActualizaResumenDeIngresosTest() {
+        contarConsultasAlCrearReserva(2);
+        contarConsultasAlCrearReserva(2);
+
+        // Dos reservas del mismo día, vueltas y rango de personas comparten una sola celda
+        List<IngresoResumenEntity> celdas = ingresoResumenRepository.findAll();
+        assertEquals(1, celdas.size());
+        assertEquals(2, celdas.get(0).getCantidadReservas());
+        assertEquals("1-2 personas", celdas.get(0).getId().getRangoPersonas());
+    }
+
+    @Test
+    public void auditarIngresosContraReservasTest() {
+        guardarReserva(LocalDate.of(2023, 4, 7), 10, 30, 2, 15000);
+        guardarReserva(LocalDate.of(2024, 4, 7), 10, 30, 2, 15000);
+        guardarReserva(LocalDate.of(2025, 5, 2), 20, 40, 12, 200000);
+        entityManager.flush();
+        entityManager.clear();
+        resumenIngresosService.reconstruir();
+
+        // Una consulta en stream para las reservas y otra para las celdas, sin importar el rango
+        ContadorSentencias.reiniciar();
+        AuditoriaIngresosDTO auditoria = reservaService.auditarIngresos(LocalDate.of(2020, 1, 1), LocalDate.of(2025, 12, 31));
+        assertEquals(2, ContadorSentencias.consultas());
+        assertEquals(3, auditoria.getReservasRevisadas());
+        assertEquals(3, auditoria.getCeldasRevisadas());
+        assertTrue(auditoria.getCeldasConDiferencias().isEmpty());
+
+        // Una celda que se desvía de sus reservas aparece en la auditoría
+        ingresoResumenRepository.sumarReserva(LocalDate.of(2024, 4, 7), 10, 30, "1-2 personas", 15000);
+        entityManager.clear();
+        auditoria = reservaService.auditarIngresos(LocalDate.of(2020, 1, 1), LocalDate.of(2025, 12, 31));
+        assertEquals(1, auditoria.getCeldasConDiferencias().size());
+        assertEquals(LocalDate.of(2024, 4, 7), auditoria.getCeldasConDiferencias().get(0).getFecha());
+    }
+
+    @Test
+    public void disponibilidadConEstadosEnTextoLibreTest() {
+        // Filas guardadas cuando el estado era texto libre
+        String[] estados = {"Disponible ", "disponible", "mantención", "DISPONIBLE"};
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < estados.length; i++) {
+            KartEntity kart = new KartEntity();
+            kart.setCodigo("K" + i);
+            kart = kartRepository.save(kart);
+            ids.add(kart.getId());
+        }
+        entityManager.flush();
+        for (int i = 0; i < estados.length; i++) {
+            entityManager.createNativeQuery("UPDATE kart SET estado = ?1 WHERE id = ?2")
+                    .setParameter(1, estados[i]).setParameter(2, ids.get(i)).executeUpdate();
+        }
+        LocalDate fecha = LocalDate.of(2025, 4, 12);
+        ocupacionKartRepository.save(new OcupacionKartEntity(null, ids.get(1), fecha,
+                OcupacionKartService.primerSlot(LocalTime.of(15, 0)), 1L));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(EstadoKart.DISPONIBLE, kartRepository.findById(ids.get(0)).orElseThrow().getEstado());
+        assertEquals(EstadoKart.NO_DISPONIBLE, kartRepository.findById(ids.get(2)).orElseThrow().getEstado());
+
+        // Kart 1 ocupado a las 15:00, kart 2 en mantención
+        List<KartEntity> libres = disponibilidadKarts.disponibles(fecha, LocalTime.of(15, 0), 30);
+        assertEquals(List.of(ids.get(0), ids.get(3)), libres.stream().map(KartEntity::getId).toList());
+    }
+
+    @Test
+    public void horariosLibresConUnaConsultaPorTablaTest() {
+        LocalDate lunes = LocalDate.of(2030, 1, 7);
+        contarConsultasAlCrearReserva(2, lunes, LocalTime.of(9, 0));
+        KartEntity libre = new KartEntity();
+        libre.setCodigo("K9");
+        libre.setEstado(EstadoKart.DISPONIBLE);
+        kartRepository.save(libre);
+        entityManager.flush();
+        entityManager.clear();
+
+        ContadorSentencias.reiniciar();
+        List<HorarioLibreDTO> horarios = horarioLibreService.buscarHorariosLibres(2, 10, lunes, lunes.plusDays(6), 2);
+
+        // A las 9:00 los dos karts de la reserva están ocupados y queda uno solo
+        assertEquals(List.of(new HorarioLibreDTO(lunes, LocalTime.of(10, 0), 3),
+                new HorarioLibreDTO(lunes, LocalTime.of(11, 0), 3)), horarios);
+        // La flota y los karts reservados de toda la semana, sin importar cuántos bloques se revisan
+        assertEquals(2, ContadorSentencias.consultas());
+    }
+
+    private void guardarReserva(LocalDate fecha, int vueltas, int duracion, int personas, int precioFinal) {
+        ReservaEntity reserva = new ReservaEntity();
+        reserva.setFechaReserva(fecha);
+        reserva.setHoraReserva(LocalTime.of(10, 0));
+        reserva.setNumeroVueltas(vueltas);
+        reserva.setDuracionTotal(duracion);
+        reserva.setNumeroPersonas(personas);
+        reserva.setPrecioFinal(precioFinal);
+        entityManager.persist(reserva);
+    }
+
+    private int contarConsultasAlCrearReserva(int personas) {
+        return contarConsultasAlCrearReserva(personas, LocalDate.now(), LocalTime.of(10, 0));
+    }
+
+    private int contarConsultasAlCrearReserva(int personas, LocalDate fecha, LocalTime hora) {
+        ReservaEntity reserva = new ReservaEntity();
+        reserva.setFechaReserva(fecha);
+        reserva.setHoraReserva(hora);
+        reserva.setNumeroVueltas(10);
+        reserva.setClientes(new ArrayList<>());
+        reserva.setKarts(new ArrayList<>());
+
+        for (int i = 0; i < personas; i++) {
+            ClienteEntity cliente = new ClienteEntity();
+            cliente.setNombre("Cliente " + i);
+            cliente.setEmail("cliente" + i + "@gmail.com");
+            cliente.setFechaNacimiento(LocalDate.of(1990, 5, 15));
+            cliente = clienteRepository.save(cliente);
+
+            KartEntity kart = new KartEntity();
+            kart.setCodigo("K" + i);
+            kart.setEstado(EstadoKart.DISPONIBLE);
+            kart = kartRepository.save(kart);
+
+            // La reserva llega desde el frontend solo con los IDs
+            ClienteEntity referenciaCliente = new ClienteEntity();
+            referenciaCliente.setId(cliente.getId());
+            reserva.getClientes().add(referenciaCliente);
+
+            KartEntity referenciaKart = new KartEntity();
+            referenciaKart.setId(kart.getId());
+            reserva.getKarts().add(referenciaKart);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        ContadorSentencias.reiniciar();
+        reservaService.crearReserva(reserva);
+        entityManager.flush();
+
+        return ContadorSentencias.consultas();
+    }
+
+    public static class ContadorSentencias implements StatementInspector {
+
+        private static final AtomicInteger CONSULTAS = new AtomicInteger();
+        private static final AtomicInteger INSERCIONES = new AtomicInteger();
+
+        // Con lotes JDBC se prepara una sentencia por lote y no una por fila
+        @Override
+        public String inspect(String sql) {
+            String sentencia = sql.trim().toLowerCase();
+            // Pedir un bloque de IDs a la secuencia no es una consulta de datos
+            if (sentencia.startsWith("select") && !sentencia.contains("next value for")) {
+                CONSULTAS.incrementAndGet();
+            } else if (sentencia.startsWith("insert")) {
+                INSERCIONES.incrementAndGet();
+            }
+            return sql;
+        }
+
+        static void reiniciar() {
+            CONSULTAS.set(0);
+            INSERCIONES.set(0);
+        }
+
+        static int inserciones() {
+            return INSERCIONES.get();
+        }
+
+        static int consultas() {
+            return CONSULTAS.get();
+        }
+    }
+}
@@ -1,6 +1,15 @@
 package edu.mtisw.KartingRM.services;
 
+import edu.mtisw.KartingRM.config.RackProperties;
+import edu.mtisw.KartingRM.config.TarifaProperties;
+import edu.mtisw.KartingRM.dtos.CotizacionDTO;
+import edu.mtisw.KartingRM.dtos.MarcaCambiosDTO;
+import edu.mtisw.KartingRM.dtos.ReservaNormalizadaDTO;
+import edu.mtisw.KartingRM.dtos.ReservaRackDTO;
+import edu.mtisw.KartingRM.dtos.ReservasNormalizadasDTO;
+import edu.mtisw.KartingRM.dtos.ResultadoLoteReservasDTO;
 import edu.mtisw.KartingRM.entities.ClienteEntity;
+import edu.mtisw.KartingRM.entities.EstadoKart;
 import edu.mtisw.KartingRM.entities.KartEntity;
 import edu.mtisw.KartingRM.entities.ReservaEntity;
 import edu.mtisw.KartingRM.repositories.ClienteRepository;
@@ -11,17 +20,25 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
@@ -37,6 +54,27 @@ public class ReservaServiceTest {
     @Mock
     private KartRepository kartRepository;
 
+    @Mock
+    private OcupacionKartService ocupacionKartService;
+
+    @Spy
+    private HorarioRack horarioRack = new HorarioRack(new RackProperties());
+
+    @Mock
+    private RackSemanalCache rackSemanalCache;
+
+    @Mock
+    private DisponibilidadKarts disponibilidadKarts;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ResumenIngresosService resumenIngresosService;
+
+    @Spy
+    private MotorTarifas motorTarifas = new MotorTarifas(new TarifaProperties());
+
     @InjectMocks
     private ReservaService reservaService;
 
@@ -61,7 +99,7 @@ public class ReservaServiceTest {
         kart = new KartEntity();
         kart.setId(1L);
         kart.setCodigo("K001");
-        kart.setEstado("disponible");
+        kart.setEstado(EstadoKart.DISPONIBLE);
 
         // Configurar reserva
         reserva = new ReservaEntity();
@@ -89,8 +127,25 @@ public class ReservaServiceTest {
         // Configurar mocks
         when(clienteRepository.findById(anyLong())).thenReturn(Optional.of(cliente));
         when(kartRepository.findById(anyLong())).thenReturn(Optional.of(kart));
+        // La validación carga el grupo completo con findAllById; se resuelve con los mocks de findById
+        when(clienteRepository.findAllById(any())).thenAnswer(invocation -> {
+            List<ClienteEntity> encontrados = new ArrayList<>();
+            for (Long id : invocation.<Iterable<Long>>getArgument(0)) {
+                clienteRepository.findById(id).ifPresent(encontrados::add);
+            }
+            return encontrados;
+        });
+        when(kartRepository.findAllById(any())).thenAnswer(invocation -> {
+            List<KartEntity> encontrados = new ArrayList<>();
+            for (Long id : invocation.<Iterable<Long>>getArgument(0)) {
+                kartRepository.findById(id).ifPresent(encontrados::add);
+            }
+            return encontrados;
+        });
         when(reservaRepository.save(any(ReservaEntity.class))).thenReturn(reserva);
-        when(reservaRepository.findById(anyLong())).thenReturn(Optional.of(reserva));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(reservaRepository.findConClientesById(anyLong())).thenReturn(Optional.of(reserva));
         when(reservaRepository.findAll()).thenReturn(reservasList);
     }
 
@@ -102,6 +157,40 @@ public class ReservaServiceTest {
         verify(reservaRepository, times(1)).findAll();
     }
 
+    @Test
+    public void normalizarDeduplicaClientesYKartsTest() {
+        ClienteEntity frecuente = new ClienteEntity();
+        frecuente.setId(1L);
+        frecuente.setNombre("Frecuente");
+        ClienteEntity otro = new ClienteEntity();
+        otro.setId(2L);
+        otro.setNombre("Otro");
+        KartEntity kart = new KartEntity();
+        kart.setId(5L);
+        kart.setCodigo("K005");
+
+        List<ReservaEntity> reservas = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            ReservaEntity r = new ReservaEntity();
+            r.setId(id);
+            r.setPrecioFinal(15000);
+            r.setClientes(id == 2 ? List.of(frecuente, otro) : List.of(frecuente));
+            r.setKarts(List.of(kart));
+            reservas.add(r);
+        }
+
+        ReservasNormalizadasDTO resultado = ReservaService.normalizar(reservas);
+
+        assertEquals(3, resultado.getReservas().size());
+        assertEquals(2, resultado.getClientes().size());
+        assertEquals(1, resultado.getKarts().size());
+        assertEquals("Frecuente", resultado.getClientes().get(0).getNombre());
+        ReservaNormalizadaDTO segunda = resultado.getReservas().get(1);
+        assertEquals(List.of(1L, 2L), segunda.getClienteIds());
+        assertEquals(List.of(5L), segunda.getKartIds());
+        assertEquals(15000, segunda.getPrecioFinal());
+    }
+
     @Test
     public void crearReservaTest() {
         ReservaEntity result = reservaService.crearReserva(reserva);
@@ -109,6 +198,115 @@ public class ReservaServiceTest {
         assertNotNull(result);
         assertEquals(1L, result.getId());
         verify(reservaRepository, times(1)).save(any(ReservaEntity.class));
+        verify(ocupacionKartService, times(1)).registrarOcupacion(result);
+        verify(rackSemanalCache, times(1)).registrarReserva(any(ReservaRackDTO.class));
+        verify(disponibilidadKarts, times(1)).registrarReserva(result);
+        verify(resumenIngresosService, times(1)).registrarReserva(result);
+    }
+
+    @Test
+    public void crearReservaConKartsAsignadosTest() {
+        DisponibilidadKarts.Apartado apartado = kartsApartados(5L, 2L);
+        when(disponibilidadKarts.apartar(reserva.getFechaReserva(), LocalTime.of(10, 0), 30, 2)).thenReturn(apartado);
+        ReservaEntity pedida = reservaDeDosClientes();
+        when(reservaRepository.save(any(ReservaEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ReservaEntity result = reservaService.crearReservaConKartsAsignados(pedida);
+
+        // Los karts apartados, ordenados por ID para insertar las ocupaciones siempre en el mismo orden
+        assertEquals(List.of(2L, 5L), result.getKarts().stream().map(KartEntity::getId).toList());
+        assertEquals(2, result.getClientes().size());
+        verify(ocupacionKartService, times(1)).registrarOcupacion(result);
+        verify(transactionTemplate, times(1)).execute(any());
+        verify(disponibilidadKarts, never()).descartarDia(any());
+        verify(disponibilidadKarts, times(1)).liberar(apartado);
+    }
+
+    @Test
+    public void crearReservaConKartsAsignadosReintentaTrasChoqueTest() {
+        LocalDate fecha = reserva.getFechaReserva();
+        DisponibilidadKarts.Apartado primerApartado = kartsApartados(5L, 2L);
+        DisponibilidadKarts.Apartado segundoApartado = kartsApartados(9L, 2L);
+        when(disponibilidadKarts.apartar(fecha, LocalTime.of(10, 0), 30, 2)).thenReturn(primerApartado, segundoApartado);
+        doThrow(new IllegalStateException("Uno o más karts ya están reservados"))
+                .doNothing()
+                .when(ocupacionKartService).registrarOcupacion(any(ReservaEntity.class));
+        when(reservaRepository.save(any(ReservaEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ReservaEntity result = reservaService.crearReservaConKartsAsignados(reservaDeDosClientes());
+
+        // El segundo intento lee el día de nuevo y asigna otros karts
+        assertEquals(List.of(2L, 9L), result.getKarts().stream().map(KartEntity::getId).toList());
+        verify(disponibilidadKarts, times(1)).descartarDia(fecha);
+        verify(transactionTemplate, times(2)).execute(any());
+        // Los karts del intento revertido también se devuelven
+        verify(disponibilidadKarts, times(1)).liberar(primerApartado);
+        verify(disponibilidadKarts, times(1)).liberar(segundoApartado);
+    }
+
+    @Test
+    public void crearReservaConKartsAsignadosSinKartsSuficientesTest() {
+        when(disponibilidadKarts.apartar(any(), any(), anyInt(), anyInt())).thenReturn(null);
+
+        assertThrows(IllegalStateException.class, () -> reservaService.crearReservaConKartsAsignados(reservaDeDosClientes()));
+        verify(reservaRepository, never()).save(any(ReservaEntity.class));
+    }
+
+    @Test
+    public void crearReservaConKartsAsignadosAgotaIntentosTest() {
+        DisponibilidadKarts.Apartado apartado = kartsApartados(5L, 2L);
+        when(disponibilidadKarts.apartar(any(), any(), anyInt(), anyInt())).thenReturn(apartado);
+        doThrow(new IllegalStateException("Uno o más karts ya están reservados"))
+                .when(ocupacionKartService).registrarOcupacion(any(ReservaEntity.class));
+
+        assertThrows(IllegalStateException.class, () -> reservaService.crearReservaConKartsAsignados(reservaDeDosClientes()));
+        verify(transactionTemplate, times(ReservaService.INTENTOS_ASIGNACION)).execute(any());
+    }
+
+    private ReservaEntity reservaDeDosClientes() {
+        ClienteEntity otro = new ClienteEntity();
+        otro.setId(2L);
+        otro.setNombre("Otro Cliente");
+        when(clienteRepository.findById(2L)).thenReturn(Optional.of(otro));
+
+        ReservaEntity pedida = new ReservaEntity();
+        pedida.setFechaReserva(reserva.getFechaReserva());
+        pedida.setHoraReserva(LocalTime.of(10, 0));
+        pedida.setNumeroVueltas(10);
+        pedida.setClientes(new ArrayList<>(List.of(cliente, otro)));
+        return pedida;
+    }
+
+    private DisponibilidadKarts.Apartado kartsApartados(Long... ids) {
+        List<KartEntity> karts = new ArrayList<>();
+        for (Long id : ids) {
+            KartEntity libre = new KartEntity();
+            libre.setId(id);
+            libre.setCodigo("K00" + id);
+            libre.setEstado(EstadoKart.DISPONIBLE);
+            when(kartRepository.findById(id)).thenReturn(Optional.of(libre));
+            karts.add(libre);
+        }
+        return new DisponibilidadKarts.Apartado(reserva.getFechaReserva(), 40, 42, karts);
+    }
+
+    @Test
+    public void crearReservaKartOcupadoTest() {
+        doThrow(new IllegalStateException("Uno o más karts ya están reservados"))
+                .when(ocupacionKartService).registrarOcupacion(any(ReservaEntity.class));
+
+        assertThrows(IllegalStateException.class, () -> reservaService.crearReserva(reserva));
+    }
+
+    @Test
+    public void crearReservaKartRepetidoTest() {
+        reserva.getKarts().add(kart);
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            reservaService.crearReserva(reserva);
+        });
+
+        assertTrue(exception.getMessage().contains("no puede asignarse dos veces"));
     }
 
     @Test
@@ -117,12 +315,12 @@ public class ReservaServiceTest {
         
         assertNotNull(result);
         assertEquals(1L, result.getId());
-        verify(reservaRepository, times(1)).findById(1L);
+        verify(reservaRepository, times(1)).findConClientesById(1L);
     }
     
     @Test
     public void obtenerReservaPorIdNoExistenteTest() {
-        when(reservaRepository.findById(99L)).thenReturn(Optional.empty());
+        when(reservaRepository.findConClientesById(99L)).thenReturn(Optional.empty());
         
         Exception exception = assertThrows(IllegalArgumentException.class, () -> {
             reservaService.obtenerReservaPorId(99L);
@@ -166,7 +364,7 @@ public class ReservaServiceTest {
 
     @Test
     public void crearReservaKartNoDisponibleTest() {
-        kart.setEstado("no disponible");
+        kart.setEstado(EstadoKart.NO_DISPONIBLE);
         when(kartRepository.findById(1L)).thenReturn(Optional.of(kart));
         
         Exception exception = assertThrows(IllegalArgumentException.class, () -> {
@@ -176,55 +374,201 @@ public class ReservaServiceTest {
         assertTrue(exception.getMessage().contains("no está disponible"));
     }
 
+    @Test
+    public void crearReservaClienteNoExistenteTest() {
+        when(clienteRepository.findById(1L)).thenReturn(Optional.empty());
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            reservaService.crearReserva(reserva);
+        });
+
+        assertTrue(exception.getMessage().contains("Cliente no encontrado con ID: 1"));
+    }
+
+    @Test
+    public void crearReservaCargaGrupoEnUnaConsultaTest() {
+        ReservaEntity reservaGrupo = createReservaWithClients(15);
+
+        reservaService.crearReserva(reservaGrupo);
+
+        verify(clienteRepository, times(1)).findAllById(any());
+        verify(kartRepository, times(1)).findAllById(any());
+    }
+
     @Test
     public void obtenerRackSemanalTest() {
-        ReservaEntity reserva1 = createSampleReserva(1L, LocalDate.now(), LocalTime.of(10, 0), 30);
-        ReservaEntity reserva2 = createSampleReserva(2L, LocalDate.now().plusDays(1), LocalTime.of(14, 0), 30);
-        
-        List<ReservaEntity> allReservas = new ArrayList<>();
-        allReservas.add(reserva1);
-        allReservas.add(reserva2);
-        
-        when(reservaRepository.findAll()).thenReturn(allReservas);
-        
-        Map<String, Map<String, List<ReservaEntity>>> result = reservaService.obtenerRackSemanal();
-        
+        LocalDate lunes = LocalDate.of(2025, 4, 7);
+        List<ReservaRackDTO> reservasSemana = new ArrayList<>();
+        reservasSemana.add(new ReservaRackDTO(1L, lunes, LocalTime.of(10, 0), 30, 2));
+        // 12:45 + 40 min cruza el bloque de las 12 y, tras el almuerzo, no toca el de las 14
+        reservasSemana.add(new ReservaRackDTO(2L, lunes.plusDays(1), LocalTime.of(12, 45), 40, 4));
+
+        // Un rango que no es semana completa se arma directo desde la base de datos
+        when(reservaRepository.findRackByFechaReservaBetween(lunes, lunes.plusDays(1))).thenReturn(reservasSemana);
+
+        Map<String, Map<String, List<ReservaRackDTO>>> result = reservaService.obtenerRackSemanalPorFechas(lunes, lunes.plusDays(1));
+
+        assertEquals(7, result.size());
+        assertEquals(1L, result.get("Lunes").get("10:00-11:00").get(0).getId());
+        assertEquals(1, result.get("Martes").get("12:00-13:00").size());
+        assertTrue(result.get("Martes").get("14:00-15:00").isEmpty());
+        verify(reservaRepository, never()).findAll();
+        verify(rackSemanalCache, never()).obtenerSemana(any());
+    }
+
+    @Test
+    public void obtenerRackSemanalActualTest() {
+        LocalDate lunes = LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+
+        when(rackSemanalCache.obtenerSemana(lunes)).thenReturn(new HashMap<>());
+
+        Map<String, Map<String, List<ReservaRackDTO>>> result = reservaService.obtenerRackSemanal();
+
         assertNotNull(result);
-        assertTrue(result.size() > 0);
+        verify(rackSemanalCache, times(1)).obtenerSemana(lunes);
+        verify(reservaRepository, never()).findAll();
     }
     
+    @Test
+    public void versionReservasCambiaConLaMarcaTest() {
+        LocalDate inicio = LocalDate.of(2025, 4, 7);
+        LocalDate fin = LocalDate.of(2025, 4, 13);
+        when(reservaRepository.findMarcaCambiosByFechaReservaBetween(inicio, fin))
+                .thenReturn(new MarcaCambiosDTO(40L, 12), new MarcaCambiosDTO(40L, 12), new MarcaCambiosDTO(41L, 13));
+
+        String primera = reservaService.versionReservas(inicio, fin);
+
+        assertEquals(primera, reservaService.versionReservas(inicio, fin));
+        assertNotEquals(primera, reservaService.versionReservas(inicio, fin));
+        // Solo se consulta la marca; ni el rack ni los reportes se calculan
+        verify(reservaRepository, never()).findRackByFechaReservaBetween(any(), any());
+        verifyNoInteractions(resumenIngresosService);
+    }
+
     @Test
     public void generarReporteIngresosPorVueltasTest() {
-        LocalDate inicio = LocalDate.now().minusDays(30);
-        LocalDate fin = LocalDate.now();
-        
-        List<ReservaEntity> reservas = new ArrayList<>();
-        reservas.add(reserva);
-        
-        when(reservaRepository.findAllByFechaReservaBetween(inicio, fin)).thenReturn(reservas);
-        
-        Map<String, Map<String, Integer>> result = reservaService.generarReporteIngresosPorVueltas(inicio, fin);
-        
-        assertNotNull(result);
-        assertTrue(result.size() > 0);
+        LocalDate inicio = LocalDate.of(2025, 3, 1);
+        LocalDate fin = LocalDate.of(2025, 4, 30);
+        Map<String, Map<String, Integer>> reporte = new HashMap<>();
+        when(resumenIngresosService.generarReportePorVueltas(inicio, fin)).thenReturn(reporte);
+
+        assertSame(reporte, reservaService.generarReporteIngresosPorVueltas(inicio, fin));
+        verify(reservaRepository, never()).streamIngresosByFechaReservaBetween(any(), any());
     }
     
     @Test
     public void generarReporteIngresosPorPersonasTest() {
-        LocalDate inicio = LocalDate.now().minusDays(30);
-        LocalDate fin = LocalDate.now();
-        
-        List<ReservaEntity> reservas = new ArrayList<>();
-        reservas.add(reserva);
-        
-        when(reservaRepository.findAllByFechaReservaBetween(inicio, fin)).thenReturn(reservas);
-        
-        Map<String, Map<String, Integer>> result = reservaService.generarReporteIngresosPorPersonas(inicio, fin);
-        
-        assertNotNull(result);
-        assertTrue(result.size() > 0);
+        LocalDate inicio = LocalDate.of(2025, 4, 1);
+        LocalDate fin = LocalDate.of(2025, 4, 30);
+        Map<String, Map<String, Integer>> reporte = new HashMap<>();
+        when(resumenIngresosService.generarReportePorPersonas(inicio, fin)).thenReturn(reporte);
+
+        assertSame(reporte, reservaService.generarReporteIngresosPorPersonas(inicio, fin));
+        verify(reservaRepository, never()).streamIngresosByFechaReservaBetween(any(), any());
     }
     
+    @Test
+    public void cotizarNoGuardaNadaTest() {
+        ClienteEntity frecuente = new ClienteEntity();
+        frecuente.setId(2L);
+        frecuente.setNombre("Cliente Frecuente");
+        frecuente.setNumeroVisitas(7);
+        ClienteEntity cumpleanero = new ClienteEntity();
+        cumpleanero.setId(3L);
+        cumpleanero.setNombre("Cliente Cumpleaños");
+        cumpleanero.setFechaNacimiento(LocalDate.of(1995, 4, 12));
+        when(clienteRepository.findById(2L)).thenReturn(Optional.of(frecuente));
+        when(clienteRepository.findById(3L)).thenReturn(Optional.of(cumpleanero));
+
+        ReservaEntity cotizacion = new ReservaEntity();
+        cotizacion.setNumeroVueltas(15);
+        cotizacion.setFechaReserva(LocalDate.of(2025, 4, 12));
+        cotizacion.setClientes(new ArrayList<>(List.of(cliente, frecuente, cumpleanero)));
+
+        CotizacionDTO resultado = reservaService.cotizar(cotizacion);
+
+        // 20000 por persona: 10% por 3 visitas, 30% por 7 visitas y 50% por cumpleaños
+        assertEquals(20000, resultado.getPrecioBase());
+        assertEquals(35, resultado.getDuracionTotal());
+        assertEquals(3, resultado.getNumeroPersonas());
+        assertEquals(List.of(18000, 14000, 10000),
+                resultado.getClientes().stream().map(detalle -> detalle.getPrecio()).toList());
+        assertEquals(50, resultado.getClientes().get(2).getDescuentoPorCumpleaños());
+        assertEquals(42000, resultado.getSubtotal());
+        // 10% por grupo de 3 sobre el total
+        assertEquals(10, resultado.getDescuentoPorPersonas());
+        assertEquals(37800, resultado.getPrecioFinal());
+
+        verify(reservaRepository, never()).save(any());
+        verifyNoInteractions(ocupacionKartService, resumenIngresosService, kartRepository);
+    }
+
+    @Test
+    public void crearReservasEnLoteTest() {
+        List<ReservaEntity> carga = List.of(reservaDeCarga(LocalDate.of(2024, 3, 1), 1L),
+                reservaDeCarga(LocalDate.of(2024, 3, 2), 1L));
+        when(reservaRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ResultadoLoteReservasDTO resultado = reservaService.crearReservasEnLote(carga);
+
+        assertEquals(2, resultado.getRecibidas());
+        assertEquals(2, resultado.getCreadas());
+        assertTrue(resultado.getErrores().isEmpty());
+        assertEquals("Cliente Test", carga.get(0).getClientes().get(0).getNombre());
+        assertEquals(13500, carga.get(1).getPrecioFinal());
+        // Clientes y karts de toda la carga en una consulta cada uno
+        verify(clienteRepository, times(1)).findAllById(any());
+        verify(kartRepository, times(1)).findAllById(any());
+        verify(ocupacionKartService).registrarOcupaciones(carga);
+        verify(resumenIngresosService).registrarReservas(carga);
+        verify(rackSemanalCache, times(2)).registrarReserva(any(ReservaRackDTO.class));
+        verify(reservaRepository, never()).save(any());
+    }
+
+    @Test
+    public void crearReservasEnLoteConErroresNoGuardaNadaTest() {
+        when(clienteRepository.findById(99L)).thenReturn(Optional.empty());
+        ReservaEntity vueltasInvalidas = reservaDeCarga(LocalDate.of(2024, 3, 3), 1L);
+        vueltasInvalidas.setNumeroVueltas(12);
+        List<ReservaEntity> carga = List.of(reservaDeCarga(LocalDate.of(2024, 3, 1), 1L),
+                reservaDeCarga(LocalDate.of(2024, 3, 2), 99L), vueltasInvalidas);
+
+        ResultadoLoteReservasDTO resultado = reservaService.crearReservasEnLote(carga);
+
+        assertEquals(0, resultado.getCreadas());
+        assertEquals(List.of("Reserva 2: Cliente no encontrado con ID: 99", "Reserva 3: Número de vueltas no válido"),
+                resultado.getErrores());
+        verify(reservaRepository, never()).saveAll(any());
+        verifyNoInteractions(ocupacionKartService, resumenIngresosService, rackSemanalCache);
+    }
+
+    @Test
+    public void crearReservasEnLoteVaciaTest() {
+        assertThrows(IllegalArgumentException.class, () -> reservaService.crearReservasEnLote(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> reservaService.crearReservasEnLote(null));
+    }
+
+    private ReservaEntity reservaDeCarga(LocalDate fecha, Long idCliente) {
+        ReservaEntity reservaDeCarga = new ReservaEntity();
+        reservaDeCarga.setFechaReserva(fecha);
+        reservaDeCarga.setHoraReserva(LocalTime.of(11, 0));
+        reservaDeCarga.setNumeroVueltas(10);
+        ClienteEntity referenciaCliente = new ClienteEntity();
+        referenciaCliente.setId(idCliente);
+        reservaDeCarga.setClientes(new ArrayList<>(List.of(referenciaCliente)));
+        KartEntity referenciaKart = new KartEntity();
+        referenciaKart.setId(1L);
+        reservaDeCarga.setKarts(new ArrayList<>(List.of(referenciaKart)));
+        return reservaDeCarga;
+    }
+
+    @Test
+    public void cotizarVueltasInvalidasTest() {
+        reserva.setNumeroVueltas(12);
+
+        assertThrows(IllegalArgumentException.class, () -> reservaService.cotizar(reserva));
+    }
+
     // Tests para los descuentos
     @Test
     public void testDescuentoPorPersonas() {
@@ -246,7 +590,7 @@ public class ReservaServiceTest {
             KartEntity kart = new KartEntity();
             kart.setId(200L + i);
             kart.setCodigo("K" + (200 + i));
-            kart.setEstado("disponible");
+            kart.setEstado(EstadoKart.DISPONIBLE);
             karts.add(kart);
             
             // Configurar mock para este kart
@@ -311,7 +655,7 @@ public class ReservaServiceTest {
         KartEntity kartDisponible = new KartEntity();
         kartDisponible.setId(20L);
         kartDisponible.setCodigo("K020");
-        kartDisponible.setEstado("disponible");
+        kartDisponible.setEstado(EstadoKart.DISPONIBLE);
         
         when(kartRepository.findById(20L)).thenReturn(Optional.of(kartDisponible));
         
@@ -334,7 +678,7 @@ public class ReservaServiceTest {
         karts.add(kartDisponible);
         reservaPrueba.setKarts(karts);
         
-        // Añadir un doAnswer para simular el comportamiento de calcularTarifasYDescuentos
+        // Añadir un doAnswer para simular el cálculo de tarifas y descuentos
         doAnswer(invocation -> {
             ReservaEntity reservaArg = invocation.getArgument(0);
             // Simular el comportamiento real de crearReserva
@@ -382,7 +726,7 @@ public class ReservaServiceTest {
         KartEntity kartDisponible = new KartEntity();
         kartDisponible.setId(40L);
         kartDisponible.setCodigo("K040");
-        kartDisponible.setEstado("disponible");
+        kartDisponible.setEstado(EstadoKart.DISPONIBLE);
         
         when(kartRepository.findById(40L)).thenReturn(Optional.of(kartDisponible));
         
@@ -467,7 +811,7 @@ public class ReservaServiceTest {
             
             KartEntity kart = new KartEntity();
             kart.setId((long) i);
-            kart.setEstado("disponible");
+            kart.setEstado(EstadoKart.DISPONIBLE);
             karts.add(kart);
             
             when(clienteRepository.findById((long) i)).thenReturn(Optional.of(cliente));
@@ -505,7 +849,7 @@ public class ReservaServiceTest {
         List<KartEntity> karts = new ArrayList<>();
         KartEntity kart = new KartEntity();
         kart.setId(1L);
-        kart.setEstado("disponible");
+        kart.setEstado(EstadoKart.DISPONIBLE);
         karts.add(kart);
         reserva.setKarts(karts);
         
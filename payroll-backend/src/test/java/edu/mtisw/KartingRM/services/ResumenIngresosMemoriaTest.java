@@ -0,0 +1,72 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.dtos.AuditoriaIngresosDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Audita millones de reservas con un heap de 64 MB (ejecución "memoria-acotada"
+ * de surefire, ver pom.xml). Las filas quedan en un H2 en disco y el resultado
+ * se lee sin materializar; si la auditoría juntara las reservas en una lista,
+ * esta prueba termina en OutOfMemoryError.
+ */
+@Tag("memoria-acotada")
+@ActiveProfiles("test")
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/memoria-acotada/ingresos;LAZY_QUERY_EXECUTION=1;CACHE_SIZE=4096",
+        "spring.jpa.show-sql=false"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ResumenIngresosService.class)
+public class ResumenIngresosMemoriaTest {
+
+    private static final int RESERVAS = 1_000_000;
+    private static final int BLOQUE = 20_000;
+    private static final int DIAS = 1000;
+    private static final LocalDate INICIO = LocalDate.of(2020, 1, 1);
+
+    @Autowired
+    private ResumenIngresosService resumenIngresosService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void tearDown() {
+        // La base ocupa cientos de MB en target; H2 borra los archivos al cerrarla
+        jdbcTemplate.execute("DROP ALL OBJECTS DELETE FILES");
+    }
+
+    @Test
+    public void auditarMillonesDeReservasConHeapAcotadoTest() {
+        // Carga masiva en SQL, por bloques y en orden de fecha, así los índices de fecha crecen al final
+        for (int desde = 1; desde <= RESERVAS; desde += BLOQUE) {
+            jdbcTemplate.update("INSERT INTO reservas (id, descuento, descuento_por_cumpleaños, descuento_por_personas, " +
+                    "descuento_por_visitas, descuento_total, duracion_total, es_dia_especial, fecha_reserva, hora_reserva, " +
+                    "numero_personas, numero_vueltas, precio, precio_base, precio_final, precio_total, tiempo_maximo) " +
+                    "SELECT X, 0, 0, 0, 0, 0, 30, FALSE, DATEADD('DAY', (X - 1) / " + (RESERVAS / DIAS) + ", DATE '" + INICIO + "'), " +
+                    "TIME '10:00:00', 2, 10, 0, 15000, 15000, 0, 0 " +
+                    "FROM SYSTEM_RANGE(" + desde + ", " + Math.min(desde + BLOQUE - 1, RESERVAS) + ")");
+        }
+
+        AuditoriaIngresosDTO auditoria = resumenIngresosService.auditar(INICIO, INICIO.plusDays(DIAS - 1));
+
+        assertEquals(RESERVAS, auditoria.getReservasRevisadas());
+        // Una celda por día y el resumen vacío: todas aparecen como diferencias
+        assertEquals(DIAS, auditoria.getCeldasRevisadas());
+        assertEquals(DIAS, auditoria.getCeldasConDiferencias().size());
+    }
+}
@@ -0,0 +1,265 @@
+package edu.mtisw.KartingRM.services;
+
+import edu.mtisw.KartingRM.dtos.AuditoriaIngresosDTO;
+import edu.mtisw.KartingRM.dtos.CeldaResumenDTO;
+import edu.mtisw.KartingRM.dtos.IngresoAgregadoDTO;
+import edu.mtisw.KartingRM.dtos.ReservaIngresoDTO;
+import edu.mtisw.KartingRM.entities.IngresoResumenEntity;
+import edu.mtisw.KartingRM.entities.IngresoResumenId;
+import edu.mtisw.KartingRM.entities.ReservaEntity;
+import edu.mtisw.KartingRM.repositories.IngresoResumenRepository;
+import edu.mtisw.KartingRM.repositories.ReservaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ActiveProfiles("test")
+public class ResumenIngresosServiceTest {
+
+    @Mock
+    private IngresoResumenRepository ingresoResumenRepository;
+
+    @Mock
+    private ReservaRepository reservaRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection conexion;
+
+    private static final int DIAS_AUDITADOS = 1000;
+
+    private ResumenIngresosService resumenIngresosService;
+
+    private ReservaEntity reserva;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(jdbcTemplate.getDataSource()).thenReturn(dataSource);
+        when(dataSource.getConnection()).thenReturn(conexion);
+        resumenIngresosService = new ResumenIngresosService(ingresoResumenRepository, reservaRepository, jdbcTemplate,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+        reserva = new ReservaEntity();
+        reserva.setFechaReserva(LocalDate.of(2025, 4, 7));
+        reserva.setNumeroVueltas(10);
+        reserva.setDuracionTotal(30);
+        reserva.setNumeroPersonas(4);
+        reserva.setPrecioFinal(40500);
+    }
+
+    @Test
+    public void registrarReservaCeldaExistenteTest() {
+        when(ingresoResumenRepository.sumarReserva(any(), anyInt(), anyInt(), anyString(), anyLong())).thenReturn(1);
+
+        resumenIngresosService.registrarReserva(reserva);
+
+        verify(ingresoResumenRepository).sumarReserva(LocalDate.of(2025, 4, 7), 10, 30, "3-5 personas", 40500L);
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    @Test
+    public void registrarReservaCeldaNuevaTest() {
+        when(ingresoResumenRepository.sumarReserva(any(), anyInt(), anyInt(), anyString(), anyLong())).thenReturn(0);
+
+        resumenIngresosService.registrarReserva(reserva);
+
+        // 2025-04-07 es lunes
+        verify(jdbcTemplate).update(anyString(), eq(LocalDate.of(2025, 4, 7)), eq(10), eq(30), eq("3-5 personas"),
+                eq("2025-04"), eq(1), eq(1), eq(40500L));
+    }
+
+    @Test
+    public void registrarReservaCeldaCreadaEnParaleloTest() throws SQLException {
+        when(ingresoResumenRepository.sumarReserva(any(), anyInt(), anyInt(), anyString(), anyLong())).thenReturn(0, 1);
+        when(jdbcTemplate.update(anyString(), any(Object[].class)))
+                .thenThrow(new DataIntegrityViolationException("clave duplicada"));
+
+        resumenIngresosService.registrarReserva(reserva);
+
+        // Se deshace solo el INSERT fallido y la reserva se suma a la celda que creó la otra réplica
+        verify(conexion).rollback(any());
+        verify(ingresoResumenRepository, times(2)).sumarReserva(any(), anyInt(), anyInt(), anyString(), anyLong());
+    }
+
+    @Test
+    public void registrarReservasAgrupaPorCeldaTest() {
+        ReservaEntity mismaCelda = new ReservaEntity();
+        mismaCelda.setFechaReserva(LocalDate.of(2025, 4, 7));
+        mismaCelda.setNumeroVueltas(10);
+        mismaCelda.setDuracionTotal(30);
+        mismaCelda.setNumeroPersonas(3);
+        mismaCelda.setPrecioFinal(39000);
+        ReservaEntity otraCelda = new ReservaEntity();
+        otraCelda.setFechaReserva(LocalDate.of(2025, 4, 8));
+        otraCelda.setNumeroVueltas(15);
+        otraCelda.setDuracionTotal(35);
+        otraCelda.setNumeroPersonas(1);
+        otraCelda.setPrecioFinal(20000);
+        when(ingresoResumenRepository.sumarReservas(eq(LocalDate.of(2025, 4, 7)), anyInt(), anyInt(), anyString(),
+                anyInt(), anyLong())).thenReturn(1);
+
+        resumenIngresosService.registrarReservas(List.of(reserva, mismaCelda, otraCelda));
+
+        // Un UPDATE por celda con la suma de sus reservas; la celda que no existe se inserta completa
+        verify(ingresoResumenRepository).sumarReservas(LocalDate.of(2025, 4, 7), 10, 30, "3-5 personas", 2, 79500L);
+        verify(ingresoResumenRepository).sumarReservas(LocalDate.of(2025, 4, 8), 15, 35, "1-2 personas", 1, 20000L);
+        verify(jdbcTemplate).update(anyString(), eq(LocalDate.of(2025, 4, 8)), eq(15), eq(35), eq("1-2 personas"),
+                eq("2025-04"), eq(2), eq(1), eq(20000L));
+        verify(ingresoResumenRepository, never()).sumarReserva(any(), anyInt(), anyInt(), anyString(), anyLong());
+    }
+
+    @Test
+    public void generarReportePorVueltasAplicaIvaPorCeldaTest() {
+        LocalDate inicio = LocalDate.of(2025, 3, 1);
+        LocalDate fin = LocalDate.of(2025, 4, 30);
+
+        List<IngresoAgregadoDTO> celdas = new ArrayList<>();
+        celdas.add(new IngresoAgregadoDTO("10 vueltas o máx 30 min", "2025-03", 100000L));
+        celdas.add(new IngresoAgregadoDTO("10 vueltas o máx 30 min", "2025-04", 50000L));
+        celdas.add(new IngresoAgregadoDTO("20 vueltas o máx 40 min", "2025-04", 25000L));
+        when(ingresoResumenRepository.sumarPorVueltas(inicio, fin)).thenReturn(celdas);
+
+        Map<String, Map<String, Integer>> result = resumenIngresosService.generarReportePorVueltas(inicio, fin);
+
+        assertEquals(119000, result.get("10 vueltas o máx 30 min").get("2025-03"));
+        assertEquals(59500, result.get("10 vueltas o máx 30 min").get("2025-04"));
+        assertEquals(178500, result.get("10 vueltas o máx 30 min").get("TOTAL"));
+        assertEquals(29750, result.get("20 vueltas o máx 40 min").get("TOTAL"));
+    }
+
+    @Test
+    public void auditarReservasEnStreamTest() {
+        LocalDate inicio = LocalDate.of(2020, 1, 1);
+        LocalDate fin = inicio.plusDays(DIAS_AUDITADOS - 1);
+        int reservasPorDia = 30;
+
+        // Solo la comparación de celdas y el cierre del stream; la memoria con millones de
+        // reservas reales se prueba en ResumenIngresosMemoriaTest
+        AtomicBoolean cerrado = new AtomicBoolean();
+        Stream<ReservaIngresoDTO> reservas = LongStream.range(0, (long) DIAS_AUDITADOS * reservasPorDia)
+                .mapToObj(i -> new ReservaIngresoDTO(inicio.plusDays(i % DIAS_AUDITADOS), 10, 30, 2, 15000))
+                .onClose(() -> cerrado.set(true));
+        when(reservaRepository.streamIngresosByFechaReservaBetween(inicio, fin)).thenReturn(reservas);
+
+        List<IngresoResumenEntity> filas = new ArrayList<>();
+        for (int dia = 0; dia < DIAS_AUDITADOS; dia++) {
+            LocalDate fecha = inicio.plusDays(dia);
+            IngresoResumenId id = new IngresoResumenId(fecha, 10, 30, "1-2 personas");
+            filas.add(new IngresoResumenEntity(id, YearMonth.from(fecha).toString(), fecha.getDayOfWeek().getValue(),
+                    reservasPorDia, reservasPorDia * 15000L));
+        }
+        // Una celda quedó con una reserva de menos
+        filas.get(0).setCantidadReservas(reservasPorDia - 1);
+        when(ingresoResumenRepository.findByIdFechaBetween(inicio, fin)).thenReturn(filas);
+
+        AuditoriaIngresosDTO auditoria = resumenIngresosService.auditar(inicio, fin);
+
+        assertEquals((long) DIAS_AUDITADOS * reservasPorDia, auditoria.getReservasRevisadas());
+        assertEquals(DIAS_AUDITADOS, auditoria.getCeldasRevisadas());
+        assertEquals(List.of(filas.get(0).getId()), auditoria.getCeldasConDiferencias());
+        assertTrue(cerrado.get());
+    }
+
+    @Test
+    public void auditarCeldasSinContraparteTest() {
+        LocalDate fecha = LocalDate.of(2025, 4, 7);
+        when(reservaRepository.streamIngresosByFechaReservaBetween(fecha, fecha))
+                .thenReturn(Stream.of(new ReservaIngresoDTO(fecha, 20, 40, 12, 200000)));
+        IngresoResumenId huerfana = new IngresoResumenId(fecha, 10, 30, "1-2 personas");
+        when(ingresoResumenRepository.findByIdFechaBetween(fecha, fecha))
+                .thenReturn(List.of(new IngresoResumenEntity(huerfana, "2025-04", 1, 1, 15000)));
+
+        AuditoriaIngresosDTO auditoria = resumenIngresosService.auditar(fecha, fecha);
+
+        // La reserva no está en el resumen y la celda del resumen no tiene reservas
+        assertEquals(2, auditoria.getCeldasRevisadas());
+        assertEquals(2, auditoria.getCeldasConDiferencias().size());
+        assertTrue(auditoria.getCeldasConDiferencias().contains(huerfana));
+        assertTrue(auditoria.getCeldasConDiferencias().contains(new IngresoResumenId(fecha, 20, 40, "11-15 personas")));
+    }
+
+    @Test
+    public void inicializarResumenCompletoNoReconstruyeTest() {
+        when(ingresoResumenRepository.contarReservasResumidas()).thenReturn(3L);
+        when(reservaRepository.countByFechaReservaIsNotNull()).thenReturn(3L);
+
+        resumenIngresosService.inicializar();
+
+        verify(ingresoResumenRepository, never()).resumirReservas();
+    }
+
+    @Test
+    public void inicializarConCeldaDeReservaConcurrenteReconstruyeTest() {
+        // Una reserva nueva creó su celda antes de la primera reconstrucción: hay filas, pero no todas
+        LocalDate fecha = LocalDate.of(2025, 4, 7);
+        IngresoResumenId celdaExistente = new IngresoResumenId(fecha, 10, 30, "1-2 personas");
+        IngresoResumenEntity fila = new IngresoResumenEntity(celdaExistente, "2025-04", 1, 1, 15000);
+        when(ingresoResumenRepository.contarReservasResumidas()).thenReturn(1L);
+        when(reservaRepository.countByFechaReservaIsNotNull()).thenReturn(4L);
+        when(ingresoResumenRepository.findAll()).thenReturn(List.of(fila));
+        when(ingresoResumenRepository.resumirReservas()).thenReturn(List.of(
+                new CeldaResumenDTO(fecha, 10, 30, "1-2 personas", 3L, 45000L),
+                new CeldaResumenDTO(fecha.plusDays(1), 20, 40, "3-5 personas", 1L, 40000L)));
+
+        resumenIngresosService.inicializar();
+
+        // La celda existente se corrige en su lugar y solo se inserta la que falta
+        assertEquals(3, fila.getCantidadReservas());
+        assertEquals(45000, fila.getTotalPrecioFinal());
+        verify(ingresoResumenRepository).saveAll(argThat(nuevas -> {
+            List<IngresoResumenEntity> lista = new ArrayList<>();
+            nuevas.forEach(lista::add);
+            return lista.size() == 1 && lista.get(0).getId().getNumeroVueltas() == 20;
+        }));
+        verify(ingresoResumenRepository, never()).deleteAllInBatch();
+    }
+
+    @Test
+    public void inicializarFallidoRevisaConteosTest() {
+        when(ingresoResumenRepository.contarReservasResumidas()).thenReturn(1L);
+        when(reservaRepository.countByFechaReservaIsNotNull()).thenReturn(4L);
+        when(ingresoResumenRepository.resumirReservas()).thenThrow(new DataIntegrityViolationException("clave duplicada"));
+
+        resumenIngresosService.inicializar();
+
+        // Antes, dentro de la transacción y después del fallo: el conflicto no se da por bueno sin mirar los conteos
+        verify(ingresoResumenRepository, times(3)).contarReservasResumidas();
+        verify(ingresoResumenRepository, never()).saveAll(any());
+    }
+
+    @Test
+    public void rangoPersonasTest() {
+        assertEquals("1-2 personas", ResumenIngresosService.rangoPersonas(2));
+        assertEquals("3-5 personas", ResumenIngresosService.rangoPersonas(3));
+        assertEquals("6-10 personas", ResumenIngresosService.rangoPersonas(10));
+        assertEquals("11-15 personas", ResumenIngresosService.rangoPersonas(11));
+    }
+}
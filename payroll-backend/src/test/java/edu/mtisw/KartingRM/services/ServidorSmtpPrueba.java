@@ -0,0 +1,128 @@
+package edu.mtisw.KartingRM.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servidor SMTP mínimo en memoria para pruebas y benchmarks: acepta todo,
+ * salvo los destinatarios marcados como rechazados, y cuenta conexiones y
+ * mensajes. El retardo por conexión simula el costo de abrir una sesión
+ * real (TCP, STARTTLS y autenticación).
+ */
+public class ServidorSmtpPrueba implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService sesiones = Executors.newCachedThreadPool();
+    private final long retardoConexionMs;
+    private final Set<String> rechazados = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger conexiones = new AtomicInteger();
+    private final AtomicInteger mensajes = new AtomicInteger();
+
+    public ServidorSmtpPrueba(long retardoConexionMs) throws IOException {
+        this.retardoConexionMs = retardoConexionMs;
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        sesiones.execute(this::aceptar);
+    }
+
+    public int getPuerto() {
+        return serverSocket.getLocalPort();
+    }
+
+    public void rechazar(String email) {
+        rechazados.add(email.toLowerCase(Locale.ROOT));
+    }
+
+    public int getConexiones() {
+        return conexiones.get();
+    }
+
+    public int getMensajes() {
+        return mensajes.get();
+    }
+
+    private void aceptar() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                // Las respuestas SMTP son cortas; sin esto Nagle las demora y mide la pila TCP, no el envío
+                socket.setTcpNoDelay(true);
+                sesiones.execute(() -> atender(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void atender(Socket socket) {
+        conexiones.incrementAndGet();
+        try (socket;
+             BufferedReader entrada = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             PrintWriter salida = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+            Thread.sleep(retardoConexionMs);
+            responder(salida, "220 localhost SMTP de prueba");
+
+            boolean conDestinatario = false;
+            String linea;
+            while ((linea = entrada.readLine()) != null) {
+                String comando = linea.toUpperCase(Locale.ROOT);
+                if (comando.startsWith("RCPT TO:")) {
+                    String email = linea.substring(8).replaceAll("[<>\\s]", "").toLowerCase(Locale.ROOT);
+                    if (rechazados.contains(email)) {
+                        responder(salida, "550 5.1.1 Destinatario inexistente");
+                    } else {
+                        conDestinatario = true;
+                        responder(salida, "250 OK");
+                    }
+                } else if (comando.equals("DATA")) {
+                    if (!conDestinatario) {
+                        responder(salida, "554 Sin destinatarios válidos");
+                        continue;
+                    }
+                    responder(salida, "354 Terminar con <CRLF>.<CRLF>");
+                    while ((linea = entrada.readLine()) != null && !linea.equals(".")) {
+                        // El contenido del mensaje no se guarda
+                    }
+                    mensajes.incrementAndGet();
+                    conDestinatario = false;
+                    responder(salida, "250 OK");
+                } else if (comando.startsWith("RSET") || comando.startsWith("MAIL FROM:")) {
+                    conDestinatario = false;
+                    responder(salida, "250 OK");
+                } else if (comando.equals("QUIT")) {
+                    responder(salida, "221 Adiós");
+                    return;
+                } else {
+                    // EHLO, HELO, NOOP y cualquier otro comando
+                    responder(salida, "250 OK");
+                }
+            }
+        } catch (IOException e) {
+            // El cliente cerró la conexión
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void responder(PrintWriter salida, String respuesta) {
+        salida.print(respuesta + "\r\n");
+        salida.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        sesiones.shutdownNow();
+    }
+}
@@ -6,6 +6,7 @@ import { useNavigate } from "react-router-dom";
 import Button from "@mui/material/Button";
 import TextField from "@mui/material/TextField";
 import MenuItem from "@mui/material/MenuItem";
+import Autocomplete from "@mui/material/Autocomplete";
 import CircularProgress from "@mui/material/CircularProgress";
 import Alert from "@mui/material/Alert";
 import Snackbar from "@mui/material/Snackbar";
@@ -23,7 +24,9 @@ import ConfirmDialog from "./common/ConfirmDialog";
 import AppBreadcrumbs from "./common/AppBreadcrumbs";
 
 const AddEditReserva = () => {
-  const [clientes, setClientes] = useState([]);
+  const [opcionesClientes, setOpcionesClientes] = useState([]);
+  const [clientesElegidos, setClientesElegidos] = useState([]);
+  const [busquedaCliente, setBusquedaCliente] = useState("");
   const [karts, setKarts] = useState([]);
   const [selectedClientes, setSelectedClientes] = useState([]);
   const [selectedKarts, setSelectedKarts] = useState([]);
@@ -36,6 +39,7 @@ const AddEditReserva = () => {
   const [error, setError] = useState(null);
   const [showCancelDialog, setShowCancelDialog] = useState(false);
   const [hasUnsavedChanges, setHasUnsavedChanges] = useState(false);
+  const [cotizacion, setCotizacion] = useState(null);
   const navigate = useNavigate();
 
   const planes = [
@@ -48,14 +52,80 @@ const AddEditReserva = () => {
     loadInitialData();
   }, []);
 
+  // Vuelve a cotizar con cada cambio que afecta el precio; el backend no guarda nada
+  useEffect(() => {
+    if (selectedClientes.length === 0 || !numeroVueltas || !fechaReserva) {
+      setCotizacion(null);
+      return;
+    }
+    let vigente = true;
+    reservaService
+      .cotizar({
+        clientes: selectedClientes.map((id) => ({ id })),
+        numeroVueltas: Number(numeroVueltas),
+        fechaReserva,
+      })
+      .then((response) => {
+        if (vigente) setCotizacion(response.data);
+      })
+      .catch(() => {
+        if (vigente) setCotizacion(null);
+      });
+    return () => {
+      vigente = false;
+    };
+  }, [selectedClientes, numeroVueltas, fechaReserva]);
+
+  // Busca clientes en el backend mientras se escribe, con una pausa para no consultar en cada tecla
+  useEffect(() => {
+    const texto = busquedaCliente.trim();
+    if (texto.length < 3) {
+      setOpcionesClientes([]);
+      return;
+    }
+    let vigente = true;
+    const espera = setTimeout(() => {
+      clienteService
+        .buscar(texto)
+        .then((response) => {
+          if (vigente) setOpcionesClientes(response.data);
+        })
+        .catch((error) => {
+          console.error("Error al buscar clientes:", error);
+        });
+    }, 250);
+    return () => {
+      vigente = false;
+      clearTimeout(espera);
+    };
+  }, [busquedaCliente]);
+
+  // Con fecha y hora elegidas se muestran solo los karts libres en ese horario
+  useEffect(() => {
+    if (!fechaReserva || !horaReserva) {
+      return;
+    }
+    let vigente = true;
+    kartService
+      .getDisponibles(fechaReserva, horaReserva, numeroVueltas || undefined)
+      .then((response) => {
+        if (!vigente) return;
+        const libres = response.data;
+        setKarts(libres);
+        setSelectedKarts((seleccionados) => seleccionados.filter((id) => libres.some((kart) => kart.id === id)));
+      })
+      .catch((error) => {
+        console.error("Error al consultar karts disponibles:", error);
+      });
+    return () => {
+      vigente = false;
+    };
+  }, [fechaReserva, horaReserva, numeroVueltas]);
+
   const loadInitialData = () => {
     setLoadingData(true);
-    Promise.all([
-      clienteService.getAll(),
-      kartService.getAll()
-    ])
-    .then(([clientesResponse, kartsResponse]) => {
-      setClientes(clientesResponse.data);
+    kartService.getAll()
+    .then((kartsResponse) => {
       setKarts(kartsResponse.data.filter(kart => kart.estado === 'disponible'));
       setLoadingData(false);
     })
@@ -109,6 +179,8 @@ const AddEditReserva = () => {
 
   const resetForm = () => {
     setSelectedClientes([]);
+    setClientesElegidos([]);
+    setBusquedaCliente("");
     setSelectedKarts([]);
     setNumeroVueltas("");
     setFechaReserva("");
@@ -252,35 +324,34 @@ const AddEditReserva = () => {
                 Recuerda: El número de clientes debe coincidir exactamente con el número de go-karts seleccionados.
               </Alert>
 
-              <TextField
-                select
-                label="Seleccionar Clientes"
-                value={selectedClientes}
-                onChange={(e) => handleFieldChange('clientes', e.target.value)}
-                fullWidth
-                margin="normal"
-                disabled={loading}
-                helperText={`${selectedClientes.length} cliente(s) seleccionado(s)`}
-                SelectProps={{
-                  multiple: true,
-                  renderValue: (selected) => (
-                    <Box sx={{ display: 'flex', flexWrap: 'wrap', gap: 0.5 }}>
-                      {selected.map((value) => {
-                        const cliente = clientes.find(c => c.id === value);
-                        return (
-                          <Chip key={value} label={cliente?.nombre || value} size="small" />
-                        );
-                      })}
-                    </Box>
-                  ),
+              <Autocomplete
+                multiple
+                options={opcionesClientes}
+                value={clientesElegidos}
+                filterOptions={(opciones) => opciones}
+                getOptionLabel={(cliente) => `${cliente.nombre} - ${cliente.email}`}
+                isOptionEqualToValue={(opcion, valor) => opcion.id === valor.id}
+                onChange={(e, elegidos) => {
+                  setClientesElegidos(elegidos);
+                  handleFieldChange('clientes', elegidos.map((cliente) => cliente.id));
                 }}
-              >
-                {clientes.map((cliente) => (
-                  <MenuItem key={cliente.id} value={cliente.id}>
-                    {cliente.nombre} - {cliente.email}
-                  </MenuItem>
-                ))}
-              </TextField>
+                onInputChange={(e, texto) => setBusquedaCliente(texto)}
+                noOptionsText={busquedaCliente.trim().length < 3 ? "Escribe al menos 3 letras del nombre o correo" : "Sin coincidencias"}
+                disabled={loading}
+                renderTags={(elegidos, getTagProps) =>
+                  elegidos.map((cliente, index) => (
+                    <Chip {...getTagProps({ index })} key={cliente.id} label={cliente.nombre} size="small" />
+                  ))
+                }
+                renderInput={(params) => (
+                  <TextField
+                    {...params}
+                    label="Seleccionar Clientes"
+                    margin="normal"
+                    helperText={`${selectedClientes.length} cliente(s) seleccionado(s)`}
+                  />
+                )}
+              />
 
               <TextField
                 select
@@ -385,6 +456,25 @@ const AddEditReserva = () => {
                         • Fecha y hora: {fechaReserva} a las {horaReserva}
                       </Typography>
                     )}
+                    {cotizacion && (
+                      <>
+                        {cotizacion.clientes.map((detalle) => (
+                          <Typography variant="body2" key={detalle.clienteId} sx={{ pl: 2 }}>
+                            {detalle.nombre}: ${detalle.precio.toLocaleString('es-CL')}
+                            {detalle.descuentoPorVisitas + detalle.descuentoPorCumpleaños > 0 &&
+                              ` (${detalle.descuentoPorVisitas + detalle.descuentoPorCumpleaños}% dcto.)`}
+                          </Typography>
+                        ))}
+                        {cotizacion.descuentoPorPersonas > 0 && (
+                          <Typography variant="body2">
+                            • Descuento por grupo: {cotizacion.descuentoPorPersonas}%
+                          </Typography>
+                        )}
+                        <Typography variant="body2" sx={{ fontWeight: 'bold' }}>
+                          • Total: ${cotizacion.precioFinal.toLocaleString('es-CL')}
+                        </Typography>
+                      </>
+                    )}
                   </CardContent>
                 </Card>
               )}
@@ -23,6 +23,8 @@ import PeopleIcon from "@mui/icons-material/People";
 
 const ClienteList = () => {
   const [clientes, setClientes] = useState([]);
+  const [siguienteCursor, setSiguienteCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
   const [deleteDialog, setDeleteDialog] = useState({ open: false, cliente: null });
@@ -34,12 +36,14 @@ const ClienteList = () => {
     loadClientes();
   }, []);
 
+  // Primera página del listado; las siguientes se agregan con "Cargar más"
   const loadClientes = () => {
     setLoading(true);
     clienteService
-      .getAll()
+      .getPagina()
       .then((response) => {
-        setClientes(response.data);
+        setClientes(response.data.elementos);
+        setSiguienteCursor(response.data.siguienteCursor);
         setLoading(false);
       })
       .catch((error) => {
@@ -49,6 +53,22 @@ const ClienteList = () => {
       });
   };
 
+  const cargarMas = () => {
+    setLoadingMore(true);
+    clienteService
+      .getPagina(siguienteCursor)
+      .then((response) => {
+        setClientes((anteriores) => [...anteriores, ...response.data.elementos]);
+        setSiguienteCursor(response.data.siguienteCursor);
+        setLoadingMore(false);
+      })
+      .catch((error) => {
+        setLoadingMore(false);
+        setError("Error al cargar más clientes. Por favor intenta nuevamente.");
+        console.error("Error al cargar más clientes:", error);
+      });
+  };
+
   const handleDeleteClick = (cliente) => {
     setDeleteDialog({ open: true, cliente });
   };
@@ -217,6 +237,19 @@ const ClienteList = () => {
           </Table>
         </TableContainer>
 
+        {siguienteCursor && (
+          <Box sx={{ display: 'flex', justifyContent: 'center', mt: 2 }}>
+            <Button
+              variant="outlined"
+              onClick={cargarMas}
+              disabled={loadingMore}
+              startIcon={loadingMore ? <CircularProgress size={16} /> : null}
+            >
+              {loadingMore ? "Cargando..." : "Cargar más"}
+            </Button>
+          </Box>
+        )}
+
         {/* Dialog de confirmación para eliminar */}
         <ConfirmDialog
           open={deleteDialog.open}
@@ -16,16 +16,19 @@ import Box from "@mui/material/Box";
 
 const KartList = () => {
   const [karts, setKarts] = useState([]);
+  const [siguienteCursor, setSiguienteCursor] = useState(null);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
   const navigate = useNavigate();
 
-  useEffect(() => {
+  // Sin cursor trae la primera página; con cursor agrega la siguiente al final
+  const cargarPagina = (cursor) => {
     setLoading(true);
     kartService
-      .getAll()
+      .getPagina(cursor)
       .then((response) => {
-        setKarts(response.data);
+        setKarts((anteriores) => (cursor ? [...anteriores, ...response.data.elementos] : response.data.elementos));
+        setSiguienteCursor(response.data.siguienteCursor);
         setLoading(false);
       })
       .catch((error) => {
@@ -33,9 +36,13 @@ const KartList = () => {
         setLoading(false);
         console.error("Error al cargar los karts:", error);
       });
+  };
+
+  useEffect(() => {
+    cargarPagina(null);
   }, []);
 
-  if (loading) {
+  if (loading && karts.length === 0) {
     return (
       <Box
         display="flex"
@@ -92,6 +99,17 @@ const KartList = () => {
           </TableBody>
         </Table>
       </TableContainer>
+
+      {siguienteCursor && (
+        <Button
+          variant="outlined"
+          onClick={() => cargarPagina(siguienteCursor)}
+          disabled={loading}
+          style={{ marginTop: "20px" }}
+        >
+          {loading ? "Cargando..." : "Cargar más"}
+        </Button>
+      )}
     </div>
   );
 };
@@ -99,7 +99,7 @@ const RackSemanal = () => {
     
     return {
       disponible: false,
-      info: reservas.map(r => `Reserva #${r.id} - ${r.clientes.length} cliente(s)`).join(", ")
+      info: reservas.map(r => `Reserva #${r.id} - ${r.numeroPersonas} cliente(s)`).join(", ")
     };
   };
 
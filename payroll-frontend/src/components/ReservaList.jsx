@@ -12,6 +12,7 @@ import Paper from "@mui/material/Paper";
 import Button from "@mui/material/Button";
 import AddIcon from "@mui/icons-material/Add";
 import EmailIcon from "@mui/icons-material/Email";
+import PrintIcon from "@mui/icons-material/Print";
 import EditIcon from "@mui/icons-material/Edit";
 import DeleteIcon from "@mui/icons-material/Delete";
 import CircularProgress from "@mui/material/CircularProgress";
@@ -26,6 +27,8 @@ import EventIcon from "@mui/icons-material/Event";
 
 const ReservaList = () => {
   const [reservas, setReservas] = useState([]);
+  const [siguienteCursor, setSiguienteCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
   const [sendingEmail, setSendingEmail] = useState({});
@@ -41,12 +44,14 @@ const ReservaList = () => {
     loadReservas();
   }, []);
 
+  // Primera página del listado; las siguientes se agregan con "Cargar más"
   const loadReservas = () => {
     setLoading(true);
     reservaService
-      .getAll()
+      .getPagina()
       .then((response) => {
-        setReservas(response.data);
+        setReservas(response.data.elementos);
+        setSiguienteCursor(response.data.siguienteCursor);
         setLoading(false);
       })
       .catch((error) => {
@@ -56,6 +61,22 @@ const ReservaList = () => {
       });
   };
 
+  const cargarMas = () => {
+    setLoadingMore(true);
+    reservaService
+      .getPagina(siguienteCursor)
+      .then((response) => {
+        setReservas((anteriores) => [...anteriores, ...response.data.elementos]);
+        setSiguienteCursor(response.data.siguienteCursor);
+        setLoadingMore(false);
+      })
+      .catch((error) => {
+        setLoadingMore(false);
+        setError("Error al cargar más reservas. Por favor intenta nuevamente.");
+        console.error("Error al cargar más reservas:", error);
+      });
+  };
+
   const handleEmailClick = (reservaId) => {
     setEmailDialog({ open: true, reservaId });
   };
@@ -250,20 +271,20 @@ const ReservaList = () => {
                         #{reserva.id}
                       </TableCell>
                       <TableCell>
-                        {reserva.clientes.map((cliente, index) => (
+                        {reserva.clientes.map((nombre, index) => (
                           <Chip 
                             key={index}
-                            label={cliente.nombre}
+                            label={nombre}
                             size="small"
                             sx={{ mr: 0.5, mb: 0.5 }}
                           />
                         ))}
                       </TableCell>
                       <TableCell>
-                        {reserva.karts.map((kart, index) => (
+                        {reserva.karts.map((codigo, index) => (
                           <Chip 
                             key={index}
-                            label={kart.codigo}
+                            label={codigo}
                             size="small"
                             color="primary"
                             variant="outlined"
@@ -312,6 +333,14 @@ const ReservaList = () => {
                           >
                             {sendingEmail[reserva.id] ? "Enviando..." : "Enviar"}
                           </Button>
+                          <Button
+                            variant="outlined"
+                            size="small"
+                            startIcon={<PrintIcon />}
+                            onClick={() => window.open(reservaService.getComprobanteUrl(reserva.id), "_blank")}
+                          >
+                            Imprimir
+                          </Button>
                           <Button
                             variant="outlined"
                             color="error"
@@ -331,6 +360,19 @@ const ReservaList = () => {
           </Table>
         </TableContainer>
 
+        {siguienteCursor && (
+          <Box sx={{ display: 'flex', justifyContent: 'center', mt: 2 }}>
+            <Button
+              variant="outlined"
+              onClick={cargarMas}
+              disabled={loadingMore}
+              startIcon={loadingMore ? <CircularProgress size={16} /> : null}
+            >
+              {loadingMore ? "Cargando..." : "Cargar más"}
+            </Button>
+          </Box>
+        )}
+
         {/* Dialog de confirmación para email */}
         <ConfirmDialog
           open={emailDialog.open}
@@ -363,7 +405,7 @@ const ReservaList = () => {
           onClose={() => setEmailSuccess(false)}
         >
           <Alert severity="success" onClose={() => setEmailSuccess(false)}>
-            Comprobante enviado exitosamente
+            Comprobante en cola de envío
           </Alert>
         </Snackbar>
 
@@ -4,10 +4,25 @@ const getAll = () => {
   return httpClient.get("/api/clientes");
 };
 
+// Listado por cursor: sin cursor trae la primera página; la respuesta trae siguienteCursor
+const getPagina = (cursor, tamano) => {
+  return httpClient.get("/api/clientes/pagina", { params: { cursor, tamano } });
+};
+
+// Coincidencias por parte del nombre o del correo (mínimo 3 caracteres)
+const buscar = (q, tamano) => {
+  return httpClient.get("/api/clientes/buscar", { params: { q, tamano } });
+};
+
 const create = (data) => {
   return httpClient.post("/api/clientes", data);
 };
 
+// Carga masiva desde un archivo CSV (nombre,email,fechaNacimiento,numeroVisitas)
+const importar = (archivo) => {
+  return httpClient.post("/api/clientes/importar", archivo, { headers: { "Content-Type": "text/csv" } });
+};
+
 const get = (id) => {
   return httpClient.get(`/api/clientes/${id}`);
 };
@@ -20,4 +35,4 @@ const remove = (id) => {
   return httpClient.delete(`/api/clientes/${id}`);
 };
 
-export default { getAll, create, get, update, remove };
\ No newline at end of file
+export default { getAll, getPagina, buscar, create, importar, get, update, remove };
\ No newline at end of file
@@ -4,6 +4,16 @@ const getAll = () => {
   return httpClient.get("/api/karts");
 };
 
+// Listado por cursor: sin cursor trae la primera página; la respuesta trae siguienteCursor
+const getPagina = (cursor, tamano) => {
+  return httpClient.get("/api/karts/pagina", { params: { cursor, tamano } });
+};
+
+// Karts libres a esa fecha y hora; con numeroVueltas se revisa toda la duración de la tarifa
+const getDisponibles = (fecha, hora, numeroVueltas) => {
+  return httpClient.get("/api/karts/disponibles", { params: { fecha, hora, numeroVueltas } });
+};
+
 const create = (data) => {
   return httpClient.post("/api/karts", data);
 };
@@ -20,4 +30,4 @@ const remove = (id) => {
   return httpClient.delete(`/api/karts/${id}`);
 };
 
-export default { getAll, create, get, update, remove };
\ No newline at end of file
+export default { getAll, getPagina, getDisponibles, create, get, update, remove };
\ No newline at end of file
@@ -4,6 +4,11 @@ const getAll = () => {
   return httpClient.get("/api/reservas");
 };
 
+// Listado por cursor: sin cursor trae la primera página; la respuesta trae siguienteCursor
+const getPagina = (cursor, tamano) => {
+  return httpClient.get("/api/reservas/pagina", { params: { cursor, tamano } });
+};
+
 const create = (data) => {
   return httpClient.post("/api/reservas", data);
 };
@@ -20,18 +25,35 @@ const remove = (id) => {
   return httpClient.delete(`/api/reservas/${id}`);
 };
 
+// Calcula el precio con el desglose por cliente sin crear la reserva
+const cotizar = (data) => {
+  return httpClient.post("/api/reservas/cotizar", data);
+};
+
 const getRackSemanal = (fechaInicio, fechaFin) => {
   return httpClient.get("/api/reservas/rack-semanal", {
     params: { fechaInicio, fechaFin }
   });
 };
 
+// Primeros bloques del rango con karts libres para todo el grupo, en orden cronológico
+const getHorariosLibres = (personas, numeroVueltas, inicio, fin, cantidad) => {
+  return httpClient.get("/api/reservas/horarios-libres", {
+    params: { personas, numeroVueltas, inicio, fin, cantidad }
+  });
+};
+
 const enviarComprobante = (reservaId) => {
   httpClient.post(`/api/reservas/${reservaId}/enviar-comprobante`)
-    .then(() => alert("Comprobante enviado correctamente"))
+    .then(() => alert("Comprobante en cola de envío"))
     .catch((error) => alert("Error al enviar el comprobante: " + error.message));
 };
 
+// El navegador abre el PDF directamente desde el backend, sin pasar por axios
+const getComprobanteUrl = (reservaId) => {
+  return `${httpClient.defaults.baseURL}/api/reservas/${reservaId}/comprobante`;
+};
+
 const getReporteIngresosPorVueltas = (inicio, fin) => {
   return httpClient.get(`/api/reservas/reporte-ingresos-vueltas`, {
     params: { inicio, fin },
@@ -44,4 +66,4 @@ const getReporteIngresosPorPersonas = (inicio, fin) => {
   });
 };
 
-export default { getAll, create, get, update, remove, getRackSemanal, enviarComprobante, getReporteIngresosPorVueltas, getReporteIngresosPorPersonas };
\ No newline at end of file
+export default { getAll, getPagina, create, cotizar, get, update, remove, getRackSemanal, getHorariosLibres, enviarComprobante, getComprobanteUrl, getReporteIngresosPorVueltas, getReporteIngresosPorPersonas };
\ No newline at end of file